@@ -105,6 +105,21 @@ import org.restlet.util.Series;
  * <td>Java security provider name (see java.security.Provider class).</td>
  * </tr>
  * <tr>
+ * <td>sessionCacheSize</td>
+ * <td>int</td>
+ * <td>-1 (see javax.net.ssl.SSLSessionContext)</td>
+ * <td>Maximum number of SSL sessions cached for resumption, 0 meaning no
+ * limit. Sizing it for the number of returning clients lets them reconnect
+ * with abbreviated handshakes.</td>
+ * </tr>
+ * <tr>
+ * <td>sessionTimeout</td>
+ * <td>int</td>
+ * <td>-1 (see javax.net.ssl.SSLSessionContext)</td>
+ * <td>Time in seconds after which the cached SSL sessions can't be resumed
+ * anymore, 0 meaning no limit.</td>
+ * </tr>
+ * <tr>
  * <td>sslProtocol</td>
  * <td>String</td>
  * <td>TLS</td>
@@ -329,6 +344,7 @@ public class DefaultSslContextFactory extends SslContextFactory {
 
         sslContext.init(kmf != null ? kmf.getKeyManagers() : null,
                 tmf != null ? tmf.getTrustManagers() : null, sr);
+        initSessionContexts(sslContext);
 
         // Wraps the SSL context to be able to set cipher suites and other
         // properties after SSL engine creation for example
@@ -606,6 +622,11 @@ public class DefaultSslContextFactory extends SslContextFactory {
                 .getFirstValue("needClientAuthentication", true, "false")));
         setWantClientAuthentication(Boolean.parseBoolean(helperParameters
                 .getFirstValue("wantClientAuthentication", true, "false")));
+
+        setSessionCacheSize(Integer.parseInt(helperParameters.getFirstValue(
+                "sessionCacheSize", true, "-1")));
+        setSessionTimeout(Integer.parseInt(helperParameters.getFirstValue(
+                "sessionTimeout", true, "-1")));
     }
 
     /**
@@ -50,6 +50,7 @@ import org.restlet.engine.connector.OutboundWay;
 import org.restlet.ext.ssl.internal.HttpsClientInboundWay;
 import org.restlet.ext.ssl.internal.HttpsClientOutboundWay;
 import org.restlet.ext.ssl.internal.SslConnection;
+import org.restlet.ext.ssl.internal.SslTaskService;
 import org.restlet.ext.ssl.internal.SslUtils;
 
 /**
@@ -70,9 +71,30 @@ import org.restlet.ext.ssl.internal.SslUtils;
  * parameter, or an instance as an attribute for a more complete and flexible
  * SSL context setting.</td>
  * </tr>
+ * <tr>
+ * <td>sslTaskThreads</td>
+ * <td>int</td>
+ * <td>Number of available processors</td>
+ * <td>Number of threads dedicated to the delegated tasks of SSL handshakes,
+ * separately from the worker service processing the calls.</td>
+ * </tr>
+ * <tr>
+ * <td>sslTaskMaxQueued</td>
+ * <td>int</td>
+ * <td>-1</td>
+ * <td>Maximum number of delegated tasks waiting for a thread. A negative value
+ * means an unbounded queue. When the queue is full, the connection requesting
+ * the task is closed.</td>
+ * </tr>
  * </table>
  * For the default SSL parameters see the Javadocs of the
- * {@link DefaultSslContextFactory} class.
+ * {@link DefaultSslContextFactory} class.<br>
+ * <br>
+ * When started, the service running the delegated tasks is available in the
+ * connector's context, under the "org.restlet.ext.ssl.taskService" attribute.
+ * It also collects statistics on the handshakes, and is registered as a JMX
+ * MBean along with the worker service when the "workerServiceMBean" parameter
+ * is enabled.
  * 
  * @author Jerome Louvel
  */
@@ -81,6 +103,9 @@ public class HttpsClientHelper extends ClientConnectionHelper {
     /** The SSL context. */
     private volatile SSLContext sslContext;
 
+    /** The service running the delegated tasks of SSL handshakes. */
+    private volatile SslTaskService sslTaskService;
+
     /**
      * Constructor.
      * 
@@ -107,7 +132,7 @@ public class HttpsClientHelper extends ClientConnectionHelper {
         }
 
         return new SslConnection<Client>(this, socketChannel, controller,
-                socketAddress, engine);
+                socketAddress, engine, getSslTaskService());
     }
 
     @Override
@@ -131,6 +156,15 @@ public class HttpsClientHelper extends ClientConnectionHelper {
         return sslContext;
     }
 
+    /**
+     * Returns the service running the delegated tasks of SSL handshakes.
+     * 
+     * @return The service running the delegated tasks of SSL handshakes.
+     */
+    public SslTaskService getSslTaskService() {
+        return sslTaskService;
+    }
+
     /**
      * Sets the SSL context.
      * 
@@ -141,11 +175,49 @@ public class HttpsClientHelper extends ClientConnectionHelper {
         this.sslContext = sslContext;
     }
 
+    /**
+     * Sets the service running the delegated tasks of SSL handshakes.
+     * 
+     * @param sslTaskService
+     *            The service running the delegated tasks of SSL handshakes.
+     */
+    protected void setSslTaskService(SslTaskService sslTaskService) {
+        this.sslTaskService = sslTaskService;
+    }
+
     @Override
     public synchronized void start() throws Exception {
         SslContextFactory factory = SslUtils.getSslContextFactory(this);
         setSslContext(factory.createSslContext());
+        setSslTaskService(SslUtils.createTaskService(this));
         super.start();
+
+        if (getContext() != null) {
+            getContext().getAttributes().put(
+                    "org.restlet.ext.ssl.taskService", getSslTaskService());
+        }
+
+        // [ifndef gae,android]
+        if (isWorkerServiceMBean()) {
+            SslUtils.registerTaskService(this, getSslTaskService());
+        }
+        // [enddef]
+    }
+
+    @Override
+    public synchronized void stop() throws Exception {
+        super.stop();
+
+        if (getSslTaskService() != null) {
+            // [ifndef gae,android] instruction
+            SslUtils.unregisterTaskService(this);
+            getSslTaskService().shutdown();
+
+            if (getContext() != null) {
+                getContext().getAttributes().remove(
+                        "org.restlet.ext.ssl.taskService");
+            }
+        }
     }
 
 }
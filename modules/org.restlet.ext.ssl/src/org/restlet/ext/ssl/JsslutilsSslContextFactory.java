@@ -72,7 +72,9 @@ public class JsslutilsSslContextFactory extends SslContextFactory {
      */
     @Override
     public SSLContext createSslContext() throws Exception {
-        return this.sslContextFactory.buildSSLContext();
+        SSLContext result = this.sslContextFactory.buildSSLContext();
+        initSessionContexts(result);
+        return result;
     }
 
     /**
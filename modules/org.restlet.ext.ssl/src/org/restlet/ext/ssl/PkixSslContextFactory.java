@@ -72,7 +72,10 @@ public class PkixSslContextFactory extends SslContextFactory {
     @Override
     public SSLContext createSslContext() throws Exception {
         synchronized (this) {
-            return this.sslContextFactory.buildSSLContext(this.sslProtocol);
+            SSLContext result = this.sslContextFactory
+                    .buildSSLContext(this.sslProtocol);
+            initSessionContexts(result);
+            return result;
         }
     }
 
@@ -167,6 +170,20 @@ public class PkixSslContextFactory extends SslContextFactory {
      * <td>URL of CRL to load (there can be multiple occurrences of this
      * parameter).</td>
      * </tr>
+     * <tr>
+     * <td>sessionCacheSize</td>
+     * <td>int</td>
+     * <td>-1 (provider default)</td>
+     * <td>Maximum number of SSL sessions cached for resumption, 0 meaning no
+     * limit</td>
+     * </tr>
+     * <tr>
+     * <td>sessionTimeout</td>
+     * <td>int</td>
+     * <td>-1 (provider default)</td>
+     * <td>Timeout of the cached SSL sessions in seconds, 0 meaning no
+     * limit</td>
+     * </tr>
      * </table>
      * 
      * @param parameters
@@ -225,6 +242,11 @@ public class PkixSslContextFactory extends SslContextFactory {
         boolean disableRevocation = Boolean.parseBoolean(parameters
                 .getFirstValue("disableCrl"));
 
+        setSessionCacheSize(Integer.parseInt(parameters.getFirstValue(
+                "sessionCacheSize", "-1")));
+        setSessionTimeout(Integer.parseInt(parameters.getFirstValue(
+                "sessionTimeout", "-1")));
+
         try {
             KeyStore keyStore = keyStoreLoader.loadKeyStore();
             KeyStore trustStore = trustStoreLoader.loadKeyStore();
@@ -34,6 +34,7 @@
 package org.restlet.ext.ssl;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 
 import org.restlet.data.Parameter;
 import org.restlet.util.Series;
@@ -50,11 +51,23 @@ import org.restlet.util.Series;
  *    return sslContext;
  * </pre>
  * 
+ * The caching of SSL sessions, which lets returning peers resume a previous
+ * session with an abbreviated handshake, can be tuned via
+ * {@link #setSessionCacheSize(int)} and {@link #setSessionTimeout(int)}.
+ * Implementations apply these settings to the contexts they create by calling
+ * {@link #initSessionContexts(SSLContext)}.
+ * 
  * @author Bruno Harbulot (Bruno.Harbulot@manchester.ac.uk)
  * @see SSLContext
  */
 public abstract class SslContextFactory {
 
+    /** The maximum number of cached SSL sessions, or -1 for the default. */
+    private volatile int sessionCacheSize = -1;
+
+    /** The timeout of the cached SSL sessions in seconds, or -1. */
+    private volatile int sessionTimeout = -1;
+
     /**
      * Creates a configured and initialized SSLContext.
      * 
@@ -63,6 +76,27 @@ public abstract class SslContextFactory {
      */
     public abstract SSLContext createSslContext() throws Exception;
 
+    /**
+     * Returns the maximum number of SSL sessions cached for resumption, zero
+     * meaning no limit and -1 keeping the default of the JSSE provider.
+     * 
+     * @return The maximum number of cached SSL sessions.
+     */
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * Returns the time in seconds after which the cached SSL sessions can't be
+     * resumed anymore, zero meaning no limit and -1 keeping the default of the
+     * JSSE provider.
+     * 
+     * @return The timeout of the cached SSL sessions in seconds.
+     */
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
     /**
      * Initialize the factory with the given connector parameters.
      * 
@@ -71,4 +105,52 @@ public abstract class SslContextFactory {
      */
     public abstract void init(Series<Parameter> parameters);
 
+    /**
+     * Applies the session cache size and timeout, if set, to the client and
+     * server session contexts of the given SSL context.
+     * 
+     * @param sslContext
+     *            The SSL context to configure.
+     */
+    protected void initSessionContexts(SSLContext sslContext) {
+        SSLSessionContext[] sessionContexts = {
+                sslContext.getClientSessionContext(),
+                sslContext.getServerSessionContext() };
+
+        for (SSLSessionContext sessionContext : sessionContexts) {
+            if (sessionContext != null) {
+                if (getSessionCacheSize() >= 0) {
+                    sessionContext.setSessionCacheSize(getSessionCacheSize());
+                }
+
+                if (getSessionTimeout() >= 0) {
+                    sessionContext.setSessionTimeout(getSessionTimeout());
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum number of SSL sessions cached for resumption, zero
+     * meaning no limit and -1 keeping the default of the JSSE provider.
+     * 
+     * @param sessionCacheSize
+     *            The maximum number of cached SSL sessions.
+     */
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    /**
+     * Sets the time in seconds after which the cached SSL sessions can't be
+     * resumed anymore, zero meaning no limit and -1 keeping the default of the
+     * JSSE provider.
+     * 
+     * @param sessionTimeout
+     *            The timeout of the cached SSL sessions in seconds.
+     */
+    public void setSessionTimeout(int sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
 }
@@ -63,6 +63,15 @@ public class HttpsClientInboundWay extends HttpClientInboundWay {
         return (SslConnection<Client>) super.getConnection();
     }
 
+    /**
+     * Returns true during the SSL handshake, as the SSL connection then drives
+     * the IO states.
+     */
+    @Override
+    protected boolean isIoStateManaged() {
+        return getConnection().isSslHandshaking();
+    }
+
     @Override
     public void postProcess(int drained) throws IOException {
         getConnection().handleSslResult();
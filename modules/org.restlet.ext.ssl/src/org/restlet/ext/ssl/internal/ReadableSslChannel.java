@@ -70,8 +70,7 @@ public class ReadableSslChannel extends ReadableBufferedChannel implements
      */
     public ReadableSslChannel(ReadableSelectionChannel source,
             SslConnection<?> connection) {
-        super(null, new Buffer(connection.getPacketBufferSize(), connection
-                .getHelper().isDirectBuffers()), source);
+        super(null, connection.createPacketBuffer(), source);
 
         if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
             Context.getCurrentLogger().log(
@@ -122,4 +121,16 @@ public class ReadableSslChannel extends ReadableBufferedChannel implements
         getConnection().handleSslResult();
     }
 
+    /**
+     * Unwraps the available SSL packets into the target buffer. Once all the
+     * packet bytes are unwrapped, the packet buffer is returned to the buffer
+     * pool if any.
+     */
+    @Override
+    public int read(ByteBuffer targetBuffer) throws IOException {
+        int result = super.read(targetBuffer);
+        getBuffer().release();
+        return result;
+    }
+
 }
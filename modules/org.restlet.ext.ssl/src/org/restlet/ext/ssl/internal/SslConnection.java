@@ -40,6 +40,8 @@ import java.nio.channels.SocketChannel;
 import java.security.cert.Certificate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 
 import javax.net.ssl.SSLEngine;
@@ -51,9 +53,14 @@ import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 
 import org.restlet.Connector;
+import org.restlet.data.Status;
 import org.restlet.engine.connector.Connection;
 import org.restlet.engine.connector.ConnectionController;
 import org.restlet.engine.connector.ConnectionHelper;
+import org.restlet.engine.connector.ConnectionState;
+import org.restlet.engine.io.Buffer;
+import org.restlet.engine.io.BufferPool;
+import org.restlet.engine.io.BufferedSelectionChannel;
 import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableSelectionChannel;
 import org.restlet.engine.io.WritableSelectionChannel;
@@ -67,15 +74,27 @@ import org.restlet.engine.io.WritableSelectionChannel;
  */
 public class SslConnection<T extends Connector> extends Connection<T> {
 
+    /** The start time of the current handshake in nanoseconds, or 0. */
+    private volatile long handshakeStartTime;
+
     /** The peer address. */
     private volatile InetSocketAddress peerAddress;
 
+    /** The readable channel unwrapping the SSL packets. */
+    private volatile ReadableSslChannel readableSslChannel;
+
     /** The engine to use for wrapping and unwrapping. */
     private volatile SSLEngine sslEngine;
 
     /** The engine result. */
     private volatile SSLEngineResult sslEngineResult;
 
+    /** The service running the delegated tasks and collecting statistics. */
+    private volatile SslTaskService taskService;
+
+    /** The writable channel wrapping the SSL packets. */
+    private volatile WritableSslChannel writableSslChannel;
+
     /**
      * Constructor.
      * 
@@ -87,34 +106,99 @@ public class SslConnection<T extends Connector> extends Connection<T> {
      *            The IO controller.
      * @param socketAddress
      *            The associated IP address.
-     * 
-     * 
-     * 
+     * @param sslEngine
+     *            The engine to use for wrapping and unwrapping.
+     * @param taskService
+     *            The service running the delegated tasks of the handshakes.
+     *            If null, the connector's worker service is used.
      * @throws IOException
      */
     public SslConnection(ConnectionHelper<T> helper,
             SocketChannel socketChannel, ConnectionController controller,
-            InetSocketAddress socketAddress, SSLEngine sslEngine)
-            throws IOException {
+            InetSocketAddress socketAddress, SSLEngine sslEngine,
+            SslTaskService taskService) throws IOException {
         super(helper, socketChannel, controller, socketAddress, sslEngine
                 .getSession().getApplicationBufferSize(), sslEngine
                 .getSession().getApplicationBufferSize());
         this.sslEngine = sslEngine;
         this.sslEngineResult = null;
+        this.taskService = taskService;
         getSslEngine().setUseClientMode(isClientSide());
         initSslEngine();
+
+        if (socketChannel != null) {
+            onHandshakeStarted();
+        }
+    }
+
+    /**
+     * Clears the connection so it can be reused. The SSL packet buffers are
+     * discarded and returned to the buffer pool if any.
+     */
+    @Override
+    public void clear() {
+        release(this.readableSslChannel);
+        release(this.writableSslChannel);
+        this.readableSslChannel = null;
+        this.writableSslChannel = null;
+        super.clear();
+    }
+
+    @Override
+    public void close(boolean graceful) {
+        super.close(graceful);
+
+        if (getState() == ConnectionState.CLOSED) {
+            onHandshakeEnded(false);
+        }
+    }
+
+    /**
+     * Creates a buffer for the SSL packets. When the "pooledBuffers" parameter
+     * is enabled, its bytes are borrowed from the shared buffer pool only
+     * while packets are wrapped or unwrapped.
+     * 
+     * @return A new buffer for the SSL packets.
+     */
+    protected Buffer createPacketBuffer() {
+        BufferPool pool = getHelper().getBufferPool();
+        return (pool == null) ? new Buffer(getPacketBufferSize(), getHelper()
+                .isDirectBuffers()) : new Buffer(getPacketBufferSize(), pool);
     }
 
     @Override
     protected ReadableSelectionChannel createReadableSelectionChannel() {
-        return new ReadableSslChannel(super.createReadableSelectionChannel(),
-                this);
+        this.readableSslChannel = new ReadableSslChannel(
+                super.createReadableSelectionChannel(), this);
+        return this.readableSslChannel;
     }
 
     @Override
     protected WritableSelectionChannel createWritableSelectionChannel() {
-        return new WritableSslChannel(super.createWritableSelectionChannel(),
-                this);
+        this.writableSslChannel = new WritableSslChannel(
+                super.createWritableSelectionChannel(), this);
+        return this.writableSslChannel;
+    }
+
+    /**
+     * Returns the number of bytes currently held by the buffers of this
+     * connection, including the SSL packet buffers.
+     * 
+     * @return The number of bytes currently held by the connection buffers.
+     */
+    @Override
+    public int getAllocatedBytes() {
+        int result = super.getAllocatedBytes();
+
+        if (this.readableSslChannel != null) {
+            result += this.readableSslChannel.getBuffer().getAllocatedBytes();
+        }
+
+        if (this.writableSslChannel != null) {
+            result += this.writableSslChannel.getBuffer().getAllocatedBytes();
+        }
+
+        return result;
     }
 
     /**
@@ -267,6 +351,15 @@ public class SslConnection<T extends Connector> extends Connection<T> {
         return getSslEngine() == null ? null : getSslEngine().getSession();
     }
 
+    /**
+     * Returns the service running the delegated tasks of the handshakes.
+     * 
+     * @return The service running the delegated tasks of the handshakes.
+     */
+    public SslTaskService getTaskService() {
+        return taskService;
+    }
+
     /**
      * Handles the SSL handshake states based on the last result received.
      * 
@@ -297,6 +390,10 @@ public class SslConnection<T extends Connector> extends Connection<T> {
                 // Don't do anything
                 break;
             }
+        } else {
+            // The handshake may end without a FINISHED result, for example
+            // after delegated tasks
+            onHandshakeEnded(true);
         }
     }
 
@@ -366,6 +463,8 @@ public class SslConnection<T extends Connector> extends Connection<T> {
      * exchanged.
      */
     private void onFinished() {
+        onHandshakeEnded(true);
+
         if (isClientSide()) {
             getInboundWay().setIoState(IoState.IDLE);
             getOutboundWay().setIoState(IoState.INTEREST);
@@ -375,21 +474,63 @@ public class SslConnection<T extends Connector> extends Connection<T> {
         }
     }
 
+    /**
+     * Records the end of the current handshake, if any, in the statistics of
+     * the task service.
+     * 
+     * @param completed
+     *            True if the handshake completed, false if it was aborted.
+     */
+    private synchronized void onHandshakeEnded(boolean completed) {
+        long startTime = this.handshakeStartTime;
+
+        if (startTime != 0) {
+            this.handshakeStartTime = 0;
+
+            if (getTaskService() != null) {
+                if (completed) {
+                    getTaskService().onHandshakeCompleted(
+                            System.nanoTime() - startTime);
+                } else {
+                    getTaskService().onHandshakeFailed();
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the start of a handshake on the current socket. A previous
+     * handshake still going on is recorded as aborted.
+     */
+    private synchronized void onHandshakeStarted() {
+        onHandshakeEnded(false);
+        this.handshakeStartTime = System.nanoTime();
+
+        if (getTaskService() != null) {
+            getTaskService().onHandshakeStarted();
+        }
+    }
+
     /**
      * Runs the pending lengthy task.
      */
     private void onNeedTask() {
-        // Delegate lengthy tasks to the connector's worker
-        // service before checking again
+        // Delegate lengthy tasks to the SSL task service, or to the
+        // connector's worker service, before checking again
         final Runnable task = getSslEngine().getDelegatedTask();
 
         if (task != null) {
             // Suspend IO processing until the task completes
             getInboundWay().setIoState(IoState.IDLE);
             getOutboundWay().setIoState(IoState.IDLE);
+            Executor executor = getHelper().getWorkerService();
+
+            if ((getTaskService() != null) && !getTaskService().isShutdown()) {
+                executor = getTaskService();
+            }
 
-            // Runs the pending lengthy task.
-            getHelper().getWorkerService().execute(new Runnable() {
+            // Runs the pending lengthy task
+            Runnable runner = new Runnable() {
                 public void run() {
                     getLogger().log(Level.FINER, "Running delegated tasks...");
                     task.run();
@@ -417,7 +558,16 @@ public class SslConnection<T extends Connector> extends Connection<T> {
                                 "Unable to handle SSL handshake", e);
                     }
                 }
-            });
+            };
+
+            // If the task can't be accepted, the handshake would stall, so
+            // the connection is closed instead
+            try {
+                executor.execute(runner);
+            } catch (RejectedExecutionException e) {
+                onError("Unable to run the delegated SSL tasks", e,
+                        Status.CONNECTOR_ERROR_INTERNAL);
+            }
         }
     }
 
@@ -447,12 +597,31 @@ public class SslConnection<T extends Connector> extends Connection<T> {
         }
     }
 
+    /**
+     * Discards the content of the packet buffer of an SSL channel and returns
+     * its bytes to the buffer pool if any.
+     * 
+     * @param channel
+     *            The SSL channel or null.
+     */
+    private void release(BufferedSelectionChannel<?> channel) {
+        if (channel != null) {
+            Buffer buffer = channel.getBuffer();
+
+            synchronized (buffer.getLock()) {
+                buffer.clear();
+                buffer.release();
+            }
+        }
+    }
+
     @Override
     public void reuse(SocketChannel socketChannel,
             ConnectionController controller, InetSocketAddress socketAddress)
             throws IOException {
         setPeerAddress(socketAddress);
         initSslEngine();
+        onHandshakeStarted();
         super.reuse(socketChannel, controller, socketAddress);
     }
 
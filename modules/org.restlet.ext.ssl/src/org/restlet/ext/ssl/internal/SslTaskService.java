@@ -0,0 +1,191 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.ext.ssl.internal;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.restlet.engine.connector.WorkerService;
+
+/**
+ * Pool of threads dedicated to the delegated tasks of SSL handshakes, such as
+ * the key exchange computations or the certificate validations. Keeping them
+ * apart from the connector's worker service prevents a burst of handshakes
+ * from delaying the processing of calls, and conversely.<br>
+ * <br>
+ * The pool has a fixed number of threads. When its queue is full or once it
+ * is shut down, new tasks are rejected rather than run by the submitting
+ * thread, which is usually the IO selector thread, and the
+ * {@link SslConnection} requesting them is closed. In addition to the statistics of the
+ * executed tasks, it collects statistics on the handshakes reported by the
+ * {@link SslConnection} instances.
+ * 
+ * @author Jerome Louvel
+ */
+public class SslTaskService extends WorkerService implements
+        SslTaskServiceMBean {
+
+    /** The number of handshakes successfully completed. */
+    private final AtomicLong completedHandshakes;
+
+    /** The number of handshakes aborted before completion. */
+    private final AtomicLong failedHandshakes;
+
+    /** The histogram of the handshake durations. */
+    private final AtomicLongArray handshakeHistogram;
+
+    /** The upper bounds in milliseconds of the histogram buckets. */
+    private final long[] histogramBoundsMs;
+
+    /** The number of handshakes currently going on. */
+    private final AtomicInteger inFlightHandshakes;
+
+    /** The time of the last statistics reset, in nanoseconds. */
+    private volatile long resetTime;
+
+    /** The total duration of the completed handshakes, in nanoseconds. */
+    private final AtomicLong totalHandshakeTime;
+
+    /**
+     * Constructor.
+     * 
+     * @param threads
+     *            The number of threads.
+     * @param workQueue
+     *            The queue of the tasks waiting for a thread.
+     * @param threadFactory
+     *            The factory creating the threads.
+     */
+    public SslTaskService(int threads, BlockingQueue<Runnable> workQueue,
+            ThreadFactory threadFactory) {
+        super(threads, threads, 60, TimeUnit.SECONDS, workQueue, threadFactory);
+        this.completedHandshakes = new AtomicLong();
+        this.failedHandshakes = new AtomicLong();
+        this.histogramBoundsMs = getHistogramBoundsMs();
+        this.handshakeHistogram = new AtomicLongArray(
+                this.histogramBoundsMs.length + 1);
+        this.inFlightHandshakes = new AtomicInteger();
+        this.resetTime = System.nanoTime();
+        this.totalHandshakeTime = new AtomicLong();
+    }
+
+    public double getAverageHandshakeMs() {
+        long count = this.completedHandshakes.get();
+        return (count == 0) ? 0D : this.totalHandshakeTime.get()
+                / (double) count / 1000000D;
+    }
+
+    public long getCompletedHandshakeCount() {
+        return this.completedHandshakes.get();
+    }
+
+    public long getFailedHandshakeCount() {
+        return this.failedHandshakes.get();
+    }
+
+    public long[] getHandshakeHistogram() {
+        long[] result = new long[this.handshakeHistogram.length()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.handshakeHistogram.get(i);
+        }
+
+        return result;
+    }
+
+    public double getHandshakeThroughput() {
+        double elapsedSeconds = (System.nanoTime() - this.resetTime) / 1000000000D;
+        return (elapsedSeconds <= 0D) ? 0D : this.completedHandshakes.get()
+                / elapsedSeconds;
+    }
+
+    public int getInFlightHandshakeCount() {
+        return this.inFlightHandshakes.get();
+    }
+
+    /**
+     * Records the successful completion of a handshake.
+     * 
+     * @param duration
+     *            The duration of the handshake, in nanoseconds.
+     */
+    public void onHandshakeCompleted(long duration) {
+        int index = 0;
+
+        while ((index < this.histogramBoundsMs.length)
+                && (duration > this.histogramBoundsMs[index] * 1000000L)) {
+            index++;
+        }
+
+        this.handshakeHistogram.incrementAndGet(index);
+        this.totalHandshakeTime.addAndGet(duration);
+        this.completedHandshakes.incrementAndGet();
+        this.inFlightHandshakes.decrementAndGet();
+    }
+
+    /**
+     * Records the abortion of a handshake before its completion.
+     */
+    public void onHandshakeFailed() {
+        this.failedHandshakes.incrementAndGet();
+        this.inFlightHandshakes.decrementAndGet();
+    }
+
+    /**
+     * Records the start of a handshake.
+     */
+    public void onHandshakeStarted() {
+        this.inFlightHandshakes.incrementAndGet();
+    }
+
+    @Override
+    public void resetStatistics() {
+        super.resetStatistics();
+
+        for (int i = 0; i < this.handshakeHistogram.length(); i++) {
+            this.handshakeHistogram.set(i, 0);
+        }
+
+        this.completedHandshakes.set(0);
+        this.failedHandshakes.set(0);
+        this.resetTime = System.nanoTime();
+        this.totalHandshakeTime.set(0);
+    }
+
+}
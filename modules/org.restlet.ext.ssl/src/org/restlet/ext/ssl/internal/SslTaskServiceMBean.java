@@ -0,0 +1,93 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.ext.ssl.internal;
+
+import org.restlet.engine.connector.WorkerServiceMBean;
+
+/**
+ * Management interface of the service running the delegated tasks of SSL
+ * handshakes. Beside the statistics of the executed tasks, it exposes the
+ * latency, throughput and concurrency of the handshakes.
+ * 
+ * @author Jerome Louvel
+ */
+public interface SslTaskServiceMBean extends WorkerServiceMBean {
+
+    /**
+     * Returns the average duration of the completed handshakes, in
+     * milliseconds.
+     * 
+     * @return The average handshake duration in milliseconds.
+     */
+    double getAverageHandshakeMs();
+
+    /**
+     * Returns the number of handshakes successfully completed.
+     * 
+     * @return The number of handshakes successfully completed.
+     */
+    long getCompletedHandshakeCount();
+
+    /**
+     * Returns the number of handshakes aborted before completion.
+     * 
+     * @return The number of handshakes aborted before completion.
+     */
+    long getFailedHandshakeCount();
+
+    /**
+     * Returns the histogram of the handshake durations.
+     * 
+     * @return The histogram of the handshake durations.
+     * @see #getHistogramBoundsMs()
+     */
+    long[] getHandshakeHistogram();
+
+    /**
+     * Returns the number of handshakes completed per second since the
+     * statistics were last reset.
+     * 
+     * @return The number of handshakes completed per second.
+     */
+    double getHandshakeThroughput();
+
+    /**
+     * Returns the number of handshakes currently going on.
+     * 
+     * @return The number of handshakes currently going on.
+     */
+    int getInFlightHandshakeCount();
+
+}
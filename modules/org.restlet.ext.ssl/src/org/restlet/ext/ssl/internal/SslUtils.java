@@ -34,12 +34,18 @@
 package org.restlet.ext.ssl.internal;
 
 import java.util.StringTokenizer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
 import java.util.logging.Level;
 
 import org.restlet.Context;
 import org.restlet.engine.RestletHelper;
+import org.restlet.engine.connector.BaseHelper;
+import org.restlet.engine.log.LoggingThreadFactory;
 import org.restlet.ext.ssl.DefaultSslContextFactory;
 import org.restlet.ext.ssl.SslContextFactory;
 
@@ -53,6 +59,37 @@ public class SslUtils {
     /** Cache of SSL key sizes for various cipher suites. */
     private final static ConcurrentMap<String, Integer> keySizesCache = new ConcurrentHashMap<String, Integer>();
 
+    /**
+     * Creates the service running the delegated tasks of SSL handshakes. Its
+     * number of threads is given by the "sslTaskThreads" parameter of the
+     * helper, defaulting to the number of available processors, and its queue
+     * size by the "sslTaskMaxQueued" parameter, unbounded by default.
+     * 
+     * @param helper
+     *            The helper to use.
+     * @return The service running the delegated tasks of SSL handshakes.
+     */
+    public static SslTaskService createTaskService(BaseHelper<?> helper) {
+        int threads = Integer.parseInt(helper.getHelpedParameters()
+                .getFirstValue("sslTaskThreads",
+                        Integer.toString(Runtime.getRuntime()
+                                .availableProcessors())));
+        int maxQueued = Integer.parseInt(helper.getHelpedParameters()
+                .getFirstValue("sslTaskMaxQueued", "-1"));
+        BlockingQueue<Runnable> queue = null;
+
+        if (maxQueued == 0) {
+            queue = new SynchronousQueue<Runnable>();
+        } else if (maxQueued < 0) {
+            queue = new LinkedBlockingQueue<Runnable>();
+        } else {
+            queue = new ArrayBlockingQueue<Runnable>(maxQueued);
+        }
+
+        return new SslTaskService(threads, queue, new LoggingThreadFactory(
+                helper.getLogger(), true));
+    }
+
     /**
      * Extract the SSL key size of a given cipher suite.
      * 
@@ -186,6 +223,71 @@ public class SslUtils {
         return result;
     }
 
+    // [ifndef gae,android] method
+    /**
+     * Returns the JMX name of the SSL task service of a helper.
+     * 
+     * @param helper
+     *            The helper owning the service.
+     * @return The JMX name of the SSL task service.
+     * @throws javax.management.MalformedObjectNameException
+     */
+    private static javax.management.ObjectName getTaskServiceName(
+            BaseHelper<?> helper)
+            throws javax.management.MalformedObjectNameException {
+        return new javax.management.ObjectName(
+                "org.restlet:type=SslTaskService,side="
+                        + (helper.isClientSide() ? "client" : "server")
+                        + ",protocols="
+                        + javax.management.ObjectName.quote(helper
+                                .getProtocols().toString()) + ",id="
+                        + System.identityHashCode(helper));
+    }
+
+    // [ifndef gae,android] method
+    /**
+     * Registers the SSL task service of a helper as a JMX MBean in the
+     * platform MBean server.
+     * 
+     * @param helper
+     *            The helper owning the service.
+     * @param taskService
+     *            The service to register.
+     */
+    public static void registerTaskService(BaseHelper<?> helper,
+            SslTaskService taskService) {
+        try {
+            java.lang.management.ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(taskService, getTaskServiceName(helper));
+        } catch (Exception e) {
+            helper.getLogger().log(Level.WARNING,
+                    "Unable to register the SSL task service MBean", e);
+        }
+    }
+
+    // [ifndef gae,android] method
+    /**
+     * Unregisters the SSL task service MBean of a helper, if it was
+     * registered.
+     * 
+     * @param helper
+     *            The helper owning the service.
+     */
+    public static void unregisterTaskService(BaseHelper<?> helper) {
+        try {
+            javax.management.MBeanServer server = java.lang.management.ManagementFactory
+                    .getPlatformMBeanServer();
+            javax.management.ObjectName name = getTaskServiceName(helper);
+
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            helper.getLogger().log(Level.FINE,
+                    "Unable to unregister the SSL task service MBean", e);
+        }
+    }
+
     /**
      * Private constructor to ensure that the class acts as a true utility class
      * i.e. it isn't instantiable and extensible.
@@ -69,8 +69,7 @@ public class WritableSslChannel extends WritableBufferedChannel implements
      */
     public WritableSslChannel(WritableSelectionChannel target,
             SslConnection<?> connection) {
-        super(new Buffer(connection.getPacketBufferSize(), connection
-                .getHelper().isDirectBuffers()), target);
+        super(connection.createPacketBuffer(), target);
         this.connection = connection;
     }
 
@@ -121,8 +120,14 @@ public class WritableSslChannel extends WritableBufferedChannel implements
         getConnection().handleSslResult();
     }
 
+    /**
+     * Wraps the source bytes into SSL packets. Once all the packet bytes are
+     * written, the packet buffer is returned to the buffer pool if any.
+     */
     @Override
     public int write(ByteBuffer sourceBuffer) throws IOException {
-        return super.write(sourceBuffer);
+        int result = super.write(sourceBuffer);
+        getBuffer().release();
+        return result;
     }
 }
@@ -38,6 +38,7 @@ import junit.framework.TestSuite;
 
 import org.restlet.test.component.ComponentXmlConfigTestCase;
 import org.restlet.test.component.ComponentXmlTestCase;
+import org.restlet.test.component.VirtualHostTestCase;
 import org.restlet.test.connector.FileClientTestCase;
 import org.restlet.test.connector.RestartTestCase;
 import org.restlet.test.connector.RiapTestCase;
@@ -140,6 +141,7 @@ public class RestletTestSuite extends TestSuite {
         addTestSuite(TransformerTestCase.class);
         addTestSuite(ValidatorTestCase.class);
         addTestSuite(VelocityTestCase.class);
+        addTestSuite(VirtualHostTestCase.class);
         addTest(RegressionTestSuite.suite());
         addTest(CryptoTestSuite.suite());
         addTest(EmfTestSuite.suite());
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.component;
+
+import org.restlet.Component;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.engine.component.HostRoute;
+import org.restlet.engine.component.ServerRouter;
+import org.restlet.routing.VirtualHost;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the selection of virtual hosts by the server router.
+ * 
+ * @author Jerome Louvel
+ */
+public class VirtualHostTestCase extends RestletTestCase {
+
+    private Component component;
+
+    private VirtualHost apiHost;
+
+    private VirtualHost shopHost;
+
+    private VirtualHost wwwHost;
+
+    private ServerRouter router;
+
+    private VirtualHost createHost(String name, String hostDomain) {
+        VirtualHost result = new VirtualHost(component.getContext()
+                .createChildContext());
+        result.setName(name);
+        result.setHostDomain(hostDomain);
+        component.getHosts().add(result);
+        return result;
+    }
+
+    private VirtualHost select(String uri) {
+        Request request = new Request(Method.GET, uri);
+        request.setHostRef(new Reference(uri).getHostIdentifier());
+        Restlet next = router.getNext(request, new Response(request));
+        return (next instanceof HostRoute) ? ((HostRoute) next)
+                .getVirtualHost() : null;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        component = new Component();
+        wwwHost = createHost("www", "www.example.com");
+        apiHost = createHost("api", "api\\.example\\.com");
+        shopHost = createHost("shop", "(.*\\.)?shop\\.com");
+        router = new ServerRouter(component);
+        router.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        router.stop();
+        component = null;
+        router = null;
+        super.tearDown();
+    }
+
+    public void testDefaultHost() {
+        assertSame(component.getDefaultHost(),
+                select("http://unknown.org/path"));
+        assertSame(component.getDefaultHost(),
+                select("http://www.example.org/path"));
+    }
+
+    public void testLiteralDomains() {
+        assertSame(wwwHost, select("http://www.example.com/path"));
+        assertSame(wwwHost, select("http://WWW.Example.COM/path"));
+        assertSame(apiHost, select("http://api.example.com:8182/path"));
+        assertSame(apiHost, select("http://api.example.com:8182/other"));
+
+        // Unescaped dots still match any character
+        assertSame(wwwHost, select("http://www-example.com/path"));
+        assertSame(component.getDefaultHost(),
+                select("http://api-example.com/path"));
+    }
+
+    public void testPatternDomains() {
+        assertSame(shopHost, select("http://shop.com/"));
+        assertSame(shopHost, select("http://store.shop.com/"));
+        assertSame(shopHost, select("https://store.shop.com/"));
+    }
+
+    public void testUpdatedHost() throws Exception {
+        wwwHost.setHostPort("8080");
+        router.stop();
+        router = new ServerRouter(component);
+        router.start();
+        assertSame(component.getDefaultHost(),
+                select("http://www.example.com/path"));
+        assertSame(wwwHost, select("http://www.example.com:8080/path"));
+    }
+
+}
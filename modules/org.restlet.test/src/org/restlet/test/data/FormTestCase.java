@@ -34,10 +34,19 @@
 package org.restlet.test.data;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 
 import org.restlet.data.CharacterSet;
 import org.restlet.data.Form;
+import org.restlet.data.MediaType;
+import org.restlet.data.Parameter;
 import org.restlet.engine.util.FormReader;
+import org.restlet.engine.util.FormUtils;
+import org.restlet.engine.util.ParameterHandler;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -82,4 +91,90 @@ public class FormTestCase extends RestletTestCase {
         assertNull(form.getFirstValue("unknownParam"));
     }
 
+    public void testDecoding() throws IOException {
+        Form form = new FormReader("a+b=%C3%A9t%C3%A9&c=1%2B1%3D2&d",
+                CharacterSet.UTF_8, '&').read();
+        assertEquals(3, form.size());
+        assertEquals("\u00E9t\u00E9", form.getFirstValue("a b"));
+        assertEquals("1+1=2", form.getFirstValue("c"));
+        assertNull(form.getFirstValue("d"));
+
+        form = new FormReader("a+b=%C3%A9", '&').read();
+        assertEquals("%C3%A9", form.getFirstValue("a+b"));
+    }
+
+    public void testFirstParameter() throws IOException {
+        StringRepresentation entity = new StringRepresentation(
+                "a=1&b=2&c=3&b=4", MediaType.APPLICATION_WWW_FORM);
+        assertEquals("2", FormUtils.getFirstParameter(entity, "b").getValue());
+
+        entity = new StringRepresentation("a=1&b=2&c=3&b=4",
+                MediaType.APPLICATION_WWW_FORM);
+        assertEquals(2, ((List<?>) FormUtils.getParameter(entity, "b")).size());
+    }
+
+    public void testIterator() throws IOException {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 10000; i++) {
+            sb.append("param").append(i).append("=value+").append(i)
+                    .append('&');
+        }
+
+        FormReader reader = new FormReader(new StringRepresentation(sb,
+                MediaType.APPLICATION_WWW_FORM));
+        int count = 0;
+
+        for (Parameter param : reader) {
+            assertEquals("param" + count, param.getName());
+            assertEquals("value " + count, param.getValue());
+            count++;
+        }
+
+        assertEquals(10000, count);
+        Iterator<Parameter> iter = reader.iterator();
+        assertFalse(iter.hasNext());
+    }
+
+    public void testIteratorError() throws IOException {
+        FormReader reader = new FormReader(new StringRepresentation("a=b",
+                MediaType.APPLICATION_WWW_FORM) {
+            @Override
+            public InputStream getStream() throws IOException {
+                return new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Broken stream");
+                    }
+                };
+            }
+        });
+        Iterator<Parameter> iter = reader.iterator();
+
+        try {
+            iter.hasNext();
+            fail("The reading error should be rethrown");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        assertFalse(iter.hasNext());
+        assertFalse(reader.iterator().hasNext());
+    }
+
+    public void testParameterHandler() throws IOException {
+        final List<Parameter> params = new ArrayList<Parameter>();
+        FormUtils.parse(new StringRepresentation("a=1&b=2&c=3",
+                MediaType.APPLICATION_WWW_FORM), true, new ParameterHandler() {
+            public boolean handle(Parameter parameter) {
+                params.add(parameter);
+                return !"b".equals(parameter.getName());
+            }
+        });
+
+        assertEquals(2, params.size());
+        assertEquals("a", params.get(0).getName());
+        assertEquals("2", params.get(1).getValue());
+    }
+
 }
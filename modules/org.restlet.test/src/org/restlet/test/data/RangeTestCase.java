@@ -33,7 +33,10 @@
 
 package org.restlet.test.data;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.channels.Channels;
 import java.util.Arrays;
 import java.util.List;
 
@@ -53,8 +56,11 @@ import org.restlet.data.Protocol;
 import org.restlet.data.Range;
 import org.restlet.data.Status;
 import org.restlet.data.Tag;
+import org.restlet.engine.application.MultipartRangeRepresentation;
+import org.restlet.engine.application.RangeRepresentation;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.engine.util.SystemUtils;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.Directory;
 import org.restlet.routing.Router;
@@ -419,6 +425,94 @@ public class RangeTestCase extends RestletTestCase {
         }
     }
 
+    /**
+     * Tests ranges served by positioned reads of a file.
+     * 
+     * @throws Exception
+     */
+    public void testFileRanges() throws Exception {
+        testDir.mkdirs();
+        File file = new File(testDir, "ranges.txt");
+        FileOutputStream fos = new FileOutputStream(file);
+        fos.write("1234567890".getBytes());
+        fos.close();
+
+        try {
+            FileRepresentation fileRepresentation = new FileRepresentation(
+                    file, MediaType.TEXT_PLAIN);
+            assertEquals("4567",
+                    new RangeRepresentation(fileRepresentation, new Range(3, 4))
+                            .getText());
+            assertEquals("890", new RangeRepresentation(fileRepresentation,
+                    new Range(Range.INDEX_LAST, 3)).getText());
+            assertEquals("7890", new RangeRepresentation(fileRepresentation,
+                    new Range(6, Range.SIZE_MAX)).getText());
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            new RangeRepresentation(fileRepresentation, new Range(1, 2))
+                    .write(baos);
+            assertEquals("23", baos.toString());
+
+            MultipartRangeRepresentation multipart = new MultipartRangeRepresentation(
+                    fileRepresentation, Arrays.asList(new Range(0, 2),
+                            new Range(8, 2)));
+            baos = new ByteArrayOutputStream();
+            multipart.write(baos);
+            assertEquals(multipart.getSize(), baos.size());
+            assertTrue(baos.toString().contains("bytes 0-1/10\r\n\r\n12"));
+            assertTrue(baos.toString().contains("bytes 8-9/10\r\n\r\n90"));
+
+            baos = new ByteArrayOutputStream();
+            multipart.write(Channels.newChannel(baos));
+            assertEquals(multipart.getSize(), baos.size());
+            assertTrue(baos.toString().contains("bytes 8-9/10\r\n\r\n90"));
+        } finally {
+            BioUtils.delete(testDir, true);
+        }
+    }
+
+    /**
+     * Tests multipart responses to requests for several ranges.
+     * 
+     * @throws Exception
+     */
+    public void testMultipleRanges() throws Exception {
+        Client client = new Client(Protocol.HTTP);
+        Request request = new Request(Method.GET, "http://localhost:"
+                + TEST_PORT + "/testGet");
+        request.setRanges(Arrays.asList(new Range(Range.INDEX_LAST, 2),
+                new Range(0, 2)));
+        Response response = client.handle(request);
+        assertEquals(Status.SUCCESS_PARTIAL_CONTENT, response.getStatus());
+        assertTrue(MediaType.MULTIPART_BYTERANGES.equals(response.getEntity()
+                .getMediaType(), true));
+        String boundary = response.getEntity().getMediaType().getParameters()
+                .getFirstValue("boundary");
+        assertNotNull(boundary);
+        String text = response.getEntity().getText();
+        assertEquals("\r\n--" + boundary + "\r\n"
+                + "Content-Type: text/plain; charset=UTF-8\r\n"
+                + "Content-Range: bytes 0-1/10\r\n\r\n12" + "\r\n--"
+                + boundary + "\r\n"
+                + "Content-Type: text/plain; charset=UTF-8\r\n"
+                + "Content-Range: bytes 8-9/10\r\n\r\n90" + "\r\n--"
+                + boundary + "--\r\n", text);
+
+        // Overlapping ranges are coalesced
+        request.setRanges(Arrays.asList(new Range(0, 4), new Range(2, 4)));
+        response = client.handle(request);
+        assertEquals(Status.SUCCESS_PARTIAL_CONTENT, response.getStatus());
+        assertEquals("123456", response.getEntity().getText());
+
+        // Unsatisfiable ranges
+        request.setRanges(Arrays.asList(new Range(20, 4), new Range(30, 4)));
+        response = client.handle(request);
+        assertEquals(Status.CLIENT_ERROR_REQUESTED_RANGE_NOT_SATISFIABLE,
+                response.getStatus());
+
+        client.stop();
+    }
+
     /**
      * Tests ranges.
      * 
@@ -459,14 +553,14 @@ public class RangeTestCase extends RestletTestCase {
         assertTrue(response.getStatus().isSuccess());
         response.getEntity().exhaust();
 
-        // Multiple ranges are not supported yet.
-        // request = new Request(Method.GET, "http://localhost:" + TEST_PORT
-        // + "/test?range=500-1000&range=500-");
-        // request.setRanges(Arrays.asList(new Range(500, 500), new Range(500,
-        // Range.SIZE_MAX)));
-        // assertTrue(client.handle(request).getStatus().isSuccess());
-
-        // client.stop();
+        request = new Request(Method.GET, "http://localhost:" + TEST_PORT
+                + "/test?range=500-1000&range=500-");
+        request.setRanges(Arrays.asList(new Range(500, 500), new Range(500,
+                Range.SIZE_MAX)));
+        response = client.handle(request);
+        assertTrue(response.getStatus().isSuccess());
+        response.getEntity().exhaust();
 
+        client.stop();
     }
 }
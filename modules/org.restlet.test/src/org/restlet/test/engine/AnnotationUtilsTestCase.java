@@ -42,6 +42,7 @@ import org.restlet.engine.resource.AnnotationInfo;
 import org.restlet.engine.resource.AnnotationUtils;
 import org.restlet.resource.Get;
 import org.restlet.resource.Put;
+import org.restlet.resource.ServerResource;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -65,6 +66,10 @@ public class AnnotationUtilsTestCase extends RestletTestCase {
 
     }
 
+    public static class MyResource extends ServerResource {
+
+    }
+
     public void testGetAnnotationsWithGenericParameterType() {
         List<AnnotationInfo> infos = AnnotationUtils
                 .getAnnotations(IChild.class);
@@ -98,4 +103,28 @@ public class AnnotationUtilsTestCase extends RestletTestCase {
                 "Didn't find a method with IChild as the declaring class.",
                 true, found);
     }
+
+    public void testGetDefaultConstructor() throws Exception {
+        assertSame(AnnotationUtils.getDefaultConstructor(MyResource.class),
+                AnnotationUtils.getDefaultConstructor(MyResource.class));
+        assertNotNull(AnnotationUtils.getDefaultConstructor(MyResource.class)
+                .newInstance());
+
+        try {
+            AnnotationUtils.getDefaultConstructor(Integer.class);
+            fail("Integer has no default constructor");
+        } catch (NoSuchMethodException e) {
+            // Expected
+        }
+    }
+
+    public void testInaccessibleMethod() throws Exception {
+        // The access checks can't be skipped on a protected method of the
+        // core classes, as their packages may not be opened
+        java.lang.reflect.Method method = Object.class
+                .getDeclaredMethod("clone");
+        AnnotationInfo info = new AnnotationInfo(Object.class, Method.GET,
+                method, null);
+        assertSame(method, info.getJavaMethod());
+    }
 }
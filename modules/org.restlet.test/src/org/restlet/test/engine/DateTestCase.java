@@ -33,7 +33,13 @@
 
 package org.restlet.test.engine;
 
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
 
 import org.restlet.engine.util.DateUtils;
 import org.restlet.test.RestletTestCase;
@@ -63,6 +69,67 @@ public class DateTestCase extends RestletTestCase {
 
     private String DATE_RFC822_1 = "Fri, 12 Apr 85 23:20:50 GMT";
 
+    /**
+     * Creates a reference date format.
+     * 
+     * @param formats
+     *            The formats list.
+     * @return The reference date format.
+     */
+    private SimpleDateFormat createFormat(List<String> formats) {
+        SimpleDateFormat result = new SimpleDateFormat(formats.get(0),
+                Locale.US);
+        result.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return result;
+    }
+
+    /**
+     * Tests that the HTTP formats fast path matches the date formats.
+     */
+    public void testHttpFormats() throws Exception {
+        Random random = new Random(1985);
+        List<List<String>> formatsList = new ArrayList<List<String>>();
+        formatsList.add(DateUtils.FORMAT_RFC_1123);
+        formatsList.add(DateUtils.FORMAT_RFC_1036);
+        formatsList.add(DateUtils.FORMAT_ASC_TIME);
+
+        for (List<String> formats : formatsList) {
+            SimpleDateFormat reference = createFormat(formats);
+
+            for (int i = 0; i < 2000; i++) {
+                // Between the years 1600 and 9999
+                Date date = new Date((-11676096000L + (long) (random
+                        .nextDouble() * 265078396800L)) * 1000L);
+                String formatted = reference.format(date);
+                assertEquals(formatted,
+                        DateUtils.format(date, formats.get(0)));
+                assertEquals(formatted, reference.parse(formatted),
+                        DateUtils.parse(formatted, formats));
+            }
+        }
+
+        // Non canonical forms handled by the date formats
+        assertEquals(createFormat(DateUtils.FORMAT_ASC_TIME).parse(
+                "Sun Nov  6 08:49:37 1994"), DateUtils.parse(
+                "Sun Nov  6 08:49:37 1994", DateUtils.FORMAT_ASC_TIME));
+        assertEquals(createFormat(DateUtils.FORMAT_RFC_1123).parse(
+                "Sun, 6 Nov 1994 8:49:37 GMT"), DateUtils.parse(
+                "Sun, 6 Nov 1994 8:49:37 GMT", DateUtils.FORMAT_RFC_1123));
+        assertEquals(createFormat(DateUtils.FORMAT_RFC_1123).parse(
+                "Sun, 31 Nov 1994 08:49:37 GMT"), DateUtils.parse(
+                "Sun, 31 Nov 1994 08:49:37 GMT", DateUtils.FORMAT_RFC_1123));
+        assertNull(DateUtils.parse("Sunday, 06-Nov-94 08:49:37 GMT",
+                DateUtils.FORMAT_RFC_1123));
+        assertNull(DateUtils.parse("Sun, 06 Nov 1994 08:49:37 GMT",
+                DateUtils.FORMAT_ASC_TIME));
+
+        // Cached current second
+        Date now = new Date();
+        assertSame(DateUtils.format(now), DateUtils.format(now));
+        assertEquals(createFormat(DateUtils.FORMAT_RFC_1123).format(now),
+                DateUtils.format(now));
+    }
+
     /**
      * Tests for dates in the RFC 822 format.
      */
@@ -36,11 +36,18 @@ package org.restlet.test.engine;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.restlet.test.engine.connector.DirectFileTransferTestCase;
+import org.restlet.test.engine.connector.HostConnectionsTestCase;
 import org.restlet.test.engine.connector.HttpInboundRequestTestCase;
+import org.restlet.test.engine.connector.MultipleSelectorsTestCase;
+import org.restlet.test.engine.connector.PipeliningTestCase;
+import org.restlet.test.engine.connector.WorkerServiceTestCase;
 import org.restlet.test.engine.io.BioUtilsTestCase;
 import org.restlet.test.engine.io.BufferTestCase;
 import org.restlet.test.engine.io.ReaderInputStreamTestCase;
+import org.restlet.test.engine.local.MappedFileCacheTestCase;
 import org.restlet.test.engine.util.Base64TestCase;
+import org.restlet.test.engine.util.IndexedSeriesTestCase;
 
 /**
  * Suite of unit tests for the Restlet Framework.
@@ -72,6 +79,8 @@ public class EngineTestSuite extends TestSuite {
         addTestSuite(HttpCallTestCase.class);
         addTestSuite(HttpInboundRequestTestCase.class);
         addTestSuite(ImmutableDateTestCase.class);
+        addTestSuite(IndexedSeriesTestCase.class);
+        addTestSuite(MappedFileCacheTestCase.class);
         addTestSuite(UnclosableInputStreamTestCase.class);
         addTestSuite(UnclosableOutputStreamTestCase.class);
         addTestSuite(PreferencesTestCase.class);
@@ -88,12 +97,19 @@ public class EngineTestSuite extends TestSuite {
         // [ifdef jse]
         addTestSuite(ChunkedEncodingPutTestCase.class);
         addTestSuite(ChunkedEncodingTestCase.class);
+        addTestSuite(DirectFileTransferTestCase.class);
         addTestSuite(GetTestCase.class);
         addTestSuite(GetChunkedTestCase.class);
+        addTestSuite(HostConnectionsTestCase.class);
+        addTestSuite(MultipleSelectorsTestCase.class);
+        addTestSuite(PipeliningTestCase.class);
         addTestSuite(PostPutTestCase.class);
         addTestSuite(RemoteClientAddressTestCase.class);
+        addTestSuite(WorkerServiceTestCase.class);
         addTestSuite(org.restlet.test.ext.ssl.SslGetTestCase.class);
+        addTestSuite(org.restlet.test.ext.ssl.SslBufferPoolTestCase.class);
         addTestSuite(org.restlet.test.ext.ssl.SslClientContextGetTestCase.class);
+        addTestSuite(org.restlet.test.ext.ssl.SslTaskServiceTestCase.class);
         // [enddef]
     }
 }
@@ -33,6 +33,7 @@
 
 package org.restlet.test.engine;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -41,6 +42,8 @@ import org.restlet.data.ClientInfo;
 import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.engine.header.EncodingReader;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
 import org.restlet.engine.header.HeaderReader;
 import org.restlet.engine.header.PreferenceReader;
 import org.restlet.engine.header.TokenReader;
@@ -109,6 +112,34 @@ public class HeaderTestCase extends RestletTestCase {
         assertNull(unmodifiableDate);
     }
 
+    /**
+     * Tests the parsing of header lines directly from bytes.
+     */
+    public void testParsingBytes() throws Exception {
+        org.restlet.engine.io.Buffer buffer = new org.restlet.engine.io.Buffer(
+                ByteBuffer.wrap("Content-Type:  text/plain\r\nX-Custom: \u00e9t\u00e9\r\n\r\nHost"
+                        .getBytes("ISO-8859-1")));
+
+        int length = buffer.getLineLength();
+        assertEquals(27, length);
+        Header header = HeaderReader.readHeader(buffer.getBytes(), length);
+        assertSame(HeaderConstants.HEADER_CONTENT_TYPE, header.getName());
+        assertEquals("text/plain", header.getValue());
+
+        header = HeaderReader.readHeader(buffer.getBytes(),
+                buffer.getLineLength());
+        assertEquals("X-Custom", header.getName());
+        assertEquals("\u00e9t\u00e9", header.getValue());
+
+        // End of headers
+        assertNull(HeaderReader.readHeader(buffer.getBytes(),
+                buffer.getLineLength()));
+
+        // Incomplete line
+        assertEquals(-1, buffer.getLineLength());
+        assertEquals(4, buffer.getBytes().remaining());
+    }
+
     /**
      * Tests the parsing.
      */
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.restlet.Application;
+import org.restlet.Client;
+import org.restlet.Component;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Range;
+import org.restlet.data.Status;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the direct transfer of file entities from their file channel
+ * to the socket channel by the internal HTTP server connector, checking that
+ * ranged, chunked and traced responses still use the buffered path.
+ * 
+ * @author Jerome Louvel
+ */
+public class DirectFileTransferTestCase extends RestletTestCase {
+
+    private Client client;
+
+    private Component component;
+
+    private String content;
+
+    private File file;
+
+    private String get(String path, Range range) throws IOException {
+        Request request = new Request(Method.GET, "http://localhost:"
+                + this.component.getServers().get(0).getEphemeralPort() + path);
+
+        if (range != null) {
+            request.getRanges().add(range);
+        }
+
+        Response response = this.client.handle(request);
+        assertTrue(response.getStatus().isSuccess());
+        return response.getEntityAsText();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; sb.length() < 300000; i++) {
+            sb.append("Line ").append(i).append('\n');
+        }
+
+        this.content = sb.toString();
+        this.file = File.createTempFile("restlet-transfer", ".txt");
+        OutputStream os = new FileOutputStream(this.file);
+        os.write(this.content.getBytes("US-ASCII"));
+        os.close();
+
+        this.client = new Client(new Context(), Protocol.HTTP);
+        this.client.start();
+    }
+
+    /**
+     * Starts a component whose server transfers file entities directly.
+     * 
+     * @param tracing
+     *            Indicates if the server should trace the exchanges.
+     */
+    private void startComponent(boolean tracing) throws Exception {
+        this.component = new Component();
+        Server server = this.component.getServers().add(Protocol.HTTP, 0);
+        server.getContext().getParameters().add("directFileTransfers", "true");
+        server.getContext().getParameters()
+                .add("tracing", Boolean.toString(tracing));
+        this.component.getDefaultHost().attach(new Application() {
+            @Override
+            public Restlet createInboundRoot() {
+                return new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        if (request.getResourceRef().getPath()
+                                .startsWith("/chunked")) {
+                            try {
+                                // Unknown size, sent with chunked encoding
+                                response.setEntity(new InputRepresentation(
+                                        new FileInputStream(file),
+                                        MediaType.TEXT_PLAIN));
+                            } catch (IOException e) {
+                                response.setStatus(
+                                        Status.SERVER_ERROR_INTERNAL, e);
+                            }
+                        } else {
+                            response.setEntity(new FileRepresentation(file,
+                                    MediaType.TEXT_PLAIN));
+                        }
+                    }
+                };
+            }
+        });
+        this.component.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.client.stop();
+
+        if (this.component != null) {
+            this.component.stop();
+        }
+
+        this.file.delete();
+        this.client = null;
+        this.component = null;
+        super.tearDown();
+    }
+
+    public void testChunked() throws Exception {
+        startComponent(false);
+        assertEquals(this.content, get("/chunked", null));
+        assertEquals(this.content, get("/file", null));
+    }
+
+    public void testDirect() throws Exception {
+        startComponent(false);
+
+        // Consecutive calls reuse the persistent connection
+        for (int i = 0; i < 3; i++) {
+            assertEquals(this.content, get("/file", null));
+        }
+    }
+
+    public void testRanged() throws Exception {
+        startComponent(false);
+        assertEquals(this.content.substring(1000, 51000),
+                get("/file", new Range(1000, 50000)));
+        assertEquals(this.content, get("/file", null));
+    }
+
+    public void testTracing() throws Exception {
+        startComponent(true);
+        assertEquals(this.content, get("/file", null));
+    }
+
+}
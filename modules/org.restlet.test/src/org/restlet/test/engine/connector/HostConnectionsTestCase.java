@@ -0,0 +1,178 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.engine.connector.ClientConnectionHelper;
+import org.restlet.engine.connector.HostConnections;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the per-host sub-pools of the internal HTTP client connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class HostConnectionsTestCase extends RestletTestCase {
+
+    private Client client;
+
+    private Server server;
+
+    private ClientConnectionHelper getHelper() {
+        return (ClientConnectionHelper) this.client.getContext()
+                .getAttributes().get("org.restlet.engine.helper");
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.server = new Server(new Context(), Protocol.HTTP, TEST_PORT,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        try {
+                            Thread.sleep(10);
+                        } catch (InterruptedException e) {
+                        }
+
+                        response.setEntity(request.getResourceRef()
+                                .getQuery(), MediaType.TEXT_PLAIN);
+                    }
+                });
+        this.server.start();
+
+        this.client = new Client(new Context(), Protocol.HTTP);
+        this.client.getContext().getParameters()
+                .add("maxConnectionsPerHost", "2");
+        this.client.getContext().getParameters()
+                .add("maxQueuedRequestsPerHost", "100");
+        this.client.getContext().getParameters().add("idleTimeoutMs", "200");
+        this.client.getContext().getParameters()
+                .add("idleCheckIntervalMs", "50");
+        this.client.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.client.stop();
+        this.server.stop();
+        this.client = null;
+        this.server = null;
+        super.tearDown();
+    }
+
+    public void testMaxConnectionsPerHost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<String>> results = new ArrayList<Future<String>>();
+
+        try {
+            for (int i = 0; i < 40; i++) {
+                final String query = "q" + i;
+
+                results.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        Response response = client.handle(new Request(
+                                Method.GET, "http://localhost:" + TEST_PORT
+                                        + "/test?" + query));
+                        return response.getEntityAsText();
+                    }
+                }));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("q" + i, results.get(i).get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, getHelper().getHostConnections().size());
+
+        for (HostConnections host : getHelper().getHostConnections().values()) {
+            assertTrue(host.getConnections().size() <= 2);
+            assertTrue(host.getWaitingMessages().isEmpty());
+        }
+    }
+
+    public void testRetire() throws Exception {
+        HostConnections host = new HostConnections(new InetSocketAddress(
+                "localhost", TEST_PORT), 10);
+        Response response = new Response(new Request(Method.GET,
+                "http://localhost:" + TEST_PORT + "/test"));
+        assertTrue(host.offer(response));
+        assertFalse(host.retire());
+        assertFalse(host.isRetired());
+
+        // Messages can't be queued on a retired sub-pool
+        host.getWaitingMessages().poll();
+        assertTrue(host.retire());
+        assertTrue(host.isRetired());
+        assertFalse(host.offer(response));
+        assertTrue(host.getWaitingMessages().isEmpty());
+    }
+
+    public void testIdleConnectionsReaped() throws Exception {
+        Response response = client.handle(new Request(Method.GET,
+                "http://localhost:" + TEST_PORT + "/test?idle"));
+        assertEquals("idle", response.getEntityAsText());
+        assertEquals(1, getHelper().getHostConnections().size());
+
+        // Let the idle connection be closed and its sub-pool be removed
+        for (int i = 0; (i < 50) && !getHelper().getHostConnections().isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+
+        assertTrue(getHelper().getHostConnections().isEmpty());
+        assertTrue(getHelper().getConnections().isEmpty());
+    }
+
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Protocol;
+import org.restlet.engine.connector.SelectorController;
+import org.restlet.engine.connector.ServerConnectionHelper;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the multiple selectors mode of the internal HTTP server
+ * connector, spreading concurrent keep-alive connections across several NIO
+ * selectors.
+ * 
+ * @author Jerome Louvel
+ */
+public class MultipleSelectorsTestCase extends RestletTestCase {
+
+    private Server server;
+
+    /**
+     * Exchanges several requests over the same keep-alive connection.
+     * 
+     * @param socket
+     *            The connected socket.
+     * @param name
+     *            The name of the connection.
+     * @return The number of successful exchanges.
+     * @throws IOException
+     */
+    private int exchange(Socket socket, String name) throws IOException {
+        int result = 0;
+        OutputStream out = socket.getOutputStream();
+        InputStream in = socket.getInputStream();
+
+        for (int i = 0; i < 10; i++) {
+            String query = name + "r" + i;
+            out.write(("GET /test?" + query
+                    + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                    .getBytes("US-ASCII"));
+            out.flush();
+
+            if (query.equals(readResponse(in))) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    private ServerConnectionHelper getHelper() {
+        return (ServerConnectionHelper) this.server.getContext()
+                .getAttributes().get("org.restlet.engine.helper");
+    }
+
+    /**
+     * Returns the sum of the load scores of the selector controllers.
+     * 
+     * @return The sum of the load scores of the selector controllers.
+     */
+    private int getLoadScore() {
+        int result = 0;
+
+        for (SelectorController selectorController : getHelper()
+                .getController().getSelectorControllers()) {
+            result += selectorController.getLoadScore();
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads a response with a fixed content length from a socket stream.
+     * 
+     * @param in
+     *            The socket input stream.
+     * @return The response entity.
+     * @throws IOException
+     */
+    private String readResponse(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int length = -1;
+        int next;
+
+        // Read the header lines up to the empty one
+        while ((next = in.read()) != -1) {
+            if (next == '\n') {
+                String header = line.toString().trim();
+
+                if (header.length() == 0) {
+                    break;
+                } else if (header.toLowerCase().startsWith("content-length:")) {
+                    length = Integer.parseInt(header.substring(15).trim());
+                }
+
+                line.setLength(0);
+            } else {
+                line.append((char) next);
+            }
+        }
+
+        byte[] entity = new byte[Math.max(length, 0)];
+        int offset = 0;
+
+        while (offset < entity.length) {
+            int read = in.read(entity, offset, entity.length - offset);
+
+            if (read == -1) {
+                throw new IOException("Unexpected end of the response");
+            }
+
+            offset += read;
+        }
+
+        return new String(entity, "US-ASCII");
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity(request.getResourceRef()
+                                .getQuery(), MediaType.TEXT_PLAIN);
+                    }
+                });
+        this.server.getContext().getParameters()
+                .add("multipleSelectors", "true");
+        this.server.getContext().getParameters().add("selectorThreads", "3");
+        this.server.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.server.stop();
+        this.server = null;
+        super.tearDown();
+    }
+
+    public void testConcurrentConnections() throws Exception {
+        List<SelectorController> selectorControllers = getHelper()
+                .getController().getSelectorControllers();
+        assertEquals(3, selectorControllers.size());
+
+        List<Socket> sockets = new ArrayList<Socket>();
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+
+        try {
+            for (int i = 0; i < 6; i++) {
+                sockets.add(new Socket("localhost", this.server
+                        .getActualPort()));
+            }
+
+            // Exchange concurrently over each keep-alive connection
+            for (int i = 0; i < sockets.size(); i++) {
+                final Socket socket = sockets.get(i);
+                final String name = "c" + i;
+
+                results.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        return exchange(socket, name);
+                    }
+                }));
+            }
+
+            for (Future<Integer> result : results) {
+                assertEquals(10, result.get(30, TimeUnit.SECONDS).intValue());
+            }
+
+            // The connections are spread across the selectors
+            assertEquals(6, getHelper().getConnections().size());
+
+            for (SelectorController selectorController : selectorControllers) {
+                assertEquals(2, selectorController.getLoadScore());
+            }
+        } finally {
+            executor.shutdownNow();
+
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+
+        // Let the closed connections be detached from their selector
+        for (int i = 0; (i < 50) && (getLoadScore() > 0); i++) {
+            Thread.sleep(100);
+        }
+
+        assertEquals(0, getLoadScore());
+    }
+
+    public void testStop() throws Exception {
+        Socket socket = new Socket("localhost", this.server.getActualPort());
+
+        try {
+            assertEquals(10, exchange(socket, "c"));
+            assertEquals(1, getLoadScore());
+        } finally {
+            socket.close();
+        }
+
+        ServerConnectionHelper helper = getHelper();
+        this.server.stop();
+        assertTrue(helper.getController().getSelectorControllers().isEmpty());
+    }
+
+}
@@ -0,0 +1,380 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.connector;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.connector.ThreadPerTaskWorkerService;
+import org.restlet.engine.connector.WorkerService;
+import org.restlet.engine.connector.WorkerServiceRestlet;
+import org.restlet.engine.log.LoggingThreadFactory;
+import org.restlet.engine.util.HandOffScheduledExecutorService;
+import org.restlet.engine.util.SystemUtils;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the statistics and adaptive sizing of the worker service.
+ * 
+ * @author Jerome Louvel
+ */
+public class WorkerServiceTestCase extends RestletTestCase {
+
+    private static long sum(long[] values) {
+        long result = 0;
+
+        for (long value : values) {
+            result += value;
+        }
+
+        return result;
+    }
+
+    private WorkerService createWorkerService(int minThreads, int maxThreads,
+            boolean queued) {
+        return new WorkerService(minThreads, maxThreads, 60,
+                TimeUnit.SECONDS, queued ? new LinkedBlockingQueue<Runnable>()
+                        : new SynchronousQueue<Runnable>(),
+                new LoggingThreadFactory(Context.getCurrentLogger(), true));
+    }
+
+    public void testAdaptive() throws Exception {
+        WorkerService ws = createWorkerService(1, 4, true);
+        final CountDownLatch latch = new CountDownLatch(1);
+        Runnable blocking = new Runnable() {
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    // Ends the task
+                }
+            }
+        };
+
+        try {
+            ws.execute(blocking);
+            ws.execute(blocking);
+            Thread.sleep(100);
+            assertEquals(1, ws.getActiveCount());
+            assertEquals(1, ws.getQueuedCount());
+            assertFalse(ws.adapt());
+
+            ws.setAdaptive(true);
+            ws.setTargetQueueWaitMs(500);
+            assertFalse(ws.adapt());
+            Thread.sleep(WorkerService.ADAPTATION_PERIOD_MS + 100);
+
+            // The queued task couldn't start during the last period
+            assertTrue(ws.adapt());
+            assertEquals(2, ws.getCorePoolSize());
+            latch.countDown();
+            Thread.sleep(100);
+            assertEquals(0, ws.getQueuedCount());
+            assertEquals(0, ws.getActiveCount());
+
+            // The pool shrinks back once idle
+            ws.resetStatistics();
+            Thread.sleep(WorkerService.ADAPTATION_PERIOD_MS + 100);
+            assertTrue(ws.adapt());
+            assertEquals(1, ws.getCorePoolSize());
+            assertEquals(1, ws.getMinimumPoolSize());
+        } finally {
+            latch.countDown();
+            ws.shutdown();
+        }
+    }
+
+    public void testHandOffScheduling() throws Exception {
+        ThreadPerTaskWorkerService ws = new ThreadPerTaskWorkerService(2,
+                new LoggingThreadFactory(Context.getCurrentLogger(), true));
+        HandOffScheduledExecutorService ses = new HandOffScheduledExecutorService(
+                new LoggingThreadFactory(Context.getCurrentLogger(), true), ws);
+        final Set<Thread> threads = Collections
+                .synchronizedSet(new HashSet<Thread>());
+        final CountDownLatch latch = new CountDownLatch(3);
+        Runnable periodic = new Runnable() {
+            public void run() {
+                threads.add(Thread.currentThread());
+                latch.countDown();
+            }
+        };
+
+        ScheduledFuture<?> future = ses.scheduleWithFixedDelay(periodic, 0,
+                10, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        future.cancel(false);
+        assertTrue(future.isCancelled());
+
+        // Each execution ran on a new worker thread
+        assertTrue(threads.size() >= 3);
+        assertEquals(
+                "done",
+                ses.schedule(Executors.callable(periodic, "done"), 10,
+                        TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS));
+
+        ses.shutdown();
+        assertTrue(ses.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(ws.isTerminated());
+
+        try {
+            ses.execute(periodic);
+            fail("Tasks can't be executed after shutdown");
+        } catch (RejectedExecutionException e) {
+            // Expected
+        }
+    }
+
+    public void testRejections() throws Exception {
+        WorkerService ws = createWorkerService(1, 1, false);
+        final AtomicInteger rejected = new AtomicInteger();
+        RejectedExecutionHandler handler = new RejectedExecutionHandler() {
+            public void rejectedExecution(Runnable r,
+                    ThreadPoolExecutor executor) {
+                rejected.incrementAndGet();
+            }
+        };
+        ws.setRejectedExecutionHandler(handler);
+        assertSame(handler, ws.getRejectedExecutionHandler());
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        try {
+            ws.execute(new Runnable() {
+                public void run() {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        // Ends the task
+                    }
+                }
+            });
+            ws.execute(new Runnable() {
+                public void run() {
+                }
+            });
+
+            assertEquals(1, rejected.get());
+            assertEquals(1, ws.getRejectedCount());
+        } finally {
+            latch.countDown();
+            ws.shutdown();
+        }
+    }
+
+    public void testServerWorkerService() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                    }
+                });
+        server.getContext().getParameters().add("workerServiceMBean", "true");
+        server.start();
+
+        try {
+            Object ws = server.getContext().getAttributes()
+                    .get("org.restlet.engine.connector.workerService");
+            assertTrue(ws instanceof WorkerService);
+            assertFalse(ManagementFactory
+                    .getPlatformMBeanServer()
+                    .queryNames(
+                            new ObjectName(
+                                    "org.restlet:type=WorkerService,side=server,*"),
+                            null).isEmpty());
+        } finally {
+            server.stop();
+        }
+
+        assertNull(server.getContext().getAttributes()
+                .get("org.restlet.engine.connector.workerService"));
+        assertTrue(ManagementFactory
+                .getPlatformMBeanServer()
+                .queryNames(
+                        new ObjectName(
+                                "org.restlet:type=WorkerService,side=server,*"),
+                        null).isEmpty());
+    }
+
+    public void testStatistics() throws Exception {
+        WorkerService ws = createWorkerService(2, 2, true);
+
+        for (int i = 0; i < 20; i++) {
+            ws.execute(new Runnable() {
+                public void run() {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        // Ends the task
+                    }
+                }
+            });
+        }
+
+        ws.shutdown();
+        assertTrue(ws.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(20, ws.getCompletedTaskCount());
+        assertEquals(20, sum(ws.getQueueWaitHistogram()));
+        assertEquals(20, sum(ws.getServiceTimeHistogram()));
+        assertEquals(ws.getHistogramBoundsMs().length + 1,
+                ws.getServiceTimeHistogram().length);
+        assertTrue(ws.getAverageServiceTimeMs() >= 4);
+        assertTrue(ws.getAverageQueueWaitMs() > 0);
+
+        // Expose the statistics as a resource
+        WorkerServiceRestlet restlet = new WorkerServiceRestlet(new Context(),
+                ws);
+        Request request = new Request(Method.GET, "http://localhost/workers");
+        Response response = new Response(request);
+        restlet.handle(request, response);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertTrue(response.getEntity().getText()
+                .contains("completedTaskCount: 20\n"));
+
+        request = new Request(Method.DELETE, "http://localhost/workers");
+        response = new Response(request);
+        restlet.handle(request, response);
+        assertEquals(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED,
+                response.getStatus());
+
+        ws.resetStatistics();
+        assertEquals(0, sum(ws.getServiceTimeHistogram()));
+        assertEquals(0D, ws.getAverageQueueWaitMs());
+    }
+
+    public void testThreadPerTask() throws Exception {
+        ThreadPerTaskWorkerService ws = new ThreadPerTaskWorkerService(2,
+                new LoggingThreadFactory(Context.getCurrentLogger(), true));
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Set<Thread> threads = Collections
+                .synchronizedSet(new HashSet<Thread>());
+        Runnable blocking = new Runnable() {
+            public void run() {
+                threads.add(Thread.currentThread());
+
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    // Ends the task
+                }
+            }
+        };
+
+        for (int i = 0; i < 5; i++) {
+            ws.execute(blocking);
+        }
+
+        Thread.sleep(100);
+        assertEquals(2, ws.getActiveCount());
+        assertEquals(3, ws.getQueuedCount());
+        assertEquals(5, ws.getTaskCount());
+
+        latch.countDown();
+        ws.shutdown();
+        assertTrue(ws.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(5, ws.getCompletedTaskCount());
+        assertEquals(2, ws.getLargestPoolSize());
+        assertEquals(0, ws.getPoolSize());
+
+        // No thread is reused
+        assertEquals(5, threads.size());
+        assertEquals(5, sum(ws.getServiceTimeHistogram()));
+
+        try {
+            ws.execute(blocking);
+            fail("Tasks can't be executed after shutdown");
+        } catch (RejectedExecutionException e) {
+            assertEquals(1, ws.getRejectedCount());
+        }
+    }
+
+    public void testVirtualThreads() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                    }
+                });
+        server.getContext().getParameters().add("virtualThreads", "true");
+        server.getContext().getParameters().add("maxVirtualThreads", "50");
+        server.start();
+
+        try {
+            WorkerService ws = (WorkerService) server.getContext()
+                    .getAttributes()
+                    .get("org.restlet.engine.connector.workerService");
+
+            if (SystemUtils.getVirtualThreadFactory("test-") != null) {
+                // Virtual threads are created on demand, up to the limit
+                assertEquals(50, ws.getMaximumPoolSize());
+                assertEquals(0, ws.getPoolSize());
+            } else {
+                // Platform worker threads are used on older JVMs
+                assertEquals(10, ws.getMaximumPoolSize());
+            }
+
+            Client client = new Client(new Context(), Protocol.HTTP);
+            client.start();
+            Response response = client.handle(new Request(Method.GET,
+                    "http://localhost:" + server.getEphemeralPort() + "/"));
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertTrue(ws.getTaskCount() >= 1);
+            client.stop();
+        } finally {
+            server.stop();
+        }
+    }
+
+}
@@ -36,6 +36,7 @@ package org.restlet.test.engine.io;
 import java.io.IOException;
 
 import org.restlet.engine.io.Buffer;
+import org.restlet.engine.io.BufferPool;
 import org.restlet.engine.io.BufferState;
 import org.restlet.test.RestletTestCase;
 
@@ -73,4 +74,39 @@ public class BufferTestCase extends RestletTestCase {
         buffer.drain(sb, BufferState.FILLING);
         assertEquals("Remaining buffer", "ijklmnopqrstuvwxyz", sb.toString());
     }
+
+    public void testRelease() throws IOException {
+        BufferPool pool = new BufferPool(false, 1024 * 1024, 0);
+        Buffer buffer = new Buffer(5000, pool);
+        assertTrue(buffer.isReleased());
+        assertTrue(buffer.isEmpty());
+        assertEquals(8192, buffer.capacity());
+        assertEquals(0, buffer.getAllocatedBytes());
+        assertEquals(0, pool.getBytesInUse());
+
+        // Borrow bytes on first fill
+        buffer.fill("abc");
+        assertFalse(buffer.isReleased());
+        assertEquals(1, pool.getMisses());
+        assertEquals(8192, buffer.getAllocatedBytes());
+        assertEquals(8192, pool.getBytesInUse());
+
+        // Non empty buffers can't be released
+        assertFalse(buffer.release());
+        buffer.flip();
+        StringBuilder sb = new StringBuilder();
+        buffer.drain(sb, BufferState.FILLING);
+        assertEquals("abc", sb.toString());
+        assertTrue(buffer.release());
+        assertTrue(buffer.isReleased());
+        assertEquals(0, buffer.getAllocatedBytes());
+        assertEquals(0, pool.getBytesInUse());
+        assertEquals(8192, pool.getPooledBytes());
+
+        // Borrow the pooled bytes again
+        buffer.fill("def");
+        assertEquals(1, pool.getHits());
+        assertEquals(0, pool.getPooledBytes());
+        assertEquals(8192, pool.getBytesInUse());
+    }
 }
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine.local;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.data.MediaType;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.local.FileEntity;
+import org.restlet.engine.local.MappedFileCache;
+import org.restlet.engine.local.MappedFileRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.service.MetadataService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the MappedFileCache class.
+ * 
+ * @author Jerome Louvel
+ */
+public class MappedFileCacheTestCase extends RestletTestCase {
+
+    private File testDir;
+
+    private void write(File file, String content) throws IOException {
+        FileOutputStream fos = new FileOutputStream(file);
+        fos.write(content.getBytes("US-ASCII"));
+        fos.close();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "MappedFileCacheTestCase");
+        this.testDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BioUtils.delete(this.testDir, true);
+        this.testDir = null;
+        super.tearDown();
+    }
+
+    public void testEntity() throws Exception {
+        File file = new File(this.testDir, "test.txt");
+        write(file, "abc");
+
+        MappedFileCache cache = new MappedFileCache(1024, 16);
+        FileEntity entity = new FileEntity(file, new MetadataService(), cache);
+        Representation rep = entity.getRepresentation(MediaType.TEXT_PLAIN, 0);
+        assertTrue(rep instanceof MappedFileRepresentation);
+        assertEquals(3, rep.getSize());
+        assertEquals("abc", rep.getText());
+        assertEquals("abc", rep.getText());
+
+        // Too large files are read from a regular channel
+        write(file, "abcdefghijklmnopqrstuvwxyz");
+        rep = entity.getRepresentation(MediaType.TEXT_PLAIN, 0);
+        assertFalse(rep instanceof MappedFileRepresentation);
+        assertEquals("abcdefghijklmnopqrstuvwxyz", rep.getText());
+    }
+
+    public void testEviction() throws Exception {
+        File file1 = new File(this.testDir, "file1.txt");
+        File file2 = new File(this.testDir, "file2.txt");
+        write(file1, "0123456789");
+        write(file2, "abcdefghij");
+
+        MappedFileCache cache = new MappedFileCache(15, 10);
+        assertNotNull(cache.get(file1));
+        assertEquals(10, cache.getMappedBytes());
+        assertNotNull(cache.get(file2));
+        assertEquals(10, cache.getMappedBytes());
+
+        cache.remove(file2);
+        assertEquals(0, cache.getMappedBytes());
+        assertNull(cache.get(new File(this.testDir, "missing.txt")));
+    }
+
+    public void testModification() throws Exception {
+        File file = new File(this.testDir, "test.txt");
+        write(file, "abc");
+
+        MappedFileCache cache = new MappedFileCache(1024, 1024);
+        ByteBuffer buffer = cache.get(file);
+        assertEquals(3, buffer.remaining());
+        assertSame(buffer.get(0), cache.get(file).get(0));
+
+        write(file, "abcdef");
+        buffer = cache.get(file);
+        assertEquals(6, buffer.remaining());
+        assertEquals('f', buffer.get(5));
+        assertEquals(6, cache.getMappedBytes());
+
+        cache.clear();
+        assertEquals(0, cache.getMappedBytes());
+    }
+
+    public void testNonBlockingWrite() throws Exception {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; sb.length() < 1000000; i++) {
+            sb.append("Line ").append(i).append('\n');
+        }
+
+        File file = new File(this.testDir, "test.txt");
+        write(file, sb.toString());
+        MappedFileCache cache = new MappedFileCache(2000000, 2000000);
+        MappedFileRepresentation rep = new MappedFileRepresentation(file,
+                cache.get(file), MediaType.TEXT_PLAIN, -1);
+
+        // The pipe can't accept the whole content before being drained
+        final Pipe pipe = Pipe.open();
+        pipe.sink().configureBlocking(false);
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(500);
+                    BioUtils.copy(Channels.newInputStream(pipe.source()),
+                            received);
+                } catch (Exception e) {
+                    // Leaves the content incomplete
+                }
+            }
+        };
+        reader.start();
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        boolean cpuTime = threadBean.isCurrentThreadCpuTimeSupported();
+        long startTime = cpuTime ? threadBean.getCurrentThreadCpuTime() : 0;
+        rep.write(pipe.sink());
+        pipe.sink().close();
+        reader.join(10000);
+        assertEquals(sb.toString(), received.toString("US-ASCII"));
+
+        if (cpuTime) {
+            // Waits for the pipe to be writable instead of spinning
+            long cpuNanos = threadBean.getCurrentThreadCpuTime() - startTime;
+            assertTrue(cpuNanos < TimeUnit.MILLISECONDS.toNanos(250));
+        }
+    }
+
+}
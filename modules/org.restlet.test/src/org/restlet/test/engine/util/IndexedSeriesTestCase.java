@@ -0,0 +1,106 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.util;
+
+import java.util.Iterator;
+
+import org.restlet.engine.header.Header;
+import org.restlet.engine.util.IndexedSeries;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
+
+/**
+ * Unit tests for the {@link IndexedSeries} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class IndexedSeriesTestCase extends RestletTestCase {
+
+    private Series<Header> createHeaders() {
+        Series<Header> result = new IndexedSeries<Header>(Header.class);
+        result.add("Accept", "text/html");
+        result.add("Host", "localhost");
+        result.add("accept", "text/plain");
+        result.add("X-Forwarded-For", "1.2.3.4");
+        result.add("ACCEPT", "*/*");
+        return result;
+    }
+
+    public void testLookups() {
+        Series<Header> headers = createHeaders();
+
+        assertEquals("text/html", headers.getFirstValue("ACCEPT", true));
+        assertEquals("*/*", headers.getFirstValue("ACCEPT"));
+        assertNull(headers.getFirstValue("Accept-Language", true));
+        assertEquals("text/html,text/plain,*/*", headers.getValues("accept"));
+        assertEquals("text/plain",
+                headers.getValues("accept", ",", false));
+        assertEquals(3, headers.getValuesArray("Accept", true).length);
+        assertEquals(1, headers.subList("Accept").size());
+        assertEquals("localhost", headers.getFirstValue("hOST", true));
+    }
+
+    public void testModifications() {
+        Series<Header> headers = createHeaders();
+        assertEquals("localhost", headers.getFirstValue("Host", true));
+
+        headers.add("Host", "example.com");
+        assertEquals("localhost,example.com", headers.getValues("host"));
+
+        headers.removeFirst("host", true);
+        assertEquals("example.com", headers.getFirstValue("Host"));
+
+        for (Iterator<Header> iter = headers.iterator(); iter.hasNext();) {
+            if ("Host".equals(iter.next().getName())) {
+                iter.remove();
+            }
+        }
+
+        assertNull(headers.getFirstValue("Host", true));
+
+        headers.subList(0, 1).clear();
+        assertEquals("text/plain,*/*", headers.getValues("Accept"));
+
+        headers.set(0, new Header("Host", "restlet.org"));
+        assertEquals("restlet.org", headers.getFirstValue("host", true));
+        assertNull(headers.getFirstValue("accept"));
+
+        headers.get(0).setName("Referer");
+        assertNull(headers.getFirstValue("host", true));
+        assertEquals("restlet.org", headers.getFirstValue("referer", true));
+        assertEquals(3, headers.size());
+    }
+
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.ext.ssl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.security.KeyStore;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Parameter;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.Engine;
+import org.restlet.engine.connector.Connection;
+import org.restlet.engine.connector.ConnectionHelper;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.local.ClapClientHelper;
+import org.restlet.ext.ssl.HttpsClientHelper;
+import org.restlet.ext.ssl.HttpsServerHelper;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
+
+/**
+ * Unit test for the pooled buffers of the SSL connections, checking that idle
+ * keep-alive connections don't hold any packet bytes.
+ * 
+ * @author Jerome Louvel
+ */
+public class SslBufferPoolTestCase extends RestletTestCase {
+
+    private Client client;
+
+    private Server server;
+
+    private final File testDir = new File(System.getProperty("java.io.tmpdir"),
+            "SslBufferPoolTestCase");
+
+    private final File testKeystoreFile = new File(testDir, "dummy.jks");
+
+    /**
+     * Asserts that the idle connections of a connector hold no SSL packet
+     * bytes and that clearing them returns all their bytes to the shared
+     * buffer pool.
+     * 
+     * @param helper
+     *            The connector helper.
+     */
+    private void assertIdle(ConnectionHelper<?> helper) {
+        assertNotNull(helper.getBufferPool());
+        assertFalse(helper.getConnections().isEmpty());
+
+        for (Connection<?> connection : helper.getConnections()) {
+            assertEquals(0, getPacketBytes(connection));
+        }
+
+        for (Connection<?> connection : helper.getConnections()) {
+            connection.clear();
+            assertEquals(0, connection.getAllocatedBytes());
+        }
+
+        assertEquals(0, helper.getBufferPool().getBytesInUse());
+    }
+
+    /**
+     * Returns the connection helper of a connector.
+     * 
+     * @param context
+     *            The connector context.
+     * @return The connection helper.
+     */
+    private ConnectionHelper<?> getHelper(Context context) {
+        return (ConnectionHelper<?>) context.getAttributes().get(
+                "org.restlet.engine.helper");
+    }
+
+    /**
+     * Returns the number of bytes held by the SSL packet buffers of a
+     * connection.
+     * 
+     * @param connection
+     *            The SSL connection.
+     * @return The number of bytes held by the SSL packet buffers.
+     */
+    private int getPacketBytes(Connection<?> connection) {
+        return connection.getAllocatedBytes()
+                - connection.getInboundWay().getBuffer().getAllocatedBytes()
+                - connection.getOutboundWay().getBuffer().getAllocatedBytes();
+    }
+
+    /**
+     * Reads a response with a fixed content length from a socket stream.
+     * 
+     * @param in
+     *            The socket input stream.
+     * @return The response entity.
+     * @throws IOException
+     */
+    private String readResponse(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int length = -1;
+        int next;
+
+        // Read the header lines up to the empty one
+        while ((next = in.read()) != -1) {
+            if (next == '\n') {
+                String header = line.toString().trim();
+
+                if (header.length() == 0) {
+                    break;
+                } else if (header.toLowerCase().startsWith("content-length:")) {
+                    length = Integer.parseInt(header.substring(15).trim());
+                }
+
+                line.setLength(0);
+            } else {
+                line.append((char) next);
+            }
+        }
+
+        assertTrue(length >= 0);
+        byte[] entity = new byte[length];
+        int offset = 0;
+
+        while (offset < length) {
+            int read = in.read(entity, offset, length - offset);
+            assertTrue(read > 0);
+            offset += read;
+        }
+
+        return new String(entity, "US-ASCII");
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Engine engine = Engine.register(false);
+        engine.getRegisteredClients().add(new ClapClientHelper(null));
+        engine.getRegisteredServers().add(new HttpsServerHelper(null));
+        engine.getRegisteredClients().add(new HttpsClientHelper(null));
+
+        // Copy the keystore into a temporary directory
+        BioUtils.delete(this.testDir, true);
+        this.testDir.mkdir();
+        Response response = new Client(Protocol.CLAP).handle(new Request(
+                Method.GET, "clap://class/org/restlet/test/engine/dummy.jks"));
+        OutputStream outputStream = new FileOutputStream(this.testKeystoreFile);
+        response.getEntity().write(outputStream);
+        outputStream.close();
+
+        this.server = new Server(new Context(), Protocol.HTTPS, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("Hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        Series<Parameter> parameters = this.server.getContext()
+                .getParameters();
+        parameters.add("keystorePath", this.testKeystoreFile.getPath());
+        parameters.add("keystorePassword", "testtest");
+        parameters.add("keyPassword", "testtest");
+        parameters.add("truststorePath", this.testKeystoreFile.getPath());
+        parameters.add("truststorePassword", "testtest");
+        parameters.add("sslProtocol", "TLSv1.2");
+        parameters.add("pooledBuffers", "true");
+        this.server.start();
+
+        this.client = new Client(new Context(), Protocol.HTTPS);
+        parameters = this.client.getContext().getParameters();
+        parameters.add("truststorePath", this.testKeystoreFile.getPath());
+        parameters.add("truststorePassword", "testtest");
+        parameters.add("sslProtocol", "TLSv1.2");
+        parameters.add("pooledBuffers", "true");
+        this.client.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.client.stop();
+        this.server.stop();
+        this.client = null;
+        this.server = null;
+        BioUtils.delete(this.testDir, true);
+
+        // Restore a clean engine
+        Engine.register();
+        super.tearDown();
+    }
+
+    public void testClientConnections() throws Exception {
+        Response response = this.client.handle(new Request(Method.GET,
+                "https://localhost:" + this.server.getActualPort() + "/"));
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("Hello", response.getEntityAsText());
+        assertIdle(getHelper(this.client.getContext()));
+    }
+
+    public void testKeepAlive() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        InputStream keyStream = new FileInputStream(this.testKeystoreFile);
+
+        try {
+            keyStore.load(keyStream, "testtest".toCharArray());
+        } finally {
+            keyStream.close();
+        }
+
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory
+                .getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(keyStore);
+        SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
+        sslContext.init(null, trustManagerFactory.getTrustManagers(), null);
+        Socket socket = sslContext.getSocketFactory().createSocket(
+                "localhost", this.server.getActualPort());
+        ConnectionHelper<?> helper = getHelper(this.server.getContext());
+
+        try {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+
+            // Several exchanges over the same keep-alive connection
+            for (int i = 0; i < 3; i++) {
+                out.write("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                        .getBytes("US-ASCII"));
+                out.flush();
+                assertEquals("Hello", readResponse(in));
+            }
+
+            assertEquals(1, helper.getConnections().size());
+
+            // Let the server connection go back to idle after the response
+            for (int i = 0; (i < 50)
+                    && (helper.getBufferPool().getBytesInUse() > 0); i++) {
+                Thread.sleep(100);
+            }
+
+            assertIdle(helper);
+        } finally {
+            socket.close();
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.ext.ssl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.restlet.engine.log.LoggingThreadFactory;
+import org.restlet.ext.ssl.internal.SslTaskService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the {@link SslTaskService} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class SslTaskServiceTestCase extends RestletTestCase {
+
+    private SslTaskService taskService;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.taskService = new SslTaskService(2,
+                new LinkedBlockingQueue<Runnable>(), new LoggingThreadFactory(
+                        Logger.getAnonymousLogger(), true));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.taskService.shutdownNow();
+        this.taskService = null;
+        super.tearDown();
+    }
+
+    public void testExecute() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(10);
+
+        for (int i = 0; i < 10; i++) {
+            this.taskService.execute(new Runnable() {
+                public void run() {
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(2, this.taskService.getMaximumPoolSize());
+    }
+
+    public void testHandshakeStatistics() {
+        this.taskService.onHandshakeStarted();
+        this.taskService.onHandshakeStarted();
+        this.taskService.onHandshakeStarted();
+        assertEquals(3, this.taskService.getInFlightHandshakeCount());
+
+        this.taskService.onHandshakeCompleted(TimeUnit.MILLISECONDS
+                .toNanos(4));
+        this.taskService.onHandshakeCompleted(TimeUnit.MILLISECONDS
+                .toNanos(8));
+        this.taskService.onHandshakeFailed();
+        assertEquals(0, this.taskService.getInFlightHandshakeCount());
+        assertEquals(2, this.taskService.getCompletedHandshakeCount());
+        assertEquals(1, this.taskService.getFailedHandshakeCount());
+        assertEquals(6D, this.taskService.getAverageHandshakeMs(), 0.001D);
+        assertTrue(this.taskService.getHandshakeThroughput() > 0D);
+
+        // Buckets are bounded by 1, 2, 5 and 10 ms
+        long[] histogram = this.taskService.getHandshakeHistogram();
+        assertEquals(1, histogram[2]);
+        assertEquals(1, histogram[3]);
+
+        this.taskService.resetStatistics();
+        assertEquals(0, this.taskService.getCompletedHandshakeCount());
+        assertEquals(0D, this.taskService.getAverageHandshakeMs());
+    }
+
+    public void testRejection() throws Exception {
+        SslTaskService bounded = new SslTaskService(1,
+                new ArrayBlockingQueue<Runnable>(1), new LoggingThreadFactory(
+                        Logger.getAnonymousLogger(), true));
+        final CountDownLatch latch = new CountDownLatch(1);
+        Runnable blocking = new Runnable() {
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    // Ends the task
+                }
+            }
+        };
+
+        try {
+            bounded.execute(blocking);
+            bounded.execute(blocking);
+
+            // A full queue rejects the task instead of running it on the
+            // calling thread
+            try {
+                bounded.execute(blocking);
+                fail("The task should have been rejected");
+            } catch (RejectedExecutionException e) {
+                assertEquals(1, bounded.getRejectedCount());
+            }
+
+            latch.countDown();
+            bounded.shutdown();
+
+            try {
+                bounded.execute(blocking);
+                fail("The task should have been rejected");
+            } catch (RejectedExecutionException e) {
+                assertEquals(2, bounded.getRejectedCount());
+            }
+        } finally {
+            bounded.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Component;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Uniform;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.resource.ClientResource;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the asynchronous calls of the {@link ClientResource} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class ClientResourceAsyncTestCase extends RestletTestCase {
+
+    private Component component;
+
+    private String uri;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.uri = "http://localhost:" + TEST_PORT;
+        this.component = new Component();
+        this.component.getServers().add(Protocol.HTTP, TEST_PORT);
+        this.component.getInternalRouter().attach("/local", new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                response.setEntity("local", MediaType.TEXT_PLAIN);
+            }
+        });
+        this.component.getDefaultHost().attach(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                if (request.getResourceRef().getPath().equals("/old")) {
+                    response.redirectPermanent(uri + "/hello");
+                } else if (request.getResourceRef().getPath().equals("/hello")) {
+                    response.setEntity("hello", MediaType.TEXT_PLAIN);
+                } else {
+                    response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
+                }
+            }
+        });
+        this.component.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.component.stop();
+        this.component = null;
+        super.tearDown();
+    }
+
+    public void testCallback() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<String> texts = new ArrayList<String>();
+        ClientResource resource = new ClientResource(uri + "/hello");
+        Future<Response> future = resource.submit(Method.GET, new Uniform() {
+            public void handle(Request request, Response response) {
+                texts.add(response.getEntityAsText());
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(future.isDone());
+        assertFalse(future.isCancelled());
+        assertEquals(Status.SUCCESS_OK, future.get().getStatus());
+        assertEquals("hello", texts.get(0));
+        assertSame(future.get(), resource.getResponse());
+    }
+
+    public void testCancel() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        ClientResource resource = new ClientResource(uri + "/hello");
+        Future<Response> future = resource.submit(Method.GET, new Uniform() {
+            public void handle(Request request, Response response) {
+                calls.incrementAndGet();
+            }
+        });
+
+        if (future.cancel(false)) {
+            assertTrue(future.isCancelled());
+            assertTrue(future.isDone());
+            Thread.sleep(500);
+            assertEquals(0, calls.get());
+        }
+    }
+
+    public void testConcurrentCalls() throws Exception {
+        int count = 50;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final AtomicInteger successes = new AtomicInteger();
+        List<Future<Response>> futures = new ArrayList<Future<Response>>();
+
+        for (int i = 0; i < count; i++) {
+            ClientResource resource = new ClientResource(uri + "/hello");
+            futures.add(resource.submit(Method.GET, new Uniform() {
+                public void handle(Request request, Response response) {
+                    if (response.getStatus().isSuccess()) {
+                        successes.incrementAndGet();
+                    }
+
+                    response.release();
+                    latch.countDown();
+                }
+            }));
+        }
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertEquals(count, successes.get());
+
+        for (Future<Response> future : futures) {
+            assertTrue(future.isDone());
+        }
+    }
+
+    public void testLocalTarget() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        ClientResource resource = new ClientResource(this.component
+                .getContext().createChildContext(), "riap://component/local");
+        Future<Response> future = resource.submit(Method.GET, new Uniform() {
+            public void handle(Request request, Response response) {
+                calls.incrementAndGet();
+            }
+        });
+
+        // The RIAP dispatcher completes the call synchronously
+        assertTrue(future.isDone());
+        Response response = future.get(10, TimeUnit.SECONDS);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("local", response.getEntityAsText());
+        assertEquals(1, calls.get());
+
+        // Plain Restlet as next handler
+        resource = new ClientResource("http://localhost/plain");
+        resource.setNext(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                response.setStatus(Status.SUCCESS_NO_CONTENT);
+            }
+        });
+        response = resource.submit(Method.GET, null).get(10,
+                TimeUnit.SECONDS);
+        assertEquals(Status.SUCCESS_NO_CONTENT, response.getStatus());
+    }
+
+    public void testMissingConnector() throws Exception {
+        ClientResource resource = new ClientResource("ftp://localhost/file");
+        Response response = resource.submit(Method.GET, null).get(10,
+                TimeUnit.SECONDS);
+        assertEquals(Status.CONNECTOR_ERROR_INTERNAL, response.getStatus());
+    }
+
+    public void testRedirection() throws Exception {
+        ClientResource resource = new ClientResource(uri + "/old");
+        Response response = resource.submit(Method.GET, null).get(10,
+                TimeUnit.SECONDS);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("hello", response.getEntityAsText());
+
+        resource.setFollowingRedirects(false);
+        response = resource.submit(Method.GET, null).get(10,
+                TimeUnit.SECONDS);
+        assertEquals(Status.REDIRECTION_PERMANENT, response.getStatus());
+        response.release();
+    }
+
+    public void testUnknownResource() throws Exception {
+        ClientResource resource = new ClientResource(uri + "/unknown");
+        Response response = resource.submit(Method.GET, null).get(10,
+                TimeUnit.SECONDS);
+        assertEquals(Status.CLIENT_ERROR_NOT_FOUND, response.getStatus());
+        response.release();
+    }
+
+}
@@ -34,20 +34,27 @@
 package org.restlet.test.resource;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Date;
+import java.util.zip.GZIPOutputStream;
 
 import org.restlet.Application;
 import org.restlet.Component;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
+import org.restlet.data.Encoding;
 import org.restlet.data.Language;
 import org.restlet.data.LocalReference;
+import org.restlet.data.MediaType;
 import org.restlet.data.Method;
+import org.restlet.data.Preference;
 import org.restlet.data.Protocol;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
+import org.restlet.engine.application.DecodeRepresentation;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
@@ -554,4 +561,89 @@ public class DirectoryTestCase extends RestletTestCase {
         BioUtils.delete(testDirectory, true);
         System.out.println("End of tests*********************");
     }
+
+    public void testPrecompressed() throws Exception {
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "DirectoryTestCase/tests7" + new Date().getTime());
+        this.testDir.mkdirs();
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("body { color: red; }\n");
+        }
+        String content = sb.toString();
+
+        OutputStream os = new FileOutputStream(new File(this.testDir,
+                "style.css"));
+        os.write(content.getBytes("UTF-8"));
+        os.close();
+        File gzipFile = new File(this.testDir, "style.css.gz");
+        os = new GZIPOutputStream(new FileOutputStream(gzipFile));
+        os.write(content.getBytes("UTF-8"));
+        os.close();
+
+        Component clientComponent = new Component();
+        clientComponent.getClients().add(Protocol.FILE);
+        MyApplication application = new MyApplication(this.testDir);
+        clientComponent.getDefaultHost().attach("", application);
+        clientComponent.start();
+        application.getEncoderService().setEnabled(true);
+        application.getDirectory().getPrecompressedExtensions()
+                .put(Encoding.GZIP, "gz");
+
+        try {
+            // The precompressed sibling is only served if accepted
+            Response response = handle(application, this.webSiteURL,
+                    this.webSiteURL.concat("style.css"), Method.GET, null,
+                    "precompressed 1");
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertTrue(response.getEntity().getEncodings().isEmpty());
+            assertEquals(content, response.getEntity().getText());
+
+            Request request = new Request(Method.GET,
+                    this.webSiteURL.concat("style.css"));
+            request.setOriginalRef(request.getResourceRef().getTargetRef());
+            request.getResourceRef().setBaseRef(this.webSiteURL);
+            request.getClientInfo().getAcceptedEncodings()
+                    .add(new Preference<Encoding>(Encoding.GZIP));
+            response = new Response(request);
+            application.handle(request, response);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertEquals(Encoding.GZIP, response.getEntity().getEncodings()
+                    .get(0));
+            assertEquals(1, response.getEntity().getEncodings().size());
+            assertEquals(gzipFile.length(), response.getEntity().getSize());
+            assertTrue(response.getEntity().getMediaType()
+                    .equals(MediaType.TEXT_CSS, true));
+            assertEquals(content,
+                    new DecodeRepresentation(response.getEntity()).getText());
+
+            // An explicit refusal overrides the wildcard
+            request = new Request(Method.GET,
+                    this.webSiteURL.concat("style.css"));
+            request.setOriginalRef(request.getResourceRef().getTargetRef());
+            request.getResourceRef().setBaseRef(this.webSiteURL);
+            request.getClientInfo().getAcceptedEncodings()
+                    .add(new Preference<Encoding>(Encoding.GZIP, 0F));
+            request.getClientInfo().getAcceptedEncodings()
+                    .add(new Preference<Encoding>(Encoding.ALL));
+            response = new Response(request);
+            application.handle(request, response);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertFalse(response.getEntity().getEncodings()
+                    .contains(Encoding.GZIP));
+            assertEquals(content,
+                    new DecodeRepresentation(response.getEntity()).getText());
+
+            // The precompressed sibling isn't a variant of its own
+            response = handle(application, this.webSiteURL,
+                    this.webSiteURL.concat("style"), Method.GET, null,
+                    "precompressed 2");
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertEquals(content, response.getEntity().getText());
+        } finally {
+            clientComponent.stop();
+            BioUtils.delete(this.testDir, true);
+        }
+    }
 }
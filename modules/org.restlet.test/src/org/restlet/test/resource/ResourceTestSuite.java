@@ -56,6 +56,7 @@ public class ResourceTestSuite {
         suite.addTestSuite(AnnotatedResource11TestCase.class);
         suite.addTestSuite(AnnotatedResource12TestCase.class);
         suite.addTestSuite(AnnotatedResource13TestCase.class);
+        suite.addTestSuite(ClientResourceAsyncTestCase.class);
 
         // Tests based on HTTP client connectors are not supported by the GAE
         // edition.
@@ -35,7 +35,13 @@ package org.restlet.test.routing;
 
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
 import org.restlet.routing.Route;
+import org.restlet.routing.Router;
+import org.restlet.routing.Template;
+import org.restlet.routing.TemplateRoute;
+import org.restlet.routing.Variable;
 import org.restlet.test.RestletTestCase;
 import org.restlet.util.RouteList;
 
@@ -60,6 +66,102 @@ public class RouteListTestCase extends RestletTestCase {
         }
     }
 
+    /** URIs relative to the base reference used to test compiled routes. */
+    private static final String[] URIS = { "", "/", "/users", "/users/",
+            "/users/123", "/users/123/", "/users/123/items",
+            "/users/123/items/abc", "/users/123/items/abc?sort=asc",
+            "/users/a%20b/items", "/users/a b/items", "/users//items",
+            "/usersXYZ", "/files/a/b/c.txt", "/x/1.json", "/x/1.xml",
+            "/orders/42", "/orders/42/lines/7", "/status", "/status?full" };
+
+    /**
+     * Creates a router with a mix of routes that can and can't be compiled.
+     * 
+     * @param routingMode
+     *            The routing mode.
+     * @return The router.
+     */
+    private static Router createRouter(int routingMode) {
+        Router router = new Router();
+        router.setRoutingMode(routingMode);
+        router.attach("/users", new Restlet() {
+        }, Template.MODE_STARTS_WITH);
+        router.attach("/users/{id}", new Restlet() {
+        });
+        router.attach("/users/{id}/items", new Restlet() {
+        },
+                Template.MODE_STARTS_WITH);
+        router.attach("/users/{id}/items/{item}", new Restlet() {
+        });
+        TemplateRoute route = router.attach("/files/{path}", new Restlet() {
+        });
+        route.getTemplate().getVariables()
+                .put("path", new Variable(Variable.TYPE_URI_PATH));
+        router.attach("/x/{id}.json", new Restlet() {
+        });
+        router.attach("/{type}/{id}", new Restlet() {
+        });
+        router.attach("/orders/{id}/lines/{line}", new Restlet() {
+        },
+                Template.MODE_STARTS_WITH);
+        router.getRoutes().add(3, new MockScoringRoute(0));
+        route = router.attach("/status", new Restlet() {
+        });
+        route.setMatchingQuery(true);
+        route.setMatchingMode(Template.MODE_STARTS_WITH);
+        router.attach("/{any}", new Restlet() {
+        }, Template.MODE_STARTS_WITH);
+        return router;
+    }
+
+    /**
+     * Creates a request whose remaining part is the given URI.
+     * 
+     * @param uri
+     *            The URI relative to the base reference.
+     * @return The request.
+     */
+    private static Request createRequest(String uri) {
+        Request request = new Request(Method.GET, "http://localhost/base"
+                + uri);
+        request.getResourceRef().setBaseRef("http://localhost/base");
+        return request;
+    }
+
+    public void testGetCompiledBest() {
+        Router router = createRouter(Router.MODE_COMPILED_BEST_MATCH);
+        RouteList list = router.getRoutes();
+
+        for (String uri : URIS) {
+            Request request = createRequest(uri);
+            assertSame(uri, list.getBest(request, null, 0.5F),
+                    list.getCompiledBest(request, null, 0.5F));
+            assertSame(uri, list.getBest(request, null, 0.9F),
+                    list.getCompiledBest(request, null, 0.9F));
+        }
+    }
+
+    public void testGetCompiledFirst() {
+        Router router = createRouter(Router.MODE_COMPILED_FIRST_MATCH);
+        RouteList list = router.getRoutes();
+
+        for (String uri : URIS) {
+            Request request = createRequest(uri);
+            assertSame(uri, list.getFirst(request, null, 0.5F),
+                    list.getCompiledFirst(request, null, 0.5F));
+        }
+
+        // Structural changes must discard the compiled routes
+        Route first = router.attach("/{a}/{b}", new Restlet() {
+        });
+        list.remove(first);
+        list.add(0, first);
+        assertSame(first,
+                list.getCompiledFirst(createRequest("/users/123"), null, 0.5F));
+        assertNull(list.getCompiledFirst(createRequest("/users/123"), null,
+                1.1F));
+    }
+
     public void testGetLast() {
         final RouteList list = new RouteList();
 
@@ -0,0 +1,231 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Client;
+import org.restlet.Component;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.Dimension;
+import org.restlet.data.Language;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Preference;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.routing.Filter;
+import org.restlet.service.CacheService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the cache service.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheServiceTestCase extends RestletTestCase {
+
+    /** Number of calls reaching the target. */
+    private AtomicInteger calls;
+
+    private CacheService cacheService;
+
+    private Filter filter;
+
+    /** The cache directive returned by the target. */
+    private CacheDirective directive;
+
+    private Response handle(Method method, String uri) {
+        Request request = new Request(method, uri);
+        Response response = new Response(request);
+        filter.handle(request, response);
+        return response;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.calls = new AtomicInteger();
+        this.directive = CacheDirective.maxAge(60);
+        this.cacheService = new CacheService();
+        this.filter = cacheService.createInboundFilter(new Context());
+        this.filter.setNext(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                int call = calls.incrementAndGet();
+                StringRepresentation entity = new StringRepresentation(
+                        "call" + call + " "
+                                + request.getClientInfo().getAcceptedLanguages(),
+                        MediaType.TEXT_PLAIN);
+                entity.setTag(new Tag("v1"));
+
+                if (request.getConditions().getNoneMatch().contains(
+                        entity.getTag())) {
+                    response.setStatus(Status.REDIRECTION_NOT_MODIFIED);
+                } else {
+                    response.setEntity(entity);
+                }
+
+                if (directive != null) {
+                    response.getCacheDirectives().add(directive);
+                }
+
+                response.getDimensions().add(Dimension.LANGUAGE);
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.filter = null;
+        this.cacheService = null;
+        super.tearDown();
+    }
+
+    public void testConditions() throws Exception {
+        assertEquals("call1 []", handle(Method.GET, "/a").getEntityAsText());
+
+        Request request = new Request(Method.GET, "/a");
+        request.getConditions().getNoneMatch().add(new Tag("v1"));
+        Response response = new Response(request);
+        filter.handle(request, response);
+        assertEquals(Status.REDIRECTION_NOT_MODIFIED, response.getStatus());
+        assertEquals(1, calls.get());
+    }
+
+    public void testEviction() throws Exception {
+        cacheService.setMaxCachedBytes(12);
+        handle(Method.GET, "/a").getEntityAsText();
+        handle(Method.GET, "/b").getEntityAsText();
+        assertEquals(1, cacheService.getEvictionCount());
+        assertEquals(8, cacheService.getCachedBytes());
+
+        assertEquals("call3 []", handle(Method.GET, "/a").getEntityAsText());
+        cacheService.clear();
+        assertEquals(0, cacheService.getCachedBytes());
+    }
+
+    public void testHit() throws Exception {
+        assertEquals("call1 []", handle(Method.GET, "/a").getEntityAsText());
+        Response response = handle(Method.GET, "/a");
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("call1 []", response.getEntityAsText());
+        assertEquals(new Tag("v1"), response.getEntity().getTag());
+        assertEquals(1, calls.get());
+        assertEquals(1, cacheService.getHitCount());
+        assertEquals(1, cacheService.getMissCount());
+
+        // Unsafe methods invalidate the cached entries
+        handle(Method.PUT, "/a");
+        assertEquals("call3 []", handle(Method.GET, "/a").getEntityAsText());
+    }
+
+    public void testNoStore() throws Exception {
+        directive = CacheDirective.noStore();
+        handle(Method.GET, "/a").getEntityAsText();
+        assertEquals("call2 []", handle(Method.GET, "/a").getEntityAsText());
+        assertEquals(0, cacheService.getCachedBytes());
+    }
+
+    public void testOutbound() throws Exception {
+        Component component = new Component();
+        component.getServers().add(Protocol.HTTP, TEST_PORT);
+        component.getDefaultHost().attach(filter.getNext());
+        component.start();
+
+        try {
+            // Private cache in front of a client connector, without freshness
+            // information so that each call is revalidated over the wire
+            Client client = new Client(Protocol.HTTP);
+            cacheService.setOutboundCaching(true);
+            Filter outbound = cacheService.createOutboundFilter(new Context());
+            outbound.setNext(client);
+            directive = CacheDirective.privateInfo();
+            String uri = "http://localhost:" + TEST_PORT + "/a";
+
+            for (int i = 0; i < 3; i++) {
+                Request request = new Request(Method.GET, uri);
+                Response response = new Response(request);
+                outbound.handle(request, response);
+                assertEquals(Status.SUCCESS_OK, response.getStatus());
+                assertEquals("call1 [*:1.0]", response.getEntityAsText());
+            }
+
+            assertEquals(3, calls.get());
+            assertEquals(2, cacheService.getRevalidationCount());
+            client.stop();
+        } finally {
+            component.stop();
+        }
+    }
+
+    public void testRevalidation() throws Exception {
+        directive = null;
+        assertEquals("call1 []", handle(Method.GET, "/a").getEntityAsText());
+
+        // No freshness information, the entry is revalidated
+        Response response = handle(Method.GET, "/a");
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("call1 []", response.getEntityAsText());
+        assertEquals(2, calls.get());
+        assertEquals(1, cacheService.getRevalidationCount());
+    }
+
+    public void testVary() throws Exception {
+        Request request = new Request(Method.GET, "/a");
+        request.getClientInfo().getAcceptedLanguages()
+                .add(new Preference<Language>(Language.FRENCH));
+        Response response = new Response(request);
+        filter.handle(request, response);
+        assertEquals("call1 [fr:1.0]", response.getEntityAsText());
+
+        assertEquals("call2 []", handle(Method.GET, "/a").getEntityAsText());
+        assertEquals("call2 []", handle(Method.GET, "/a").getEntityAsText());
+
+        request = new Request(Method.GET, "/a");
+        request.getClientInfo().getAcceptedLanguages()
+                .add(new Preference<Language>(Language.FRENCH));
+        response = new Response(request);
+        filter.handle(request, response);
+        assertEquals("call1 [fr:1.0]", response.getEntityAsText());
+        assertEquals(2, calls.get());
+    }
+
+}
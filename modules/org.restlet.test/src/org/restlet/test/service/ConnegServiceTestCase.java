@@ -38,7 +38,10 @@ import java.util.List;
 
 import org.restlet.Request;
 import org.restlet.data.MediaType;
+import org.restlet.data.Method;
 import org.restlet.data.Preference;
+import org.restlet.engine.resource.AnnotationInfo;
+import org.restlet.engine.resource.VariantInfo;
 import org.restlet.representation.Variant;
 import org.restlet.service.ConnegService;
 import org.restlet.service.MetadataService;
@@ -51,6 +54,116 @@ import org.restlet.test.RestletTestCase;
  */
 public class ConnegServiceTestCase extends RestletTestCase {
 
+    private List<Variant> createVariants() {
+        List<Variant> result = new ArrayList<Variant>();
+        result.add(new Variant(MediaType.TEXT_HTML));
+        result.add(new Variant(MediaType.APPLICATION_JSON));
+        result.add(new Variant(MediaType.APPLICATION_XML));
+        return result;
+    }
+
+    private Request createRequest(MediaType... mediaTypes) {
+        Request result = new Request();
+
+        for (MediaType mediaType : mediaTypes) {
+            result.getClientInfo().getAcceptedMediaTypes()
+                    .add(new Preference<MediaType>(mediaType));
+        }
+
+        return result;
+    }
+
+    public void testAnnotatedCache() {
+        MetadataService metadataService = new MetadataService();
+        ConnegService connegService = new ConnegService();
+        connegService.setStrict(true);
+        List<Variant> variants = new ArrayList<Variant>();
+        variants.add(new VariantInfo(MediaType.APPLICATION_JSON,
+                new AnnotationInfo(Object.class, Method.GET, null, "json")));
+        variants.add(new VariantInfo(MediaType.APPLICATION_XML,
+                new AnnotationInfo(Object.class, Method.GET, null, "xml")));
+
+        // Without query constraint, only the presence of a query matters
+        Request request = createRequest(MediaType.APPLICATION_XML);
+        assertSame(variants.get(1), connegService.getPreferredVariant(
+                variants, request, metadataService));
+        request.setResourceRef("http://localhost/test?a=1");
+        assertSame(variants.get(1), connegService.getPreferredVariant(
+                variants, request, metadataService));
+        request.setResourceRef("http://localhost/test?a=2");
+        assertSame(variants.get(1), connegService.getPreferredVariant(
+                variants, request, metadataService));
+        assertEquals(2, connegService.getCachedResultsCount());
+
+        // With a query constraint, the query itself matters
+        variants.add(new VariantInfo(MediaType.APPLICATION_XML,
+                new AnnotationInfo(Object.class, Method.GET, null,
+                        "xml?mode=full")));
+        request.setResourceRef("http://localhost/test?mode=full");
+        assertSame(variants.get(2), connegService.getPreferredVariant(
+                variants, request, metadataService));
+        request.setResourceRef("http://localhost/test?mode=lite");
+        assertSame(variants.get(1), connegService.getPreferredVariant(
+                variants, request, metadataService));
+        assertEquals(4, connegService.getCachedResultsCount());
+    }
+
+    public void testCache() {
+        MetadataService metadataService = new MetadataService();
+        ConnegService connegService = new ConnegService();
+        connegService.setStrict(true);
+
+        // Same preferences and variants, new instances
+        List<Variant> variants = createVariants();
+        assertSame(variants.get(1), connegService.getPreferredVariant(
+                variants, createRequest(MediaType.APPLICATION_JSON),
+                metadataService));
+        assertEquals(1, connegService.getCachedResultsCount());
+
+        variants = createVariants();
+        assertSame(variants.get(1), connegService.getPreferredVariant(
+                variants, createRequest(MediaType.APPLICATION_JSON),
+                metadataService));
+        assertEquals(1, connegService.getCachedResultsCount());
+
+        // Different preferences
+        assertSame(variants.get(2), connegService.getPreferredVariant(
+                variants, createRequest(MediaType.APPLICATION_XML),
+                metadataService));
+        assertNull(connegService.getPreferredVariant(variants,
+                createRequest(MediaType.IMAGE_PNG), metadataService));
+        assertNull(connegService.getPreferredVariant(variants,
+                createRequest(MediaType.IMAGE_PNG), metadataService));
+        assertEquals(3, connegService.getCachedResultsCount());
+
+        // Different variants
+        variants.remove(1);
+        assertNull(connegService.getPreferredVariant(variants,
+                createRequest(MediaType.APPLICATION_JSON), metadataService));
+
+        // Different default metadata
+        connegService.setStrict(false);
+        variants = createVariants();
+        Request request = createRequest(MediaType.IMAGE_PNG);
+        metadataService.setDefaultMediaType(MediaType.TEXT_HTML);
+        assertSame(variants.get(0), connegService.getPreferredVariant(
+                variants, request, metadataService));
+        metadataService.setDefaultMediaType(MediaType.APPLICATION_XML);
+        assertSame(variants.get(2), connegService.getPreferredVariant(
+                variants, request, metadataService));
+
+        // Bounded size
+        connegService.setMaxCachedResults(2);
+        assertEquals(0, connegService.getCachedResultsCount());
+        connegService.getPreferredVariant(variants,
+                createRequest(MediaType.TEXT_HTML), metadataService);
+        connegService.getPreferredVariant(variants,
+                createRequest(MediaType.TEXT_PLAIN), metadataService);
+        connegService.getPreferredVariant(variants,
+                createRequest(MediaType.TEXT_XML), metadataService);
+        assertTrue(connegService.getCachedResultsCount() <= 2);
+    }
+
     public void testStrict() {
         List<Variant> variants = new ArrayList<Variant>();
         Variant variant = new Variant(MediaType.APPLICATION_XML);
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.service;
+
+import java.util.Arrays;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Encoding;
+import org.restlet.data.Method;
+import org.restlet.data.Preference;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.CachedEncodeRepresentation;
+import org.restlet.engine.application.DecodeRepresentation;
+import org.restlet.engine.application.EncodeRepresentation;
+import org.restlet.engine.application.Encoder;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.service.EncoderService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the encoder service.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncoderServiceTestCase extends RestletTestCase {
+
+    private static final String CONTENT;
+
+    static {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            sb.append("Compressible content ").append(i % 10).append('\n');
+        }
+        CONTENT = sb.toString();
+    }
+
+    private Response handle(Encoder encoder, String uri, Tag tag) {
+        Request request = new Request(Method.GET, uri);
+        request.getClientInfo().getAcceptedEncodings()
+                .add(new Preference<Encoding>(Encoding.GZIP));
+        Response response = new Response(request);
+        Representation entity = new StringRepresentation(CONTENT);
+        entity.setTag(tag);
+        response.setEntity(entity);
+        encoder.afterHandle(request, response);
+        return response;
+    }
+
+    public void testCache() throws Exception {
+        EncoderService encoderService = new EncoderService();
+        encoderService.setMaxCachedBytes(1024 * 1024);
+        Encoder encoder = (Encoder) encoderService
+                .createInboundFilter(new Context());
+
+        // Strong tags are cached
+        Response response = handle(encoder, "http://localhost/a", new Tag(
+                "a1", false));
+        assertTrue(response.getEntity() instanceof CachedEncodeRepresentation);
+        assertEquals(Encoding.GZIP, response.getEntity().getEncodings().get(0));
+        long size = response.getEntity().getSize();
+        assertTrue(size > 0);
+        assertEquals(size, encoder.getCachedBytes());
+        assertEquals(CONTENT,
+                new DecodeRepresentation(response.getEntity()).getText());
+
+        response = handle(encoder, "http://localhost/a", new Tag("a1", false));
+        assertEquals(size, response.getEntity().getSize());
+        assertEquals(size, encoder.getCachedBytes());
+        assertEquals(CONTENT,
+                new DecodeRepresentation(response.getEntity()).getText());
+
+        // Weak tags and missing tags aren't cached
+        response = handle(encoder, "http://localhost/b", new Tag("b1", true));
+        assertFalse(response.getEntity() instanceof CachedEncodeRepresentation);
+        assertTrue(response.getEntity() instanceof EncodeRepresentation);
+        response = handle(encoder, "http://localhost/b", null);
+        assertFalse(response.getEntity() instanceof CachedEncodeRepresentation);
+        assertEquals(size, encoder.getCachedBytes());
+
+        // Least recently used entries are evicted
+        encoderService.setMaxCachedBytes(size);
+        handle(encoder, "http://localhost/c", new Tag("c1", false));
+        assertEquals(size, encoder.getCachedBytes());
+
+        // Cache disabled
+        encoderService.setMaxCachedBytes(0);
+        response = handle(encoder, "http://localhost/d", new Tag("d1", false));
+        assertFalse(response.getEntity() instanceof CachedEncodeRepresentation);
+        assertEquals(CONTENT,
+                new DecodeRepresentation(response.getEntity()).getText());
+    }
+
+    public void testBestEncoding() throws Exception {
+        Encoder encoder = (Encoder) new EncoderService()
+                .createInboundFilter(new Context());
+        ClientInfo clientInfo = new ClientInfo();
+        clientInfo.getAcceptedEncodings().add(
+                new Preference<Encoding>(Encoding.GZIP, 0F));
+        clientInfo.getAcceptedEncodings().add(
+                new Preference<Encoding>(Encoding.ALL));
+
+        // The explicit preference overrides the wildcard
+        Encoding best = encoder.getBestEncoding(clientInfo);
+        assertNotNull(best);
+        assertFalse(Encoding.GZIP.equals(best));
+        assertNull(Encoder.getBestEncoding(clientInfo,
+                Arrays.asList(Encoding.GZIP)));
+
+        clientInfo.getAcceptedEncodings().clear();
+        clientInfo.getAcceptedEncodings().add(
+                new Preference<Encoding>(Encoding.ALL, 0.5F));
+        clientInfo.getAcceptedEncodings().add(
+                new Preference<Encoding>(Encoding.DEFLATE, 0.8F));
+        assertEquals(Encoding.DEFLATE, Encoder.getBestEncoding(clientInfo,
+                Arrays.asList(Encoding.GZIP, Encoding.DEFLATE)));
+    }
+
+    public void testOverriddenEncode() throws Exception {
+        EncoderService encoderService = new EncoderService();
+        encoderService.setMaxCachedBytes(1024 * 1024);
+        final Representation custom = new StringRepresentation("custom");
+        Encoder encoder = new Encoder(new Context(), false, true,
+                encoderService) {
+            @Override
+            public Representation encode(ClientInfo client,
+                    Representation representation) {
+                return custom;
+            }
+        };
+
+        Response response = handle(encoder, "http://localhost/a", new Tag(
+                "a1", false));
+        assertSame(custom, response.getEntity());
+        assertEquals(0, encoder.getCachedBytes());
+    }
+
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.service;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.engine.log.AsyncLogWriter;
+import org.restlet.engine.log.ResponseLogRecord;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.routing.Filter;
+import org.restlet.service.LogService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the log service.
+ * 
+ * @author Jerome Louvel
+ */
+public class LogServiceTestCase extends RestletTestCase {
+
+    private File logFile;
+
+    private Filter createFilter(LogService logService) {
+        Filter result = logService.createInboundFilter(new Context());
+        result.setNext(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                response.setEntity(new StringRepresentation("hello",
+                        MediaType.TEXT_PLAIN));
+            }
+        });
+        return result;
+    }
+
+    private Response handle(Filter filter, String uri) {
+        Request request = new Request(Method.GET, uri);
+        Response response = new Response(request);
+        filter.handle(request, response);
+        return response;
+    }
+
+    private List<String> readLines() throws Exception {
+        List<String> result = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(logFile));
+
+        try {
+            String line = reader.readLine();
+
+            while (line != null) {
+                result.add(line);
+                line = reader.readLine();
+            }
+        } finally {
+            reader.close();
+        }
+
+        return result;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.logFile = File.createTempFile("restlet-access", ".log");
+        this.logFile.delete();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.logFile.delete();
+        super.tearDown();
+    }
+
+    public void testAsynchronousFile() throws Exception {
+        LogService logService = new LogService();
+        logService.setAsynchronous(true);
+        logService.setLogFilePath(logFile.getPath());
+        logService.start();
+        Filter filter = createFilter(logService);
+
+        for (int i = 0; i < 100; i++) {
+            handle(filter, "http://localhost/path" + i + "?q=" + i);
+        }
+
+        logService.stop();
+        List<String> lines = readLines();
+        assertEquals(100, lines.size());
+
+        String[] fields = lines.get(42).split("\t");
+        assertEquals(16, fields.length);
+        assertEquals("GET", fields[6]);
+        assertEquals("/path42", fields[7]);
+        assertEquals("q=42", fields[8]);
+        assertEquals("200", fields[9]);
+        assertEquals("5", fields[10]);
+    }
+
+    public void testAsynchronousTemplate() throws Exception {
+        LogService logService = new LogService();
+        logService.setAsynchronous(true);
+        logService.setLogFilePath(logFile.getPath());
+        logService.setResponseLogFormat("{m} {rp} {S}");
+        logService.start();
+        Filter filter = createFilter(logService);
+        handle(filter, "http://localhost/a");
+        handle(filter, "http://localhost/b");
+        logService.stop();
+
+        List<String> lines = readLines();
+        assertEquals(2, lines.size());
+        assertEquals("GET /a 200", lines.get(0));
+        assertEquals("GET /b 200", lines.get(1));
+    }
+
+    public void testCapturedFormat() throws Exception {
+        LogService logService = new LogService();
+        logService.start();
+        Request request = new Request(Method.GET, "http://localhost/x?y=z");
+        Response response = new Response(request);
+        response.setEntity(new StringRepresentation("hello"));
+
+        String expected = logService.getResponseLogMessage(response, 12);
+        String actual = logService.formatResponseLog(logService
+                .captureResponseLog(null, response, 12));
+
+        // Ignore the date and time fields
+        assertEquals(expected.substring(expected.indexOf('\t', 11)),
+                actual.substring(actual.indexOf('\t', 11)));
+        logService.stop();
+    }
+
+    public void testDropped() throws Exception {
+        final CountDownLatch formatting = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        LogService logService = new LogService() {
+            @Override
+            public String formatResponseLog(ResponseLogRecord record) {
+                formatting.countDown();
+
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    // Format anyway
+                }
+
+                return super.formatResponseLog(record);
+            }
+        };
+        AsyncLogWriter writer = new AsyncLogWriter(logService, 2, false, null);
+        ResponseLogRecord record = new ResponseLogRecord(
+                Logger.getAnonymousLogger(), 0, new String[0], null);
+
+        // Records offered to a writer not running are dropped
+        assertFalse(writer.offer(record));
+        assertEquals(1, writer.getDroppedCount());
+
+        writer.start();
+
+        // Block the writer thread on the first record, then fill the queue
+        assertTrue(writer.offer(record));
+        assertTrue(formatting.await(5, TimeUnit.SECONDS));
+        assertTrue(writer.offer(record));
+        assertTrue(writer.offer(record));
+        assertEquals(2, writer.getPendingCount());
+        assertFalse(writer.offer(record));
+        assertEquals(2, writer.getDroppedCount());
+
+        release.countDown();
+        writer.stop();
+        assertEquals(3, writer.getWrittenCount());
+        assertEquals(2, writer.getDroppedCount());
+    }
+
+    public void testOverriddenMessage() throws Exception {
+        LogService logService = new LogService() {
+            @Override
+            public String getResponseLogMessage(Response response, int duration) {
+                return "custom " + response.getRequest().getMethod();
+            }
+        };
+        logService.setAsynchronous(true);
+        logService.setLogFilePath(logFile.getPath());
+        logService.start();
+        handle(createFilter(logService), "http://localhost/a");
+        logService.stop();
+
+        List<String> lines = readLines();
+        assertEquals(1, lines.size());
+        assertEquals("custom GET", lines.get(0));
+    }
+
+}
@@ -42,7 +42,10 @@ public class ServiceTestSuite {
         TestSuite suite = new TestSuite("Service package");
 
         // $JUnit-BEGIN$
+        suite.addTestSuite(CacheServiceTestCase.class);
         suite.addTestSuite(ConnegServiceTestCase.class);
+        suite.addTestSuite(EncoderServiceTestCase.class);
+        suite.addTestSuite(LogServiceTestCase.class);
         suite.addTestSuite(MetadataServiceTestCase.class);
         // $JUnit-END$
 
@@ -90,6 +90,43 @@ public class TemplateTestCase extends RestletTestCase {
         assertEquals("123/456", variables3.get("v1"));
     }
 
+    public void testSegmentVariables() {
+        Template template = new Template("/{a}/{b}/items/{id}",
+                Template.MODE_EQUALS, Variable.TYPE_URI_SEGMENT, "", true,
+                false);
+        template.getVariables().put(
+                "id",
+                new Variable(Variable.TYPE_URI_SEGMENT, "", true, false, true,
+                        false));
+
+        Map<String, Object> variables = new HashMap<String, Object>();
+        String string = "/x/y%2Fz/items/a%20b";
+        assertEquals(string.length(), template.parse(string, variables));
+        assertEquals("x", variables.get("a"));
+        assertEquals("y%2Fz", variables.get("b"));
+        assertEquals("a b", variables.get("id"));
+
+        // Failed matches must not update the variables
+        variables.clear();
+        assertEquals(-1, template.parse("/x//items/1", variables));
+        assertEquals(-1, template.parse("/x/y/items/1/", variables));
+        assertEquals(-1, template.parse("/x/y/item/1", variables));
+        assertTrue(variables.isEmpty());
+
+        template.setMatchingMode(Template.MODE_STARTS_WITH);
+        assertEquals(12, template.match("/x/y/items/1?q"));
+        assertEquals(12, template.match("/x/y/items/1/more"));
+        assertEquals(-1, template.match("/x/y/items/"));
+
+        // Variables followed by segment characters rely on backtracking
+        template = new Template("/{name}.{ext}", Template.MODE_EQUALS,
+                Variable.TYPE_URI_SEGMENT, "", true, false);
+        variables.clear();
+        assertEquals(10, template.parse("/a.b.c.txt", variables));
+        assertEquals("a.b.c", variables.get("name"));
+        assertEquals("txt", variables.get("ext"));
+    }
+
     public void testVariableNames() throws Exception {
         Template tpl = new Template(
                 "http://{userId}.restlet.com/invoices/{invoiceId}");
@@ -570,6 +570,10 @@ public final class MediaType extends Metadata {
     public static final MediaType MULTIPART_ALL = register("multipart/*",
             "All multipart data");
 
+    // [ifndef gwt] member
+    public static final MediaType MULTIPART_BYTERANGES = register(
+            "multipart/byteranges", "Multipart byte ranges");
+
     // [ifndef gwt] member
     public static final MediaType MULTIPART_FORM_DATA = register(
             "multipart/form-data", "Multipart form data");
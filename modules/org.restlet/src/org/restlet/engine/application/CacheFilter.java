@@ -0,0 +1,843 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Conditions;
+import org.restlet.data.Dimension;
+import org.restlet.data.Encoding;
+import org.restlet.data.Language;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.EmptyRepresentation;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.routing.Filter;
+import org.restlet.service.CacheService;
+
+// [excludes gwt]
+/**
+ * Filter caching response entities in memory. See {@link CacheService} for the
+ * caching rules. When used as an inbound filter, it behaves as a shared cache.
+ * When used as an outbound filter, in front of client connectors, it behaves as
+ * a private cache that also stores "private" responses and ignores the
+ * "s-maxage" directive. Asynchronous calls bypass the cache.<br>
+ * <br>
+ * Concurrency note: instances of this class or its subclasses can be invoked by
+ * several threads at the same time and therefore must be thread-safe.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheFilter extends Filter {
+
+    /**
+     * Cached response entity.
+     */
+    private static final class Entry {
+
+        /** The cache directives of the response. */
+        private volatile List<CacheDirective> cacheDirectives;
+
+        /** The buffered content. */
+        private final byte[] content;
+
+        /** The date when the entry was stored or last revalidated. */
+        private volatile long date;
+
+        /** The dimensions on which the response varies. */
+        private final Set<Dimension> dimensions;
+
+        /** The date when the entry becomes stale. */
+        private volatile long expires;
+
+        /** The entity metadata. */
+        private final Representation metadata;
+
+        /** The variant key computed from the dimensions. */
+        private final String variantKey;
+
+        /**
+         * Constructor.
+         * 
+         * @param content
+         *            The buffered content.
+         * @param metadata
+         *            The entity metadata.
+         * @param cacheDirectives
+         *            The cache directives of the response.
+         * @param dimensions
+         *            The dimensions on which the response varies.
+         * @param variantKey
+         *            The variant key computed from the dimensions.
+         */
+        private Entry(byte[] content, Representation metadata,
+                List<CacheDirective> cacheDirectives,
+                Set<Dimension> dimensions, String variantKey) {
+            this.content = content;
+            this.metadata = metadata;
+            this.cacheDirectives = cacheDirectives;
+            this.dimensions = dimensions;
+            this.variantKey = variantKey;
+        }
+
+        /**
+         * Creates a new entity based on the cached content and metadata.
+         * 
+         * @return The new entity.
+         */
+        private Representation createEntity() {
+            Representation result = new ByteArrayRepresentation(content, null,
+                    content.length);
+            copyMetadata(metadata, result);
+            return result;
+        }
+
+        /**
+         * Indicates if the entry can be revalidated.
+         * 
+         * @return True if the entry can be revalidated.
+         */
+        private boolean hasValidators() {
+            return (metadata.getTag() != null)
+                    || (metadata.getModificationDate() != null);
+        }
+
+        /**
+         * Indicates if the entry is still fresh.
+         * 
+         * @param now
+         *            The current time.
+         * @return True if the entry is still fresh.
+         */
+        private boolean isFresh(long now) {
+            return now < expires;
+        }
+
+        /**
+         * Updates the freshness of the entry.
+         * 
+         * @param now
+         *            The current time.
+         * @param lifetime
+         *            The freshness lifetime in milliseconds.
+         */
+        private void refresh(long now, long lifetime) {
+            this.date = now;
+            this.expires = now + Math.max(0, lifetime);
+        }
+    }
+
+    /**
+     * Copies the metadata of a representation.
+     * 
+     * @param source
+     *            The source representation.
+     * @param target
+     *            The target representation.
+     */
+    private static void copyMetadata(Representation source,
+            Representation target) {
+        target.setCharacterSet(source.getCharacterSet());
+        target.setDigest(source.getDigest());
+        target.setDisposition(source.getDisposition());
+        target.setEncodings(new CopyOnWriteArrayList<Encoding>(source
+                .getEncodings()));
+        target.setExpirationDate(source.getExpirationDate());
+        target.setLanguages(new CopyOnWriteArrayList<Language>(source
+                .getLanguages()));
+        target.setLocationRef(source.getLocationRef());
+        target.setMediaType(source.getMediaType());
+        target.setModificationDate(source.getModificationDate());
+        target.setTag(source.getTag());
+    }
+
+    /**
+     * Returns the first cache directive of a given name.
+     * 
+     * @param directives
+     *            The cache directives.
+     * @param name
+     *            The directive name.
+     * @return The matching directive or null.
+     */
+    private static CacheDirective getDirective(
+            List<CacheDirective> directives, String name) {
+        for (CacheDirective directive : directives) {
+            if (name.equalsIgnoreCase(directive.getName())) {
+                return directive;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the number of seconds of a delta-seconds directive.
+     * 
+     * @param directive
+     *            The cache directive.
+     * @return The number of seconds or -1 if unknown.
+     */
+    private static long getSeconds(CacheDirective directive) {
+        if ((directive != null) && (directive.getValue() != null)) {
+            try {
+                return Long.parseLong(directive.getValue().trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        return -1;
+    }
+
+    /** The parent cache service. */
+    private final CacheService cacheService;
+
+    /** The number of cached bytes. */
+    private long cachedBytes;
+
+    /** The cached entries per resource URI, in access order. */
+    private final Map<String, List<Entry>> entries;
+
+    /** The number of evicted entries. */
+    private final AtomicLong evictionCount;
+
+    /** The number of requests served from the cache. */
+    private final AtomicLong hitCount;
+
+    /** The number of cacheable requests not served from the cache. */
+    private final AtomicLong missCount;
+
+    /** The number of successfully revalidated entries. */
+    private final AtomicLong revalidationCount;
+
+    /** Indicates if the cache is shared by several clients. */
+    private final boolean shared;
+
+    /**
+     * Constructor of a shared cache.
+     * 
+     * @param context
+     *            The context.
+     * @param cacheService
+     *            The parent cache service.
+     */
+    public CacheFilter(Context context, CacheService cacheService) {
+        this(context, true, cacheService);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param context
+     *            The context.
+     * @param shared
+     *            Indicates if the cache is shared by several clients.
+     * @param cacheService
+     *            The parent cache service.
+     */
+    public CacheFilter(Context context, boolean shared,
+            CacheService cacheService) {
+        super(context);
+        this.shared = shared;
+        this.cacheService = cacheService;
+        this.cachedBytes = 0;
+        this.entries = new LinkedHashMap<String, List<Entry>>(16, 0.75f, true);
+        this.evictionCount = new AtomicLong();
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.revalidationCount = new AtomicLong();
+    }
+
+    /**
+     * Buffers the content of a response entity, up to the maximum entity size.
+     * If the entity is larger, it is replaced by an equivalent entity and null
+     * is returned.
+     * 
+     * @param response
+     *            The response to update.
+     * @return The buffered content or null.
+     * @throws IOException
+     */
+    private byte[] buffer(Response response) throws IOException {
+        Representation entity = response.getEntity();
+        long maxSize = getCacheService().getMaxEntitySize();
+        InputStream in = entity.getStream();
+
+        if (in == null) {
+            return new byte[0];
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                entity.hasKnownSize() ? (int) entity.getSize() : 1024);
+        byte[] buffer = new byte[8192];
+        int read;
+
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+
+            if (out.size() > maxSize) {
+                // Too large, stream the rest as usual
+                Representation result = new InputRepresentation(
+                        new SequenceInputStream(new ByteArrayInputStream(
+                                out.toByteArray()), in), null,
+                        entity.getSize());
+                copyMetadata(entity, result);
+                response.setEntity(result);
+                return null;
+            }
+        }
+
+        in.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * Removes all the cached entries.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.cachedBytes = 0;
+    }
+
+    @Override
+    protected int doHandle(Request request, Response response) {
+        Method method = request.getMethod();
+
+        if (!Method.GET.equals(method) && !Method.HEAD.equals(method)) {
+            int result = super.doHandle(request, response);
+
+            if (!method.isSafe()
+                    && (response.getStatus().isSuccess() || response
+                            .getStatus().isRedirection())) {
+                invalidate(getUri(request));
+            }
+
+            return result;
+        }
+
+        List<CacheDirective> directives = request.getCacheDirectives();
+
+        if ((request.getOnResponse() != null)
+                || (request.getChallengeResponse() != null)
+                || (getDirective(directives, HeaderConstants.CACHE_NO_STORE) != null)) {
+            return super.doHandle(request, response);
+        }
+
+        String uri = getUri(request);
+        long now = System.currentTimeMillis();
+        boolean revalidate = (getDirective(directives,
+                HeaderConstants.CACHE_NO_CACHE) != null)
+                || (getSeconds(getDirective(directives,
+                        HeaderConstants.CACHE_MAX_AGE)) == 0);
+        Entry entry = lookup(uri, request);
+
+        if ((entry != null) && !revalidate && entry.isFresh(now)) {
+            this.hitCount.incrementAndGet();
+            serve(entry, request, response, now);
+            return CONTINUE;
+        }
+
+        if (getDirective(directives, HeaderConstants.CACHE_ONLY_IF_CACHED) != null) {
+            this.missCount.incrementAndGet();
+            response.setStatus(Status.SERVER_ERROR_GATEWAY_TIMEOUT);
+            return CONTINUE;
+        }
+
+        // Forward the request without the client conditions, but with our own
+        // validators, so that a full or a "not modified" response is received
+        Conditions conditions = request.getConditions();
+        Conditions forwarded = new Conditions();
+
+        if ((entry != null) && entry.hasValidators()) {
+            if (entry.metadata.getTag() != null) {
+                forwarded.getNoneMatch().add(entry.metadata.getTag());
+            } else {
+                forwarded.setModifiedSince(entry.metadata
+                        .getModificationDate());
+            }
+        } else {
+            entry = null;
+        }
+
+        int result;
+        request.setConditions(forwarded);
+
+        try {
+            result = super.doHandle(request, response);
+        } finally {
+            request.setConditions(conditions);
+        }
+
+        if ((entry != null)
+                && Status.REDIRECTION_NOT_MODIFIED.equals(response.getStatus())) {
+            this.hitCount.incrementAndGet();
+            this.revalidationCount.incrementAndGet();
+            revalidate(uri, entry, response, now);
+            serve(entry, request, response, now);
+        } else {
+            this.missCount.incrementAndGet();
+
+            if (Method.GET.equals(method)) {
+                store(uri, request, response, now);
+            }
+
+            updateStatus(request, response);
+        }
+
+        return result;
+    }
+
+    /**
+     * Evicts the least recently used entries until the byte budget is
+     * respected. Must be called while holding the filter lock.
+     */
+    private void evict() {
+        long maxBytes = getCacheService().getMaxCachedBytes();
+
+        for (Iterator<List<Entry>> iter = this.entries.values().iterator(); (this.cachedBytes > maxBytes)
+                && iter.hasNext();) {
+            List<Entry> variants = iter.next();
+            iter.remove();
+
+            for (Entry variant : variants) {
+                this.cachedBytes -= variant.content.length;
+                this.evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns the current number of cached bytes.
+     * 
+     * @return The current number of cached bytes.
+     */
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Returns the parent cache service.
+     * 
+     * @return The parent cache service.
+     */
+    public CacheService getCacheService() {
+        return cacheService;
+    }
+
+    /**
+     * Returns the number of entries evicted to respect the byte budget.
+     * 
+     * @return The number of entries evicted.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the freshness lifetime of a response, based on its "s-maxage"
+     * (for shared caches only) or "max-age" cache directives or on the
+     * expiration date of its entity.
+     * 
+     * @param response
+     *            The response.
+     * @param now
+     *            The current time.
+     * @return The freshness lifetime in milliseconds or -1 if unknown.
+     */
+    private long getFreshnessLifetime(Response response, long now) {
+        List<CacheDirective> directives = response.getCacheDirectives();
+        long seconds = isShared() ? getSeconds(getDirective(directives,
+                HeaderConstants.CACHE_SHARED_MAX_AGE)) : -1;
+
+        if (seconds < 0) {
+            seconds = getSeconds(getDirective(directives,
+                    HeaderConstants.CACHE_MAX_AGE));
+        }
+
+        if (seconds >= 0) {
+            return seconds * 1000L;
+        }
+
+        Representation entity = response.getEntity();
+
+        if ((entity != null) && (entity.getExpirationDate() != null)) {
+            return entity.getExpirationDate().getTime() - now;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the number of requests served from the cache, including the
+     * revalidated ones.
+     * 
+     * @return The number of requests served from the cache.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of cacheable requests that couldn't be served from the
+     * cache.
+     * 
+     * @return The number of cacheable requests not served from the cache.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of stale entries successfully revalidated.
+     * 
+     * @return The number of stale entries successfully revalidated.
+     */
+    public long getRevalidationCount() {
+        return revalidationCount.get();
+    }
+
+    /**
+     * Returns the URI identifying the cached entries of a request.
+     * 
+     * @param request
+     *            The request.
+     * @return The URI identifying the cached entries.
+     */
+    private String getUri(Request request) {
+        return request.getResourceRef().toString(true, false);
+    }
+
+    /**
+     * Returns the variant key of a request for a given set of dimensions.
+     * 
+     * @param dimensions
+     *            The dimensions on which the response varies.
+     * @param request
+     *            The request.
+     * @return The variant key or null if the dimensions can't be cached.
+     */
+    private String getVariantKey(Set<Dimension> dimensions, Request request) {
+        StringBuilder sb = new StringBuilder();
+        ClientInfo clientInfo = request.getClientInfo();
+
+        for (Dimension dimension : Dimension.values()) {
+            if (dimensions.contains(dimension)) {
+                switch (dimension) {
+                case CHARACTER_SET:
+                    sb.append(clientInfo.getAcceptedCharacterSets());
+                    break;
+                case CLIENT_ADDRESS:
+                    sb.append(clientInfo.getAddress());
+                    break;
+                case CLIENT_AGENT:
+                    sb.append(clientInfo.getAgent());
+                    break;
+                case ENCODING:
+                    sb.append(clientInfo.getAcceptedEncodings());
+                    break;
+                case LANGUAGE:
+                    sb.append(clientInfo.getAcceptedLanguages());
+                    break;
+                case MEDIA_TYPE:
+                    sb.append(clientInfo.getAcceptedMediaTypes());
+                    break;
+                default:
+                    // Authorization, time or unspecified dimensions
+                    return null;
+                }
+
+                sb.append('\n');
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Removes the cached entries of a resource.
+     * 
+     * @param uri
+     *            The resource URI.
+     */
+    private synchronized void invalidate(String uri) {
+        List<Entry> variants = this.entries.remove(uri);
+
+        if (variants != null) {
+            for (Entry variant : variants) {
+                this.cachedBytes -= variant.content.length;
+            }
+        }
+    }
+
+    /**
+     * Indicates if the cache is shared by several clients.
+     * 
+     * @return True if the cache is shared by several clients.
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Indicates if the cache directives of a response allow storing it.
+     * 
+     * @param response
+     *            The response.
+     * @return True if the response can be stored.
+     */
+    private boolean isStorable(Response response) {
+        List<CacheDirective> directives = response.getCacheDirectives();
+        return (getDirective(directives, HeaderConstants.CACHE_NO_STORE) == null)
+                && (getDirective(directives, HeaderConstants.CACHE_NO_CACHE) == null)
+                && (!isShared() || (getDirective(directives,
+                        HeaderConstants.CACHE_PRIVATE) == null));
+    }
+
+    /**
+     * Looks up the cached entry matching a request.
+     * 
+     * @param uri
+     *            The resource URI.
+     * @param request
+     *            The request.
+     * @return The matching entry or null.
+     */
+    private synchronized Entry lookup(String uri, Request request) {
+        List<Entry> variants = this.entries.get(uri);
+
+        if (variants != null) {
+            for (Entry variant : variants) {
+                if (variant.variantKey.equals(getVariantKey(
+                        variant.dimensions, request))) {
+                    return variant;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Updates the freshness of a revalidated entry, based on the "not
+     * modified" response.
+     * 
+     * @param uri
+     *            The resource URI.
+     * @param entry
+     *            The revalidated entry.
+     * @param response
+     *            The "not modified" response.
+     * @param now
+     *            The current time.
+     */
+    private synchronized void revalidate(String uri, Entry entry,
+            Response response, long now) {
+        if (!isStorable(response)) {
+            // Not cacheable anymore
+            List<Entry> variants = this.entries.get(uri);
+
+            if ((variants != null) && variants.remove(entry)) {
+                this.cachedBytes -= entry.content.length;
+
+                if (variants.isEmpty()) {
+                    this.entries.remove(uri);
+                }
+            }
+        } else {
+            if (!response.getCacheDirectives().isEmpty()) {
+                entry.cacheDirectives = new ArrayList<CacheDirective>(
+                        response.getCacheDirectives());
+            }
+
+            entry.refresh(now, getFreshnessLifetime(response, now));
+        }
+    }
+
+    /**
+     * Serves a request from a cached entry.
+     * 
+     * @param entry
+     *            The cached entry.
+     * @param request
+     *            The request.
+     * @param response
+     *            The response to update.
+     * @param now
+     *            The current time.
+     */
+    private void serve(Entry entry, Request request, Response response,
+            long now) {
+        if (response.getEntity() != null) {
+            response.getEntity().release();
+        }
+
+        response.setStatus(Status.SUCCESS_OK);
+        response.setEntity(entry.createEntity());
+        response.setCacheDirectives(new ArrayList<CacheDirective>(
+                entry.cacheDirectives));
+        response.getDimensions().addAll(entry.dimensions);
+        response.setAge((int) Math.max(0, (now - entry.date) / 1000L));
+        updateStatus(request, response);
+    }
+
+    /**
+     * Stores the response entity if allowed.
+     * 
+     * @param uri
+     *            The resource URI.
+     * @param request
+     *            The request.
+     * @param response
+     *            The response to store.
+     * @param now
+     *            The current time.
+     */
+    private void store(String uri, Request request, Response response, long now) {
+        Representation entity = response.getEntity();
+
+        if (!Status.SUCCESS_OK.equals(response.getStatus())
+                || (entity == null) || !entity.isAvailable()
+                || (entity.getRange() != null)
+                || (entity.hasKnownSize() && (entity.getSize() > getCacheService()
+                        .getMaxEntitySize()))
+                || !response.getCookieSettings().isEmpty()
+                || !isStorable(response)) {
+            return;
+        }
+
+        String variantKey = getVariantKey(response.getDimensions(), request);
+        long lifetime = getFreshnessLifetime(response, now);
+
+        if ((variantKey == null)
+                || ((lifetime <= 0) && (entity.getTag() == null) && (entity
+                        .getModificationDate() == null))) {
+            return;
+        }
+
+        byte[] content;
+
+        try {
+            content = buffer(response);
+        } catch (IOException e) {
+            getLogger().log(Level.WARNING,
+                    "Unable to buffer the response entity", e);
+            response.setStatus(Status.SERVER_ERROR_INTERNAL, e);
+            response.setEntity(null);
+            return;
+        }
+
+        if (content != null) {
+            Representation metadata = new EmptyRepresentation();
+            copyMetadata(entity, metadata);
+            Entry entry = new Entry(content, metadata,
+                    new ArrayList<CacheDirective>(response.getCacheDirectives()),
+                    new HashSet<Dimension>(response.getDimensions()),
+                    variantKey);
+            entry.refresh(now, lifetime);
+            response.setEntity(entry.createEntity());
+
+            synchronized (this) {
+                List<Entry> variants = this.entries.get(uri);
+
+                if (variants == null) {
+                    variants = new ArrayList<Entry>(1);
+                    this.entries.put(uri, variants);
+                }
+
+                for (Iterator<Entry> iter = variants.iterator(); iter.hasNext();) {
+                    Entry variant = iter.next();
+
+                    if (variant.variantKey.equals(variantKey)
+                            && variant.dimensions.equals(entry.dimensions)) {
+                        iter.remove();
+                        this.cachedBytes -= variant.content.length;
+                    }
+                }
+
+                variants.add(entry);
+                this.cachedBytes += content.length;
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Evaluates the client conditions against the response entity.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response to update.
+     */
+    private void updateStatus(Request request, Response response) {
+        if (Status.SUCCESS_OK.equals(response.getStatus())
+                && response.isEntityAvailable()
+                && request.getConditions().hasSome()) {
+            Status status = request.getConditions().getStatus(
+                    request.getMethod(), response.getEntity());
+
+            if (status != null) {
+                response.setStatus(status);
+
+                if (status.isError()) {
+                    response.setEntity(null);
+                }
+            }
+        }
+    }
+
+}
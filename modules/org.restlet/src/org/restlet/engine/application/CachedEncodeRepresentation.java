@@ -0,0 +1,105 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+
+import org.restlet.data.Encoding;
+import org.restlet.engine.io.NioUtils;
+import org.restlet.representation.Representation;
+
+// [excludes gwt]
+/**
+ * Encoded content whose encoded bytes have already been computed, typically
+ * kept in the cache of an {@link Encoder}. The metadata are still provided by
+ * the wrapped representation but its content isn't read again.
+ * 
+ * @author Jerome Louvel
+ */
+public class CachedEncodeRepresentation extends EncodeRepresentation {
+
+    /** The encoded content. */
+    private final byte[] encodedContent;
+
+    /**
+     * Constructor.
+     * 
+     * @param encoding
+     *            The encoding applied.
+     * @param wrappedRepresentation
+     *            The wrapped representation.
+     * @param encodedContent
+     *            The encoded content.
+     */
+    public CachedEncodeRepresentation(Encoding encoding,
+            Representation wrappedRepresentation, byte[] encodedContent) {
+        super(encoding, wrappedRepresentation);
+        this.encodedContent = encodedContent;
+    }
+
+    @Override
+    public long getAvailableSize() {
+        return this.encodedContent.length;
+    }
+
+    @Override
+    public ReadableByteChannel getChannel() throws IOException {
+        return NioUtils.getChannel(getStream());
+    }
+
+    @Override
+    public long getSize() {
+        return this.encodedContent.length;
+    }
+
+    @Override
+    public InputStream getStream() throws IOException {
+        return new ByteArrayInputStream(this.encodedContent);
+    }
+
+    @Override
+    public boolean isTransient() {
+        return false;
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        outputStream.write(this.encodedContent);
+    }
+
+}
@@ -143,6 +143,15 @@ public class EncodeRepresentation extends WrapperRepresentation {
         return getWrappedRepresentation().getChannel();
     }
 
+    /**
+     * Returns the encoding applied to the wrapped representation.
+     * 
+     * @return The encoding applied to the wrapped representation.
+     */
+    public Encoding getEncoding() {
+        return this.encoding;
+    }
+
     /**
      * Returns the applied encodings.
      * 
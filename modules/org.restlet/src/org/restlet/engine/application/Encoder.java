@@ -33,15 +33,23 @@
 
 package org.restlet.engine.application;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.ClientInfo;
 import org.restlet.data.Encoding;
+import org.restlet.data.Method;
 import org.restlet.data.Preference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
 import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
 import org.restlet.service.EncoderService;
@@ -54,6 +62,11 @@ import org.restlet.service.EncoderService;
  * If the {@link org.restlet.representation.Representation} has an unknown size,
  * it will always be a candidate for encoding. Candidate representations need to
  * respect media type criteria by the lists of accepted and ignored media types.
+ * <br>
+ * When enabled by the {@link EncoderService#getMaxCachedBytes()} property, the
+ * encoded content of small response entities with a strong tag is kept in a
+ * LRU cache, keyed by resource reference, tag and encoding, so that the same
+ * static content isn't compressed again for each call.
  * 
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
@@ -65,6 +78,12 @@ import org.restlet.service.EncoderService;
  */
 public class Encoder extends Filter {
 
+    /** The number of encoded bytes kept in cache. */
+    private long cachedBytes;
+
+    /** The encoded entities, indexed by cache key, in access order. */
+    private final Map<String, byte[]> cachedEntities;
+
     /** Indicates if the request entity should be encoded. */
     private final boolean encodingRequest;
 
@@ -89,6 +108,9 @@ public class Encoder extends Filter {
     public Encoder(Context context, boolean encodingRequest,
             boolean encodingResponse, EncoderService encoderService) {
         super(context);
+        this.cachedBytes = 0;
+        this.cachedEntities = new LinkedHashMap<String, byte[]>(16, 0.75f,
+                true);
         this.encodingRequest = encodingRequest;
         this.encodingResponse = encodingResponse;
         this.encoderService = encoderService;
@@ -108,8 +130,7 @@ public class Encoder extends Filter {
         // Check if encoding of the response entity is needed
         if (isEncodingResponse()
                 && getEncoderService().canEncode(response.getEntity())) {
-            response.setEntity(encode(request.getClientInfo(),
-                    response.getEntity()));
+            response.setEntity(encode(request, response));
         }
     }
 
@@ -157,39 +178,148 @@ public class Encoder extends Filter {
         return result;
     }
 
+    /**
+     * Encodes the entity of a given response if an encoding is supported by the
+     * client, by calling {@link #encode(ClientInfo, Representation)}. If the
+     * entity is wrapped by a plain {@link EncodeRepresentation}, the encoded
+     * content is taken from the cache when possible.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response whose entity should be encoded.
+     * @return The encoded representation or the original one if no encoding
+     *         supported by the client.
+     */
+    public Representation encode(Request request, Response response) {
+        Representation representation = response.getEntity();
+        Representation result = encode(request.getClientInfo(),
+                representation);
+
+        if ((result != null)
+                && (result.getClass() == EncodeRepresentation.class)
+                && (((EncodeRepresentation) result).getWrappedRepresentation() == representation)) {
+            EncodeRepresentation encoded = (EncodeRepresentation) result;
+            String key = getCacheKey(request, response, encoded.getEncoding());
+
+            if (key != null) {
+                byte[] encodedContent = null;
+
+                synchronized (this.cachedEntities) {
+                    encodedContent = this.cachedEntities.get(key);
+                }
+
+                if (encodedContent == null) {
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream(
+                            (int) representation.getSize());
+
+                    try {
+                        encoded.write(baos);
+                        encodedContent = baos.toByteArray();
+                        putCachedEntity(key, encodedContent);
+                    } catch (IOException e) {
+                        getLogger().log(Level.FINE,
+                                "Unable to cache the encoded entity", e);
+                    }
+                }
+
+                if (encodedContent != null) {
+                    result = new CachedEncodeRepresentation(
+                            encoded.getEncoding(), representation,
+                            encodedContent);
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the best supported encoding for a given client.
      * 
      * @param client
      *            The client preferences to use.
      * @return The best supported encoding for the given call.
+     * @see #getBestEncoding(ClientInfo, List)
      */
     public Encoding getBestEncoding(ClientInfo client) {
-        Encoding bestEncoding = null;
-        Encoding currentEncoding = null;
-        Preference<Encoding> currentPref = null;
-        float bestScore = 0F;
+        return getBestEncoding(client, getSupportedEncodings());
+    }
 
-        for (Iterator<Encoding> iter = getSupportedEncodings().iterator(); iter
-                .hasNext();) {
-            currentEncoding = iter.next();
+    /**
+     * Returns the best encoding among the given ones for a given client. A
+     * preference explicitly naming an encoding overrides the "*" wildcard and
+     * a quality of zero excludes the encoding.
+     * 
+     * @param client
+     *            The client preferences to use.
+     * @param encodings
+     *            The candidate encodings, in order of preference.
+     * @return The best encoding accepted by the client or null.
+     */
+    public static Encoding getBestEncoding(ClientInfo client,
+            List<Encoding> encodings) {
+        Encoding result = null;
+        float bestScore = 0F;
+        float score;
 
-            for (Iterator<Preference<Encoding>> iter2 = client
-                    .getAcceptedEncodings().iterator(); iter2.hasNext();) {
-                currentPref = iter2.next();
+        for (Encoding encoding : encodings) {
+            score = scoreEncoding(encoding, client.getAcceptedEncodings());
 
-                if (currentPref.getMetadata().equals(Encoding.ALL)
-                        || currentPref.getMetadata().equals(currentEncoding)) {
-                    // A match was found, compute its score
-                    if (currentPref.getQuality() > bestScore) {
-                        bestScore = currentPref.getQuality();
-                        bestEncoding = currentEncoding;
-                    }
-                }
+            if (score > bestScore) {
+                bestScore = score;
+                result = encoding;
             }
         }
 
-        return bestEncoding;
+        return result;
+    }
+
+    /**
+     * Returns the number of encoded bytes kept in cache.
+     * 
+     * @return The number of encoded bytes kept in cache.
+     */
+    public long getCachedBytes() {
+        synchronized (this.cachedEntities) {
+            return this.cachedBytes;
+        }
+    }
+
+    /**
+     * Returns the key identifying the encoded content of a response entity in
+     * the cache, or null if it can't be cached. Only successful responses to
+     * GET requests whose non transient entity has a strong tag and a known size
+     * not exceeding {@link EncoderService#getMaxCachedEntitySize()} are cached.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     * @param encoding
+     *            The encoding to apply.
+     * @return The cache key or null.
+     */
+    protected String getCacheKey(Request request, Response response,
+            Encoding encoding) {
+        String result = null;
+        Representation entity = response.getEntity();
+        Tag tag = (entity == null) ? null : entity.getTag();
+
+        if ((getEncoderService().getMaxCachedBytes() > 0)
+                && !Encoding.IDENTITY.equals(encoding)
+                && Method.GET.equals(request.getMethod())
+                && Status.SUCCESS_OK.equals(response.getStatus())
+                && (request.getResourceRef() != null) && (tag != null)
+                && !tag.isWeak() && !entity.isTransient()
+                && (entity.getSize() > 0)
+                && (entity.getSize() <= getEncoderService()
+                        .getMaxCachedEntitySize())) {
+            result = request.getResourceRef().toString(true, false) + '\n'
+                    + tag.format() + '\n' + encoding.getName();
+        }
+
+        return result;
     }
 
     /**
@@ -229,4 +359,63 @@ public class Encoder extends Filter {
         return this.encodingResponse;
     }
 
+    /**
+     * Puts an encoded entity in the cache, evicting the least recently used
+     * entries to respect the {@link EncoderService#getMaxCachedBytes()} limit.
+     * 
+     * @param key
+     *            The cache key.
+     * @param encodedContent
+     *            The encoded content.
+     */
+    private void putCachedEntity(String key, byte[] encodedContent) {
+        long maxCachedBytes = getEncoderService().getMaxCachedBytes();
+
+        if (encodedContent.length <= maxCachedBytes) {
+            synchronized (this.cachedEntities) {
+                byte[] previous = this.cachedEntities.put(key, encodedContent);
+
+                if (previous != null) {
+                    this.cachedBytes -= previous.length;
+                }
+
+                this.cachedBytes += encodedContent.length;
+
+                for (Iterator<byte[]> iter = this.cachedEntities.values()
+                        .iterator(); (this.cachedBytes > maxCachedBytes)
+                        && iter.hasNext();) {
+                    this.cachedBytes -= iter.next().length;
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores an encoding relatively to the client preferences. The quality of
+     * a preference explicitly naming the encoding prevails over the quality of
+     * the "*" wildcard.
+     * 
+     * @param encoding
+     *            The encoding to score.
+     * @param prefs
+     *            The encoding preferences of the client.
+     * @return The score or -1 if the encoding isn't accepted.
+     */
+    private static float scoreEncoding(Encoding encoding,
+            List<Preference<Encoding>> prefs) {
+        float result = -1F;
+        float wildcardScore = -1F;
+
+        for (Preference<Encoding> pref : prefs) {
+            if (pref.getMetadata().equals(encoding)) {
+                result = Math.max(result, pref.getQuality());
+            } else if (pref.getMetadata().equals(Encoding.ALL)) {
+                wildcardScore = Math.max(wildcardScore, pref.getQuality());
+            }
+        }
+
+        return (result >= 0F) ? result : wildcardScore;
+    }
+
 }
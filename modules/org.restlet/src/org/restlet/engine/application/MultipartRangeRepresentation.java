@@ -0,0 +1,300 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.application;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.data.CharacterSet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Parameter;
+import org.restlet.data.Range;
+import org.restlet.engine.header.ContentType;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.engine.header.RangeWriter;
+import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.io.NioUtils;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.OutputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.util.Series;
+
+// [excludes gwt]
+/**
+ * Representation that exposes several ranges of the content of a wrapped
+ * representation as a "multipart/byteranges" entity. The ranges must be
+ * explicit (no {@link Range#INDEX_LAST} or {@link Range#SIZE_MAX} values),
+ * sorted, non overlapping and within the known size of the wrapped
+ * representation.<br>
+ * <br>
+ * The wrapped content is read in a single pass. When it is a
+ * {@link FileRepresentation}, each range is directly read at its position in
+ * the file.
+ * 
+ * @author Jerome Louvel
+ */
+public class MultipartRangeRepresentation extends OutputRepresentation {
+
+    /** The line separator used by the multipart format. */
+    private static final String CRLF = "\r\n";
+
+    /** The boundary separating the parts. */
+    private final String boundary;
+
+    /** The ranges to expose. */
+    private final List<Range> ranges;
+
+    /** The wrapped representation. */
+    private final Representation wrappedRepresentation;
+
+    /**
+     * Constructor.
+     * 
+     * @param wrappedRepresentation
+     *            The wrapped representation with a complete content and a
+     *            known size.
+     * @param ranges
+     *            The explicit, sorted and non overlapping ranges to expose.
+     */
+    public MultipartRangeRepresentation(
+            Representation wrappedRepresentation, List<Range> ranges) {
+        super(null);
+
+        if (!wrappedRepresentation.hasKnownSize()) {
+            throw new IllegalArgumentException(
+                    "The wrapped representation must have a known size.");
+        }
+
+        this.boundary = Long.toHexString(System.nanoTime())
+                + Integer.toHexString(System.identityHashCode(this));
+        this.ranges = new ArrayList<Range>(ranges);
+        this.wrappedRepresentation = wrappedRepresentation;
+
+        Series<Parameter> parameters = new Series<Parameter>(Parameter.class);
+        parameters.add("boundary", this.boundary);
+        setMediaType(new MediaType(MediaType.MULTIPART_BYTERANGES.getName(),
+                parameters));
+        setExpirationDate(wrappedRepresentation.getExpirationDate());
+        setModificationDate(wrappedRepresentation.getModificationDate());
+        setTag(wrappedRepresentation.getTag());
+
+        long size = getClosingDelimiter().length;
+
+        for (Range range : this.ranges) {
+            size += getPartHeader(range).length + range.getSize();
+        }
+
+        setSize(size);
+    }
+
+    /**
+     * Returns the boundary separating the parts.
+     * 
+     * @return The boundary separating the parts.
+     */
+    public String getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * Returns the delimiter closing the last part.
+     * 
+     * @return The delimiter closing the last part.
+     */
+    private byte[] getClosingDelimiter() {
+        return toBytes(CRLF + "--" + getBoundary() + "--" + CRLF);
+    }
+
+    /**
+     * Returns the delimiter and headers preceding the content of a range.
+     * 
+     * @param range
+     *            The range.
+     * @return The delimiter and headers preceding the content of a range.
+     */
+    private byte[] getPartHeader(Range range) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(CRLF).append("--").append(getBoundary()).append(CRLF);
+
+        if (getWrappedRepresentation().getMediaType() != null) {
+            sb.append(HeaderConstants.HEADER_CONTENT_TYPE).append(": ")
+                    .append(ContentType.writeHeader(getWrappedRepresentation()))
+                    .append(CRLF);
+        }
+
+        sb.append(HeaderConstants.HEADER_CONTENT_RANGE).append(": ")
+                .append(RangeWriter.write(range,
+                        getWrappedRepresentation().getSize())).append(CRLF);
+        sb.append(CRLF);
+        return toBytes(sb.toString());
+    }
+
+    /**
+     * Returns the ranges to expose.
+     * 
+     * @return The ranges to expose.
+     */
+    public List<Range> getRanges() {
+        return ranges;
+    }
+
+    /**
+     * Returns the wrapped representation.
+     * 
+     * @return The wrapped representation.
+     */
+    public Representation getWrappedRepresentation() {
+        return wrappedRepresentation;
+    }
+
+    @Override
+    public void release() {
+        getWrappedRepresentation().release();
+        super.release();
+    }
+
+    /**
+     * Encodes a header string as US-ASCII bytes.
+     * 
+     * @param value
+     *            The string to encode.
+     * @return The encoded bytes.
+     */
+    private byte[] toBytes(String value) {
+        try {
+            return value.getBytes(CharacterSet.US_ASCII.getName());
+        } catch (UnsupportedEncodingException e) {
+            return value.getBytes();
+        }
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        if (getWrappedRepresentation() instanceof FileRepresentation) {
+            FileChannel fileChannel = ((FileRepresentation) getWrappedRepresentation())
+                    .getChannel();
+
+            try {
+                for (Range range : getRanges()) {
+                    outputStream.write(getPartHeader(range));
+                    NioUtils.copy(fileChannel, range.getIndex(),
+                            range.getSize(), outputStream);
+                }
+            } finally {
+                fileChannel.close();
+            }
+        } else {
+            InputStream inputStream = getWrappedRepresentation().getStream();
+            byte[] buffer = new byte[IoUtils.BUFFER_SIZE];
+            long position = 0;
+
+            try {
+                for (Range range : getRanges()) {
+                    outputStream.write(getPartHeader(range));
+
+                    // Reach the first byte of the range
+                    while (position < range.getIndex()) {
+                        long skipped = inputStream.skip(range.getIndex()
+                                - position);
+
+                        if (skipped > 0) {
+                            position += skipped;
+                        } else if (inputStream.read() != -1) {
+                            position++;
+                        } else {
+                            throw new java.io.EOFException(
+                                    "End of stream reached before the range");
+                        }
+                    }
+
+                    // Copy the bytes of the range
+                    long count = range.getSize();
+
+                    while (count > 0) {
+                        int read = inputStream.read(buffer, 0,
+                                (int) Math.min(buffer.length, count));
+
+                        if (read == -1) {
+                            throw new java.io.EOFException(
+                                    "End of stream reached inside the range");
+                        }
+
+                        outputStream.write(buffer, 0, read);
+                        position += read;
+                        count -= read;
+                    }
+                }
+            } finally {
+                inputStream.close();
+            }
+        }
+
+        outputStream.write(getClosingDelimiter());
+        outputStream.flush();
+    }
+
+    @Override
+    public void write(WritableByteChannel writableChannel) throws IOException {
+        if (getWrappedRepresentation() instanceof FileRepresentation) {
+            OutputStream outputStream = NioUtils
+                    .getOutputStream(writableChannel);
+            FileChannel fileChannel = ((FileRepresentation) getWrappedRepresentation())
+                    .getChannel();
+
+            try {
+                for (Range range : getRanges()) {
+                    outputStream.write(getPartHeader(range));
+                    outputStream.flush();
+                    NioUtils.copy(fileChannel, range.getIndex(),
+                            range.getSize(), writableChannel);
+                }
+            } finally {
+                fileChannel.close();
+            }
+
+            outputStream.write(getClosingDelimiter());
+            outputStream.flush();
+        } else {
+            super.write(writableChannel);
+        }
+    }
+
+}
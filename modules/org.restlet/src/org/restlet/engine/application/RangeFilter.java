@@ -33,6 +33,11 @@
 
 package org.restlet.engine.application;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
@@ -79,13 +84,12 @@ public class RangeFilter extends Filter {
                             // We assume that the response entity has been
                             // properly ranged.
                         }
-                    } else {
-                        // At this time, list of ranges are not supported.
-                        if (request.getRanges().size() == 1
-                                && (!request.getConditions().hasSomeRange() || request
-                                        .getConditions()
-                                        .getRangeStatus(response.getEntity())
-                                        .isSuccess())) {
+                    } else if (!request.getRanges().isEmpty()
+                            && (!request.getConditions().hasSomeRange() || request
+                                    .getConditions()
+                                    .getRangeStatus(response.getEntity())
+                                    .isSuccess())) {
+                        if (request.getRanges().size() == 1) {
                             Range requestedRange = request.getRanges().get(0);
 
                             if (!response.getEntity().hasKnownSize()) {
@@ -111,15 +115,34 @@ public class RangeFilter extends Filter {
                                         response.getEntity(), requestedRange));
                                 response.setStatus(Status.SUCCESS_PARTIAL_CONTENT);
                             }
-                        } else if (request.getRanges().size() > 1) {
-                            // Return a server error as this feature isn't
-                            // supported
-                            // yet
+                        } else if (rangedEntity) {
+                            getLogger()
+                                    .info("Multiple ranges can't be served from an already ranged response entity.");
+                        } else if (!response.getEntity().hasKnownSize()) {
+                            // Return a server error as the ranges can't be
+                            // properly located
                             response.setStatus(Status.SERVER_ERROR_NOT_IMPLEMENTED);
                             getLogger()
                                     .warning(
-                                            "Multiple ranges are not supported at this time.");
+                                            "Multiple ranges are only supported for entities of known size.");
                             response.setEntity(null);
+                        } else {
+                            List<Range> ranges = getSatisfiableRanges(
+                                    request.getRanges(), response.getEntity()
+                                            .getSize());
+
+                            if (ranges.isEmpty()) {
+                                response.setStatus(Status.CLIENT_ERROR_REQUESTED_RANGE_NOT_SATISFIABLE);
+                                response.setEntity(null);
+                            } else if (ranges.size() == 1) {
+                                response.setEntity(new RangeRepresentation(
+                                        response.getEntity(), ranges.get(0)));
+                                response.setStatus(Status.SUCCESS_PARTIAL_CONTENT);
+                            } else {
+                                response.setEntity(new MultipartRangeRepresentation(
+                                        response.getEntity(), ranges));
+                                response.setStatus(Status.SUCCESS_PARTIAL_CONTENT);
+                            }
                         }
                     }
                 } else {
@@ -129,6 +152,71 @@ public class RangeFilter extends Filter {
         }
     }
 
+    /**
+     * Returns the satisfiable ranges among the requested ones, as explicit
+     * ranges sorted by index. Overlapping and adjacent ranges are coalesced
+     * as allowed by the HTTP specification.
+     * 
+     * @param requestedRanges
+     *            The requested ranges.
+     * @param size
+     *            The known size of the entity.
+     * @return The satisfiable ranges.
+     */
+    protected List<Range> getSatisfiableRanges(List<Range> requestedRanges,
+            long size) {
+        List<long[]> bounds = new ArrayList<long[]>();
+
+        for (Range range : requestedRanges) {
+            long first;
+            long last = size - 1;
+
+            if (range.getIndex() == Range.INDEX_LAST) {
+                first = (range.getSize() == Range.SIZE_MAX) ? 0 : Math.max(0,
+                        size - range.getSize());
+            } else {
+                first = range.getIndex();
+
+                if (range.getSize() != Range.SIZE_MAX) {
+                    last = Math.min(last, first + range.getSize() - 1);
+                }
+            }
+
+            if ((first < size) && (first <= last)) {
+                bounds.add(new long[] { first, last });
+            }
+        }
+
+        Collections.sort(bounds, new Comparator<long[]>() {
+            public int compare(long[] bounds1, long[] bounds2) {
+                return (bounds1[0] < bounds2[0]) ? -1
+                        : ((bounds1[0] == bounds2[0]) ? 0 : 1);
+            }
+        });
+
+        List<Range> result = new ArrayList<Range>();
+        long[] current = null;
+
+        for (long[] next : bounds) {
+            if ((current != null) && (next[0] <= current[1] + 1)) {
+                current[1] = Math.max(current[1], next[1]);
+            } else {
+                if (current != null) {
+                    result.add(new Range(current[0], current[1] - current[0]
+                            + 1));
+                }
+
+                current = next;
+            }
+        }
+
+        if (current != null) {
+            result.add(new Range(current[0], current[1] - current[0] + 1));
+        }
+
+        return result;
+    }
+
     /**
      * Returns the Range service of the parent application.
      * 
@@ -43,13 +43,16 @@ import org.restlet.data.Range;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.engine.io.NioUtils;
 import org.restlet.engine.io.RangeInputStream;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.util.WrapperRepresentation;
 
 // [excludes gwt]
 /**
  * Representation that exposes only a range of the content of a wrapped
- * representation.
+ * representation. When the wrapped representation is a
+ * {@link FileRepresentation} of known size, the range is directly read at its
+ * position in the file instead of reading and discarding the preceding bytes.
  * 
  * @author Jerome Louvel
  */
@@ -97,6 +100,51 @@ public class RangeRepresentation extends WrapperRepresentation {
         return org.restlet.engine.io.NioUtils.getChannel(getStream());
     }
 
+    /**
+     * Returns the number of bytes of the range, bounded by the end of the
+     * wrapped representation whose size must be known.
+     * 
+     * @return The number of bytes of the range.
+     */
+    private long getCount() {
+        return Math.min(BioUtils.getAvailableSize(this), getSize()
+                - getFirstIndex());
+    }
+
+    /**
+     * Returns the wrapped file representation if the range can be served by
+     * positioned reads, null otherwise.
+     * 
+     * @return The wrapped file representation or null.
+     */
+    private FileRepresentation getFileRepresentation() {
+        FileRepresentation result = null;
+
+        if ((getWrappedRepresentation() instanceof FileRepresentation)
+                && (getRange() != null) && hasKnownSize()) {
+            result = (FileRepresentation) getWrappedRepresentation();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the index of the first byte of the range in the wrapped
+     * representation, whose size must be known.
+     * 
+     * @return The index of the first byte of the range.
+     */
+    private long getFirstIndex() {
+        long result = getRange().getIndex();
+
+        if (result == Range.INDEX_LAST) {
+            result = (getRange().getSize() == Range.SIZE_MAX) ? 0 : Math.max(
+                    0, getSize() - getRange().getSize());
+        }
+
+        return result;
+    }
+
     /**
      * Returns the range specific to this wrapper. The wrapped representation
      * must not have a range set itself.
@@ -115,7 +163,21 @@ public class RangeRepresentation extends WrapperRepresentation {
 
     @Override
     public InputStream getStream() throws IOException {
-        return new RangeInputStream(super.getStream(), getSize(), getRange());
+        InputStream result = null;
+        FileRepresentation fileRepresentation = getFileRepresentation();
+
+        if (fileRepresentation != null) {
+            // Seek directly to the first byte of the range
+            long count = getCount();
+            java.io.FileInputStream fis = fileRepresentation.getStream();
+            fis.getChannel().position(getFirstIndex());
+            result = new RangeInputStream(fis, count, new Range(0, count));
+        } else {
+            result = new RangeInputStream(super.getStream(), getSize(),
+                    getRange());
+        }
+
+        return result;
     }
 
     @Override
@@ -143,12 +205,40 @@ public class RangeRepresentation extends WrapperRepresentation {
 
     @Override
     public void write(OutputStream outputStream) throws IOException {
-        BioUtils.copy(getStream(), outputStream);
+        FileRepresentation fileRepresentation = getFileRepresentation();
+
+        if (fileRepresentation != null) {
+            java.nio.channels.FileChannel fileChannel = fileRepresentation
+                    .getChannel();
+
+            try {
+                NioUtils.copy(fileChannel, getFirstIndex(),
+                        getCount(), outputStream);
+            } finally {
+                fileChannel.close();
+            }
+        } else {
+            BioUtils.copy(getStream(), outputStream);
+        }
     }
 
     @Override
     public void write(WritableByteChannel writableChannel) throws IOException {
-        write(NioUtils.getOutputStream(writableChannel));
+        FileRepresentation fileRepresentation = getFileRepresentation();
+
+        if (fileRepresentation != null) {
+            java.nio.channels.FileChannel fileChannel = fileRepresentation
+                    .getChannel();
+
+            try {
+                NioUtils.copy(fileChannel, getFirstIndex(),
+                        getCount(), writableChannel);
+            } finally {
+                fileChannel.close();
+            }
+        } else {
+            write(NioUtils.getOutputStream(writableChannel));
+        }
     }
 
 }
@@ -52,6 +52,70 @@ import org.restlet.routing.VirtualHost;
  * @author Jerome Louvel
  */
 public class HostRoute extends Route {
+
+    /**
+     * Precompiled virtual host property. Literal values are compared without
+     * regex and the ".*" wildcard matches without any comparison.
+     */
+    private static final class HostPattern {
+
+        /** The compiled pattern or null for literal and wildcard values. */
+        private final Pattern pattern;
+
+        /** The original regex. */
+        private final String regex;
+
+        /** Indicates if the regex matches any value. */
+        private final boolean wildcard;
+
+        /**
+         * Constructor.
+         * 
+         * @param regex
+         *            The regex to compile.
+         */
+        public HostPattern(String regex) {
+            this.regex = regex;
+            this.wildcard = ".*".equals(regex);
+            this.pattern = (this.wildcard || isLiteral(regex)) ? null
+                    : Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+        }
+
+        /**
+         * Returns the original regex.
+         * 
+         * @return The original regex.
+         */
+        public String getRegex() {
+            return regex;
+        }
+
+        /**
+         * Matches a formatted string, in a case insensitive manner.
+         * 
+         * @param formattedString
+         *            The formatted string to match.
+         * @return True if the formatted string matched.
+         */
+        public boolean matches(String formattedString) {
+            boolean result = this.wildcard;
+
+            if (!result) {
+                result = (this.pattern == null) ? this.regex
+                        .equalsIgnoreCase(formattedString) : this.pattern
+                        .matcher(formattedString).matches();
+            }
+
+            return result;
+        }
+    }
+
+    /** The characters having a special meaning in a regex. */
+    private static final String REGEX_SPECIAL_CHARS = "\\^$.|?*+()[]{}";
+
+    /** The precompiled virtual host properties. */
+    private final HostPattern[] patterns;
+
     /**
      * Constructor.
      * 
@@ -62,6 +126,14 @@ public class HostRoute extends Route {
      */
     public HostRoute(Router router, VirtualHost target) {
         super(router, target);
+        this.patterns = new HostPattern[8];
+
+        // Precompile the virtual host properties
+        if (target != null) {
+            for (int i = 0; i < this.patterns.length; i++) {
+                this.patterns[i] = new HostPattern(getRegex(target, i));
+            }
+        }
     }
 
     /**
@@ -95,41 +167,20 @@ public class HostRoute extends Route {
     }
 
     /**
-     * Returns the target virtual host.
-     * 
-     * @return The target virtual host.
-     */
-    public VirtualHost getVirtualHost() {
-        return (VirtualHost) getNext();
-    }
-
-    /**
-     * Matches a formatted string against a regex pattern, in a case insensitive
-     * manner.
-     * 
-     * @param regex
-     *            The pattern to use.
-     * @param formattedString
-     *            The formatted string to match.
-     * @return True if the formatted string matched the pattern.
-     */
-    private boolean matches(String regex, String formattedString) {
-        return Pattern.compile(regex, Pattern.CASE_INSENSITIVE)
-                .matcher(formattedString).matches();
-    }
-
-    /**
-     * Returns the score for a given call (between 0 and 1.0).
+     * Returns the values matched against the virtual host properties, in the
+     * order of the {@link VirtualHost} getters: host domain, host port, host
+     * scheme, resource domain, resource port, resource scheme, server address
+     * and server port.
      * 
      * @param request
-     *            The request to score.
+     *            The request to match.
      * @param response
-     *            The response to score.
-     * @return The score for a given call (between 0 and 1.0).
+     *            The response to match.
+     * @return The values to match or null if the request has no resource
+     *         reference.
      */
-    @Override
-    public float score(Request request, Response response) {
-        float result = 0F;
+    static String[] getMatchedValues(Request request, Response response) {
+        String[] result = null;
 
         // Prepare the value to be matched
         String hostDomain = "";
@@ -186,29 +237,148 @@ public class HostRoute extends Route {
                 serverAddress = "";
             }
 
-            int serverPortValue = response.getServerInfo().getPort();
-
-            if (serverPortValue == -1) {
-                serverPortValue = request.getProtocol().getDefaultPort();
-            }
-
             String serverPort = Integer.toString(response.getServerInfo()
                     .getPort());
 
-            // Check if all the criteria match
-            if (matches(getVirtualHost().getHostDomain(), hostDomain)
-                    && matches(getVirtualHost().getHostPort(), hostPort)
-                    && matches(getVirtualHost().getHostScheme(), hostScheme)
-                    && matches(getVirtualHost().getResourceDomain(),
-                            resourceDomain)
-                    && matches(getVirtualHost().getResourcePort(), resourcePort)
-                    && matches(getVirtualHost().getResourceScheme(),
-                            resourceScheme)
-                    && matches(getVirtualHost().getServerAddress(),
-                            serverAddress)
-                    && matches(getVirtualHost().getServerPort(), serverPort)) {
-                result = 1F;
-            }
+            result = new String[] { hostDomain, hostPort, hostScheme,
+                    resourceDomain, resourcePort, resourceScheme,
+                    serverAddress, serverPort };
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the regex of a virtual host property, in the order of the values
+     * returned by {@link #getMatchedValues(Request, Response)}.
+     * 
+     * @param host
+     *            The virtual host.
+     * @param index
+     *            The index of the property.
+     * @return The regex of the virtual host property.
+     */
+    private static String getRegex(VirtualHost host, int index) {
+        switch (index) {
+        case 0:
+            return host.getHostDomain();
+        case 1:
+            return host.getHostPort();
+        case 2:
+            return host.getHostScheme();
+        case 3:
+            return host.getResourceDomain();
+        case 4:
+            return host.getResourcePort();
+        case 5:
+            return host.getResourceScheme();
+        case 6:
+            return host.getServerAddress();
+        default:
+            return host.getServerPort();
+        }
+    }
+
+    /**
+     * Returns the target virtual host.
+     * 
+     * @return The target virtual host.
+     */
+    public VirtualHost getVirtualHost() {
+        return (VirtualHost) getNext();
+    }
+
+    /**
+     * Indicates if a virtual host regex is a literal value, without any
+     * special character, that can be matched with a case insensitive string
+     * comparison.
+     * 
+     * @param regex
+     *            The regex to test.
+     * @return True if the regex is a literal value.
+     */
+    static boolean isLiteral(String regex) {
+        boolean result = true;
+
+        for (int i = 0; result && (i < regex.length()); i++) {
+            result = (REGEX_SPECIAL_CHARS.indexOf(regex.charAt(i)) == -1);
+        }
+
+        return result;
+    }
+
+    /**
+     * Matches the given values against the properties of the virtual host.
+     * 
+     * @param values
+     *            The values returned by
+     *            {@link #getMatchedValues(Request, Response)}.
+     * @return True if all the values matched.
+     */
+    boolean matches(String[] values) {
+        boolean result = true;
+        VirtualHost host = getVirtualHost();
+
+        for (int i = 0; result && (i < values.length); i++) {
+            result = matches(i, getRegex(host, i), values[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Matches a host domain against the host domain property of the virtual
+     * host.
+     * 
+     * @param hostDomain
+     *            The host domain to match.
+     * @return True if the host domain matched.
+     */
+    boolean matchesDomain(String hostDomain) {
+        return matches(0, getRegex(getVirtualHost(), 0), hostDomain);
+    }
+
+    /**
+     * Matches a formatted string against a regex pattern, in a case insensitive
+     * manner. The pattern is only compiled when the virtual host property is
+     * first matched or has been modified.
+     * 
+     * @param index
+     *            The index of the virtual host property.
+     * @param regex
+     *            The pattern to use.
+     * @param formattedString
+     *            The formatted string to match.
+     * @return True if the formatted string matched the pattern.
+     */
+    private boolean matches(int index, String regex, String formattedString) {
+        HostPattern pattern = this.patterns[index];
+
+        if ((pattern == null) || !pattern.getRegex().equals(regex)) {
+            pattern = new HostPattern(regex);
+            this.patterns[index] = pattern;
+        }
+
+        return pattern.matches(formattedString);
+    }
+
+    /**
+     * Returns the score for a given call (between 0 and 1.0).
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @return The score for a given call (between 0 and 1.0).
+     */
+    @Override
+    public float score(Request request, Response response) {
+        float result = 0F;
+        String[] values = getMatchedValues(request, response);
+
+        // Check if all the criteria match
+        if ((values != null) && matches(values)) {
+            result = 1F;
         }
 
         // Log the result of the matching
@@ -33,6 +33,13 @@
 
 package org.restlet.engine.component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 
 import org.restlet.Component;
@@ -40,13 +47,21 @@ import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
 import org.restlet.data.Status;
+import org.restlet.routing.Route;
 import org.restlet.routing.Router;
 import org.restlet.routing.VirtualHost;
 
 /**
  * Router that collects calls from all server connectors and dispatches them to
  * the appropriate host routers. The host routers then dispatch them to the user
- * applications.
+ * applications.<br>
+ * <br>
+ * The first matching virtual host is selected. Routes are indexed by literal
+ * host domain so that only the virtual hosts that can match a given domain are
+ * scored, and the selected route is cached for each distinct combination of
+ * matched values (host, resource and server properties). As a consequence,
+ * changes to the virtual hosts must be followed by a call to
+ * {@link Component#updateHosts()}.
  * 
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
@@ -56,9 +71,21 @@ import org.restlet.routing.VirtualHost;
  */
 public class ServerRouter extends Router {
 
+    /** The maximum number of cached route selections. */
+    private static final int MAX_CACHED_ROUTES = 1024;
+
     /** The parent component. */
     private volatile Component component;
 
+    /** The routes that can match each named host domain, in lower case. */
+    private volatile Map<String, List<Route>> domainRoutes;
+
+    /** The route selected for each combination of matched values. */
+    private final ConcurrentMap<List<String>, Route> selectedRoutes;
+
+    /** The routes that can match the other host domains. */
+    private volatile List<Route> wildcardRoutes;
+
     /**
      * Constructor.
      * 
@@ -69,7 +96,126 @@ public class ServerRouter extends Router {
         super((component == null) ? null : component.getContext()
                 .createChildContext());
         this.component = component;
-        setRoutingMode(MODE_FIRST_MATCH);
+        this.domainRoutes = new HashMap<String, List<Route>>();
+        this.selectedRoutes = new ConcurrentHashMap<List<String>, Route>();
+        this.wildcardRoutes = new ArrayList<Route>();
+        setRoutingMode(MODE_CUSTOM);
+    }
+
+    /**
+     * Indexes the routes by host domain. For each domain that is literally
+     * named by a virtual host, the index keeps the ordered list of routes whose
+     * domain pattern matches it. Other domains can only be matched by the
+     * routes whose domain isn't a plain literal value.
+     */
+    private void buildIndex() {
+        Map<String, List<Route>> domains = new HashMap<String, List<Route>>();
+        List<Route> wildcards = new ArrayList<Route>();
+
+        for (Route route : getRoutes()) {
+            String domain = getLiteralDomain(route);
+
+            if ((domain != null) && !domains.containsKey(domain)) {
+                domains.put(domain, new ArrayList<Route>());
+            }
+        }
+
+        for (Route route : getRoutes()) {
+            HostRoute hostRoute = (route instanceof HostRoute) ? (HostRoute) route
+                    : null;
+
+            for (Map.Entry<String, List<Route>> entry : domains.entrySet()) {
+                if ((hostRoute == null)
+                        || hostRoute.matchesDomain(entry.getKey())) {
+                    entry.getValue().add(route);
+                }
+            }
+
+            if ((hostRoute == null)
+                    || !HostRoute.isLiteral(hostRoute.getVirtualHost()
+                            .getHostDomain())) {
+                wildcards.add(route);
+            }
+        }
+
+        this.selectedRoutes.clear();
+        this.domainRoutes = domains;
+        this.wildcardRoutes = wildcards;
+    }
+
+    /**
+     * Returns the first route matching the call. The candidate routes are
+     * looked up in the domain index and the selection is cached.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param response
+     *            The response to update.
+     * @return The first matching route or null.
+     */
+    @Override
+    protected Route getCustom(Request request, Response response) {
+        Route result = null;
+        String[] values = HostRoute.getMatchedValues(request, response);
+
+        if (values != null) {
+            List<String> key = Arrays.asList(values);
+            result = this.selectedRoutes.get(key);
+
+            if (result == null) {
+                List<Route> routes = this.domainRoutes.get(values[0]
+                        .toLowerCase());
+
+                if (routes == null) {
+                    routes = this.wildcardRoutes;
+                }
+
+                for (int i = 0; (result == null) && (i < routes.size()); i++) {
+                    Route route = routes.get(i);
+
+                    if ((route instanceof HostRoute) ? ((HostRoute) route)
+                            .matches(values) : (route.score(request,
+                            response) >= getRequiredScore())) {
+                        result = route;
+                    }
+                }
+
+                if (result != null) {
+                    if (this.selectedRoutes.size() >= MAX_CACHED_ROUTES) {
+                        this.selectedRoutes.clear();
+                    }
+
+                    this.selectedRoutes.put(key, result);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the host domain named by a route's virtual host, in lower case.
+     * Escaped and unescaped dots are accepted, other special characters make
+     * the domain a pattern.
+     * 
+     * @param route
+     *            The route.
+     * @return The named host domain or null if the domain is a pattern or if
+     *         the route isn't a host route.
+     */
+    private String getLiteralDomain(Route route) {
+        String result = null;
+
+        if (route instanceof HostRoute) {
+            String domain = ((HostRoute) route).getVirtualHost()
+                    .getHostDomain().replace("\\.", ".");
+
+            if (HostRoute.isLiteral(domain.replace(".", ""))) {
+                result = domain.toLowerCase();
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -127,6 +273,7 @@ public class ServerRouter extends Router {
 
         setDefaultRoute(new org.restlet.routing.TemplateRoute(this, "",
                 noHostMatched));
+        buildIndex();
 
         // Start the router
         super.start();
@@ -135,6 +282,7 @@ public class ServerRouter extends Router {
     @Override
     public synchronized void stop() throws Exception {
         getRoutes().clear();
+        buildIndex();
         super.stop();
     }
 }
@@ -43,6 +43,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -54,6 +55,7 @@ import org.restlet.data.Status;
 import org.restlet.engine.ConnectorHelper;
 import org.restlet.engine.Engine;
 import org.restlet.engine.log.LoggingThreadFactory;
+import org.restlet.engine.util.SystemUtils;
 
 /**
  * Base connector helper. Here is the list of parameters that are supported.
@@ -144,6 +146,24 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * never block, otherwise the other connections would hang.</td>
  * </tr>
  * <tr>
+ * <td>virtualThreads</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the processing of calls should be done via virtual threads
+ * instead of platform worker threads, when supported by the JVM (Java 21 or
+ * later). A new virtual thread is started for each call and calls that block
+ * on I/O don't hold a platform thread. The "maxVirtualThreads" parameter
+ * replaces the "minThreads", "lowThreads", "maxThreads" and "maxQueued"
+ * parameters, which still apply on older JVMs.</td>
+ * </tr>
+ * <tr>
+ * <td>maxVirtualThreads</td>
+ * <td>int</td>
+ * <td>10 000</td>
+ * <td>Maximum number of calls processed concurrently by virtual threads.
+ * Additional calls are queued.</td>
+ * </tr>
+ * <tr>
  * <td>inboundBufferSize</td>
  * <td>int</td>
  * <td>16 * 1024</td>
@@ -171,12 +191,39 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * TCP buffer overflows.</td>
  * </tr>
  * <tr>
+ * <td>adaptiveThreads</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the core number of worker threads should be periodically
+ * adapted between "minThreads" and "maxThreads", based on the observed time
+ * spent by calls in the queue. See {@link WorkerService#adapt()}.</td>
+ * </tr>
+ * <tr>
+ * <td>targetQueueWaitMs</td>
+ * <td>int</td>
+ * <td>10</td>
+ * <td>Average time a call should wait in the queue before the worker service
+ * grows, when "adaptiveThreads" is enabled.</td>
+ * </tr>
+ * <tr>
+ * <td>workerServiceMBean</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the statistics of the worker service should be registered
+ * as a JMX MBean in the platform MBean server, under the "org.restlet" domain.</td>
+ * </tr>
+ * <tr>
  * <td>transport</td>
  * <td>String</td>
  * <td>TCP</td>
  * <td>Indicates the transport protocol such as TCP or UDP.</td>
  * </tr>
  * </table>
+ * <br>
+ * When started, the worker service is also available in the connector's
+ * context, under the "org.restlet.engine.connector.workerService" attribute.
+ * Its statistics can be exposed as a resource using a
+ * {@link WorkerServiceRestlet}.
  * 
  * @author Jerome Louvel
  */
@@ -198,9 +245,16 @@ public abstract class BaseHelper<T extends Connector> extends
     /** The queue of outbound messages. */
     protected final Queue<Response> outboundMessages;
 
+    /** Indicates if the worker service uses virtual threads. */
+    private volatile boolean virtualWorkers;
+
     /** The worker service. */
     private volatile ThreadPoolExecutor workerService;
 
+    // [ifndef gae,android] member
+    /** The name of the worker service MBean, if registered. */
+    private volatile javax.management.ObjectName workerServiceName;
+
     /**
      * Constructor.
      * 
@@ -235,6 +289,11 @@ public abstract class BaseHelper<T extends Connector> extends
             handleOutbound(getOutboundMessages().poll());
         }
 
+        // Adapt the worker service to the load
+        if (getWorkerService() instanceof WorkerService) {
+            result = ((WorkerService) getWorkerService()).adapt() || result;
+        }
+
         return result;
     }
 
@@ -270,22 +329,45 @@ public abstract class BaseHelper<T extends Connector> extends
      * @return The handler service.
      */
     protected ThreadPoolExecutor createWorkerService() {
-        int maxThreads = getMaxThreads();
-        int minThreads = getMinThreads();
+        ThreadFactory virtualFactory = null;
+
+        if (isVirtualThreads()) {
+            virtualFactory = SystemUtils
+                    .getVirtualThreadFactory("restlet-worker-");
 
-        BlockingQueue<Runnable> queue = null;
+            if (virtualFactory == null) {
+                getLogger()
+                        .info("Virtual threads aren't supported by the current JVM. Using platform worker threads instead.");
+            }
+        }
 
-        if (getMaxQueued() == 0) {
-            queue = new SynchronousQueue<Runnable>();
-        } else if (getMaxQueued() < 0) {
-            queue = new LinkedBlockingQueue<Runnable>();
+        WorkerService result = null;
+        this.virtualWorkers = (virtualFactory != null);
+
+        if (virtualFactory != null) {
+            // Blocked virtual threads are cheap and shouldn't be pooled, so a
+            // new one is started for each call, up to the maximum number of
+            // calls processed concurrently
+            result = new ThreadPerTaskWorkerService(getMaxVirtualThreads(),
+                    new LoggingThreadFactory(getLogger(), virtualFactory));
         } else {
-            queue = new ArrayBlockingQueue<Runnable>(getMaxQueued());
+            BlockingQueue<Runnable> queue = null;
+
+            if (getMaxQueued() == 0) {
+                queue = new SynchronousQueue<Runnable>();
+            } else if (getMaxQueued() < 0) {
+                queue = new LinkedBlockingQueue<Runnable>();
+            } else {
+                queue = new ArrayBlockingQueue<Runnable>(getMaxQueued());
+            }
+
+            result = new WorkerService(getMinThreads(), getMaxThreads(),
+                    getMaxThreadIdleTimeMs(), TimeUnit.MILLISECONDS, queue,
+                    new LoggingThreadFactory(getLogger(), true));
+            result.setAdaptive(isAdaptiveThreads());
         }
 
-        ThreadPoolExecutor result = new ThreadPoolExecutor(minThreads,
-                maxThreads, getMaxThreadIdleTimeMs(), TimeUnit.MILLISECONDS,
-                queue, new LoggingThreadFactory(getLogger(), true));
+        result.setTargetQueueWaitMs(getTargetQueueWaitMs());
         result.setRejectedExecutionHandler(new RejectedExecutionHandler() {
             public void rejectedExecution(Runnable r,
                     ThreadPoolExecutor executor) {
@@ -297,8 +379,11 @@ public abstract class BaseHelper<T extends Connector> extends
             }
         });
 
-        // Ensure that core threads act like a minimum number of threads
-        result.prestartAllCoreThreads();
+        if (virtualFactory == null) {
+            // Ensure that core threads act like a minimum number of threads
+            result.prestartAllCoreThreads();
+        }
+
         return result;
     }
 
@@ -306,6 +391,15 @@ public abstract class BaseHelper<T extends Connector> extends
      * Finish stopping the helper.
      */
     protected void doFinishStop() {
+        // [ifndef gae,android]
+        unregisterWorkerService();
+        // [enddef]
+
+        if (getContext() != null) {
+            getContext().getAttributes().remove(
+                    "org.restlet.engine.connector.workerService");
+        }
+
         // Await for completion of pending workers
         if (getWorkerService() != null) {
             try {
@@ -460,6 +554,18 @@ public abstract class BaseHelper<T extends Connector> extends
                 "maxQueued", "0"));
     }
 
+    /**
+     * Returns the maximum number of calls processed concurrently by virtual
+     * threads, when they are enabled.
+     * 
+     * @return The maximum number of calls processed concurrently by virtual
+     *         threads.
+     */
+    public int getMaxVirtualThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxVirtualThreads", "10000"));
+    }
+
     /**
      * Returns the time for an idle thread to wait for an operation before being
      * collected.
@@ -523,6 +629,17 @@ public abstract class BaseHelper<T extends Connector> extends
         return response.getRequest();
     }
 
+    /**
+     * Returns the average time a call should wait in the queue before the
+     * worker service grows, when the adaptive mode is enabled.
+     * 
+     * @return The target queue wait time in milliseconds.
+     */
+    public int getTargetQueueWaitMs() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "targetQueueWaitMs", "10"));
+    }
+
     /**
      * Returns the time to wait between socket write operations in milliseconds.
      * Can prevent TCP buffer overflows.
@@ -649,6 +766,17 @@ public abstract class BaseHelper<T extends Connector> extends
                 "workerThreads", "true"));
     }
 
+    /**
+     * Indicates if the core number of worker threads should be adapted to the
+     * observed queue wait time.
+     * 
+     * @return True if the core number of worker threads should be adapted.
+     */
+    public boolean isAdaptiveThreads() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "adaptiveThreads", "false"));
+    }
+
     /**
      * Indicates if it is helping a client connector.
      * 
@@ -698,6 +826,28 @@ public abstract class BaseHelper<T extends Connector> extends
                 "tracing", "false"));
     }
 
+    /**
+     * Indicates if the statistics of the worker service should be registered
+     * as a JMX MBean.
+     * 
+     * @return True if the worker service should be registered as a JMX MBean.
+     */
+    public boolean isWorkerServiceMBean() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "workerServiceMBean", "false"));
+    }
+
+    /**
+     * Indicates if calls should be processed by virtual threads, when
+     * supported by the JVM.
+     * 
+     * @return True if calls should be processed by virtual threads.
+     */
+    public boolean isVirtualThreads() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "virtualThreads", "false"));
+    }
+
     /**
      * Indicates if the worker service is busy. This state is detected by
      * checking if the number of active task running is superior or equal to the
@@ -706,8 +856,11 @@ public abstract class BaseHelper<T extends Connector> extends
      * @return True if the worker service is busy.
      */
     protected boolean isWorkerServiceOverloaded() {
+        // Virtual worker threads are only limited by the concurrency limit
+        int lowThreads = this.virtualWorkers ? getMaxVirtualThreads()
+                : getLowThreads();
         return (getWorkerService() != null)
-                && getWorkerService().getActiveCount() >= getLowThreads();
+                && getWorkerService().getActiveCount() >= lowThreads;
     }
 
     /**
@@ -746,6 +899,32 @@ public abstract class BaseHelper<T extends Connector> extends
         }
     }
 
+    // [ifndef gae,android] method
+    /**
+     * Registers the worker service as a JMX MBean in the platform MBean server,
+     * if it supports the {@link WorkerServiceMBean} interface.
+     */
+    protected void registerWorkerService() {
+        if (getWorkerService() instanceof WorkerServiceMBean) {
+            try {
+                javax.management.ObjectName name = new javax.management.ObjectName(
+                        "org.restlet:type=WorkerService,side="
+                                + (isClientSide() ? "client" : "server")
+                                + ",protocols="
+                                + javax.management.ObjectName
+                                        .quote(getProtocols().toString())
+                                + ",id=" + System.identityHashCode(this));
+                java.lang.management.ManagementFactory
+                        .getPlatformMBeanServer().registerMBean(
+                                getWorkerService(), name);
+                this.workerServiceName = name;
+            } catch (Exception e) {
+                getLogger().log(Level.WARNING,
+                        "Unable to register the worker service MBean", e);
+            }
+        }
+    }
+
     @Override
     public void start() throws Exception {
         super.start();
@@ -753,6 +932,18 @@ public abstract class BaseHelper<T extends Connector> extends
 
         if (hasWorkerThreads()) {
             this.workerService = createWorkerService();
+
+            if (getContext() != null) {
+                getContext().getAttributes().put(
+                        "org.restlet.engine.connector.workerService",
+                        this.workerService);
+            }
+
+            // [ifndef gae,android]
+            if (isWorkerServiceMBean()) {
+                registerWorkerService();
+            }
+            // [enddef]
         }
 
         this.controllerService.submit(this.controller);
@@ -795,4 +986,23 @@ public abstract class BaseHelper<T extends Connector> extends
         }
     }
 
+    // [ifndef gae,android] method
+    /**
+     * Unregisters the worker service MBean, if it was registered.
+     */
+    protected void unregisterWorkerService() {
+        if (this.workerServiceName != null) {
+            try {
+                java.lang.management.ManagementFactory
+                        .getPlatformMBeanServer().unregisterMBean(
+                                this.workerServiceName);
+            } catch (Exception e) {
+                getLogger().log(Level.FINE,
+                        "Unable to unregister the worker service MBean", e);
+            }
+
+            this.workerServiceName = null;
+        }
+    }
+
 }
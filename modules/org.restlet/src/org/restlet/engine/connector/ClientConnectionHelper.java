@@ -39,6 +39,8 @@ import java.net.Socket;
 import java.net.UnknownHostException;
 import java.nio.channels.SocketChannel;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 
@@ -60,6 +62,39 @@ import org.restlet.data.Status;
  * <th>Description</th>
  * </tr>
  * <tr>
+ * <td>idleCheckIntervalMs</td>
+ * <td>int</td>
+ * <td>1000</td>
+ * <td>Time between two checks for idle connections, done by the controller
+ * thread.</td>
+ * </tr>
+ * <tr>
+ * <td>idleTimeoutMs</td>
+ * <td>int</td>
+ * <td>0</td>
+ * <td>Time after which an idle persistent connection is closed by the idle
+ * connections check. For no such check, use '0' as value.</td>
+ * </tr>
+ * <tr>
+ * <td>maxQueuedRequestsPerHost</td>
+ * <td>int</td>
+ * <td>0</td>
+ * <td>Maximum number of requests waiting, in arrival order, for a connection to
+ * a host when the "maxConnectionsPerHost" or "maxTotalConnections" limits are
+ * reached. If the value is '0', requests are rejected right away. If the value
+ * is '-1', the waiting queue is unbounded.</td>
+ * </tr>
+ * <tr>
+ * <td>maxPipelinedRequests</td>
+ * <td>int</td>
+ * <td>10</td>
+ * <td>Maximum number of requests in progress on a connection when the
+ * "pipeliningConnections" parameter is enabled. Only idempotent requests
+ * without entity are pipelined behind other pipelined requests. They are
+ * resubmitted once on another connection if the server closes the connection
+ * before answering them.</td>
+ * </tr>
+ * <tr>
  * <td>proxyHost</td>
  * <td>String</td>
  * <td>System property "http.proxyHost"</td>
@@ -126,6 +161,24 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
 
     protected static final String CONNECTOR_LATCH = "org.restlet.engine.connector.latch";
 
+    /**
+     * Name of the response attribute set while an asynchronous call is
+     * pending, until the final response is passed to the
+     * {@link Request#getOnResponse()} callback.
+     */
+    public static final String CONNECTOR_PENDING = "org.restlet.engine.connector.pending";
+
+    protected static final String CONNECTOR_RESUBMITTED = "org.restlet.engine.connector.resubmitted";
+
+    /** The lock making the creation of connections atomic. */
+    private final Object connectionsLock;
+
+    /** The sub-pools of connections, per host socket address. */
+    private final ConcurrentMap<InetSocketAddress, HostConnections> hostConnections;
+
+    /** The time of the last check for idle connections. */
+    private volatile long lastIdleCheck;
+
     /**
      * Constructor.
      * 
@@ -134,6 +187,64 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
      */
     public ClientConnectionHelper(Client connector) {
         super(connector, true);
+        this.connectionsLock = new Object();
+        this.hostConnections = new ConcurrentHashMap<InetSocketAddress, HostConnections>();
+        this.lastIdleCheck = System.currentTimeMillis();
+    }
+
+    /**
+     * Indicates if a new request can be pipelined on a busy connection. The
+     * connection must be opening or open, persistent, not full and only handle
+     * pipelinable requests.
+     * 
+     * @param connection
+     *            The busy connection.
+     * @return True if a new request can be pipelined on the connection.
+     */
+    protected boolean canPipeline(Connection<Client> connection) {
+        return connection.isPipelining()
+                && connection.isPersistent()
+                && ((connection.getState() == ConnectionState.OPENING) || (connection
+                        .getState() == ConnectionState.OPEN))
+                && (connection.getLoadScore() < getMaxPipelinedRequests())
+                && (connection.getInboundWay() instanceof ClientInboundWay)
+                && ((ClientInboundWay) connection.getInboundWay())
+                        .isPipelinable()
+                && (connection.getOutboundWay() instanceof ClientOutboundWay)
+                && ((ClientOutboundWay) connection.getOutboundWay())
+                        .isPipelinable();
+    }
+
+    @Override
+    protected void checkin(Connection<?> connection) {
+        HostConnections host = getHostConnections().get(
+                connection.getSocketAddress());
+
+        if (host != null) {
+            host.getConnections().remove(connection);
+        }
+
+        super.checkin(connection);
+    }
+
+    @Override
+    protected boolean control() {
+        // Serve the messages waiting for a connection before the new ones
+        for (HostConnections host : getHostConnections().values()) {
+            if (!host.getWaitingMessages().isEmpty()) {
+                dispatch(host);
+            }
+        }
+
+        boolean result = super.control();
+        long now = System.currentTimeMillis();
+
+        if ((now - this.lastIdleCheck) >= getIdleCheckIntervalMs()) {
+            this.lastIdleCheck = now;
+            reapIdleConnections();
+        }
+
+        return result;
     }
 
     @Override
@@ -144,6 +255,51 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                 socketAddress, getInboundBufferSize(), getOutboundBufferSize());
     }
 
+    /**
+     * Creates a new connection to the given host, unless the maximum total
+     * number of connections is reached and no idle connection could be
+     * evicted. The check, the eviction and the creation are done atomically
+     * so concurrent callers can't exceed the limit.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param host
+     *            The sub-pool of connections to the target host.
+     * @return The new connection or null.
+     * @throws UnknownHostException
+     * @throws IOException
+     */
+    protected Connection<Client> createConnection(Request request,
+            HostConnections host) throws UnknownHostException, IOException {
+        Connection<Client> result = null;
+
+        synchronized (this.connectionsLock) {
+            if ((getMaxTotalConnections() != -1)
+                    && (getOpenConnectionCount() >= getMaxTotalConnections())
+                    && !evictIdleConnection()) {
+                getLogger()
+                        .log(Level.FINE,
+                                "Unable to create a new connection. Maximum total number of connections reached!");
+            } else {
+                if (getLogger().isLoggable(Level.FINE)) {
+                    getLogger().log(
+                            Level.FINE,
+                            "Creating a new client connection to: "
+                                    + host.getSocketAddress());
+                }
+
+                result = checkout(
+                        createSocketChannel(request.isConfidential(),
+                                host.getSocketAddress()), getController(),
+                        host.getSocketAddress());
+                getConnections().add(result);
+                host.getConnections().add(result);
+            }
+        }
+
+        return result;
+    }
+
     @Override
     protected ConnectionController createController() {
         return new ConnectionController(this);
@@ -209,6 +365,44 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
         return result;
     }
 
+    /**
+     * Sends the messages waiting for a connection to the given host, in
+     * arrival order, as long as connections are available for them.
+     * 
+     * @param host
+     *            The sub-pool of connections to the host.
+     */
+    protected void dispatch(HostConnections host) {
+        Response response = host.getWaitingMessages().peek();
+
+        while (response != null) {
+            Connection<Client> bestConn = null;
+
+            try {
+                bestConn = getBestConnection(response.getRequest(), host);
+            } catch (Throwable t) {
+                getLogger()
+                        .log(Level.FINE,
+                                "An error occured during the communication with the remote server.",
+                                t);
+                host.getWaitingMessages().remove(response);
+                onOutboundError(Status.CONNECTOR_ERROR_COMMUNICATION, response);
+            }
+
+            if (bestConn != null) {
+                host.getWaitingMessages().remove(response);
+                bestConn.getOutboundWay().handle(response);
+                response = host.getWaitingMessages().peek();
+            } else if (host.getWaitingMessages().peek() != response) {
+                // The failed message was removed, try the next one
+                response = host.getWaitingMessages().peek();
+            } else {
+                // No connection available yet
+                response = null;
+            }
+        }
+    }
+
     @Override
     public void doHandleInbound(Response response) {
         if (response != null) {
@@ -217,6 +411,10 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
             Request request = response.getRequest();
 
             if ((request != null) && (request.isAsynchronous())) {
+                if (!response.getStatus().isInformational()) {
+                    response.getAttributes().remove(CONNECTOR_PENDING);
+                }
+
                 request.getOnResponse().handle(request, response);
                 handled = true;
             }
@@ -242,12 +440,26 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                                     + response.getRequest());
                 }
 
-                Connection<Client> bestConn = getBestConnection(response
+                HostConnections host = getHostConnections(response
                         .getRequest());
+                Connection<Client> bestConn = null;
+
+                if ((host != null) && host.getWaitingMessages().isEmpty()) {
+                    bestConn = getBestConnection(response.getRequest(), host);
+                }
 
                 if (bestConn != null) {
                     bestConn.getOutboundWay().handle(response);
                     getConnections().add(bestConn);
+                } else if ((host != null) && host.offer(response)) {
+                    getLogger().log(
+                            Level.FINE,
+                            "Waiting for a connection to: "
+                                    + host.getSocketAddress());
+                } else if ((host != null) && host.isRetired()) {
+                    // The sub-pool was reaped meanwhile, try again with a new
+                    // one
+                    getOutboundMessages().add(response);
                 } else {
                     getLogger().log(Level.WARNING,
                             "Unable to find a connection to send the request");
@@ -266,6 +478,38 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
         }
     }
 
+    /**
+     * Closes the least recently used idle connection, whatever its host, to
+     * make room for a new connection when the maximum total number of
+     * connections is reached.
+     * 
+     * @return True if an idle connection was closed.
+     */
+    protected boolean evictIdleConnection() {
+        Connection<Client> eldest = null;
+
+        for (Connection<Client> connection : getConnections()) {
+            if (connection.isAvailable()
+                    && ((eldest == null) || (connection.getLastActivity() < eldest
+                            .getLastActivity()))) {
+                eldest = connection;
+            }
+        }
+
+        if (eldest != null) {
+            if (getLogger().isLoggable(Level.FINE)) {
+                getLogger().log(
+                        Level.FINE,
+                        "Evicting the least recently used idle connection to: "
+                                + eldest.getSocketAddress());
+            }
+
+            eldest.close(false);
+        }
+
+        return eldest != null;
+    }
+
     /**
      * Tries to reuse an existing connection for the given request, or creates a
      * new one. It may return null if the maximum number of connections per host
@@ -279,13 +523,107 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
      */
     protected Connection<Client> getBestConnection(Request request)
             throws UnknownHostException, IOException {
-        Connection<Client> result = null;
+        HostConnections host = getHostConnections(request);
+        return (host == null) ? null : getBestConnection(request, host);
+    }
 
-        // Try to reuse an existing connection for the same host and
-        // port
+    /**
+     * Tries to reuse an existing connection to the given host, or creates a new
+     * one. It returns null if the maximum number of connections per host or in
+     * general is reached and no idle connection could be evicted.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param host
+     *            The sub-pool of connections to the target host.
+     * @return An existing connection able to handle the request or new one.
+     * @throws UnknownHostException
+     * @throws IOException
+     */
+    protected Connection<Client> getBestConnection(Request request,
+            HostConnections host) throws UnknownHostException, IOException {
+        Connection<Client> result = null;
+        InetSocketAddress socketAddress = host.getSocketAddress();
         int hostConnectionCount = 0;
-        int bestScore = 0;
-        boolean foundConn = false;
+
+        // Busy connection where the request could be pipelined
+        boolean pipelinable = isPipeliningConnections()
+                && isPipelinable(request);
+        Connection<Client> pipelinedConn = null;
+        int pipelinedScore = Integer.MAX_VALUE;
+
+        // Associate the given request to the first available connection
+        // opened on the same host domain and port.
+        for (Iterator<Connection<Client>> iterator = host.getConnections()
+                .iterator(); (result == null) && iterator.hasNext();) {
+            Connection<Client> currConn = iterator.next();
+
+            if (currConn.isAvailable()) {
+                result = currConn;
+            } else {
+                if (pipelinable && canPipeline(currConn)
+                        && (currConn.getLoadScore() < pipelinedScore)) {
+                    pipelinedConn = currConn;
+                    pipelinedScore = currConn.getLoadScore();
+                }
+
+                hostConnectionCount++;
+            }
+        }
+
+        // No connection has been found, try to pipeline the request or to
+        // create a new connection that will handle the message soon.
+        if (result != null) {
+            getLogger().log(Level.FINE,
+                    "Reusing an existing client connection to: " + socketAddress);
+        } else if (pipelinedConn != null) {
+            result = pipelinedConn;
+
+            if (getLogger().isLoggable(Level.FINE)) {
+                getLogger().log(
+                        Level.FINE,
+                        "Pipelining a request on an existing client connection to: "
+                                + socketAddress);
+            }
+        } else if ((getMaxConnectionsPerHost() != -1)
+                && (hostConnectionCount >= getMaxConnectionsPerHost())) {
+            getLogger().log(
+                    Level.FINE,
+                    "Unable to create a new connection. Maximum number of connections reached for host: "
+                            + socketAddress);
+        } else {
+            synchronized (host) {
+                if (!host.isRetired()) {
+                    result = createConnection(request, host);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the sub-pools of connections, per host socket address.
+     * 
+     * @return The sub-pools of connections, per host socket address.
+     */
+    public ConcurrentMap<InetSocketAddress, HostConnections> getHostConnections() {
+        return hostConnections;
+    }
+
+    /**
+     * Returns the sub-pool of connections to the target host of the given
+     * request, creating it if needed.
+     * 
+     * @param request
+     *            The request to handle.
+     * @return The sub-pool of connections or null if the target host socket
+     *         address couldn't be determined.
+     * @throws UnknownHostException
+     */
+    protected HostConnections getHostConnections(Request request)
+            throws UnknownHostException {
+        HostConnections result = null;
 
         // Determine the target host domain and port of the request.
         InetSocketAddress socketAddress = getSocketAddress(request);
@@ -295,65 +633,82 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                     .log(Level.WARNING,
                             "Unable to create a socket address related to the request.");
         } else {
-            // Associate the given request to the first available connection
-            // opened on the same host domain and port.
-            for (Iterator<Connection<Client>> iterator = getConnections()
-                    .iterator(); !foundConn && iterator.hasNext();) {
-                Connection<Client> currConn = iterator.next();
-
-                if (socketAddress.equals(currConn.getSocketAddress())) {
-                    if (currConn.isAvailable()) {
-                        result = currConn;
-                        foundConn = true;
-                    } else {
-                        // Assign the request to the busy connection that
-                        // handles the less number of messages. This is useful
-                        // in case the maximum number of connections has been
-                        // reached. As a drawback, the message will only be
-                        // handled as soon as possible.
-                        int currScore = currConn.getLoadScore();
-
-                        if (bestScore > currScore) {
-                            bestScore = currScore;
-                            result = currConn;
-                        }
-
-                        hostConnectionCount++;
-                    }
+            result = getHostConnections().get(socketAddress);
+
+            if (result == null) {
+                result = new HostConnections(socketAddress,
+                        getMaxQueuedRequestsPerHost());
+                HostConnections current = getHostConnections().putIfAbsent(
+                        socketAddress, result);
+
+                if (current != null) {
+                    result = current;
                 }
             }
+        }
 
-            // No connection has been found, try to create a new one that will
-            // handle the message soon.
-            if (foundConn) {
-                getLogger().log(
-                        Level.FINE,
-                        "Reusing an existing client connection to: "
-                                + socketAddress);
-            } else if ((getMaxTotalConnections() != -1)
-                    && (getConnections().size() >= getMaxTotalConnections())) {
-                getLogger()
-                        .log(Level.WARNING,
-                                "Unable to create a new connection. Maximum total number of connections reached!");
-            } else if ((getMaxConnectionsPerHost() != -1)
-                    && (hostConnectionCount >= getMaxConnectionsPerHost())) {
-                getLogger()
-                        .log(Level.WARNING,
-                                "Unable to create a new connection. Maximum number of connections reached for host: "
-                                        + socketAddress);
-            } else {
-                // Create a new connection
-                if (getLogger().isLoggable(Level.FINE)) {
-                    getLogger().log(
-                            Level.FINE,
-                            "Creating a new client connection to: "
-                                    + socketAddress);
-                }
+        return result;
+    }
 
-                result = checkout(
-                        createSocketChannel(request.isConfidential(),
-                                socketAddress), getController(), socketAddress);
-                getConnections().add(result);
+    /**
+     * Returns the time between two checks for idle connections. Defaults to
+     * 1000 ms.
+     * 
+     * @return The time between two checks for idle connections.
+     */
+    public int getIdleCheckIntervalMs() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "idleCheckIntervalMs", "1000"));
+    }
+
+    /**
+     * Returns the time after which an idle persistent connection is closed, or
+     * 0 to keep it. Defaults to 0.
+     * 
+     * @return The time after which an idle persistent connection is closed.
+     */
+    public int getIdleTimeoutMs() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "idleTimeoutMs", "0"));
+    }
+
+    /**
+     * Returns the maximum number of requests in progress on a pipelining
+     * connection. Defaults to 10.
+     * 
+     * @return The maximum number of requests in progress on a pipelining
+     *         connection.
+     */
+    public int getMaxPipelinedRequests() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxPipelinedRequests", "10"));
+    }
+
+    /**
+     * Returns the maximum number of requests waiting for a connection to a
+     * host. Defaults to 0, rejecting the requests right away.
+     * 
+     * @return The maximum number of requests waiting for a connection to a
+     *         host.
+     */
+    public int getMaxQueuedRequestsPerHost() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxQueuedRequestsPerHost", "0"));
+    }
+
+    /**
+     * Returns the number of connections that are opening or open. Connections
+     * being closed, for example after an eviction, aren't counted.
+     * 
+     * @return The number of connections that are opening or open.
+     */
+    protected int getOpenConnectionCount() {
+        int result = 0;
+
+        for (Connection<Client> connection : getConnections()) {
+            if ((connection.getState() == ConnectionState.OPENING)
+                    || (connection.getState() == ConnectionState.OPEN)) {
+                result++;
             }
         }
 
@@ -518,6 +873,12 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                 // Await on the latch
                 latch.await();
             } else {
+                if ((request != null) && request.isAsynchronous()) {
+                    // The callback will be invoked by a connector thread
+                    response.getAttributes().put(CONNECTOR_PENDING,
+                            Boolean.TRUE);
+                }
+
                 // Add the message to the outbound queue for processing
                 getOutboundMessages().add(response);
             }
@@ -527,6 +888,11 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                     "Error while handling a " + request.getProtocol().getName()
                             + " client request", e);
             response.setStatus(Status.CONNECTOR_ERROR_INTERNAL, e);
+
+            if ((request != null) && request.isAsynchronous()) {
+                response.getAttributes().remove(CONNECTOR_PENDING);
+                request.getOnResponse().handle(request, response);
+            }
         }
     }
 
@@ -546,6 +912,23 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                 "controllerDaemon", "true"));
     }
 
+    /**
+     * Indicates if a request can be pipelined, that is to say sent on a
+     * connection before the responses to the previous requests are received.
+     * Only idempotent requests without entity, expecting a response, can be
+     * pipelined.
+     * 
+     * @param request
+     *            The request to test.
+     * @return True if the request can be pipelined.
+     */
+    protected boolean isPipelinable(Request request) {
+        return (request != null) && (request.getMethod() != null)
+                && request.getMethod().isIdempotent()
+                && request.isExpectingResponse()
+                && !request.isEntityAvailable();
+    }
+
     @Override
     public boolean isProxying() {
         return getProxyHost() != null;
@@ -586,6 +969,67 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                 "socketOobInline", "false"));
     }
 
+    /**
+     * Closes the persistent connections that have been idle for longer than
+     * the "idleTimeoutMs" parameter or whose socket channel is closed, then
+     * removes the sub-pools left without connections or waiting messages.
+     * Invoked regularly by the controller thread.
+     */
+    protected void reapIdleConnections() {
+        int idleTimeout = getIdleTimeoutMs();
+        long now = System.currentTimeMillis();
+
+        for (HostConnections host : getHostConnections().values()) {
+            for (Connection<Client> connection : host.getConnections()) {
+                if (connection.isAvailable()
+                        && (((idleTimeout > 0) && ((now - connection
+                                .getLastActivity()) >= idleTimeout))
+                                || (connection.getSocketChannel() == null) || !connection
+                                .getSocketChannel().isOpen())) {
+                    if (getLogger().isLoggable(Level.FINE)) {
+                        getLogger().log(
+                                Level.FINE,
+                                "Closing idle client connection to: "
+                                        + host.getSocketAddress());
+                    }
+
+                    connection.close(false);
+                }
+            }
+
+            synchronized (host) {
+                if (host.retire()) {
+                    getHostConnections().remove(host.getSocketAddress(), host);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resubmits a pipelined request that couldn't be answered on its original
+     * connection, for example because the server closed it. Each request is
+     * only resubmitted once.
+     * 
+     * @param response
+     *            The response of the pipelined request.
+     * @return True if the request was resubmitted.
+     */
+    protected boolean resubmit(Response response) {
+        Request request = (response == null) ? null : response.getRequest();
+        boolean result = isPipeliningConnections()
+                && isPipelinable(request)
+                && (request.getAttributes().putIfAbsent(CONNECTOR_RESUBMITTED,
+                        Boolean.TRUE) == null);
+
+        if (result) {
+            getLogger().log(Level.FINE,
+                    "Resubmitting a pipelined request: " + request);
+            getOutboundMessages().add(response);
+        }
+
+        return result;
+    }
+
     @Override
     public void start() throws Exception {
         getLogger().info("Starting the internal " + getProtocols() + " client");
@@ -596,6 +1040,18 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
     public void stop() throws Exception {
         getLogger().info("Stopping the internal" + getProtocols() + " client");
         super.stop();
+
+        // Unblock the messages still waiting for a connection
+        for (HostConnections host : getHostConnections().values()) {
+            for (Response response = host.getWaitingMessages().poll(); response != null; response = host
+                    .getWaitingMessages().poll()) {
+                response.setStatus(Status.CONNECTOR_ERROR_COMMUNICATION,
+                        "The client connector has been stopped");
+                unblock(response);
+            }
+        }
+
+        getHostConnections().clear();
     }
 
     /**
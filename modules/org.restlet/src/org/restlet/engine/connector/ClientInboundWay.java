@@ -129,6 +129,16 @@ public abstract class ClientInboundWay extends InboundWay {
         return result;
     }
 
+    /**
+     * Indicates if new requests can be pipelined behind the messages handled
+     * by this way. Returns false by default.
+     * 
+     * @return True if new requests can be pipelined.
+     */
+    public boolean isPipelinable() {
+        return false;
+    }
+
     @Override
     public void onCompleted(boolean endDetected) {
         // Check if we need to close the connection
@@ -94,6 +94,21 @@ public abstract class ClientOutboundWay extends OutboundWay {
         return (Connection<Client>) super.getConnection();
     }
 
+    @Override
+    public ClientConnectionHelper getHelper() {
+        return (ClientConnectionHelper) super.getHelper();
+    }
+
+    /**
+     * Indicates if new requests can be pipelined behind the messages handled
+     * by this way. Returns false by default.
+     * 
+     * @return True if new requests can be pipelined.
+     */
+    public boolean isPipelinable() {
+        return false;
+    }
+
     @Override
     public void onCompleted(boolean endDetected) {
         Response message = getMessage();
@@ -38,6 +38,7 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -240,6 +241,13 @@ public class Connection<T extends Connector> implements SelectionListener {
      */
     protected WritableSelectionChannel createWritableSelectionChannel() {
         return new WritableSocketChannel(getSocketChannel(), getRegistration()) {
+            @Override
+            public long transferFrom(FileChannel source, long position,
+                    long count) throws IOException {
+                onActivity();
+                return super.transferFrom(source, position, count);
+            }
+
             @Override
             public int write(ByteBuffer src) throws IOException {
                 onActivity();
@@ -259,6 +267,18 @@ public class Connection<T extends Connector> implements SelectionListener {
                         .getInetAddress().getHostAddress();
     }
 
+    /**
+     * Returns the number of bytes currently held by the buffers of this
+     * connection. When the "pooledBuffers" parameter is enabled, buffers
+     * released to the shared pool while idle aren't counted.
+     *
+     * @return The number of bytes currently held by the connection buffers.
+     */
+    public int getAllocatedBytes() {
+        return getInboundWay().getBuffer().getAllocatedBytes()
+                + getOutboundWay().getBuffer().getAllocatedBytes();
+    }
+
     /**
      * Returns the parent connector helper.
      * 
@@ -84,7 +84,7 @@ public class ConnectionController extends Controller implements Runnable {
      */
     protected void controlConnections() throws IOException {
         // Close connections or register interest in NIO operations
-        for (Connection<?> conn : getHelper().getConnections()) {
+        for (Connection<?> conn : getConnections()) {
             if (getHelper().getLogger().isLoggable(Level.FINEST)) {
                 getHelper().getLogger().log(Level.FINEST,
                         "Connection status: " + conn);
@@ -92,8 +92,7 @@ public class ConnectionController extends Controller implements Runnable {
 
             if (conn.getState() == ConnectionState.CLOSED) {
                 // Detach the connection and collect it
-                getHelper().getConnections().remove(conn);
-                getHelper().checkin(conn);
+                detach(conn);
             } else if ((conn.getState() == ConnectionState.CLOSING)
                     && conn.isEmpty()) {
                 conn.close(false);
@@ -127,9 +126,21 @@ public class ConnectionController extends Controller implements Runnable {
         return result;
     }
 
+    /**
+     * Detaches a closed connection from the parent helper and checks it back
+     * in the connection pool.
+     * 
+     * @param connection
+     *            The closed connection to detach.
+     */
+    protected void detach(Connection<?> connection) {
+        getHelper().getConnections().remove(connection);
+        getHelper().checkin(connection);
+    }
+
     @Override
     protected void doInit() {
-        this.selector = createSelector();
+        setSelector(createSelector());
         // Done in the controller for thread safety reason regarding the byte
         // buffers part of the pooled connections
         getHelper().createConnectionPool();
@@ -154,6 +165,16 @@ public class ConnectionController extends Controller implements Runnable {
         controlConnections();
     }
 
+    /**
+     * Returns the connections controlled by this controller. By default, it
+     * returns all the active connections of the parent helper.
+     * 
+     * @return The connections controlled by this controller.
+     */
+    protected Iterable<? extends Connection<?>> getConnections() {
+        return getHelper().getConnections();
+    }
+
     /**
      * Returns the queue of new selection registrations.
      * 
@@ -278,6 +299,16 @@ public class ConnectionController extends Controller implements Runnable {
         }
     }
 
+    /**
+     * Sets the NIO selector.
+     * 
+     * @param selector
+     *            The NIO selector.
+     */
+    protected void setSelector(Selector selector) {
+        this.selector = selector;
+    }
+
     @Override
     public void shutdown() throws IOException {
         super.shutdown();
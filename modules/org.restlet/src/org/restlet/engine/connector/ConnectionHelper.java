@@ -40,6 +40,7 @@ import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.restlet.Connector;
+import org.restlet.engine.io.BufferPool;
 
 /**
  * Connector helper using network connections. Here is the list of parameters
@@ -59,6 +60,15 @@ import org.restlet.Connector;
  * <td>Maximum number of concurrent connections per host (IP address).</td>
  * </tr>
  * <tr>
+ * <td>directFileTransfers</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if file entities of known size should be transferred directly
+ * from their file channel to the socket channel, without being copied into the
+ * outbound byte buffer. This only applies to connections writing bytes
+ * unchanged to the socket, so tracing must be disabled.</td>
+ * </tr>
+ * <tr>
  * <td>initialConnections</td>
  * <td>int</td>
  * <td>100</td>
@@ -79,6 +89,14 @@ import org.restlet.Connector;
  * <td>Indicates if connections should be kept alive after a call.</td>
  * </tr>
  * <tr>
+ * <td>maxPooledBytes</td>
+ * <td>long</td>
+ * <td>64 * 1024 * 1024</td>
+ * <td>Maximum number of bytes kept by the shared buffer pool when the
+ * "pooledBuffers" parameter is enabled. Note that the byte buffers cached by
+ * each thread aren't counted.</td>
+ * </tr>
+ * <tr>
  * <td>pipeliningConnections</td>
  * <td>boolean</td>
  * <td>false</td>
@@ -91,6 +109,22 @@ import org.restlet.Connector;
  * <td>Indicates if connections should be pooled to save instantiation time.</td>
  * </tr>
  * <tr>
+ * <td>pooledBuffers</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the byte buffers of the connection ways, and the SSL packet
+ * buffers of secure connections, should be borrowed from a buffer pool shared
+ * by all connections, only while messages are exchanged, instead of being
+ * allocated for the whole connection life.</td>
+ * </tr>
+ * <tr>
+ * <td>threadCachedBuffers</td>
+ * <td>int</td>
+ * <td>4</td>
+ * <td>Maximum number of byte buffers per size class cached by each thread in
+ * front of the shared buffer pool.</td>
+ * </tr>
+ * <tr>
  * <td>socketReceiveBufferSize</td>
  * <td>int</td>
  * <td>8192</td>
@@ -110,6 +144,9 @@ import org.restlet.Connector;
  */
 public abstract class ConnectionHelper<T extends Connector> extends
         BaseHelper<T> {
+    /** The buffer pool. */
+    private volatile BufferPool bufferPool;
+
     /** The connection pool. */
     private volatile ConnectionPool<T> connectionPool;
 
@@ -126,6 +163,7 @@ public abstract class ConnectionHelper<T extends Connector> extends
      */
     public ConnectionHelper(T connector, boolean clientSide) {
         super(connector, clientSide);
+        this.bufferPool = null;
         this.connections = new CopyOnWriteArraySet<Connection<T>>();
         this.connectionPool = null;
     }
@@ -188,6 +226,16 @@ public abstract class ConnectionHelper<T extends Connector> extends
             SocketChannel socketChannel, ConnectionController controller,
             InetSocketAddress socketAddress) throws IOException;
 
+    /**
+     * Creates the buffer pool shared by the connection ways.
+     * 
+     * @return The buffer pool.
+     */
+    protected BufferPool createBufferPool() {
+        return new BufferPool(isDirectBuffers(), getMaxPooledBytes(),
+                getThreadCachedBuffers());
+    }
+
     /**
      * Creates the connection pool.
      */
@@ -241,6 +289,16 @@ public abstract class ConnectionHelper<T extends Connector> extends
         }
     }
 
+    /**
+     * Returns the buffer pool shared by the connection ways, or null if the
+     * byte buffers aren't pooled.
+     * 
+     * @return The buffer pool or null.
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
     /**
      * Returns the connection pool.
      * 
@@ -295,6 +353,16 @@ public abstract class ConnectionHelper<T extends Connector> extends
 
     }
 
+    /**
+     * Returns the maximum number of bytes kept by the shared buffer pool.
+     * 
+     * @return The maximum number of bytes kept by the shared buffer pool.
+     */
+    public long getMaxPooledBytes() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "maxPooledBytes", Long.toString(64 * 1024 * 1024)));
+    }
+
     /**
      * Returns the hinted size of the underlying TCP buffers used by the
      * platform for inbound network I/O.
@@ -308,6 +376,17 @@ public abstract class ConnectionHelper<T extends Connector> extends
 
     }
 
+    /**
+     * Returns the maximum number of byte buffers per size class cached by each
+     * thread in front of the shared buffer pool.
+     * 
+     * @return The maximum number of byte buffers cached by each thread.
+     */
+    public int getThreadCachedBuffers() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "threadCachedBuffers", "4"));
+    }
+
     /**
      * Indicates if persistent connections should be used if possible.
      * 
@@ -328,6 +407,29 @@ public abstract class ConnectionHelper<T extends Connector> extends
                 "pipeliningConnections", "false"));
     }
 
+    /**
+     * Indicates if file entities of known size should be transferred directly
+     * from their file channel to the socket channel.
+     * 
+     * @return True if file entities should be transferred directly.
+     */
+    public boolean isDirectFileTransfers() {
+        return !isTracing()
+                && Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                        "directFileTransfers", "false"));
+    }
+
+    /**
+     * Indicates if the byte buffers of the connection ways should be borrowed
+     * from a shared buffer pool only while messages are exchanged.
+     * 
+     * @return True if the byte buffers should be pooled.
+     */
+    public boolean isPooledBuffers() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "pooledBuffers", "false"));
+    }
+
     /**
      * Indicates if the connection objects should be pooled to save
      * instantiation time.
@@ -359,4 +461,11 @@ public abstract class ConnectionHelper<T extends Connector> extends
         return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
                 "socketReuseAddress", "true"));
     }
+
+    @Override
+    public void start() throws Exception {
+        // Created before the connections as they borrow their buffers from it
+        this.bufferPool = isPooledBuffers() ? createBufferPool() : null;
+        super.start();
+    }
 }
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.connector;
+
+import java.net.InetSocketAddress;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.restlet.Client;
+import org.restlet.Response;
+
+/**
+ * Sub-pool of the client connections opened to the same host and port. It also
+ * holds the bounded queue of messages waiting for one of these connections to
+ * be available.
+ * 
+ * @author Jerome Louvel
+ */
+public class HostConnections {
+
+    /** The connections opened to the host. */
+    private final Set<Connection<Client>> connections;
+
+    /**
+     * The maximum number of messages waiting for a connection, 0 for none and
+     * -1 for an unbounded queue.
+     */
+    private final int maxWaitingMessages;
+
+    /**
+     * Indicates if the sub-pool was removed from its helper because it was
+     * empty.
+     */
+    private volatile boolean retired;
+
+    /** The socket address of the host. */
+    private final InetSocketAddress socketAddress;
+
+    /** The messages waiting for a connection, in arrival order. */
+    private final Queue<Response> waitingMessages;
+
+    /**
+     * Constructor.
+     * 
+     * @param socketAddress
+     *            The socket address of the host.
+     * @param maxWaitingMessages
+     *            The maximum number of messages waiting for a connection, 0
+     *            for none and -1 for an unbounded queue.
+     */
+    public HostConnections(InetSocketAddress socketAddress,
+            int maxWaitingMessages) {
+        this.connections = new CopyOnWriteArraySet<Connection<Client>>();
+        this.maxWaitingMessages = maxWaitingMessages;
+        this.retired = false;
+        this.socketAddress = socketAddress;
+        this.waitingMessages = (maxWaitingMessages <= 0) ? new LinkedBlockingQueue<Response>()
+                : new LinkedBlockingQueue<Response>(maxWaitingMessages);
+    }
+
+    /**
+     * Returns the connections opened to the host.
+     * 
+     * @return The connections opened to the host.
+     */
+    public Set<Connection<Client>> getConnections() {
+        return connections;
+    }
+
+    /**
+     * Returns the maximum number of messages waiting for a connection, 0 for
+     * none and -1 for an unbounded queue.
+     * 
+     * @return The maximum number of messages waiting for a connection.
+     */
+    public int getMaxWaitingMessages() {
+        return maxWaitingMessages;
+    }
+
+    /**
+     * Returns the socket address of the host.
+     * 
+     * @return The socket address of the host.
+     */
+    public InetSocketAddress getSocketAddress() {
+        return socketAddress;
+    }
+
+    /**
+     * Returns the queue of messages waiting for a connection, in arrival order.
+     * 
+     * @return The queue of messages waiting for a connection.
+     */
+    public Queue<Response> getWaitingMessages() {
+        return waitingMessages;
+    }
+
+    /**
+     * Indicates if no connection is opened to the host and no message is
+     * waiting.
+     * 
+     * @return True if no connection is opened and no message is waiting.
+     */
+    public boolean isEmpty() {
+        return getConnections().isEmpty() && getWaitingMessages().isEmpty();
+    }
+
+    /**
+     * Indicates if the sub-pool was removed from its helper because it was
+     * empty. No message or connection should be added to a retired sub-pool.
+     * 
+     * @return True if the sub-pool was retired.
+     */
+    public boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Adds a message at the end of the waiting queue, unless it is full or the
+     * sub-pool was retired.
+     * 
+     * @param message
+     *            The message waiting for a connection.
+     * @return True if the message was added to the waiting queue.
+     */
+    public synchronized boolean offer(Response message) {
+        return !isRetired() && (getMaxWaitingMessages() != 0)
+                && getWaitingMessages().offer(message);
+    }
+
+    /**
+     * Retires the sub-pool if no connection is opened and no message is
+     * waiting. This is done under the same lock as {@link #offer(Response)}
+     * so a message can't be queued on a retired sub-pool.
+     * 
+     * @return True if the sub-pool was retired.
+     */
+    public synchronized boolean retire() {
+        if (!this.retired && isEmpty()) {
+            this.retired = true;
+        }
+
+        return this.retired;
+    }
+
+    @Override
+    public String toString() {
+        return getSocketAddress() + " (" + getConnections().size()
+                + " connections, " + getWaitingMessages().size()
+                + " waiting messages)";
+    }
+
+}
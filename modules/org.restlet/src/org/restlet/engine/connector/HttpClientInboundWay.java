@@ -116,6 +116,17 @@ public class HttpClientInboundWay extends ClientInboundWay {
                         .getListener() != null));
     }
 
+    @Override
+    public boolean isPipelinable() {
+        for (Response rsp : getMessages()) {
+            if (!getHelper().isPipelinable(rsp.getRequest())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public void onCompleted(boolean endDetected) {
         if (getMessage() != null) {
@@ -123,6 +134,34 @@ public class HttpClientInboundWay extends ClientInboundWay {
         }
 
         super.onCompleted(endDetected);
+
+        if (getConnection().isPipelining()
+                && (getConnection().getState() != ConnectionState.OPEN)) {
+            // The connection is closing, the pipelined requests won't be
+            // answered on it
+            HttpClientOutboundWay outboundWay = (HttpClientOutboundWay) getConnection()
+                    .getOutboundWay();
+
+            for (Response rsp : getMessages()) {
+                getMessages().remove(rsp);
+
+                if (!getHelper().resubmit(rsp)) {
+                    getHelper().onInboundError(
+                            Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+                }
+            }
+
+            for (Response rsp : outboundWay.getMessages()) {
+                if (rsp != outboundWay.getMessage()) {
+                    outboundWay.getMessages().remove(rsp);
+
+                    if (!getHelper().resubmit(rsp)) {
+                        getHelper().onOutboundError(
+                                Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+                    }
+                }
+            }
+        }
     }
 
     @Override
@@ -130,7 +169,10 @@ public class HttpClientInboundWay extends ClientInboundWay {
         for (Response rsp : getMessages()) {
             if (rsp != getMessage()) {
                 getMessages().remove(rsp);
-                getHelper().onInboundError(status, rsp);
+
+                if (!getHelper().resubmit(rsp)) {
+                    getHelper().onInboundError(status, rsp);
+                }
             }
         }
 
@@ -142,8 +184,11 @@ public class HttpClientInboundWay extends ClientInboundWay {
         for (Response rsp : getMessages()) {
             if (rsp != getMessage()) {
                 getMessages().remove(rsp);
-                getHelper().onInboundError(
-                        Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+
+                if (!getHelper().resubmit(rsp)) {
+                    getHelper().onInboundError(
+                            Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+                }
             }
         }
         
@@ -152,10 +197,18 @@ public class HttpClientInboundWay extends ClientInboundWay {
 
     @Override
     public void updateState() {
+        if ((getMessageState() == MessageState.IDLE)
+                && !getMessages().isEmpty()) {
+            // Expect the response to the next pipelined request
+            setMessageState(MessageState.START);
+        }
+
         if ((getIoState() == IoState.IDLE)
                 && (getMessageState() != MessageState.BODY) && !isEmpty()) {
-            // Read the next response
-            setIoState(IoState.INTEREST);
+            // Read the next response, possibly already buffered when the
+            // requests are pipelined
+            setIoState((getConnection().isPipelining() && getBuffer()
+                    .canDrain()) ? IoState.READY : IoState.INTEREST);
         }
 
         // Update the registration
@@ -93,6 +93,17 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
         return super.isEmpty() && getMessages().isEmpty();
     }
 
+    @Override
+    public boolean isPipelinable() {
+        for (Response rsp : getMessages()) {
+            if (!getHelper().isPipelinable(rsp.getRequest())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public void onCompleted(boolean endDetected) {
         Response message = getMessage();
@@ -107,8 +118,13 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
 
             if (request.isExpectingResponse()) {
                 inboundMessages.add(message);
-                getConnection().getInboundWay().setMessageState(
-                        MessageState.START);
+
+                // Don't interrupt the reading of a previous response when
+                // requests are pipelined
+                if (getConnection().getInboundWay().getMessageState() == MessageState.IDLE) {
+                    getConnection().getInboundWay().setMessageState(
+                            MessageState.START);
+                }
             }
         }
 
@@ -120,7 +136,10 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
         for (Response rsp : getMessages()) {
             if (rsp != getMessage()) {
                 getMessages().remove(rsp);
-                getHelper().onOutboundError(status, rsp);
+
+                if (!getHelper().resubmit(rsp)) {
+                    getHelper().onOutboundError(status, rsp);
+                }
             }
         }
 
@@ -132,8 +151,11 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
         for (Response rsp : getMessages()) {
             if (rsp != getMessage()) {
                 getMessages().remove(rsp);
-                getHelper().onOutboundError(
-                        Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+
+                if (!getHelper().resubmit(rsp)) {
+                    getHelper().onOutboundError(
+                            Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+                }
             }
         }
 
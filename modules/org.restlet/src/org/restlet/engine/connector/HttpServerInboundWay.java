@@ -143,8 +143,10 @@ public class HttpServerInboundWay extends ServerInboundWay {
 
         if ((getIoState() == IoState.IDLE) && getMessages().isEmpty()
                 && outboundMessages.isEmpty()) {
-            // Read the next request
-            setIoState(IoState.INTEREST);
+            // Read the next request, possibly already buffered when the
+            // client pipelines its requests
+            setIoState((getConnection().isPipelining() && getBuffer()
+                    .canDrain()) ? IoState.READY : IoState.INTEREST);
         }
 
         super.updateState();
@@ -48,6 +48,7 @@ import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableChunkedChannel;
 import org.restlet.engine.io.ReadableSelectionChannel;
 import org.restlet.engine.io.ReadableSizedSelectionChannel;
+import org.restlet.engine.util.IndexedSeries;
 import org.restlet.representation.EmptyRepresentation;
 import org.restlet.representation.ReadableRepresentation;
 import org.restlet.representation.Representation;
@@ -68,6 +69,9 @@ public abstract class InboundWay extends Way {
     /** The NIO selection registration of the entity. */
     private volatile SelectionRegistration entityRegistration;
 
+    /** The length of the next header line available in the buffer. */
+    private volatile int headerLineLength;
+
     /**
      * Constructor.
      * 
@@ -79,6 +83,7 @@ public abstract class InboundWay extends Way {
     public InboundWay(Connection<?> connection, int bufferSize) {
         super(connection, bufferSize);
         this.builderIndex = 0;
+        this.headerLineLength = -1;
     }
 
     @Override
@@ -86,6 +91,7 @@ public abstract class InboundWay extends Way {
         super.clear();
         this.builderIndex = 0;
         this.entityRegistration = null;
+        this.headerLineLength = -1;
     }
 
     /**
@@ -195,6 +201,36 @@ public abstract class InboundWay extends Way {
         return result;
     }
 
+    /**
+     * Indicates if a complete header line is available in the buffer and can
+     * be read in place, without going through the line builder.
+     * 
+     * @return True if a complete header line can be read in place.
+     */
+    protected boolean isHeaderReadable() {
+        boolean result = false;
+
+        if ((getMessageState() == MessageState.HEADERS)
+                && (getLineBuilderState() == BufferState.IDLE)) {
+            this.headerLineLength = getBuffer().getLineLength();
+            result = (this.headerLineLength != -1);
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if the IO state is currently managed by the connection, for
+     * example during a protocol handshake, in which case a
+     * {@link IoState#READY} state set while processing is kept. Returns false
+     * by default.
+     * 
+     * @return True if the IO state is currently managed by the connection.
+     */
+    protected boolean isIoStateManaged() {
+        return false;
+    }
+
     /**
      * Indicates if the next message line is readable.
      * 
@@ -204,7 +240,8 @@ public abstract class InboundWay extends Way {
     protected boolean isLineReadable() throws IOException {
         return getBuffer().canDrain()
                 && (getMessageState() != MessageState.IDLE)
-                && (getMessageState() != MessageState.BODY) && fillLine();
+                && (getMessageState() != MessageState.BODY)
+                && (isHeaderReadable() || fillLine());
     }
 
     @Override
@@ -247,7 +284,7 @@ public abstract class InboundWay extends Way {
 
                 if (header != null) {
                     if (getHeaders() == null) {
-                        setHeaders(new Series<Header>(Header.class));
+                        setHeaders(new IndexedSeries<Header>(Header.class));
                     }
 
                     getHeaders().add(header);
@@ -312,6 +349,20 @@ public abstract class InboundWay extends Way {
      */
     protected abstract void onReceived(Response message);
 
+    @Override
+    public void onSelected() {
+        super.onSelected();
+
+        if (getConnection().isPipelining()
+                && (getIoState() == IoState.READY)
+                && (getMessageState() != MessageState.BODY)
+                && !isIoStateManaged()) {
+            // The buffered pipelined bytes have been processed, wait for the
+            // next ones
+            setIoState(IoState.INTEREST);
+        }
+    }
+
     @Override
     public void onTimeOut() {
         if (getMessage() != null) {
@@ -355,8 +406,23 @@ public abstract class InboundWay extends Way {
      * @throws IOException
      */
     protected Header readHeader() throws IOException {
-        Header header = HeaderReader.readHeader(getLineBuilder());
-        clearLineBuilder();
+        Header header = null;
+
+        if (getLineBuilderState() == BufferState.DRAINING) {
+            header = HeaderReader.readHeader(getLineBuilder());
+            clearLineBuilder();
+        } else {
+            // Parse the header line in place
+            header = HeaderReader.readHeader(getBuffer().getBytes(),
+                    this.headerLineLength);
+            this.headerLineLength = -1;
+
+            if ((header != null) && getLogger().isLoggable(Level.FINE)) {
+                getLogger().log(Level.FINE,
+                        header.getName() + ": " + header.getValue());
+            }
+        }
+
         return header;
     }
 
@@ -54,6 +54,7 @@ import org.restlet.engine.io.Buffer;
 import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableChunkingChannel;
 import org.restlet.engine.io.ReadableSizedChannel;
+import org.restlet.engine.io.WritableSocketChannel;
 import org.restlet.engine.util.StringUtils;
 import org.restlet.representation.Representation;
 import org.restlet.service.ConnectorService;
@@ -87,6 +88,12 @@ public abstract class OutboundWay extends Way {
     /** The type of the entity channel. */
     private volatile EntityType entityChannelType;
 
+    /** The position of the next entity byte to transfer from the file. */
+    private volatile long entityPosition;
+
+    /** The number of entity bytes remaining to transfer from the file. */
+    private volatile long entityRemaining;
+
     /**
      * The entity's NIO selection key holding the link between the entity to be
      * written and the way.
@@ -107,6 +114,9 @@ public abstract class OutboundWay extends Way {
     public OutboundWay(Connection<?> connection, int bufferSize) {
         super(connection, bufferSize);
         this.entityChannel = null;
+        this.entityChannelType = null;
+        this.entityPosition = 0;
+        this.entityRemaining = 0;
         this.entitySelectionKey = null;
         this.headerIndex = 0;
     }
@@ -163,6 +173,9 @@ public abstract class OutboundWay extends Way {
     public void clear() {
         super.clear();
         this.entityChannel = null;
+        this.entityChannelType = null;
+        this.entityPosition = 0;
+        this.entityRemaining = 0;
         this.entitySelectionKey = null;
         this.headerIndex = 0;
     }
@@ -267,6 +280,27 @@ public abstract class OutboundWay extends Way {
                 || getBuffer().canDrain();
     }
 
+    /**
+     * Indicates if the entity can be directly transferred from its file
+     * channel to the socket channel, bypassing the byte buffer. This requires
+     * the bytes to be written unchanged to the socket, a known entity size and
+     * no entity range.
+     * 
+     * @param entity
+     *            The entity to write.
+     * @param entityChannel
+     *            The entity channel.
+     * @return True if the entity can be directly transferred.
+     */
+    protected boolean isTransferable(Representation entity,
+            ReadableByteChannel entityChannel) {
+        return (entityChannel instanceof FileChannel)
+                && getHelper().isDirectFileTransfers()
+                && (getConnection().getWritableSelectionChannel() instanceof WritableSocketChannel)
+                && (entity.getRange() == null)
+                && (entity.getAvailableSize() != Representation.UNKNOWN_SIZE);
+    }
+
     @Override
     public void onCompleted(boolean endReached) {
         if (getActualMessage() != null) {
@@ -287,6 +321,7 @@ public abstract class OutboundWay extends Way {
         }
 
         super.onCompleted(endReached);
+        setEntityChannelType(null);
         setHeaderIndex(0);
 
         if (getLogger().isLoggable(Level.FINER)) {
@@ -337,6 +372,11 @@ public abstract class OutboundWay extends Way {
         // Write the message or part of it in the byte
         // buffer
         if (getMessageState() == MessageState.BODY) {
+            if (getEntityChannelType() == EntityType.TRANSFERABLE) {
+                // The entity bypasses the buffer, see transferEntity()
+                return 0;
+            }
+
             int filled = buffer.fill(getEntityChannel());
 
             // Detect end of entity reached
@@ -404,6 +444,13 @@ public abstract class OutboundWay extends Way {
     public int processIoBuffer() throws IOException {
         int result = super.processIoBuffer();
 
+        if ((getMessageState() == MessageState.BODY)
+                && (getEntityChannelType() == EntityType.TRANSFERABLE)
+                && getBuffer().isEmpty()) {
+            // The headers have been fully written
+            result += transferEntity();
+        }
+
         if (getMessage() != null) {
             if (getMessageState() == MessageState.END) {
                 // Message fully written, ready for a new one
@@ -470,6 +517,48 @@ public abstract class OutboundWay extends Way {
                 && (entity.getAvailableSize() == Representation.UNKNOWN_SIZE);
     }
 
+    /**
+     * Transfers the entity bytes from the file channel to the socket channel,
+     * until the socket channel can't accept more bytes or the whole entity has
+     * been transferred.
+     * 
+     * @return The number of bytes transferred.
+     * @throws IOException
+     */
+    protected int transferEntity() throws IOException {
+        WritableSocketChannel socketChannel = (WritableSocketChannel) getConnection()
+                .getWritableSelectionChannel();
+        FileChannel fileChannel = getEntityFileChannel();
+        long result = 0;
+        long transferred;
+
+        do {
+            transferred = socketChannel.transferFrom(fileChannel,
+                    this.entityPosition, this.entityRemaining);
+            this.entityPosition += transferred;
+            this.entityRemaining -= transferred;
+            result += transferred;
+        } while ((transferred > 0) && (this.entityRemaining > 0));
+
+        if (getLogger().isLoggable(Level.FINER)) {
+            getLogger().log(Level.FINER, result + " bytes transferred");
+        }
+
+        if ((this.entityRemaining == 0)
+                || (this.entityPosition >= fileChannel.size())) {
+            // End of entity reached
+            fileChannel.close();
+            setMessageState(MessageState.END);
+        } else if ((transferred == 0)
+                && (getIoState() == IoState.PROCESSING)) {
+            // The socket channel can't write more, wait for a new NIO
+            // selection.
+            setIoState(IoState.INTEREST);
+        }
+
+        return (int) Math.min(result, Integer.MAX_VALUE);
+    }
+
     @Override
     public void updateState() {
         if (canStart()) {
@@ -537,11 +626,16 @@ public abstract class OutboundWay extends Way {
                     }
 
                     setMessageState(MessageState.BODY);
-                    ReadableByteChannel rbc = getActualMessage().getEntity()
-                            .getChannel();
+                    Representation entity = getActualMessage().getEntity();
+                    ReadableByteChannel rbc = entity.getChannel();
 
-                    if (rbc instanceof FileChannel) {
+                    if (isTransferable(entity, rbc)) {
                         setEntityChannelType(EntityType.TRANSFERABLE);
+                        setEntityChannel(rbc);
+                        this.entityPosition = ((FileChannel) rbc).position();
+                        this.entityRemaining = entity.getAvailableSize();
+                    } else if (rbc instanceof FileChannel) {
+                        setEntityChannelType(EntityType.BLOCKING);
                     } else if (rbc instanceof BlockableChannel) {
                         BlockableChannel bc = (BlockableChannel) rbc;
 
@@ -562,13 +656,14 @@ public abstract class OutboundWay extends Way {
                         setEntityChannelType(EntityType.BLOCKING);
                     }
 
-                    if (getActualMessage().getEntity().getAvailableSize() == Representation.UNKNOWN_SIZE) {
+                    if (getEntityChannelType() == EntityType.TRANSFERABLE) {
+                        // The file channel is directly transferred
+                    } else if (entity.getAvailableSize() == Representation.UNKNOWN_SIZE) {
                         setEntityChannel(new ReadableChunkingChannel(rbc,
                                 getBuffer().capacity()));
                     } else {
-                        setEntityChannel(new ReadableSizedChannel(rbc,
-                                getActualMessage().getEntity()
-                                        .getAvailableSize()));
+                        setEntityChannel(new ReadableSizedChannel(rbc, entity
+                                .getAvailableSize()));
                     }
 
                 } else {
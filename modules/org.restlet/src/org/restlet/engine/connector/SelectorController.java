@@ -0,0 +1,142 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.connector;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.restlet.util.SelectionListener;
+import org.restlet.util.SelectionRegistration;
+
+/**
+ * Controls the IO work of a subset of the connections accepted by a parent
+ * server controller. Each selector controller owns its own NIO selector and
+ * its own queues of selection registrations, allowing the IO processing to be
+ * spread across several threads.
+ * 
+ * @author Jerome Louvel
+ * @see ServerConnectionHelper#isMultipleSelectors()
+ */
+public class SelectorController extends ConnectionController {
+
+    /** The connections controlled by this selector. */
+    private final Set<Connection<?>> connections;
+
+    /**
+     * Constructor.
+     * 
+     * @param helper
+     *            The parent connector helper.
+     */
+    public SelectorController(ConnectionHelper<?> helper) {
+        super(helper);
+        this.connections = new CopyOnWriteArraySet<Connection<?>>();
+    }
+
+    /**
+     * Attaches a new connection to this selector controller and queues its
+     * selection registration. Should be called once the connection is opened
+     * so that its initial interest operations are known.
+     * 
+     * @param connection
+     *            The connection to attach.
+     */
+    public void attach(Connection<?> connection) {
+        getConnections().add(connection);
+        getNewRegistrations().add(connection.getRegistration());
+    }
+
+    /**
+     * Controls the overload state. Does nothing as the overload state is
+     * maintained by the parent controller accepting the connections.
+     */
+    @Override
+    protected void controlOverload() {
+    }
+
+    @Override
+    protected void detach(Connection<?> connection) {
+        getConnections().remove(connection);
+        super.detach(connection);
+    }
+
+    @Override
+    protected void doInit() {
+        // The connection pool is shared and created by the parent controller
+        setSelector(createSelector());
+    }
+
+    @Override
+    protected void doRun(long sleepTime) throws IOException {
+        // The inbound and outbound messages are controlled by the parent
+        // controller
+        registerKeys();
+        updateKeys();
+        selectKeys(sleepTime);
+        controlConnections();
+    }
+
+    @Override
+    protected Set<Connection<?>> getConnections() {
+        return this.connections;
+    }
+
+    /**
+     * Returns the number of connections controlled by this selector.
+     * 
+     * @return The number of connections controlled by this selector.
+     */
+    public int getLoadScore() {
+        return getConnections().size();
+    }
+
+    /**
+     * Creates a selection registration without queuing it. As the connection
+     * is opened by the accepting thread, the registration is only queued when
+     * the connection is attached.
+     * 
+     * @see #attach(Connection)
+     */
+    @Override
+    public SelectionRegistration register(SelectableChannel selectableChannel,
+            int interestOperations, SelectionListener listener)
+            throws IOException {
+        return new SelectionRegistration(selectableChannel,
+                interestOperations, listener);
+    }
+
+}
@@ -40,12 +40,17 @@ import java.nio.channels.AsynchronousCloseException;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.restlet.Server;
 import org.restlet.engine.io.IoUtils;
+import org.restlet.engine.log.LoggingThreadFactory;
 
 /**
  * Controls the IO work of parent server helper and manages its connections.
@@ -58,6 +63,12 @@ public class ServerConnectionController extends ConnectionController {
     /** The latch to countdown when the socket is ready to accept connections. */
     private final CountDownLatch latch;
 
+    /** The selector controllers handling the accepted connections. */
+    private final List<SelectorController> selectorControllers;
+
+    /** The service running the selector controllers. */
+    private volatile ExecutorService selectorService;
+
     /**
      * Constructor.
      * 
@@ -67,6 +78,8 @@ public class ServerConnectionController extends ConnectionController {
     public ServerConnectionController(ServerConnectionHelper helper) {
         super(helper);
         this.latch = new CountDownLatch(1);
+        this.selectorControllers = new CopyOnWriteArrayList<SelectorController>();
+        this.selectorService = null;
     }
 
     /**
@@ -84,6 +97,66 @@ public class ServerConnectionController extends ConnectionController {
         }
     }
 
+    @Override
+    protected void controlConnections() throws IOException {
+        // When selector controllers are used, the accepting controller only
+        // selects the server socket channel
+        if (getSelectorControllers().isEmpty()) {
+            super.controlConnections();
+        }
+    }
+
+    /**
+     * Creates the selector controllers and starts them on a dedicated
+     * service.
+     */
+    protected void createSelectorControllers() {
+        int selectorThreads = getHelper().getSelectorThreads();
+
+        for (int i = 0; i < selectorThreads; i++) {
+            getSelectorControllers().add(new SelectorController(getHelper()));
+        }
+
+        this.selectorService = Executors.newFixedThreadPool(selectorThreads,
+                new LoggingThreadFactory(getHelper().getLogger(), getHelper()
+                        .isControllerDaemon()));
+
+        for (SelectorController selectorController : getSelectorControllers()) {
+            this.selectorService.submit(selectorController);
+        }
+
+        if (getHelper().getLogger().isLoggable(Level.FINE)) {
+            getHelper().getLogger().fine(
+                    "Accepted connections are spread across "
+                            + selectorThreads + " NIO selectors");
+        }
+    }
+
+    @Override
+    protected void doRelease() {
+        // Stops the selector controllers
+        for (SelectorController selectorController : getSelectorControllers()) {
+            selectorController.setRunning(false);
+        }
+
+        if (this.selectorService != null) {
+            this.selectorService.shutdown();
+
+            try {
+                this.selectorService.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                getHelper().getLogger().log(Level.FINE,
+                        "Interruption while shutting down the selector service",
+                        ex);
+            }
+
+            this.selectorService = null;
+        }
+
+        getSelectorControllers().clear();
+        super.doRelease();
+    }
+
     /**
      * Returns the parent server helper.
      * 
@@ -93,6 +166,38 @@ public class ServerConnectionController extends ConnectionController {
         return (ServerConnectionHelper) super.getHelper();
     }
 
+    /**
+     * Returns the selector controller to which the next accepted connection
+     * should be attached. By default, it returns the one with the lowest load
+     * score, or null if no selector controller is used.
+     * 
+     * @return The selector controller for the next connection or null.
+     */
+    protected SelectorController getNextSelectorController() {
+        SelectorController result = null;
+
+        for (SelectorController selectorController : getSelectorControllers()) {
+            if ((result == null)
+                    || (selectorController.getLoadScore() < result
+                            .getLoadScore())) {
+                result = selectorController;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the selector controllers handling the accepted connections. The
+     * list is empty unless the multiple selectors mode is enabled.
+     * 
+     * @return The selector controllers handling the accepted connections.
+     * @see ServerConnectionHelper#isMultipleSelectors()
+     */
+    public List<SelectorController> getSelectorControllers() {
+        return selectorControllers;
+    }
+
     @Override
     protected void onSelected(SelectionKey key) throws IOException {
         if (!key.isAcceptable()) {
@@ -110,14 +215,20 @@ public class ServerConnectionController extends ConnectionController {
                     if ((getHelper().getMaxTotalConnections() == -1)
                             || (connectionsCount <= getHelper()
                                     .getMaxTotalConnections())) {
+                        SelectorController selectorController = getNextSelectorController();
                         Connection<Server> connection = getHelper().checkout(
                                 socketChannel,
-                                this,
+                                (selectorController == null) ? this
+                                        : selectorController,
                                 (InetSocketAddress) socketChannel.socket()
                                         .getRemoteSocketAddress());
                         connection.open();
                         getHelper().getConnections().add(connection);
 
+                        if (selectorController != null) {
+                            selectorController.attach(connection);
+                        }
+
                         if (getHelper().getLogger().isLoggable(Level.FINE)) {
                             getHelper().getLogger().fine(
                                     "Connection from \""
@@ -154,7 +265,11 @@ public class ServerConnectionController extends ConnectionController {
     @Override
     protected void doInit() {
         super.doInit();
-        
+
+        if (getHelper().isMultipleSelectors()) {
+            createSelectorControllers();
+        }
+
         // Register interest in NIO accept events
         try {
             getHelper().getServerSocketChannel().register(getSelector(),
@@ -164,7 +279,7 @@ public class ServerConnectionController extends ConnectionController {
                     "Unexpected error while registering an NIO selection key",
                     ioe);
         }
-        
+
         this.latch.countDown();
     }
 }
@@ -68,6 +68,23 @@ import org.restlet.data.Status;
  * header and should not be trusted for serious security checks.</td>
  * </tr>
  * <tr>
+ * <td>multipleSelectors</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the accepted connections should be spread across several
+ * NIO selectors, each one controlled by its own thread, instead of being all
+ * controlled by the single thread accepting them. See the "selectorThreads"
+ * parameter.</td>
+ * </tr>
+ * <tr>
+ * <td>selectorThreads</td>
+ * <td>int</td>
+ * <td>Number of available processors</td>
+ * <td>Number of NIO selectors, and therefore of controller threads, used to
+ * handle the accepted connections when the "multipleSelectors" parameter is
+ * enabled.</td>
+ * </tr>
+ * <tr>
  * <td>reuseAddress</td>
  * <td>boolean</td>
  * <td>true</td>
@@ -238,6 +255,23 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
         return serverSocketChannel;
     }
 
+    /**
+     * Returns the number of NIO selectors, and therefore of controller
+     * threads, used to handle the accepted connections when the multiple
+     * selectors mode is enabled. Defaults to the number of available
+     * processors.
+     * 
+     * @return The number of NIO selectors handling the accepted connections.
+     * @see #isMultipleSelectors()
+     */
+    public int getSelectorThreads() {
+        return Math.max(1, Integer.parseInt(getHelpedParameters()
+                .getFirstValue(
+                        "selectorThreads",
+                        Integer.toString(Runtime.getRuntime()
+                                .availableProcessors()))));
+    }
+
     /**
      * Handles a call by invoking the helped Server's
      * {@link Server#handle(Request, Response)} method.
@@ -269,6 +303,19 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
                 "controllerDaemon", "false"));
     }
 
+    /**
+     * Indicates if the accepted connections should be spread across several
+     * NIO selectors, each one controlled by its own thread.
+     * 
+     * @return True if the accepted connections should be spread across several
+     *         NIO selectors.
+     * @see #getSelectorThreads()
+     */
+    public boolean isMultipleSelectors() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "multipleSelectors", "false"));
+    }
+
     @Override
     public boolean isProxying() {
         return false;
@@ -213,8 +213,9 @@ public abstract class ServerInboundWay extends InboundWay {
         }
 
         if ((getIoState() == IoState.IDLE) && getConnection().isPipelining()) {
-            // Read the next request
-            setIoState(IoState.INTEREST);
+            // Read the next request, possibly already buffered
+            setIoState(getBuffer().canDrain() ? IoState.READY
+                    : IoState.INTEREST);
         }
 
         // Update the registration
@@ -0,0 +1,276 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.connector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Worker service starting a new thread for each task instead of pooling them,
+ * which is the intended usage of virtual threads. The maximum pool size is
+ * enforced by a semaphore limiting the number of tasks executed concurrently.
+ * Additional tasks are queued until a running task completes.<br>
+ * <br>
+ * The core pool size and the keep alive time aren't used as no thread is ever
+ * reused.
+ * 
+ * @author Jerome Louvel
+ */
+public class ThreadPerTaskWorkerService extends WorkerService {
+
+    /** The number of tasks being executed. */
+    private final AtomicInteger activeCount;
+
+    /** The number of completed tasks. */
+    private final AtomicLong completedCount;
+
+    /** The largest number of tasks executed concurrently. */
+    private final AtomicInteger largestCount;
+
+    /** The tasks waiting for a permit. */
+    private final BlockingQueue<Runnable> pending;
+
+    /** The permits to execute a task. */
+    private final Semaphore permits;
+
+    /** The threads executing a task. */
+    private final Map<Thread, Boolean> threads;
+
+    /**
+     * Constructor.
+     * 
+     * @param maximumPoolSize
+     *            The maximum number of tasks executed concurrently.
+     * @param threadFactory
+     *            The factory creating a thread for each task.
+     */
+    public ThreadPerTaskWorkerService(int maximumPoolSize,
+            ThreadFactory threadFactory) {
+        super(0, maximumPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<Runnable>(), threadFactory);
+        this.activeCount = new AtomicInteger();
+        this.completedCount = new AtomicLong();
+        this.largestCount = new AtomicInteger();
+        this.pending = new LinkedBlockingQueue<Runnable>();
+        this.permits = new Semaphore(maximumPoolSize);
+        this.threads = new ConcurrentHashMap<Thread, Boolean>();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        synchronized (this.threads) {
+            long remaining = deadline - System.nanoTime();
+
+            while (!isTerminated() && (remaining > 0)) {
+                TimeUnit.NANOSECONDS.timedWait(this.threads, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        }
+
+        return isTerminated();
+    }
+
+    /**
+     * Executes the given task on a new thread as soon as a permit is
+     * available, recording its queue wait and service times.
+     * 
+     * @param command
+     *            The task to execute.
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+
+        if (isShutdown()) {
+            reject(command);
+        } else {
+            this.pending.offer(createTimedTask(command));
+            startPending();
+        }
+    }
+
+    @Override
+    public int getActiveCount() {
+        return this.activeCount.get();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return this.completedCount.get();
+    }
+
+    @Override
+    public int getLargestPoolSize() {
+        return this.largestCount.get();
+    }
+
+    @Override
+    public int getPoolSize() {
+        return getActiveCount();
+    }
+
+    /**
+     * Returns the queue of the tasks waiting for a permit.
+     * 
+     * @return The queue of the tasks waiting for a permit.
+     */
+    @Override
+    public BlockingQueue<Runnable> getQueue() {
+        return this.pending;
+    }
+
+    @Override
+    public long getTaskCount() {
+        return getCompletedTaskCount() + getActiveCount() + getQueuedCount();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return isShutdown() && (getActiveCount() == 0)
+                && this.pending.isEmpty();
+    }
+
+    @Override
+    public boolean isTerminating() {
+        return isShutdown() && !isTerminated();
+    }
+
+    /**
+     * Signals the threads awaiting termination.
+     */
+    private void signalTermination() {
+        synchronized (this.threads) {
+            this.threads.notifyAll();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        signalTermination();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> result = new ArrayList<Runnable>(super.shutdownNow());
+        this.pending.drainTo(result);
+
+        for (Thread thread : this.threads.keySet()) {
+            thread.interrupt();
+        }
+
+        signalTermination();
+        return result;
+    }
+
+    /**
+     * Starts a new thread executing the given task, using a permit already
+     * acquired.
+     * 
+     * @param task
+     *            The task to execute.
+     */
+    private void start(final Runnable task) {
+        Thread thread = getThreadFactory().newThread(new Runnable() {
+            public void run() {
+                threads.put(Thread.currentThread(), Boolean.TRUE);
+
+                try {
+                    task.run();
+                } finally {
+                    threads.remove(Thread.currentThread());
+                    completedCount.incrementAndGet();
+                    activeCount.decrementAndGet();
+                    permits.release();
+                    startPending();
+
+                    if (isShutdown()) {
+                        signalTermination();
+                    }
+                }
+            }
+        });
+
+        if (thread == null) {
+            this.permits.release();
+            this.activeCount.decrementAndGet();
+            reject(task);
+        } else {
+            thread.start();
+        }
+    }
+
+    /**
+     * Starts the pending tasks as long as permits are available.
+     */
+    private void startPending() {
+        while (!this.pending.isEmpty() && this.permits.tryAcquire()) {
+            // Counted as active before leaving the queue so that the service
+            // is never seen as terminated in between
+            int active = this.activeCount.incrementAndGet();
+            Runnable task = this.pending.poll();
+
+            if (task == null) {
+                this.activeCount.decrementAndGet();
+                this.permits.release();
+            } else {
+                int largest = this.largestCount.get();
+
+                while ((active > largest)
+                        && !this.largestCount.compareAndSet(largest, active)) {
+                    largest = this.largestCount.get();
+                }
+
+                start(task);
+            }
+        }
+    }
+
+}
@@ -43,6 +43,7 @@ import org.restlet.Response;
 import org.restlet.data.Status;
 import org.restlet.engine.header.Header;
 import org.restlet.engine.io.Buffer;
+import org.restlet.engine.io.BufferPool;
 import org.restlet.engine.io.BufferProcessor;
 import org.restlet.engine.io.BufferState;
 import org.restlet.engine.io.CompletionListener;
@@ -97,7 +98,10 @@ public abstract class Way implements SelectionListener, CompletionListener,
      */
     public Way(Connection<?> connection, int bufferSize) {
         this.connection = connection;
-        this.buffer = new Buffer(bufferSize, getHelper().isDirectBuffers());
+        BufferPool bufferPool = getHelper().getBufferPool();
+        this.buffer = (bufferPool == null) ? new Buffer(bufferSize,
+                getHelper().isDirectBuffers()) : new Buffer(bufferSize,
+                bufferPool);
         this.headers = null;
         this.ioState = IoState.IDLE;
         this.lineBuilder = new StringBuilder();
@@ -127,6 +131,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
      */
     public void clear() {
         this.buffer.clear();
+        this.buffer.release();
         this.headers = null;
         this.ioState = IoState.IDLE;
         clearLineBuilder();
@@ -322,6 +327,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
         setMessage(null);
         setHeaders(null);
         getBuffer().clear();
+        getBuffer().release();
     }
 
     /**
@@ -418,6 +424,11 @@ public abstract class Way implements SelectionListener, CompletionListener,
             } else if ((getIoState() == IoState.PROCESSING)) {
                 onPostProcessing();
             }
+
+            if ((getMessage() == null) && getBuffer().isEmpty()) {
+                // Return the bytes while waiting for the next message
+                getBuffer().release();
+            }
         } catch (Exception e) {
             getConnection().onError("Error while processing a connection", e,
                     Status.CONNECTOR_ERROR_COMMUNICATION);
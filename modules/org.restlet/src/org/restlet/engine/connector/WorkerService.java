@@ -0,0 +1,441 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Pool of worker threads used by connectors, collecting statistics on the
+ * executed tasks such as the queue wait time and service time histograms or
+ * the number of rejected tasks.<br>
+ * <br>
+ * In adaptive mode, the core number of threads is periodically adjusted
+ * between its initial value and the maximum pool size, based on the average
+ * time spent by the tasks in the queue. Unlike the standard
+ * {@link ThreadPoolExecutor} policy which only starts non core threads once
+ * the queue is full, this lets the pool grow as soon as the queue wait time
+ * exceeds a target, and shrink back once the load decreases.
+ * 
+ * @author Jerome Louvel
+ */
+public class WorkerService extends ThreadPoolExecutor implements
+        WorkerServiceMBean {
+
+    /**
+     * Rejection handler counting the rejected tasks before delegating to the
+     * actual handler.
+     */
+    private class RejectionCounter implements RejectedExecutionHandler {
+
+        /** The actual handler. */
+        private final RejectedExecutionHandler handler;
+
+        /**
+         * Constructor.
+         * 
+         * @param handler
+         *            The actual handler.
+         */
+        public RejectionCounter(RejectedExecutionHandler handler) {
+            this.handler = handler;
+        }
+
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            rejectedCount.incrementAndGet();
+            this.handler.rejectedExecution(r, executor);
+        }
+    }
+
+    /**
+     * Task wrapper recording the time spent in the queue and the time spent
+     * executing the wrapped task.
+     */
+    private class TimedTask implements Runnable {
+
+        /** The time at which the task was submitted, in nanoseconds. */
+        private final long submitTime;
+
+        /** The wrapped task. */
+        private final Runnable task;
+
+        /**
+         * Constructor.
+         * 
+         * @param task
+         *            The wrapped task.
+         */
+        public TimedTask(Runnable task) {
+            this.submitTime = System.nanoTime();
+            this.task = task;
+        }
+
+        public void run() {
+            long startTime = System.nanoTime();
+            long queueWait = startTime - this.submitTime;
+            totalQueueWait.addAndGet(queueWait);
+            record(queueWaitHistogram, queueWait);
+            startedCount.incrementAndGet();
+
+            try {
+                this.task.run();
+            } finally {
+                long serviceTime = System.nanoTime() - startTime;
+                totalServiceTime.addAndGet(serviceTime);
+                record(serviceTimeHistogram, serviceTime);
+                servicedCount.incrementAndGet();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return this.task.toString();
+        }
+    }
+
+    /** The minimum delay between two adaptations of the pool size. */
+    public static final long ADAPTATION_PERIOD_MS = 1000;
+
+    /** The upper bounds in milliseconds of the histogram buckets. */
+    private static final long[] HISTOGRAM_BOUNDS_MS = { 1, 2, 5, 10, 20, 50,
+            100, 200, 500, 1000, 2000, 5000 };
+
+    /** Indicates if the core number of threads is adapted. */
+    private volatile boolean adaptive;
+
+    /** The time of the last adaptation. */
+    private volatile long lastAdaptationTime;
+
+    /** The number of started tasks at the time of the last adaptation. */
+    private volatile long lastStartedCount;
+
+    /** The total queue wait time at the time of the last adaptation. */
+    private volatile long lastTotalQueueWait;
+
+    /** The minimum core number of threads in adaptive mode. */
+    private final int minimumPoolSize;
+
+    /** The histogram of the queue wait times. */
+    private final AtomicLongArray queueWaitHistogram;
+
+    /** The number of rejected tasks. */
+    private final AtomicLong rejectedCount;
+
+    /** The number of serviced tasks. */
+    private final AtomicLong servicedCount;
+
+    /** The histogram of the service times. */
+    private final AtomicLongArray serviceTimeHistogram;
+
+    /** The number of started tasks. */
+    private final AtomicLong startedCount;
+
+    /** The target queue wait time in milliseconds used in adaptive mode. */
+    private volatile long targetQueueWaitMs;
+
+    /** The total queue wait time, in nanoseconds. */
+    private final AtomicLong totalQueueWait;
+
+    /** The total service time, in nanoseconds. */
+    private final AtomicLong totalServiceTime;
+
+    /**
+     * Constructor.
+     * 
+     * @param corePoolSize
+     *            The initial core number of threads.
+     * @param maximumPoolSize
+     *            The maximum number of threads.
+     * @param keepAliveTime
+     *            The time for an idle thread to wait for an operation before
+     *            being collected.
+     * @param unit
+     *            The unit of the keep alive time.
+     * @param workQueue
+     *            The queue of the tasks waiting for a thread.
+     * @param threadFactory
+     *            The factory creating the threads.
+     */
+    public WorkerService(int corePoolSize, int maximumPoolSize,
+            long keepAliveTime, TimeUnit unit,
+            BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                threadFactory);
+        this.adaptive = false;
+        this.minimumPoolSize = corePoolSize;
+        this.queueWaitHistogram = new AtomicLongArray(
+                HISTOGRAM_BOUNDS_MS.length + 1);
+        this.rejectedCount = new AtomicLong();
+        this.servicedCount = new AtomicLong();
+        this.serviceTimeHistogram = new AtomicLongArray(
+                HISTOGRAM_BOUNDS_MS.length + 1);
+        this.startedCount = new AtomicLong();
+        this.targetQueueWaitMs = 10;
+        this.totalQueueWait = new AtomicLong();
+        this.totalServiceTime = new AtomicLong();
+        setRejectedExecutionHandler(getRejectedExecutionHandler());
+    }
+
+    /**
+     * Adapts the core number of threads to the average queue wait time
+     * observed since the last adaptation, if the adaptive mode is enabled and
+     * if the last adaptation is older than {@link #ADAPTATION_PERIOD_MS}.
+     * Grows the pool by a quarter of its size when the target queue wait time
+     * is exceeded or when queued tasks couldn't start, and shrinks it by one
+     * thread when the queue is empty and some core threads are idle.
+     * 
+     * @return True if the core number of threads has been changed.
+     */
+    public boolean adapt() {
+        boolean result = false;
+        long now = System.currentTimeMillis();
+
+        if (isAdaptive() && !isShutdown()
+                && (now - this.lastAdaptationTime >= ADAPTATION_PERIOD_MS)) {
+            long started = this.startedCount.get();
+            long queueWait = this.totalQueueWait.get();
+            long deltaStarted = started - this.lastStartedCount;
+            double averageWaitMs = (deltaStarted == 0) ? 0D
+                    : (queueWait - this.lastTotalQueueWait) / deltaStarted
+                            / 1000000D;
+            boolean backlog = !getQueue().isEmpty();
+            int coreSize = getCorePoolSize();
+
+            this.lastAdaptationTime = now;
+            this.lastStartedCount = started;
+            this.lastTotalQueueWait = queueWait;
+
+            boolean late = (averageWaitMs > getTargetQueueWaitMs())
+                    || (backlog && (deltaStarted == 0));
+
+            if (late && (coreSize < getMaximumPoolSize())) {
+                setCorePoolSize(Math.min(getMaximumPoolSize(), coreSize
+                        + Math.max(1, coreSize / 4)));
+                result = true;
+            } else if ((coreSize > this.minimumPoolSize) && !backlog
+                    && (averageWaitMs <= getTargetQueueWaitMs() / 2D)
+                    && (getActiveCount() < coreSize)) {
+                setCorePoolSize(coreSize - 1);
+                result = true;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Wraps a task in order to record its queue wait and service times.
+     * 
+     * @param task
+     *            The task to wrap.
+     * @return The wrapped task.
+     */
+    protected Runnable createTimedTask(Runnable task) {
+        return new TimedTask(task);
+    }
+
+    /**
+     * Executes the given task, recording its queue wait and service times.
+     * 
+     * @param command
+     *            The task to execute.
+     */
+    @Override
+    public void execute(Runnable command) {
+        super.execute(createTimedTask(command));
+    }
+
+    /**
+     * Returns the average value of a total.
+     * 
+     * @param total
+     *            The total in nanoseconds.
+     * @param count
+     *            The number of values.
+     * @return The average value in milliseconds.
+     */
+    private double getAverageMs(long total, long count) {
+        return (count == 0) ? 0D : total / (double) count / 1000000D;
+    }
+
+    public double getAverageQueueWaitMs() {
+        return getAverageMs(this.totalQueueWait.get(), this.startedCount.get());
+    }
+
+    public double getAverageServiceTimeMs() {
+        return getAverageMs(this.totalServiceTime.get(),
+                this.servicedCount.get());
+    }
+
+    public long[] getHistogramBoundsMs() {
+        return HISTOGRAM_BOUNDS_MS.clone();
+    }
+
+    /**
+     * Returns the minimum core number of threads in adaptive mode, which is
+     * the initial core number of threads.
+     * 
+     * @return The minimum core number of threads in adaptive mode.
+     */
+    public int getMinimumPoolSize() {
+        return this.minimumPoolSize;
+    }
+
+    public int getQueuedCount() {
+        return getQueue().size();
+    }
+
+    public long[] getQueueWaitHistogram() {
+        return toArray(this.queueWaitHistogram);
+    }
+
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * Returns the handler for tasks that can't be executed.
+     * 
+     * @return The handler for tasks that can't be executed.
+     */
+    @Override
+    public RejectedExecutionHandler getRejectedExecutionHandler() {
+        RejectedExecutionHandler result = super.getRejectedExecutionHandler();
+
+        if (result instanceof RejectionCounter) {
+            result = ((RejectionCounter) result).handler;
+        }
+
+        return result;
+    }
+
+    public long[] getServiceTimeHistogram() {
+        return toArray(this.serviceTimeHistogram);
+    }
+
+    public long getTargetQueueWaitMs() {
+        return this.targetQueueWaitMs;
+    }
+
+    public boolean isAdaptive() {
+        return this.adaptive;
+    }
+
+    /**
+     * Records a duration in a histogram.
+     * 
+     * @param histogram
+     *            The histogram to update.
+     * @param duration
+     *            The duration in nanoseconds.
+     */
+    private void record(AtomicLongArray histogram, long duration) {
+        int index = 0;
+
+        while ((index < HISTOGRAM_BOUNDS_MS.length)
+                && (duration > HISTOGRAM_BOUNDS_MS[index] * 1000000L)) {
+            index++;
+        }
+
+        histogram.incrementAndGet(index);
+    }
+
+    /**
+     * Rejects a task, counting it before invoking the rejection handler.
+     * 
+     * @param task
+     *            The task to reject.
+     */
+    protected void reject(Runnable task) {
+        super.getRejectedExecutionHandler().rejectedExecution(task, this);
+    }
+
+    public void resetStatistics() {
+        for (int i = 0; i < this.queueWaitHistogram.length(); i++) {
+            this.queueWaitHistogram.set(i, 0);
+            this.serviceTimeHistogram.set(i, 0);
+        }
+
+        this.lastStartedCount = 0;
+        this.lastTotalQueueWait = 0;
+        this.rejectedCount.set(0);
+        this.servicedCount.set(0);
+        this.startedCount.set(0);
+        this.totalQueueWait.set(0);
+        this.totalServiceTime.set(0);
+    }
+
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Sets the handler for tasks that can't be executed. The given handler is
+     * wrapped in order to count the rejected tasks.
+     * 
+     * @param handler
+     *            The handler for tasks that can't be executed.
+     */
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        super.setRejectedExecutionHandler(new RejectionCounter(handler));
+    }
+
+    public void setTargetQueueWaitMs(long targetQueueWaitMs) {
+        this.targetQueueWaitMs = targetQueueWaitMs;
+    }
+
+    /**
+     * Returns a copy of a histogram.
+     * 
+     * @param histogram
+     *            The histogram to copy.
+     * @return The copy of the histogram.
+     */
+    private long[] toArray(AtomicLongArray histogram) {
+        long[] result = new long[histogram.length()];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = histogram.get(i);
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+/**
+ * Management interface of a connector's worker service. It follows the JMX
+ * standard MBean conventions so that it can be registered with an MBean
+ * server, but doesn't otherwise depend on JMX.
+ * 
+ * @author Jerome Louvel
+ */
+public interface WorkerServiceMBean {
+
+    /**
+     * Returns the approximate number of threads actively executing tasks.
+     * 
+     * @return The approximate number of threads actively executing tasks.
+     */
+    int getActiveCount();
+
+    /**
+     * Returns the average time spent by the tasks in the queue before being
+     * executed, in milliseconds.
+     * 
+     * @return The average queue wait time in milliseconds.
+     */
+    double getAverageQueueWaitMs();
+
+    /**
+     * Returns the average execution time of the tasks, in milliseconds.
+     * 
+     * @return The average service time in milliseconds.
+     */
+    double getAverageServiceTimeMs();
+
+    /**
+     * Returns the approximate number of completed tasks.
+     * 
+     * @return The approximate number of completed tasks.
+     */
+    long getCompletedTaskCount();
+
+    /**
+     * Returns the current core number of threads.
+     * 
+     * @return The current core number of threads.
+     */
+    int getCorePoolSize();
+
+    /**
+     * Returns the upper bounds in milliseconds of the histogram buckets. The
+     * last bucket of the histograms, unbounded, isn't included.
+     * 
+     * @return The upper bounds in milliseconds of the histogram buckets.
+     */
+    long[] getHistogramBoundsMs();
+
+    /**
+     * Returns the largest number of threads that have ever simultaneously been
+     * in the pool.
+     * 
+     * @return The largest number of threads.
+     */
+    int getLargestPoolSize();
+
+    /**
+     * Returns the maximum allowed number of threads.
+     * 
+     * @return The maximum allowed number of threads.
+     */
+    int getMaximumPoolSize();
+
+    /**
+     * Returns the current number of threads in the pool.
+     * 
+     * @return The current number of threads in the pool.
+     */
+    int getPoolSize();
+
+    /**
+     * Returns the number of tasks waiting in the queue.
+     * 
+     * @return The number of tasks waiting in the queue.
+     */
+    int getQueuedCount();
+
+    /**
+     * Returns the histogram of the queue wait times. Each value counts the
+     * tasks whose wait time was lower than or equal to the bound of the same
+     * index, and greater than the previous bound.
+     * 
+     * @return The histogram of the queue wait times.
+     * @see #getHistogramBoundsMs()
+     */
+    long[] getQueueWaitHistogram();
+
+    /**
+     * Returns the number of rejected tasks.
+     * 
+     * @return The number of rejected tasks.
+     */
+    long getRejectedCount();
+
+    /**
+     * Returns the histogram of the service times.
+     * 
+     * @return The histogram of the service times.
+     * @see #getQueueWaitHistogram()
+     */
+    long[] getServiceTimeHistogram();
+
+    /**
+     * Returns the approximate total number of tasks that have ever been
+     * scheduled for execution.
+     * 
+     * @return The approximate total number of tasks scheduled.
+     */
+    long getTaskCount();
+
+    /**
+     * Returns the target queue wait time in milliseconds used in adaptive
+     * mode.
+     * 
+     * @return The target queue wait time in milliseconds.
+     */
+    long getTargetQueueWaitMs();
+
+    /**
+     * Indicates if the core number of threads is adapted to the observed
+     * queue wait time.
+     * 
+     * @return True if the core number of threads is adapted.
+     */
+    boolean isAdaptive();
+
+    /**
+     * Resets the statistics.
+     */
+    void resetStatistics();
+
+    /**
+     * Indicates if the core number of threads is adapted to the observed
+     * queue wait time.
+     * 
+     * @param adaptive
+     *            True if the core number of threads is adapted.
+     */
+    void setAdaptive(boolean adaptive);
+
+    /**
+     * Sets the target queue wait time in milliseconds used in adaptive mode.
+     * 
+     * @param targetQueueWaitMs
+     *            The target queue wait time in milliseconds.
+     */
+    void setTargetQueueWaitMs(long targetQueueWaitMs);
+
+}
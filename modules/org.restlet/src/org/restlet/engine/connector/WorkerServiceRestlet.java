@@ -0,0 +1,167 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.connector;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+import org.restlet.representation.StringRepresentation;
+
+/**
+ * Restlet exposing the statistics of a connector's worker service as a plain
+ * text resource. Only the GET and HEAD methods are allowed. Here is some sample
+ * code illustrating how to expose the statistics of a server connector:<br>
+ * 
+ * <pre>
+ * WorkerServiceMBean workerService = (WorkerServiceMBean) server.getContext()
+ *         .getAttributes().get(&quot;org.restlet.engine.connector.workerService&quot;);
+ * router.attach(&quot;/admin/workers&quot;, new WorkerServiceRestlet(getContext(),
+ *         workerService));
+ * </pre>
+ * 
+ * @author Jerome Louvel
+ */
+public class WorkerServiceRestlet extends Restlet {
+
+    /** The worker service to expose. */
+    private final WorkerServiceMBean workerService;
+
+    /**
+     * Constructor.
+     * 
+     * @param context
+     *            The context.
+     * @param workerService
+     *            The worker service to expose.
+     */
+    public WorkerServiceRestlet(Context context,
+            WorkerServiceMBean workerService) {
+        super(context);
+        this.workerService = workerService;
+    }
+
+    /**
+     * Appends a histogram to a statistics report.
+     * 
+     * @param sb
+     *            The report to complete.
+     * @param name
+     *            The name of the histogram.
+     * @param histogram
+     *            The histogram values.
+     */
+    private void appendHistogram(StringBuilder sb, String name,
+            long[] histogram) {
+        long[] bounds = getWorkerService().getHistogramBoundsMs();
+        sb.append(name).append(':');
+
+        for (int i = 0; i < histogram.length; i++) {
+            sb.append(' ');
+
+            if (i < bounds.length) {
+                sb.append("<=").append(bounds[i]);
+            } else {
+                sb.append('>').append(bounds[bounds.length - 1]);
+            }
+
+            sb.append("ms=").append(histogram[i]);
+        }
+
+        sb.append('\n');
+    }
+
+    /**
+     * Returns the statistics report of the worker service. Each line contains
+     * the name of a statistic followed by a colon and by its value.
+     * 
+     * @return The statistics report of the worker service.
+     */
+    public String getStatistics() {
+        WorkerServiceMBean ws = getWorkerService();
+        StringBuilder sb = new StringBuilder();
+        sb.append("activeCount: ").append(ws.getActiveCount()).append('\n');
+        sb.append("poolSize: ").append(ws.getPoolSize()).append('\n');
+        sb.append("corePoolSize: ").append(ws.getCorePoolSize()).append('\n');
+        sb.append("maximumPoolSize: ").append(ws.getMaximumPoolSize())
+                .append('\n');
+        sb.append("largestPoolSize: ").append(ws.getLargestPoolSize())
+                .append('\n');
+        sb.append("queuedCount: ").append(ws.getQueuedCount()).append('\n');
+        sb.append("taskCount: ").append(ws.getTaskCount()).append('\n');
+        sb.append("completedTaskCount: ").append(ws.getCompletedTaskCount())
+                .append('\n');
+        sb.append("rejectedCount: ").append(ws.getRejectedCount())
+                .append('\n');
+        sb.append("averageQueueWaitMs: ").append(ws.getAverageQueueWaitMs())
+                .append('\n');
+        sb.append("averageServiceTimeMs: ")
+                .append(ws.getAverageServiceTimeMs()).append('\n');
+        appendHistogram(sb, "queueWaitHistogram", ws.getQueueWaitHistogram());
+        appendHistogram(sb, "serviceTimeHistogram",
+                ws.getServiceTimeHistogram());
+        sb.append("adaptive: ").append(ws.isAdaptive()).append('\n');
+        sb.append("targetQueueWaitMs: ").append(ws.getTargetQueueWaitMs())
+                .append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Returns the worker service to expose.
+     * 
+     * @return The worker service to expose.
+     */
+    public WorkerServiceMBean getWorkerService() {
+        return workerService;
+    }
+
+    @Override
+    public void handle(Request request, Response response) {
+        super.handle(request, response);
+
+        if (Method.GET.equals(request.getMethod())
+                || Method.HEAD.equals(request.getMethod())) {
+            response.setEntity(new StringRepresentation(getStatistics(),
+                    MediaType.TEXT_PLAIN));
+        } else {
+            response.setStatus(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED);
+            response.getAllowedMethods().add(Method.GET);
+            response.getAllowedMethods().add(Method.HEAD);
+        }
+    }
+
+}
@@ -69,6 +69,90 @@ import org.restlet.util.NamedValue;
  */
 public class HeaderReader<V> {
 
+    // [ifndef gwt] member
+    /**
+     * The standard header names, indexed by length, reused when parsing header
+     * lines from bytes.
+     */
+    private static final String[][] STANDARD_NAMES = createStandardNames(
+            HeaderConstants.HEADER_ACCEPT,
+            HeaderConstants.HEADER_ACCEPT_CHARSET,
+            HeaderConstants.HEADER_ACCEPT_ENCODING,
+            HeaderConstants.HEADER_ACCEPT_LANGUAGE,
+            HeaderConstants.HEADER_ACCEPT_RANGES, HeaderConstants.HEADER_AGE,
+            HeaderConstants.HEADER_ALLOW,
+            HeaderConstants.HEADER_AUTHENTICATION_INFO,
+            HeaderConstants.HEADER_AUTHORIZATION,
+            HeaderConstants.HEADER_CACHE_CONTROL,
+            HeaderConstants.HEADER_CONNECTION,
+            HeaderConstants.HEADER_CONTENT_DISPOSITION,
+            HeaderConstants.HEADER_CONTENT_ENCODING,
+            HeaderConstants.HEADER_CONTENT_LANGUAGE,
+            HeaderConstants.HEADER_CONTENT_LENGTH,
+            HeaderConstants.HEADER_CONTENT_LOCATION,
+            HeaderConstants.HEADER_CONTENT_MD5,
+            HeaderConstants.HEADER_CONTENT_RANGE,
+            HeaderConstants.HEADER_CONTENT_TYPE, HeaderConstants.HEADER_COOKIE,
+            HeaderConstants.HEADER_DATE, HeaderConstants.HEADER_ETAG,
+            HeaderConstants.HEADER_EXPECT, HeaderConstants.HEADER_EXPIRES,
+            HeaderConstants.HEADER_FROM, HeaderConstants.HEADER_HOST,
+            HeaderConstants.HEADER_IF_MATCH,
+            HeaderConstants.HEADER_IF_MODIFIED_SINCE,
+            HeaderConstants.HEADER_IF_NONE_MATCH,
+            HeaderConstants.HEADER_IF_RANGE,
+            HeaderConstants.HEADER_IF_UNMODIFIED_SINCE,
+            HeaderConstants.HEADER_LAST_MODIFIED,
+            HeaderConstants.HEADER_LOCATION,
+            HeaderConstants.HEADER_MAX_FORWARDS, HeaderConstants.HEADER_PRAGMA,
+            HeaderConstants.HEADER_PROXY_AUTHENTICATE,
+            HeaderConstants.HEADER_PROXY_AUTHORIZATION,
+            HeaderConstants.HEADER_RANGE, HeaderConstants.HEADER_REFERRER,
+            HeaderConstants.HEADER_RETRY_AFTER, HeaderConstants.HEADER_SERVER,
+            HeaderConstants.HEADER_SET_COOKIE,
+            HeaderConstants.HEADER_SET_COOKIE2, HeaderConstants.HEADER_SLUG,
+            HeaderConstants.HEADER_TRAILER,
+            HeaderConstants.HEADER_TRANSFER_ENCODING,
+            HeaderConstants.HEADER_TRANSFER_EXTENSION,
+            HeaderConstants.HEADER_UPGRADE, HeaderConstants.HEADER_USER_AGENT,
+            HeaderConstants.HEADER_VARY, HeaderConstants.HEADER_VIA,
+            HeaderConstants.HEADER_WARNING,
+            HeaderConstants.HEADER_WWW_AUTHENTICATE,
+            HeaderConstants.HEADER_X_FORWARDED_FOR,
+            HeaderConstants.HEADER_X_HTTP_METHOD_OVERRIDE);
+
+    // [ifndef gwt] method
+    /**
+     * Creates the table of standard header names, indexed by length.
+     * 
+     * @param names
+     *            The standard header names.
+     * @return The table of standard header names, indexed by length.
+     */
+    private static String[][] createStandardNames(String... names) {
+        int maxLength = 0;
+
+        for (String name : names) {
+            maxLength = Math.max(maxLength, name.length());
+        }
+
+        String[][] result = new String[maxLength + 1][];
+
+        for (String name : names) {
+            String[] current = result[name.length()];
+            String[] updated = new String[(current == null) ? 1
+                    : current.length + 1];
+
+            if (current != null) {
+                System.arraycopy(current, 0, updated, 0, current.length);
+            }
+
+            updated[updated.length - 1] = name;
+            result[name.length()] = updated;
+        }
+
+        return result;
+    }
+
     /**
      * Creates a new named value with a null value.
      * 
@@ -198,6 +282,107 @@ public class HeaderReader<V> {
         return result;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Returns the standard header name matching exactly the given bytes, or
+     * null if none matches.
+     * 
+     * @param bytes
+     *            The byte buffer.
+     * @param start
+     *            The index of the first byte of the name.
+     * @param length
+     *            The length of the name.
+     * @return The standard header name or null.
+     */
+    private static String getStandardName(java.nio.ByteBuffer bytes,
+            int start, int length) {
+        String result = null;
+        String[] candidates = (length < STANDARD_NAMES.length) ? STANDARD_NAMES[length]
+                : null;
+
+        if (candidates != null) {
+            for (int i = 0; (result == null) && (i < candidates.length); i++) {
+                String candidate = candidates[i];
+                boolean matches = true;
+
+                for (int j = 0; matches && (j < length); j++) {
+                    matches = (candidate.charAt(j) == bytes.get(start + j));
+                }
+
+                if (matches) {
+                    result = candidate;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Reads a header line directly from the bytes of a buffer, without going
+     * through a line builder. The name of the standard headers is reused and
+     * the value is only decoded when first requested. The buffer position is
+     * moved after the line.
+     * 
+     * @param bytes
+     *            The byte buffer, positioned at the start of the line.
+     * @param length
+     *            The length of the line, including the ending carriage return
+     *            and line feed characters.
+     * @return The header read or null if the end of headers was detected.
+     * @throws IOException
+     */
+    public static Header readHeader(java.nio.ByteBuffer bytes, int length)
+            throws IOException {
+        Header result = null;
+        int start = bytes.position();
+        int end = start + length - 2;
+
+        if (end > start) {
+            // Parse the header name
+            int index = start;
+
+            while ((index < end) && (bytes.get(index) != ':')) {
+                index++;
+            }
+
+            if (index == end) {
+                throw new IOException(
+                        "Unable to parse the header name. End of line reached too early.");
+            }
+
+            String name = getStandardName(bytes, start, index - start);
+
+            if (name == null) {
+                char[] chars = new char[index - start];
+
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = (char) (bytes.get(start + i) & 0xff);
+                }
+
+                name = new String(chars);
+            }
+
+            // Skip any separator space between colon and header value
+            index++;
+
+            while ((index < end) && isSpace(bytes.get(index))) {
+                index++;
+            }
+
+            // Keep the raw header value
+            byte[] value = new byte[end - index];
+            bytes.position(index);
+            bytes.get(value);
+            result = new LazyHeader(name, value);
+        }
+
+        bytes.position(end + 2);
+        return result;
+    }
+
     /**
      * Read a header. Return null if the last header was already read.
      * 
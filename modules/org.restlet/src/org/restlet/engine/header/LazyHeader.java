@@ -0,0 +1,86 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.header;
+
+/**
+ * Header whose value is kept as raw ISO-8859-1 bytes until it is first
+ * requested. This saves the creation of strings for the header values that are
+ * never used.
+ * 
+ * @author Jerome Louvel
+ */
+public class LazyHeader extends Header {
+
+    /** The raw bytes of the value not decoded yet. */
+    private volatile byte[] valueBytes;
+
+    /**
+     * Constructor.
+     * 
+     * @param name
+     *            The header name.
+     * @param valueBytes
+     *            The raw ISO-8859-1 bytes of the header value.
+     */
+    public LazyHeader(String name, byte[] valueBytes) {
+        super(name, null);
+        this.valueBytes = valueBytes;
+    }
+
+    @Override
+    public String getValue() {
+        byte[] bytes = this.valueBytes;
+
+        if (bytes != null) {
+            char[] chars = new char[bytes.length];
+
+            for (int i = 0; i < bytes.length; i++) {
+                chars[i] = (char) (bytes[i] & 0xff);
+            }
+
+            super.setValue(new String(chars));
+            this.valueBytes = null;
+        }
+
+        return super.getValue();
+    }
+
+    @Override
+    public void setValue(String value) {
+        this.valueBytes = null;
+        super.setValue(value);
+    }
+
+}
@@ -71,11 +71,20 @@ public class Buffer {
 	}
 
 	/** The byte buffer. */
-	private final ByteBuffer bytes;
+	private volatile ByteBuffer bytes;
+
+	/** The capacity of the byte buffer. */
+	private final int capacity;
 
 	/** The index of the buffer's beginning while filling. */
 	private volatile int fillBegin;
 
+	/** The lock on which multiple thread can synchronize. */
+	private final Object lock;
+
+	/** The optional pool from which the byte buffer is borrowed. */
+	private final BufferPool pool;
+
 	/** The byte buffer IO state. */
 	private volatile BufferState state;
 
@@ -101,9 +110,31 @@ public class Buffer {
 		super();
 		this.fillBegin = 0;
 		this.bytes = byteBuffer;
+		this.capacity = byteBuffer.capacity();
+		this.lock = new Object();
+		this.pool = null;
 		this.state = byteBufferState;
 	}
 
+	/**
+	 * Constructor. The byte buffer is borrowed from the given pool only when
+	 * needed and can be returned to it with {@link #release()} when empty.
+	 * 
+	 * @param bufferSize
+	 *            The minimum byte buffer size.
+	 * @param pool
+	 *            The pool from which the byte buffer is borrowed.
+	 */
+	public Buffer(int bufferSize, BufferPool pool) {
+		super();
+		this.fillBegin = 0;
+		this.bytes = null;
+		this.capacity = pool.getCapacity(bufferSize);
+		this.lock = new Object();
+		this.pool = pool;
+		this.state = BufferState.FILLING;
+	}
+
 	/**
 	 * Constructor. Allocates a new non-direct byte buffer.
 	 * 
@@ -181,7 +212,7 @@ public class Buffer {
 	 * @return The maximum capacity of this buffer.
 	 */
 	public final int capacity() {
-		return getBytes().capacity();
+		return this.capacity;
 	}
 
 	/**
@@ -189,7 +220,11 @@ public class Buffer {
 	 */
 	public void clear() {
 		this.fillBegin = 0;
-		this.bytes.clear();
+
+		if (this.bytes != null) {
+			this.bytes.clear();
+		}
+
 		this.state = BufferState.FILLING;
 	}
 
@@ -213,7 +248,8 @@ public class Buffer {
 	 * @return True if bytes could be drained.
 	 */
 	public boolean couldDrain() {
-		return (isFilling() && (getBytes().position() > this.fillBegin));
+		return isFilling() && !isReleased()
+				&& (getBytes().position() > this.fillBegin);
 	}
 
 	/**
@@ -427,12 +463,60 @@ public class Buffer {
 	}
 
 	/**
-	 * Returns the byte buffer.
+	 * Returns the number of bytes currently held by this buffer, or 0 if its
+	 * byte buffer was released to the pool.
+	 *
+	 * @return The number of bytes currently held.
+	 */
+	public int getAllocatedBytes() {
+		ByteBuffer bytes = this.bytes;
+		return (bytes == null) ? 0 : bytes.capacity();
+	}
+
+	/**
+	 * Returns the byte buffer. If the byte buffer was released, a new one is
+	 * borrowed from the pool while holding the {@link #getLock()} object, so
+	 * that it can't race with {@link #release()}.
 	 * 
 	 * @return The byte buffer.
 	 */
 	public ByteBuffer getBytes() {
-		return bytes;
+		ByteBuffer result = this.bytes;
+
+		if (result == null) {
+			synchronized (getLock()) {
+				if (this.bytes == null) {
+					this.bytes = this.pool.checkout(this.capacity);
+				}
+
+				result = this.bytes;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the length of the next line in the remaining bytes, including its
+	 * ending carriage return and line feed characters, without draining it.
+	 * Returns -1 if no complete line is available or if the first carriage
+	 * return isn't followed by a line feed.
+	 * 
+	 * @return The length of the next line or -1.
+	 */
+	public int getLineLength() {
+		ByteBuffer bytes = getBytes();
+		int start = bytes.position();
+		int limit = bytes.limit() - 1;
+
+		for (int i = start; i < limit; i++) {
+			if (HeaderUtils.isCarriageReturn(bytes.get(i))) {
+				return HeaderUtils.isLineFeed(bytes.get(i + 1)) ? (i + 2 - start)
+						: -1;
+			}
+		}
+
+		return -1;
 	}
 
 	/**
@@ -442,7 +526,16 @@ public class Buffer {
 	 * @return The lock on which multiple thread can synchronize.
 	 */
 	public Object getLock() {
-		return this.bytes;
+		return this.lock;
+	}
+
+	/**
+	 * Returns the optional pool from which the byte buffer is borrowed.
+	 * 
+	 * @return The optional pool from which the byte buffer is borrowed.
+	 */
+	public BufferPool getPool() {
+		return this.pool;
 	}
 
 	/**
@@ -460,7 +553,7 @@ public class Buffer {
 	 * @return True if the buffer has remaining bytes to be read or written.
 	 */
 	public final boolean hasRemaining() {
-		return getBytes().hasRemaining();
+		return isReleased() ? (this.capacity > 0) : getBytes().hasRemaining();
 	}
 
 	/**
@@ -493,6 +586,16 @@ public class Buffer {
 		return getState() == BufferState.FILLING;
 	}
 
+	/**
+	 * Indicates if the byte buffer was released to its pool. In this case, the
+	 * buffer is empty and in the {@link BufferState#FILLING} state.
+	 * 
+	 * @return True if the byte buffer was released to its pool.
+	 */
+	public boolean isReleased() {
+		return this.bytes == null;
+	}
+
 	/**
 	 * Processes as a loop the IO event by draining or filling the IO buffer.
 	 * Note that synchronization of the {@link #getLock()} object is
@@ -675,7 +778,29 @@ public class Buffer {
 	 * @return The number of bytes that can be read or written.
 	 */
 	public final int remaining() {
-		return getBytes().remaining();
+		return isReleased() ? this.capacity : getBytes().remaining();
+	}
+
+	/**
+	 * Returns the byte buffer to its pool if the buffer is pooled and empty. It
+	 * will be borrowed again on the next access to {@link #getBytes()}.
+	 * 
+	 * @return True if the byte buffer was released.
+	 */
+	public boolean release() {
+		boolean result = false;
+
+		synchronized (getLock()) {
+			if ((this.pool != null) && !isReleased() && isEmpty()) {
+				ByteBuffer released = this.bytes;
+				clear();
+				this.bytes = null;
+				this.pool.checkin(released);
+				result = true;
+			}
+		}
+
+		return result;
 	}
 
 	/**
@@ -690,7 +815,8 @@ public class Buffer {
 
 	@Override
 	public String toString() {
-		return getBytes().toString() + ", " + getState() + ", " + isEmpty();
+		return (isReleased() ? "Released buffer" : getBytes().toString())
+				+ ", " + getState() + ", " + isEmpty();
 	}
 
 }
@@ -0,0 +1,352 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of byte buffers organized by size classes. Each size class is a
+ * power of two, starting at {@link #MIN_CAPACITY} bytes. Released byte buffers
+ * are first kept in a small cache local to the releasing thread, then in a
+ * lock-free store shared by all threads, up to a global number of pooled bytes.
+ * Byte buffers exceeding this limit or the largest size class are left to the
+ * garbage collector.
+ * 
+ * @author Jerome Louvel
+ */
+public class BufferPool {
+
+    /**
+     * Cache of byte buffers local to a thread.
+     */
+    private static class ThreadCache {
+
+        /** The cached byte buffers, per size class. */
+        private final ByteBuffer[][] buffers;
+
+        /** The number of cached byte buffers, per size class. */
+        private final int[] counts;
+
+        /**
+         * Constructor.
+         * 
+         * @param size
+         *            The maximum number of byte buffers per size class.
+         */
+        public ThreadCache(int size) {
+            this.buffers = new ByteBuffer[SIZE_CLASSES][size];
+            this.counts = new int[SIZE_CLASSES];
+        }
+
+        /**
+         * Removes and returns a byte buffer of the given size class, or null
+         * if none is cached.
+         * 
+         * @param sizeClass
+         *            The size class.
+         * @return A cached byte buffer or null.
+         */
+        public ByteBuffer poll(int sizeClass) {
+            ByteBuffer result = null;
+
+            if (this.counts[sizeClass] > 0) {
+                int index = --this.counts[sizeClass];
+                result = this.buffers[sizeClass][index];
+                this.buffers[sizeClass][index] = null;
+            }
+
+            return result;
+        }
+
+        /**
+         * Adds a byte buffer of the given size class if there is room left.
+         * 
+         * @param sizeClass
+         *            The size class.
+         * @param buffer
+         *            The byte buffer to cache.
+         * @return True if the byte buffer was cached.
+         */
+        public boolean offer(int sizeClass, ByteBuffer buffer) {
+            boolean result = false;
+
+            if (this.counts[sizeClass] < this.buffers[sizeClass].length) {
+                this.buffers[sizeClass][this.counts[sizeClass]++] = buffer;
+                result = true;
+            }
+
+            return result;
+        }
+    }
+
+    /** The capacity of the smallest size class. */
+    public static final int MIN_CAPACITY = 1024;
+
+    /** The number of size classes. */
+    private static final int SIZE_CLASSES = 16;
+
+    /** The number of bytes currently borrowed from the pool. */
+    private final AtomicLong bytesInUse;
+
+    /** Indicates if direct NIO buffers should be allocated. */
+    private final boolean direct;
+
+    /** The number of checkouts served by a pooled byte buffer. */
+    private final AtomicLong hits;
+
+    /** The maximum number of bytes kept in the shared store. */
+    private final long maxPooledBytes;
+
+    /** The number of checkouts requiring a new allocation. */
+    private final AtomicLong misses;
+
+    /** The number of bytes kept in the shared store. */
+    private final AtomicLong pooledBytes;
+
+    /** The shared store of byte buffers, per size class. */
+    private final List<Queue<ByteBuffer>> store;
+
+    /** The caches local to each thread. */
+    private final ThreadLocal<ThreadCache> threadCaches;
+
+    /**
+     * Constructor.
+     * 
+     * @param direct
+     *            Indicates if direct NIO buffers should be allocated.
+     * @param maxPooledBytes
+     *            The maximum number of bytes kept in the shared store.
+     * @param threadCacheSize
+     *            The maximum number of byte buffers per size class cached by
+     *            each thread.
+     */
+    public BufferPool(boolean direct, long maxPooledBytes,
+            final int threadCacheSize) {
+        this.bytesInUse = new AtomicLong();
+        this.direct = direct;
+        this.hits = new AtomicLong();
+        this.maxPooledBytes = maxPooledBytes;
+        this.misses = new AtomicLong();
+        this.pooledBytes = new AtomicLong();
+        this.store = new ArrayList<Queue<ByteBuffer>>(SIZE_CLASSES);
+
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            this.store.add(new ConcurrentLinkedQueue<ByteBuffer>());
+        }
+
+        this.threadCaches = new ThreadLocal<ThreadCache>() {
+            @Override
+            protected ThreadCache initialValue() {
+                return new ThreadCache(Math.max(0, threadCacheSize));
+            }
+        };
+    }
+
+    /**
+     * Returns a byte buffer to the pool. It is first cached by the current
+     * thread, then kept in the shared store if the maximum number of pooled
+     * bytes isn't reached.
+     * 
+     * @param buffer
+     *            The byte buffer to return.
+     */
+    public void checkin(ByteBuffer buffer) {
+        if (buffer != null) {
+            int capacity = buffer.capacity();
+            this.bytesInUse.addAndGet(-capacity);
+            int sizeClass = getSizeClass(capacity);
+
+            if ((sizeClass >= 0) && (buffer.isDirect() == isDirect())) {
+                buffer.clear();
+
+                if (!this.threadCaches.get().offer(sizeClass, buffer)) {
+                    long pooled = this.pooledBytes.addAndGet(capacity);
+
+                    if (pooled <= getMaxPooledBytes()) {
+                        this.store.get(sizeClass).offer(buffer);
+                    } else {
+                        // Leave the buffer to the garbage collector
+                        this.pooledBytes.addAndGet(-capacity);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Borrows a cleared byte buffer of at least the given size from the pool,
+     * allocating a new one if none is available.
+     * 
+     * @param size
+     *            The minimum byte buffer size.
+     * @return The byte buffer borrowed.
+     */
+    public ByteBuffer checkout(int size) {
+        int capacity = getCapacity(size);
+        int sizeClass = getSizeClass(capacity);
+        ByteBuffer result = null;
+
+        if (sizeClass >= 0) {
+            result = this.threadCaches.get().poll(sizeClass);
+
+            if (result == null) {
+                result = this.store.get(sizeClass).poll();
+
+                if (result != null) {
+                    this.pooledBytes.addAndGet(-capacity);
+                }
+            }
+        }
+
+        if (result == null) {
+            this.misses.incrementAndGet();
+            result = isDirect() ? ByteBuffer.allocateDirect(capacity)
+                    : ByteBuffer.allocate(capacity);
+        } else {
+            this.hits.incrementAndGet();
+        }
+
+        this.bytesInUse.addAndGet(capacity);
+        return result;
+    }
+
+    /**
+     * Returns the number of bytes currently borrowed from the pool.
+     * 
+     * @return The number of bytes currently borrowed from the pool.
+     */
+    public long getBytesInUse() {
+        return this.bytesInUse.get();
+    }
+
+    /**
+     * Returns the capacity of the byte buffers checked out for the given size,
+     * rounded up to the next size class. Sizes exceeding the largest size
+     * class are returned unchanged.
+     * 
+     * @param size
+     *            The minimum byte buffer size.
+     * @return The capacity of the byte buffers checked out.
+     */
+    public int getCapacity(int size) {
+        int sizeClass = 0;
+
+        while ((sizeClass < SIZE_CLASSES)
+                && ((MIN_CAPACITY << sizeClass) < size)) {
+            sizeClass++;
+        }
+
+        return (sizeClass < SIZE_CLASSES) ? (MIN_CAPACITY << sizeClass) : size;
+    }
+
+    /**
+     * Returns the number of checkouts served by a pooled byte buffer.
+     * 
+     * @return The number of checkouts served by a pooled byte buffer.
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Returns the maximum number of bytes kept in the shared store. Note that
+     * the byte buffers cached by each thread aren't counted.
+     * 
+     * @return The maximum number of bytes kept in the shared store.
+     */
+    public long getMaxPooledBytes() {
+        return this.maxPooledBytes;
+    }
+
+    /**
+     * Returns the number of checkouts requiring a new allocation.
+     * 
+     * @return The number of checkouts requiring a new allocation.
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Returns the number of bytes kept in the shared store.
+     * 
+     * @return The number of bytes kept in the shared store.
+     */
+    public long getPooledBytes() {
+        return this.pooledBytes.get();
+    }
+
+    /**
+     * Returns the size class of the given capacity, or -1 if the capacity
+     * doesn't match a size class.
+     * 
+     * @param capacity
+     *            The byte buffer capacity.
+     * @return The size class or -1.
+     */
+    private int getSizeClass(int capacity) {
+        int result = -1;
+
+        for (int i = 0; (result == -1) && (i < SIZE_CLASSES); i++) {
+            if ((MIN_CAPACITY << i) == capacity) {
+                result = i;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if direct NIO buffers are allocated.
+     * 
+     * @return True if direct NIO buffers are allocated.
+     */
+    public boolean isDirect() {
+        return this.direct;
+    }
+
+    @Override
+    public String toString() {
+        return "Buffer pool: " + getBytesInUse() + " bytes in use, "
+                + getPooledBytes() + " bytes pooled, " + getHits()
+                + " hits, " + getMisses() + " misses";
+    }
+
+}
@@ -99,8 +99,63 @@ public class NioUtils {
      */
     public static void copy(FileChannel fileChannel,
             WritableByteChannel writableChannel) throws IOException {
-        long position = 0;
-        long count = fileChannel.size();
+        copy(fileChannel, 0, fileChannel.size(), writableChannel);
+    }
+
+    /**
+     * Writes a region of a file channel to a BIO output stream, using
+     * positioned reads that don't depend on the current position of the file
+     * channel.
+     * 
+     * @param fileChannel
+     *            The readable file channel.
+     * @param position
+     *            The position of the first byte to copy.
+     * @param count
+     *            The number of bytes to copy.
+     * @param outputStream
+     *            The output stream.
+     * @throws IOException
+     */
+    public static void copy(FileChannel fileChannel, long position,
+            long count, OutputStream outputStream) throws IOException {
+        byte[] buffer = new byte[IoUtils.BUFFER_SIZE];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        int read = 0;
+
+        while (count > 0) {
+            byteBuffer.clear();
+            byteBuffer.limit((int) Math.min(buffer.length, count));
+            read = fileChannel.read(byteBuffer, position);
+
+            if (read == -1) {
+                throw new java.io.EOFException(
+                        "End of file reached before the end of the region");
+            }
+
+            outputStream.write(buffer, 0, read);
+            position += read;
+            count -= read;
+        }
+    }
+
+    /**
+     * Writes a region of a file channel to a byte channel. Optimizes using the
+     * file channel transferTo method, so the bytes before the region are
+     * neither read nor copied.
+     * 
+     * @param fileChannel
+     *            The readable file channel.
+     * @param position
+     *            The position of the first byte to copy.
+     * @param count
+     *            The number of bytes to copy.
+     * @param writableChannel
+     *            A writable byte channel.
+     * @throws IOException
+     */
+    public static void copy(FileChannel fileChannel, long position,
+            long count, WritableByteChannel writableChannel) throws IOException {
         long written = 0;
         SelectableChannel selectableChannel = null;
 
@@ -109,6 +164,11 @@ public class NioUtils {
         }
 
         while (count > 0) {
+            if (position >= fileChannel.size()) {
+                throw new java.io.EOFException(
+                        "End of file reached before the end of the region");
+            }
+
             NioUtils.waitForState(selectableChannel, SelectionKey.OP_WRITE);
             written = fileChannel.transferTo(position, count, writableChannel);
             position += written;
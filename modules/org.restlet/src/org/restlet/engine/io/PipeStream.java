@@ -101,9 +101,20 @@ public class PipeStream {
     public OutputStream getOutputStream() {
         return new OutputStream() {
             @Override
-            public void write(int b) throws IOException {
+            public void close() throws IOException {
+                // Signals the end of the stream to the reading side
+                offer(-1);
+            }
+
+            /**
+             * Offers a value to the queue.
+             * 
+             * @param value
+             *            The value to offer.
+             */
+            private void offer(int value) throws IOException {
                 try {
-                    if (!queue.offer(b, QUEUE_TIMEOUT, TimeUnit.SECONDS)) {
+                    if (!queue.offer(value, QUEUE_TIMEOUT, TimeUnit.SECONDS)) {
                         throw new IOException(
                                 "Timeout while writing to the queue-based output stream");
                     }
@@ -112,6 +123,12 @@ public class PipeStream {
                             "Interruption occurred while writing in the queue");
                 }
             }
+
+            @Override
+            public void write(int b) throws IOException {
+                // Only the eight low-order bits are significant
+                offer(b & 0xff);
+            }
         };
     }
 
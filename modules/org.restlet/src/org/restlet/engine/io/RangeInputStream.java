@@ -139,14 +139,18 @@ public class RangeInputStream extends FilterInputStream {
 
     @Override
     public int read() throws IOException {
-        int result = super.read();
+        int result = -1;
 
-        while ((result != -1) && !this.range.isIncluded(position++, totalSize)) {
+        if (reachStartIndex() && ((endIndex == -1) || (position <= endIndex))) {
             result = super.read();
-        }
 
-        if ((result != -1) && (this.availableSize > 0)) {
-            this.availableSize--;
+            if (result != -1) {
+                position++;
+
+                if (this.availableSize > 0) {
+                    this.availableSize--;
+                }
+            }
         }
 
         return result;
@@ -154,20 +158,12 @@ public class RangeInputStream extends FilterInputStream {
 
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
-        // Reach the start index.
-        while (!(position >= startIndex)) {
-            long skipped = skip(startIndex - position);
-
-            if (skipped <= 0) {
-                throw new IOException("Cannot skip ahead in FilterInputStream");
-            }
-
-            position += skipped;
-        }
-
         int result = -1;
 
-        if (endIndex != -1) {
+        if (!reachStartIndex()) {
+            // The end of the stream was reached before the start index.
+            result = -1;
+        } else if (endIndex != -1) {
             // Read up until the end index
             if (position > endIndex) {
                 // The end index is reached.
@@ -195,4 +191,31 @@ public class RangeInputStream extends FilterInputStream {
 
         return result;
     }
+
+    /**
+     * Moves the cursor up to the start index. Bytes are skipped rather than
+     * read when the wrapped stream supports it, which is the case of file
+     * streams where skipping is a simple seek.
+     * 
+     * @return False if the end of the stream was reached before the start
+     *         index.
+     * @throws IOException
+     */
+    private boolean reachStartIndex() throws IOException {
+        boolean result = true;
+
+        while (result && (position < startIndex)) {
+            long skipped = skip(startIndex - position);
+
+            if (skipped > 0) {
+                position += skipped;
+            } else if (super.read() == -1) {
+                result = false;
+            } else {
+                position++;
+            }
+        }
+
+        return result;
+    }
 }
@@ -35,6 +35,7 @@ package org.restlet.engine.io;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
 
 import org.restlet.util.SelectionRegistration;
@@ -60,6 +61,26 @@ public class WritableSocketChannel extends WrapperSocketChannel implements
         super(wrappedChannel, registration);
     }
 
+    /**
+     * Transfers bytes from a file channel to the wrapped socket channel,
+     * without copying them into an intermediary buffer when supported by the
+     * operating system.
+     * 
+     * @param source
+     *            The source file channel.
+     * @param position
+     *            The position of the first byte to transfer in the file.
+     * @param count
+     *            The maximum number of bytes to transfer.
+     * @return The number of bytes transferred.
+     * @throws IOException
+     * @see FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)
+     */
+    public long transferFrom(FileChannel source, long position, long count)
+            throws IOException {
+        return source.transferTo(position, count, getWrappedChannel());
+    }
+
     /**
      * Writes the given bytes to the wrapped socket channel.
      * 
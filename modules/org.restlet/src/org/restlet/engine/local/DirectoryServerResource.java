@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.logging.Level;
@@ -44,17 +45,21 @@ import java.util.logging.Level;
 import org.restlet.Client;
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.Dimension;
+import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Preference;
 import org.restlet.data.Reference;
 import org.restlet.data.ReferenceList;
 import org.restlet.data.Status;
+import org.restlet.engine.application.Encoder;
 import org.restlet.representation.Representation;
 import org.restlet.representation.Variant;
 import org.restlet.resource.Directory;
 import org.restlet.resource.ResourceException;
 import org.restlet.resource.ServerResource;
+import org.restlet.service.EncoderService;
 
 /**
  * Resource supported by a set of context representations (from file system,
@@ -490,6 +495,75 @@ public class DirectoryServerResource extends ServerResource {
         return this.directoryUri;
     }
 
+    /**
+     * Returns the precompressed sibling of a local representation if one is
+     * available for an encoding accepted by the client, or the original
+     * representation otherwise. The sibling is only used if the encoder service
+     * of the application is enabled and would have compressed the original
+     * representation, and if it isn't older than the original.
+     * 
+     * @param representation
+     *            The original representation.
+     * @param resourceUri
+     *            The local URI of the original representation.
+     * @return The precompressed representation or the original one.
+     */
+    private Representation getPrecompressedRepresentation(
+            Representation representation, String resourceUri) {
+        Representation result = representation;
+        Map<Encoding, String> extensions = getDirectory()
+                .getPrecompressedExtensions();
+
+        if ((representation != null) && !extensions.isEmpty()
+                && (getApplication() != null)) {
+            EncoderService encoderService = getApplication()
+                    .getEncoderService();
+
+            if ((encoderService != null) && encoderService.isEnabled()
+                    && encoderService.canEncode(representation)) {
+                getDimensions().add(Dimension.ENCODING);
+
+                // Select the best encoding accepted by the client
+                Encoding bestEncoding = Encoder.getBestEncoding(
+                        getClientInfo(), new ArrayList<Encoding>(
+                                extensions.keySet()));
+
+                String extension = (bestEncoding == null) ? null : extensions
+                        .get(bestEncoding);
+
+                if (extension != null) {
+                    Response contextResponse = getRepresentation(resourceUri
+                            + "." + extension);
+                    Representation precompressed = contextResponse.getEntity();
+
+                    if (contextResponse.getStatus().isSuccess()
+                            && (precompressed != null)
+                            && ((representation.getModificationDate() == null)
+                                    || (precompressed.getModificationDate() == null) || !precompressed
+                                    .getModificationDate().before(
+                                            representation
+                                                    .getModificationDate()))) {
+                        precompressed.setMediaType(representation
+                                .getMediaType());
+                        precompressed.setCharacterSet(representation
+                                .getCharacterSet());
+                        precompressed.setLanguages(representation
+                                .getLanguages());
+                        precompressed.getEncodings().clear();
+                        precompressed.getEncodings().add(bestEncoding);
+                        precompressed.setLocationRef(representation
+                                .getLocationRef());
+                        result = precompressed;
+                    } else if (precompressed != null) {
+                        precompressed.release();
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns a representation of the resource at the target URI. Leverages the
      * client dispatcher of the parent directory's context.
@@ -631,7 +705,8 @@ public class DirectoryServerResource extends ServerResource {
                                     rep.setLocationRef(baseRef + "/" + filePath);
                                 }
 
-                                resultSet.add(rep);
+                                resultSet.add(getPrecompressedRepresentation(
+                                        rep, ref.toString(false, false)));
                             }
                         }
                     }
@@ -687,7 +762,8 @@ public class DirectoryServerResource extends ServerResource {
                     }
 
                     result = new ArrayList<Variant>();
-                    result.add(this.fileContent);
+                    result.add(getPrecompressedRepresentation(this.fileContent,
+                            this.targetUri));
                 }
 
                 this.variantsGet = result;
@@ -739,8 +815,10 @@ public class DirectoryServerResource extends ServerResource {
                                     firstDotIndex);
                         }
 
-                        // Check if the current file is a valid variant
-                        if (baseEntryName.equals(this.baseName)) {
+                        // Check if the current file is a valid variant,
+                        // ignoring the precompressed siblings
+                        if (baseEntryName.equals(this.baseName)
+                                && !isPrecompressed(fullEntryName)) {
                             // Test if the variant is included in the base
                             // prototype variant
                             Variant variant = new Variant();
@@ -814,6 +892,24 @@ public class DirectoryServerResource extends ServerResource {
         return this.fileTarget;
     }
 
+    /**
+     * Indicates if a file name is the one of a precompressed sibling file.
+     * 
+     * @param fileName
+     *            The file name to test.
+     * @return True if the file name is the one of a precompressed sibling.
+     */
+    private boolean isPrecompressed(String fileName) {
+        boolean result = false;
+
+        for (String extension : getDirectory().getPrecompressedExtensions()
+                .values()) {
+            result = result || fileName.endsWith("." + extension);
+        }
+
+        return result;
+    }
+
     @Override
     public Representation put(Representation entity) throws ResourceException {
         if (this.directory.isModifiable()) {
@@ -90,6 +90,27 @@ import org.restlet.representation.Variant;
  * <td>Indicates if a failed upload can be resumed. This will prevent the
  * deletion of the temporary file created.</td>
  * </tr>
+ * <tr>
+ * <td>mappedFiles</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if the content of small regular files should be memory-mapped
+ * and cached between calls. See {@link MappedFileCache}.</td>
+ * </tr>
+ * <tr>
+ * <td>maxMappedBytes</td>
+ * <td>long</td>
+ * <td>67108864</td>
+ * <td>The maximum number of bytes mapped at the same time when the
+ * "mappedFiles" parameter is enabled.</td>
+ * </tr>
+ * <tr>
+ * <td>maxMappedFileSize</td>
+ * <td>long</td>
+ * <td>1048576</td>
+ * <td>The maximum size of a file that can be mapped when the "mappedFiles"
+ * parameter is enabled. Larger files are read via a regular file channel.</td>
+ * </tr>
  * </table>
  * 
  * @author Jerome Louvel
@@ -97,6 +118,9 @@ import org.restlet.representation.Variant;
  */
 public class FileClientHelper extends EntityClientHelper {
 
+    /** The cache of mapped files. */
+    private volatile MappedFileCache mappedFileCache;
+
     /**
      * Constructor.
      * 
@@ -179,7 +203,38 @@ public class FileClientHelper extends EntityClientHelper {
         // Take care of the file separator.
         return new FileEntity(
                 new File(LocalReference.localizePath(decodedPath)),
-                getMetadataService());
+                getMetadataService(), getMappedFileCache());
+    }
+
+    /**
+     * Returns the cache of mapped files.
+     * 
+     * @return The cache of mapped files or null if the "mappedFiles" parameter
+     *         is disabled or if the helper isn't started.
+     */
+    public MappedFileCache getMappedFileCache() {
+        return mappedFileCache;
+    }
+
+    /**
+     * Returns the maximum number of bytes mapped at the same time. Defaults to
+     * 64 MB.
+     * 
+     * @return The maximum number of bytes mapped at the same time.
+     */
+    public long getMaxMappedBytes() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "maxMappedBytes", "67108864"));
+    }
+
+    /**
+     * Returns the maximum size of a file that can be mapped. Defaults to 1 MB.
+     * 
+     * @return The maximum size of a file that can be mapped.
+     */
+    public long getMaxMappedFileSize() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "maxMappedFileSize", "1048576"));
     }
 
     /**
@@ -213,9 +268,13 @@ public class FileClientHelper extends EntityClientHelper {
                 || Method.HEAD.equals(request.getMethod())) {
             handleEntityGet(request, response, getEntity(decodedPath));
         } else if (Method.PUT.equals(request.getMethod())) {
-            handleFilePut(request, response, decodedPath, new File(decodedPath));
+            File file = new File(decodedPath);
+            handleFilePut(request, response, decodedPath, file);
+            invalidate(file);
         } else if (Method.DELETE.equals(request.getMethod())) {
-            handleFileDelete(response, new File(decodedPath));
+            File file = new File(decodedPath);
+            handleFileDelete(response, file);
+            invalidate(file);
         } else {
             response.setStatus(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED);
             response.getAllowedMethods().add(Method.GET);
@@ -663,6 +722,33 @@ public class FileClientHelper extends EntityClientHelper {
         }
     }
 
+    /**
+     * Removes a file from the cache of mapped files, if any. Other files are
+     * detected as modified based on their length and last modification date.
+     * 
+     * @param file
+     *            The modified or deleted file.
+     */
+    protected void invalidate(File file) {
+        MappedFileCache cache = getMappedFileCache();
+
+        if (cache != null) {
+            cache.remove(file);
+        }
+    }
+
+    /**
+     * Indicates if the content of small regular files should be memory-mapped
+     * and cached between calls. Defaults to "false".
+     * 
+     * @return True if the content of small regular files should be
+     *         memory-mapped.
+     */
+    public boolean isMappedFiles() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "mappedFiles", "false"));
+    }
+
     /**
      * Indicates if a failed upload can be resumed. This will prevent the
      * deletion of the temporary file created. Defaults to "false".
@@ -674,6 +760,28 @@ public class FileClientHelper extends EntityClientHelper {
                 "resumeUpload", "false"));
     }
 
+    @Override
+    public synchronized void start() throws Exception {
+        super.start();
+
+        if (isMappedFiles()) {
+            this.mappedFileCache = new MappedFileCache(getMaxMappedBytes(),
+                    getMaxMappedFileSize());
+        }
+    }
+
+    @Override
+    public synchronized void stop() throws Exception {
+        MappedFileCache cache = getMappedFileCache();
+        this.mappedFileCache = null;
+
+        if (cache != null) {
+            cache.clear();
+        }
+
+        super.stop();
+    }
+
     /**
      * Complete the given file name with the extension corresponding to the
      * given metadata.
@@ -34,9 +34,13 @@
 package org.restlet.engine.local;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 
+import org.restlet.Context;
 import org.restlet.data.MediaType;
 import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
@@ -50,6 +54,9 @@ public class FileEntity extends Entity {
     /** The underlying regular file. */
     private final File file;
 
+    /** The cache of mapped files or null. */
+    private final MappedFileCache mappedFileCache;
+
     /**
      * Constructor.
      * 
@@ -59,8 +66,24 @@ public class FileEntity extends Entity {
      *            The metadata service to use.
      */
     public FileEntity(File file, MetadataService metadataService) {
+        this(file, metadataService, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The underlying file.
+     * @param metadataService
+     *            The metadata service to use.
+     * @param mappedFileCache
+     *            The cache of mapped files or null.
+     */
+    public FileEntity(File file, MetadataService metadataService,
+            MappedFileCache mappedFileCache) {
         super(metadataService);
         this.file = file;
+        this.mappedFileCache = mappedFileCache;
     }
 
     @Override
@@ -87,7 +110,8 @@ public class FileEntity extends Entity {
             // try {
             // [enddef]
             for (File f : getFile().listFiles()) {
-                result.add(new FileEntity(f, getMetadataService()));
+                result.add(new FileEntity(f, getMetadataService(),
+                        getMappedFileCache()));
             }
             // [ifdef gae] uncomment
             // } catch (java.security.AccessControlException ace) {
@@ -107,6 +131,15 @@ public class FileEntity extends Entity {
         return file;
     }
 
+    /**
+     * Returns the cache of mapped files.
+     * 
+     * @return The cache of mapped files or null.
+     */
+    public MappedFileCache getMappedFileCache() {
+        return mappedFileCache;
+    }
+
     @Override
     public String getName() {
         return getFile().getName();
@@ -116,12 +149,26 @@ public class FileEntity extends Entity {
     public Entity getParent() {
         File parentFile = getFile().getParentFile();
         return (parentFile == null) ? null : new FileEntity(parentFile,
-                getMetadataService());
+                getMetadataService(), getMappedFileCache());
     }
 
     @Override
     public Representation getRepresentation(MediaType defaultMediaType,
             int timeToLive) {
+        if (getMappedFileCache() != null) {
+            try {
+                ByteBuffer content = getMappedFileCache().get(getFile());
+
+                if (content != null) {
+                    return new MappedFileRepresentation(getFile(), content,
+                            defaultMediaType, timeToLive);
+                }
+            } catch (IOException e) {
+                Context.getCurrentLogger().log(Level.FINE,
+                        "Unable to map the file " + getFile(), e);
+            }
+        }
+
         return new FileRepresentation(getFile(), defaultMediaType, timeToLive);
     }
 
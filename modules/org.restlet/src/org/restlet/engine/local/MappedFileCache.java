@@ -0,0 +1,249 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of memory-mapped regular files. Each file is
+ * mapped in read-only mode and is identified by its absolute path, its last
+ * modification date and its length, so that a modified file is mapped again.<br>
+ * <br>
+ * The total number of mapped bytes is limited, the least recently used files
+ * being evicted when needed. Note that evicted files are only unmapped when
+ * their buffer is garbage collected, and that the mapped files shouldn't be
+ * truncated while still in use.
+ * 
+ * @author Jerome Louvel
+ */
+public class MappedFileCache {
+
+    /**
+     * Cached mapping of a file.
+     */
+    private static final class Entry {
+
+        /** The mapped buffer. */
+        private final MappedByteBuffer buffer;
+
+        /** The last modification date of the file when mapped. */
+        private final long lastModified;
+
+        /** The length of the file when mapped. */
+        private final long length;
+
+        /**
+         * Constructor.
+         * 
+         * @param buffer
+         *            The mapped buffer.
+         * @param lastModified
+         *            The last modification date of the file when mapped.
+         * @param length
+         *            The length of the file when mapped.
+         */
+        private Entry(MappedByteBuffer buffer, long lastModified, long length) {
+            this.buffer = buffer;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
+    /** The cached entries, in access order. */
+    private final Map<String, Entry> entries;
+
+    /** The maximum size of a mapped file. */
+    private final long maxFileSize;
+
+    /** The maximum number of mapped bytes. */
+    private final long maxMappedBytes;
+
+    /** The current number of mapped bytes. */
+    private long mappedBytes;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxMappedBytes
+     *            The maximum number of mapped bytes.
+     * @param maxFileSize
+     *            The maximum size of a mapped file.
+     */
+    public MappedFileCache(long maxMappedBytes, long maxFileSize) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        this.maxFileSize = Math.min(maxFileSize, Integer.MAX_VALUE);
+        this.maxMappedBytes = maxMappedBytes;
+        this.mappedBytes = 0;
+    }
+
+    /**
+     * Removes all the cached files.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.mappedBytes = 0;
+    }
+
+    /**
+     * Returns a read-only buffer with the content of a file. The file is
+     * mapped if it isn't cached yet or if it was modified since it was mapped.
+     * Each call returns a new buffer sharing the mapped content, with its own
+     * position.
+     * 
+     * @param file
+     *            The regular file to read.
+     * @return The buffer or null if the file can't be mapped.
+     * @throws IOException
+     */
+    public ByteBuffer get(File file) throws IOException {
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        if ((length <= 0) || (length > getMaxFileSize())
+                || (length > getMaxMappedBytes())) {
+            return null;
+        }
+
+        String path = file.getAbsolutePath();
+        Entry entry;
+
+        synchronized (this) {
+            entry = this.entries.get(path);
+        }
+
+        if ((entry == null) || (entry.lastModified != lastModified)
+                || (entry.length != length)) {
+            entry = new Entry(map(file, length), lastModified, length);
+
+            synchronized (this) {
+                Entry previous = this.entries.put(path, entry);
+
+                if (previous != null) {
+                    this.mappedBytes -= previous.length;
+                }
+
+                this.mappedBytes += length;
+                evict();
+            }
+        }
+
+        return entry.buffer.duplicate();
+    }
+
+    /**
+     * Returns the current number of mapped bytes.
+     * 
+     * @return The current number of mapped bytes.
+     */
+    public synchronized long getMappedBytes() {
+        return this.mappedBytes;
+    }
+
+    /**
+     * Returns the maximum size of a mapped file.
+     * 
+     * @return The maximum size of a mapped file.
+     */
+    public long getMaxFileSize() {
+        return this.maxFileSize;
+    }
+
+    /**
+     * Returns the maximum number of mapped bytes.
+     * 
+     * @return The maximum number of mapped bytes.
+     */
+    public long getMaxMappedBytes() {
+        return this.maxMappedBytes;
+    }
+
+    /**
+     * Evicts the least recently used files until the number of mapped bytes
+     * is under the limit.
+     */
+    private void evict() {
+        Iterator<Entry> iterator = this.entries.values().iterator();
+
+        while ((this.mappedBytes > getMaxMappedBytes()) && iterator.hasNext()) {
+            this.mappedBytes -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Maps the content of a file in read-only mode.
+     * 
+     * @param file
+     *            The file to map.
+     * @param length
+     *            The number of bytes to map.
+     * @return The mapped buffer.
+     * @throws IOException
+     */
+    protected MappedByteBuffer map(File file, long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try {
+            return raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0,
+                    length);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Removes a file from the cache, for example when it is updated or
+     * deleted.
+     * 
+     * @param file
+     *            The file to remove.
+     */
+    public synchronized void remove(File file) {
+        Entry entry = this.entries.remove(file.getAbsolutePath());
+
+        if (entry != null) {
+            this.mappedBytes -= entry.length;
+        }
+    }
+
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.WritableByteChannel;
+import java.util.Date;
+
+import org.restlet.data.Disposition;
+import org.restlet.data.MediaType;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.NioUtils;
+import org.restlet.representation.ChannelRepresentation;
+
+/**
+ * Representation of a regular file whose content has been memory-mapped. The
+ * channels and streams returned read the mapped content directly, without
+ * opening the file again.
+ * 
+ * @see MappedFileCache
+ * @author Jerome Louvel
+ */
+public class MappedFileRepresentation extends ChannelRepresentation {
+
+    /**
+     * Readable channel reading the content of a byte buffer.
+     */
+    private static final class BufferChannel implements ReadableByteChannel {
+
+        /** The source buffer or null if closed. */
+        private volatile ByteBuffer source;
+
+        /**
+         * Constructor.
+         * 
+         * @param source
+         *            The source buffer.
+         */
+        private BufferChannel(ByteBuffer source) {
+            this.source = source;
+        }
+
+        public void close() throws IOException {
+            this.source = null;
+        }
+
+        public boolean isOpen() {
+            return this.source != null;
+        }
+
+        public int read(ByteBuffer dst) throws IOException {
+            ByteBuffer src = this.source;
+
+            if (src == null) {
+                throw new ClosedChannelException();
+            }
+
+            if (!src.hasRemaining()) {
+                return -1;
+            }
+
+            int result = Math.min(src.remaining(), dst.remaining());
+
+            if (result == src.remaining()) {
+                dst.put(src);
+            } else {
+                ByteBuffer slice = src.slice();
+                slice.limit(result);
+                dst.put(slice);
+                src.position(src.position() + result);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Input stream reading the content of a byte buffer.
+     */
+    private static final class BufferInputStream extends InputStream {
+
+        /** The source buffer. */
+        private final ByteBuffer source;
+
+        /**
+         * Constructor.
+         * 
+         * @param source
+         *            The source buffer.
+         */
+        private BufferInputStream(ByteBuffer source) {
+            this.source = source;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return this.source.remaining();
+        }
+
+        @Override
+        public int read() throws IOException {
+            return this.source.hasRemaining() ? (this.source.get() & 0xff)
+                    : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!this.source.hasRemaining()) {
+                return -1;
+            }
+
+            int result = Math.min(len, this.source.remaining());
+            this.source.get(b, off, result);
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            int result = (int) Math.max(0,
+                    Math.min(n, this.source.remaining()));
+            this.source.position(this.source.position() + result);
+            return result;
+        }
+    }
+
+    /** The mapped content. */
+    private final ByteBuffer content;
+
+    /** The represented file. */
+    private final File file;
+
+    /**
+     * Constructor. If a positive "timeToLive" parameter is given, then the
+     * expiration date is set accordingly. If "timeToLive" is equal to zero,
+     * then the expiration date is set to the current date, meaning that it will
+     * immediately expire on the client. If -1 is given, then no expiration date
+     * is set.
+     * 
+     * @param file
+     *            The represented file.
+     * @param content
+     *            The mapped content of the file.
+     * @param mediaType
+     *            The representation's media type.
+     * @param timeToLive
+     *            The time to live before it expires (in seconds).
+     */
+    public MappedFileRepresentation(File file, ByteBuffer content,
+            MediaType mediaType, int timeToLive) {
+        super(mediaType);
+        this.file = file;
+        this.content = content;
+        setModificationDate(new Date(file.lastModified()));
+        setSize(content.remaining());
+
+        if (timeToLive == 0) {
+            setExpirationDate(null);
+        } else if (timeToLive > 0) {
+            setExpirationDate(new Date(System.currentTimeMillis()
+                    + (1000L * timeToLive)));
+        }
+
+        Disposition disposition = new Disposition();
+        disposition.setFilename(file.getName());
+        setDisposition(disposition);
+    }
+
+    /**
+     * Returns a readable channel on a new view of the mapped content.
+     * 
+     * @return A readable channel on the mapped content.
+     */
+    @Override
+    public ReadableByteChannel getChannel() throws IOException {
+        return new BufferChannel(this.content.duplicate());
+    }
+
+    /**
+     * Returns the represented file.
+     * 
+     * @return The represented file.
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns an input stream on a new view of the mapped content.
+     * 
+     * @return An input stream on the mapped content.
+     */
+    @Override
+    public InputStream getStream() throws IOException {
+        return new BufferInputStream(this.content.duplicate());
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        BioUtils.copy(getStream(), outputStream);
+    }
+
+    /**
+     * Writes the mapped content to a byte channel, without intermediary copy.
+     * When a non-blocking channel can't accept more bytes, waits for it to be
+     * ready for writing again.
+     * 
+     * @param writableChannel
+     *            A writable byte channel.
+     */
+    @Override
+    public void write(WritableByteChannel writableChannel) throws IOException {
+        ByteBuffer source = this.content.duplicate();
+        SelectableChannel selectableChannel = null;
+
+        if (!NioUtils.isBlocking(writableChannel)) {
+            selectableChannel = (SelectableChannel) writableChannel;
+        }
+
+        while (source.hasRemaining()) {
+            if (writableChannel.write(source) == 0) {
+                NioUtils.waitForState(selectableChannel, SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,345 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.log;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.restlet.Context;
+import org.restlet.service.LogService;
+
+/**
+ * Background writer of access log entries. The records captured by the threads
+ * handling the calls are put in a bounded ring buffer, then formatted and
+ * written in batches either to a file, via a single file channel, or to the
+ * JDK's logger of each record.
+ * 
+ * @author Jerome Louvel
+ */
+public class AsyncLogWriter implements Runnable {
+
+    /** The maximum number of records written at once. */
+    private static final int BATCH_SIZE = 256;
+
+    /** Indicates if a full queue blocks the callers. */
+    private final boolean blocking;
+
+    /** The file channel written, if any. */
+    private volatile FileChannel channel;
+
+    /** The number of dropped records. */
+    private final AtomicLong droppedCount;
+
+    /** The path of the file written, if any. */
+    private final String filePath;
+
+    /** The log service formatting the records. */
+    private final LogService logService;
+
+    /** The queue of pending records. */
+    private final BlockingQueue<ResponseLogRecord> queue;
+
+    /** Indicates if the writer is running. */
+    private volatile boolean running;
+
+    /** The background thread. */
+    private volatile Thread thread;
+
+    /** The number of records successfully written. */
+    private final AtomicLong writtenCount;
+
+    /**
+     * Constructor.
+     * 
+     * @param logService
+     *            The log service formatting the records.
+     * @param capacity
+     *            The capacity of the queue of pending records.
+     * @param blocking
+     *            Indicates if a full queue blocks the callers.
+     * @param filePath
+     *            The path of the file written or null to use the JDK's loggers.
+     */
+    public AsyncLogWriter(LogService logService, int capacity,
+            boolean blocking, String filePath) {
+        this.logService = logService;
+        this.queue = new ArrayBlockingQueue<ResponseLogRecord>(capacity);
+        this.blocking = blocking;
+        this.filePath = filePath;
+        this.droppedCount = new AtomicLong();
+        this.writtenCount = new AtomicLong();
+    }
+
+    /**
+     * Returns the number of records dropped because the queue was full.
+     * 
+     * @return The number of dropped records.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Returns the logger.
+     * 
+     * @return The logger.
+     */
+    private Logger getLogger() {
+        return Context.getCurrentLogger();
+    }
+
+    /**
+     * Returns the number of pending records.
+     * 
+     * @return The number of pending records.
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of records successfully formatted and written.
+     * 
+     * @return The number of written records.
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Indicates if the writer is running.
+     * 
+     * @return True if the writer is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Queues a record. If the queue is full, the record is dropped, unless the
+     * writer is blocking.
+     * 
+     * @param record
+     *            The record to queue.
+     * @return True if the record was queued.
+     */
+    public boolean offer(ResponseLogRecord record) {
+        boolean result = false;
+
+        if (isRunning()) {
+            if (this.blocking) {
+                try {
+                    this.queue.put(record);
+                    result = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                result = this.queue.offer(record);
+            }
+        }
+
+        if (!result) {
+            this.droppedCount.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    /**
+     * Closes the log file, if any.
+     */
+    private void closeChannel() {
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                getLogger().log(Level.WARNING,
+                        "Unable to close the access log file", e);
+            }
+
+            this.channel = null;
+        }
+    }
+
+    /**
+     * Writes the queued records in batches until the writer is stopped and the
+     * queue is empty, then closes the log file, if any. If the thread is
+     * interrupted after the writer is stopped, the pending records are
+     * dropped.
+     */
+    public void run() {
+        List<ResponseLogRecord> batch = new ArrayList<ResponseLogRecord>(
+                BATCH_SIZE);
+        ResponseLogRecord record;
+        boolean interrupted = false;
+
+        try {
+            while (!interrupted && (isRunning() || !this.queue.isEmpty())) {
+                try {
+                    record = this.queue.poll(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    record = null;
+                    interrupted = !isRunning();
+                }
+
+                if (record != null) {
+                    batch.add(record);
+                    this.queue.drainTo(batch, BATCH_SIZE - 1);
+                    write(batch);
+                    batch.clear();
+                }
+            }
+
+            if (interrupted) {
+                this.droppedCount.addAndGet(this.queue.size());
+                this.queue.clear();
+            }
+        } finally {
+            closeChannel();
+        }
+    }
+
+    /**
+     * Opens the log file, if any, and starts the background thread.
+     * 
+     * @throws IOException
+     */
+    public synchronized void start() throws IOException {
+        if (!isRunning()) {
+            if (this.filePath != null) {
+                this.channel = new FileOutputStream(this.filePath, true)
+                        .getChannel();
+            }
+
+            this.running = true;
+            this.thread = new LoggingThreadFactory(getLogger(), true)
+                    .newThread(this);
+            this.thread.setName("Restlet-AsyncLogWriter-"
+                    + this.thread.hashCode());
+            this.thread.start();
+        }
+    }
+
+    /**
+     * Stops the background thread after writing the pending records. If they
+     * can't be written within 5 seconds, the thread is interrupted. The log
+     * file, if any, is closed by the background thread when it exits.
+     */
+    public synchronized void stop() {
+        if (isRunning()) {
+            this.running = false;
+            Thread t = this.thread;
+
+            if (t != null) {
+                try {
+                    t.join(5000);
+
+                    if (t.isAlive()) {
+                        t.interrupt();
+                        t.join(5000);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                if (t.isAlive()) {
+                    getLogger().warning(
+                            "The access log writer thread didn't stop");
+                }
+
+                this.thread = null;
+            }
+        }
+    }
+
+    /**
+     * Formats and writes a batch of records.
+     * 
+     * @param batch
+     *            The batch of records.
+     */
+    protected void write(List<ResponseLogRecord> batch) {
+        StringBuilder sb = (this.channel == null) ? null : new StringBuilder(
+                batch.size() * 128);
+        String message;
+        int formatted = 0;
+
+        for (ResponseLogRecord record : batch) {
+            try {
+                message = this.logService.formatResponseLog(record);
+            } catch (Throwable t) {
+                getLogger().log(Level.WARNING,
+                        "Unable to format an access log entry", t);
+                continue;
+            }
+
+            if (sb != null) {
+                sb.append(message).append('\n');
+                formatted++;
+            } else if (record.getLogger() != null) {
+                record.getLogger().log(Level.INFO, message);
+                this.writtenCount.incrementAndGet();
+            }
+        }
+
+        if (sb != null) {
+            try {
+                ByteBuffer bytes = ByteBuffer.wrap(sb.toString().getBytes(
+                        "UTF-8"));
+
+                while (bytes.hasRemaining()) {
+                    this.channel.write(bytes);
+                }
+
+                this.writtenCount.addAndGet(formatted);
+            } catch (IOException e) {
+                getLogger().log(Level.WARNING,
+                        "Unable to write to the access log file", e);
+            }
+        }
+    }
+
+}
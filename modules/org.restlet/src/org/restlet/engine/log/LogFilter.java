@@ -90,7 +90,8 @@ public class LogFilter extends Filter {
     }
 
     /**
-     * Allows filtering after processing by the next Restlet. Logs the call.
+     * Allows filtering after processing by the next Restlet. Logs the call,
+     * or queues it when the log service is asynchronous.
      * 
      * @param request
      *            The request to handle.
@@ -103,8 +104,15 @@ public class LogFilter extends Filter {
             long startTime = (Long) request.getAttributes().get(
                     "org.restlet.startTime");
             int duration = (int) (System.currentTimeMillis() - startTime);
-            this.logLogger.log(Level.INFO,
-                    this.logService.getResponseLogMessage(response, duration));
+            AsyncLogWriter asyncWriter = this.logService.getAsyncWriter();
+
+            if (asyncWriter != null) {
+                asyncWriter.offer(this.logService.captureResponseLog(
+                        this.logLogger, response, duration));
+            } else {
+                this.logLogger.log(Level.INFO, this.logService
+                        .getResponseLogMessage(response, duration));
+            }
         }
     }
 
@@ -62,6 +62,9 @@ public class LoggingThreadFactory implements ThreadFactory {
     /** Indicates if threads should be created as daemons. */
     private final boolean daemon;
 
+    /** The factory actually creating the threads, if any. */
+    private final ThreadFactory factory;
+
     /**
      * Constructor.
      * 
@@ -83,6 +86,23 @@ public class LoggingThreadFactory implements ThreadFactory {
     public LoggingThreadFactory(Logger logger, boolean daemon) {
         this.logger = logger;
         this.daemon = daemon;
+        this.factory = null;
+    }
+
+    /**
+     * Constructor delegating the creation of threads to another factory, such
+     * as a factory of virtual threads. The name and the daemon status of the
+     * threads are left untouched.
+     * 
+     * @param logger
+     *            The associated logger.
+     * @param factory
+     *            The factory actually creating the threads.
+     */
+    public LoggingThreadFactory(Logger logger, ThreadFactory factory) {
+        this.logger = logger;
+        this.daemon = true;
+        this.factory = factory;
     }
 
     /**
@@ -92,10 +112,18 @@ public class LoggingThreadFactory implements ThreadFactory {
      *            The runnable task.
      */
     public Thread newThread(Runnable r) {
-        Thread result = new Thread(r);
-        result.setName("Restlet-" + result.hashCode());
-        result.setUncaughtExceptionHandler(new LoggingExceptionHandler());
-        result.setDaemon(this.daemon);
+        Thread result = null;
+
+        if (this.factory != null) {
+            result = this.factory.newThread(r);
+            result.setUncaughtExceptionHandler(new LoggingExceptionHandler());
+        } else {
+            result = new Thread(r);
+            result.setName("Restlet-" + result.hashCode());
+            result.setUncaughtExceptionHandler(new LoggingExceptionHandler());
+            result.setDaemon(this.daemon);
+        }
+
         return result;
     }
 }
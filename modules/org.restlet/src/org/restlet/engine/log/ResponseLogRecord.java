@@ -0,0 +1,151 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.log;
+
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.restlet.service.LogService;
+
+/**
+ * Compact record of the values needed to format an access log entry, captured
+ * by the thread handling the call.
+ * 
+ * @author Jerome Louvel
+ * @see LogService#captureResponseLog(Logger, org.restlet.Response, int)
+ */
+public class ResponseLogRecord {
+
+    /** The fields of the default log format, except the date and time. */
+    private final String[] fields;
+
+    /** The logger of the log entry. */
+    private final Logger logger;
+
+    /** The log entry already formatted. */
+    private final String message;
+
+    /** The time of the log entry. */
+    private final long time;
+
+    /** The resolved variables of the log template. */
+    private final Map<String, String> variables;
+
+    /**
+     * Constructor.
+     * 
+     * @param logger
+     *            The logger of the log entry.
+     * @param time
+     *            The time of the log entry.
+     * @param fields
+     *            The fields of the default log format, except the date and
+     *            time.
+     * @param variables
+     *            The resolved variables of the log template.
+     */
+    public ResponseLogRecord(Logger logger, long time, String[] fields,
+            Map<String, String> variables) {
+        this.logger = logger;
+        this.time = time;
+        this.fields = fields;
+        this.message = null;
+        this.variables = variables;
+    }
+
+    /**
+     * Constructor for a log entry already formatted.
+     * 
+     * @param logger
+     *            The logger of the log entry.
+     * @param time
+     *            The time of the log entry.
+     * @param message
+     *            The log entry already formatted.
+     */
+    public ResponseLogRecord(Logger logger, long time, String message) {
+        this.logger = logger;
+        this.time = time;
+        this.fields = null;
+        this.message = message;
+        this.variables = null;
+    }
+
+    /**
+     * Returns the fields of the default log format, except the date and time.
+     * 
+     * @return The fields of the default log format or null.
+     */
+    public String[] getFields() {
+        return fields;
+    }
+
+    /**
+     * Returns the logger of the log entry.
+     * 
+     * @return The logger of the log entry.
+     */
+    public Logger getLogger() {
+        return logger;
+    }
+
+    /**
+     * Returns the log entry already formatted.
+     * 
+     * @return The log entry already formatted or null.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the time of the log entry.
+     * 
+     * @return The time of the log entry.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the resolved variables of the log template.
+     * 
+     * @return The resolved variables of the log template or null.
+     */
+    public Map<String, String> getVariables() {
+        return variables;
+    }
+
+}
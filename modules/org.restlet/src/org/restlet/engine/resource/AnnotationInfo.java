@@ -158,9 +158,15 @@ public class AnnotationInfo {
     /** The input part of the annotation value. */
     private final String input;
 
+    /** The resolved input types of the Java method, computed once. */
+    private volatile Class<?>[] javaInputTypes;
+
     /** The annotated Java method. */
     private final java.lang.reflect.Method javaMethod;
 
+    /** The resolved output type of the Java method, computed once. */
+    private volatile Class<?> javaOutputType;
+
     /** The output part of the annotation value. */
     private final String output;
 
@@ -192,6 +198,16 @@ public class AnnotationInfo {
         this.restletMethod = restletMethod;
         this.javaMethod = javaMethod;
 
+        if (javaMethod != null) {
+            try {
+                // Skip the access checks on each invocation
+                javaMethod.setAccessible(true);
+            } catch (RuntimeException e) {
+                // Keep the access checks, either denied by a security manager
+                // or by a module not opening the package
+            }
+        }
+
         // Parse the main components of the annotation value
         if ((value != null) && !value.equals("")) {
             int queryIndex = value.indexOf('?');
@@ -331,19 +347,26 @@ public class AnnotationInfo {
     }
 
     /**
-     * Returns the input types of the Java method.
+     * Returns the input types of the Java method. They are resolved once and
+     * the returned array must not be modified.
      * 
      * @return The input types of the Java method.
      */
     public Class<?>[] getJavaInputTypes() {
-        int count = getJavaMethod().getParameterTypes().length;
-        Class<?>[] classes = new Class[count];
+        Class<?>[] result = this.javaInputTypes;
+
+        if (result == null) {
+            int count = getJavaMethod().getParameterTypes().length;
+            result = new Class[count];
 
-        for (int i = 0; i < count; i++) {
-            classes[i] = getJavaInputType(i);
+            for (int i = 0; i < count; i++) {
+                result[i] = getJavaInputType(i);
+            }
+
+            this.javaInputTypes = result;
         }
 
-        return classes;
+        return result;
     }
 
     /**
@@ -361,8 +384,15 @@ public class AnnotationInfo {
      * @return The output type of the Java method.
      */
     public Class<?> getJavaOutputType() {
-        return getJavaActualType(getJavaMethod().getReturnType(),
-                getJavaMethod().getGenericReturnType());
+        Class<?> result = this.javaOutputType;
+
+        if (result == null) {
+            result = getJavaActualType(getJavaMethod().getReturnType(),
+                    getJavaMethod().getGenericReturnType());
+            this.javaOutputType = result;
+        }
+
+        return result;
     }
 
     /**
@@ -34,6 +34,7 @@
 package org.restlet.engine.resource;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -56,6 +57,9 @@ public class AnnotationUtils {
     /** Annotation info cache. */
     private static final ConcurrentMap<Class<?>, List<AnnotationInfo>> cache = new ConcurrentHashMap<Class<?>, List<AnnotationInfo>>();
 
+    /** Default constructor cache. */
+    private static final ConcurrentMap<Class<?>, Constructor<?>> constructorCache = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
     /**
      * Computes the annotation descriptors for the given Java method.
      * 
@@ -159,10 +163,11 @@ public class AnnotationUtils {
     }
 
     /**
-     * Clears the annotation descriptors cache.
+     * Clears the annotation descriptors and default constructors caches.
      */
     public static void clearCache() {
         cache.clear();
+        constructorCache.clear();
     }
 
     /**
@@ -260,6 +265,48 @@ public class AnnotationUtils {
         return addAnnotationDescriptors(null, clazz, javaMethod);
     }
 
+    /**
+     * Returns the public default constructor of the given class. It is looked
+     * up once and made accessible in order to skip the access checks on each
+     * instantiation.
+     * 
+     * @param <T>
+     *            The class type.
+     * @param clazz
+     *            The class to instantiate.
+     * @return The default constructor.
+     * @throws NoSuchMethodException
+     *             If the class has no public default constructor.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Constructor<T> getDefaultConstructor(Class<T> clazz)
+            throws NoSuchMethodException {
+        Constructor<T> result = (Constructor<T>) constructorCache.get(clazz);
+
+        if (result == null) {
+            result = clazz.getConstructor();
+
+            try {
+                result.setAccessible(true);
+            } catch (RuntimeException e) {
+                // Keep the access checks, either denied by a security manager
+                // or by a module not opening the package
+            }
+
+            // Put the constructor in the cache if no one was previously
+            // present
+            Constructor<T> prev = (Constructor<T>) constructorCache
+                    .putIfAbsent(clazz, result);
+
+            if (prev != null) {
+                // Reuse the previous entry
+                result = prev;
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Private constructor to ensure that the class acts as a true utility class
      * i.e. it isn't instantiable and extensible.
@@ -0,0 +1,207 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.resource;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Uniform;
+
+/**
+ * Future handle of an asynchronous client call. It is completed by the client
+ * connector thread that receives the final response, which then invokes the
+ * optional completion callback. No thread is parked while the call is pending,
+ * unless one of the blocking {@link #get()} methods is explicitly invoked.
+ * 
+ * @author Jerome Louvel
+ */
+public class ResponseFuture implements Future<Response>, Uniform {
+
+    /** The optional callback invoked on completion. */
+    private final Uniform callback;
+
+    /** Indicates if the future was cancelled. */
+    private volatile boolean cancelled;
+
+    /** Indicates if the future is done. */
+    private final AtomicBoolean done;
+
+    /** The latch released on completion, for blocking callers. */
+    private final CountDownLatch latch;
+
+    /** The final response. */
+    private volatile Response response;
+
+    /**
+     * Constructor.
+     * 
+     * @param callback
+     *            The optional callback invoked on completion.
+     */
+    public ResponseFuture(Uniform callback) {
+        this.callback = callback;
+        this.cancelled = false;
+        this.done = new AtomicBoolean(false);
+        this.latch = new CountDownLatch(1);
+        this.response = null;
+    }
+
+    /**
+     * Cancels the call. The completion callback won't be invoked and the
+     * response, if it is later received, will be ignored. Note that the
+     * request might already have been sent to the server.
+     * 
+     * @param mayInterruptIfRunning
+     *            Ignored as no thread is running the call.
+     * @return True if the future was cancelled.
+     */
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean result = this.done.compareAndSet(false, true);
+
+        if (result) {
+            this.cancelled = true;
+            this.latch.countDown();
+        }
+
+        return result;
+    }
+
+    /**
+     * Waits if necessary for the call to complete, and then returns the final
+     * response.
+     * 
+     * @return The final response.
+     */
+    public Response get() throws InterruptedException, ExecutionException {
+        this.latch.await();
+        return getResponse();
+    }
+
+    /**
+     * Waits if necessary for at most the given time for the call to complete,
+     * and then returns the final response.
+     * 
+     * @param timeout
+     *            The maximum time to wait.
+     * @param unit
+     *            The time unit of the timeout argument.
+     * @return The final response.
+     */
+    public Response get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!this.latch.await(timeout, unit)) {
+            throw new TimeoutException(
+                    "The response wasn't received in the given time");
+        }
+
+        return getResponse();
+    }
+
+    /**
+     * Returns the optional callback invoked on completion.
+     * 
+     * @return The optional callback invoked on completion.
+     */
+    public Uniform getCallback() {
+        return callback;
+    }
+
+    /**
+     * Returns the final response, once the future is done.
+     * 
+     * @return The final response.
+     */
+    private Response getResponse() {
+        if (isCancelled()) {
+            throw new CancellationException("The call was cancelled");
+        }
+
+        return this.response;
+    }
+
+    /**
+     * Completes the future with the given final response, then invokes the
+     * completion callback. Subsequent invocations are ignored.
+     * 
+     * @param request
+     *            The request handled.
+     * @param response
+     *            The final response.
+     */
+    public void handle(Request request, Response response) {
+        if (this.done.compareAndSet(false, true)) {
+            this.response = response;
+            this.latch.countDown();
+
+            if (getCallback() != null) {
+                try {
+                    getCallback().handle(request, response);
+                } catch (Throwable t) {
+                    Context.getCurrentLogger().log(Level.WARNING,
+                            "Unexpected error or exception inside the callback",
+                            t);
+                }
+            }
+        }
+    }
+
+    /**
+     * Indicates if the call was cancelled before completion.
+     * 
+     * @return True if the call was cancelled before completion.
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Indicates if the call is completed or cancelled.
+     * 
+     * @return True if the call is completed or cancelled.
+     */
+    public boolean isDone() {
+        return this.done.get();
+    }
+
+}
@@ -145,7 +145,9 @@ public final class DateUtils {
     }
 
     /**
-     * Formats a Date according to the first format in the array.
+     * Formats a Date according to the first format in the array. The HTTP
+     * formats have a fast path and the last formatted RFC 1123 date is cached
+     * for the current second.
      * 
      * @param date
      *            The date to format.
@@ -159,6 +161,12 @@ public final class DateUtils {
         }
 
         // [ifndef gwt]
+        String result = HttpDateUtils.format(date, format);
+
+        if (result != null) {
+            return result;
+        }
+
         java.text.DateFormat formatter = null;
 
         if (FORMAT_RFC_3339.get(0).equals(format)) {
@@ -201,7 +209,8 @@ public final class DateUtils {
     }
 
     /**
-     * Parses a formatted date into a Date object.
+     * Parses a formatted date into a Date object. The canonical forms of the
+     * HTTP formats are parsed without creating a date format.
      * 
      * @param date
      *            The date to parse.
@@ -222,6 +231,12 @@ public final class DateUtils {
         for (int i = 0; (result == null) && (i < formatsSize); i++) {
             format = formats.get(i);
             // [ifndef gwt]
+            result = HttpDateUtils.parse(date, format);
+
+            if (result != null) {
+                break;
+            }
+
             java.text.DateFormat parser = null;
 
             if (FORMAT_RFC_3339.get(0).equals(format)) {
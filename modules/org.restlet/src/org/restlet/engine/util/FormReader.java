@@ -38,8 +38,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.logging.Level;
 
 import org.restlet.Context;
@@ -50,23 +54,243 @@ import org.restlet.representation.Representation;
 import org.restlet.util.Series;
 
 /**
- * Form reader.
+ * Form reader. The parameters are parsed incrementally from the underlying
+ * stream, percent-decoding them into reusable buffers. Beside the methods
+ * reading the whole form at once, large forms can be processed one parameter
+ * at a time, either by iterating over the reader or by passing a
+ * {@link ParameterHandler} to {@link #read(ParameterHandler)}. Note that a
+ * reader can only be consumed once.
  * 
  * @author Jerome Louvel
  */
-public class FormReader {
+public class FormReader implements Iterable<Parameter> {
+
+    /**
+     * Iterator pulling the parameters from the form stream as they are
+     * requested.
+     */
+    private class ParameterIterator implements Iterator<Parameter> {
+
+        /** The next parameter, already read but not returned. */
+        private Parameter next;
+
+        /** Indicates if the end of the form has been reached. */
+        private boolean end;
+
+        /**
+         * Closes the form stream once the iteration has ended.
+         */
+        private void close() {
+            this.end = true;
+
+            try {
+                if (stream != null) {
+                    stream.close();
+                }
+            } catch (IOException ioe) {
+                Context.getCurrentLogger().log(Level.WARNING,
+                        "Unable to close the form input stream", ioe);
+            }
+        }
+
+        /**
+         * Indicates if a parameter remains. Reading errors are rethrown as an
+         * {@link IllegalStateException}, as the iterator methods can't throw
+         * an {@link IOException}.
+         * 
+         * @return True if a parameter remains.
+         */
+        public boolean hasNext() {
+            if ((this.next == null) && !this.end) {
+                try {
+                    this.next = (stream == null) ? null : readNextParameter();
+                } catch (IOException ioe) {
+                    close();
+                    throw new IllegalStateException(
+                            "Unable to parse a form parameter", ioe);
+                }
+
+                if (this.next == null) {
+                    close();
+                }
+            }
+
+            return this.next != null;
+        }
+
+        public Parameter next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Parameter result = this.next;
+            this.next = null;
+            return result;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException(
+                    "The parameters of a form reader can't be removed");
+        }
+    }
+
+    /**
+     * Reusable buffer accumulating the bytes of a parameter name or value,
+     * percent-decoding them as they are appended.
+     */
+    private static class TokenBuffer {
+
+        /** The accumulated bytes. */
+        private byte[] bytes = new byte[64];
+
+        /** Indicates if the bytes should be decoded. */
+        private final boolean decode;
+
+        /** The number of hexadecimal digits left in the current escape. */
+        private int escapeDigits;
+
+        /** The value of the current escape. */
+        private int escapeValue;
+
+        /** The number of accumulated bytes. */
+        private int length;
+
+        /**
+         * Constructor.
+         * 
+         * @param decode
+         *            Indicates if the bytes should be decoded.
+         */
+        public TokenBuffer(boolean decode) {
+            this.decode = decode;
+        }
+
+        /**
+         * Appends a byte read from the form, decoding it if needed.
+         * 
+         * @param b
+         *            The byte to append.
+         */
+        public void append(int b) {
+            if (!this.decode) {
+                put(b);
+            } else if (this.escapeDigits > 0) {
+                int digit = Character.digit((char) b, 16);
+
+                if (digit < 0) {
+                    throw new IllegalArgumentException(
+                            "Illegal hex characters in escape (%) pattern");
+                }
+
+                this.escapeValue = (this.escapeValue << 4) + digit;
+
+                if (--this.escapeDigits == 0) {
+                    put(this.escapeValue);
+                }
+            } else if (b == '%') {
+                this.escapeDigits = 2;
+                this.escapeValue = 0;
+            } else if (b == '+') {
+                put(' ');
+            } else {
+                put(b);
+            }
+        }
+
+        /**
+         * Clears the buffer, keeping its allocated storage.
+         */
+        public void clear() {
+            this.length = 0;
+            this.escapeDigits = 0;
+        }
+
+        /**
+         * Indicates if nothing has been appended since the last clearing.
+         * 
+         * @return True if nothing has been appended.
+         */
+        public boolean isEmpty() {
+            return (this.length == 0) && (this.escapeDigits == 0);
+        }
+
+        /**
+         * Stores a byte, growing the storage if needed.
+         * 
+         * @param b
+         *            The byte to store.
+         */
+        private void put(int b) {
+            if (this.length == this.bytes.length) {
+                byte[] newBytes = new byte[this.bytes.length * 2];
+                System.arraycopy(this.bytes, 0, newBytes, 0, this.length);
+                this.bytes = newBytes;
+            }
+
+            this.bytes[this.length++] = (byte) b;
+        }
+
+        /**
+         * Returns the accumulated bytes as a string.
+         * 
+         * @param characterSet
+         *            The character set of the decoded bytes.
+         * @return The accumulated bytes as a string.
+         * @throws UnsupportedEncodingException
+         */
+        public String toString(CharacterSet characterSet)
+                throws UnsupportedEncodingException {
+            if (this.escapeDigits > 0) {
+                throw new IllegalArgumentException(
+                        "Incomplete trailing escape (%) pattern");
+            }
+
+            String result = null;
+
+            if (this.decode) {
+                result = new String(this.bytes, 0, this.length,
+                        characterSet.getName());
+            } else {
+                result = new String(this.bytes, 0, this.length, "ISO-8859-1");
+            }
+
+            return result;
+        }
+    }
+
+    /** The size of the buffer used to read the form stream. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** The buffer of bytes read from the form stream. */
+    private volatile byte[] buffer;
+
+    /** The number of bytes available in the read buffer. */
+    private volatile int bufferLength;
+
+    /** The position of the next byte to return in the read buffer. */
+    private volatile int bufferPosition;
+
     /** The encoding to use, decoding is enabled, see {@link #decode}. */
     private volatile CharacterSet characterSet;
 
     /** Indicates if the parameters should be decoded. */
     private volatile boolean decode;
 
+    /** Indicates if an iteration over the parameters has started. */
+    private volatile boolean iterated;
+
+    /** The buffer of the parameter name being read. */
+    private volatile TokenBuffer nameBuffer;
+
     /** The separator character used between parameters. */
     private volatile char separator;
 
     /** The form stream. */
     private volatile InputStream stream;
 
+    /** The buffer of the parameter value being read. */
+    private volatile TokenBuffer valueBuffer;
+
     /**
      * Constructor.<br>
      * In case the representation does not define a character set, the UTF-8
@@ -202,6 +426,28 @@ public class FormReader {
         }
     }
 
+    /**
+     * Returns an iterator pulling the parameters from the form stream one at a
+     * time. The stream is closed once the last parameter has been read. As
+     * the form is consumed while iterating, only one iteration is possible and
+     * the next calls return an empty iterator. Reading errors are rethrown as
+     * an {@link IllegalStateException}.
+     * 
+     * @return An iterator over the parameters.
+     */
+    public synchronized Iterator<Parameter> iterator() {
+        Iterator<Parameter> result = null;
+
+        if (this.iterated) {
+            result = Collections.<Parameter> emptyList().iterator();
+        } else {
+            this.iterated = true;
+            result = new ParameterIterator();
+        }
+
+        return result;
+    }
+
     /**
      * Reads all the parameters.
      * 
@@ -226,6 +472,57 @@ public class FormReader {
         return result;
     }
 
+    /**
+     * Reads the parameters one at a time, passing each of them to the given
+     * handler without keeping them. The reading stops at the end of the form
+     * or as soon as the handler returns false.
+     * 
+     * @param handler
+     *            The handler of the parameters read.
+     * @throws IOException
+     *             If the parameters could not be read.
+     */
+    public void read(ParameterHandler handler) throws IOException {
+        if (this.stream != null) {
+            try {
+                Parameter param = readNextParameter();
+
+                while ((param != null) && handler.handle(param)) {
+                    param = readNextParameter();
+                }
+            } finally {
+                this.stream.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the next byte of the form stream, filling the read buffer if
+     * needed.
+     * 
+     * @return The next byte or -1 if the end of the stream has been reached.
+     * @throws IOException
+     */
+    private int readByte() throws IOException {
+        int result = -1;
+
+        if (this.bufferPosition >= this.bufferLength) {
+            if (this.buffer == null) {
+                this.buffer = new byte[BUFFER_SIZE];
+            }
+
+            this.bufferPosition = 0;
+            this.bufferLength = Math.max(0,
+                    this.stream.read(this.buffer, 0, this.buffer.length));
+        }
+
+        if (this.bufferPosition < this.bufferLength) {
+            result = this.buffer[this.bufferPosition++] & 0xff;
+        }
+
+        return result;
+    }
+
     /**
      * Reads the first parameter with the given name.
      * 
@@ -238,16 +535,7 @@ public class FormReader {
         Parameter result = null;
 
         if (this.stream != null) {
-            Parameter param = readNextParameter();
-
-            while ((param != null) && (result == null)) {
-                if (param.getName().equals(name)) {
-                    result = param;
-                }
-
-                param = readNextParameter();
-            }
-
+            result = readNextParameter(Collections.singleton(name));
             this.stream.close();
         }
 
@@ -262,33 +550,66 @@ public class FormReader {
      *             If the next parameter could not be read.
      */
     public Parameter readNextParameter() throws IOException {
+        return readNextParameter(null);
+    }
+
+    /**
+     * Reads the next parameter whose name is part of the given names. The
+     * values of the other parameters are skipped without being buffered nor
+     * decoded.
+     * 
+     * @param names
+     *            The names of the parameters to read or null to read any
+     *            parameter.
+     * @return The next matching parameter or null.
+     * @throws IOException
+     *             If the next parameter could not be read.
+     */
+    private Parameter readNextParameter(Collection<String> names)
+            throws IOException {
         Parameter result = null;
 
         if (this.stream != null) {
+            if (this.nameBuffer == null) {
+                boolean decoding = this.decode && (this.characterSet != null);
+                this.nameBuffer = new TokenBuffer(decoding);
+                this.valueBuffer = new TokenBuffer(decoding);
+            }
+
             try {
                 boolean readingName = true;
-                boolean readingValue = false;
-                StringBuilder nameBuffer = new StringBuilder();
-                StringBuilder valueBuffer = new StringBuilder();
+                boolean skippingValue = false;
+                String name = null;
                 int nextChar = 0;
+                this.nameBuffer.clear();
+                this.valueBuffer.clear();
 
                 while ((result == null) && (nextChar != -1)) {
-                    nextChar = this.stream.read();
+                    nextChar = readByte();
 
                     if (readingName) {
                         if (nextChar == '=') {
-                            if (nameBuffer.length() > 0) {
+                            if (!this.nameBuffer.isEmpty()) {
                                 readingName = false;
-                                readingValue = true;
+                                name = this.nameBuffer
+                                        .toString(this.characterSet);
+                                skippingValue = (names != null)
+                                        && !names.contains(name);
                             } else {
                                 throw new IOException(
                                         "Empty parameter name detected. Please check your form data");
                             }
                         } else if ((nextChar == this.separator)
                                 || (nextChar == -1)) {
-                            if (nameBuffer.length() > 0) {
-                                result = FormUtils.create(nameBuffer, null,
-                                        this.decode, this.characterSet);
+                            if (!this.nameBuffer.isEmpty()) {
+                                name = this.nameBuffer
+                                        .toString(this.characterSet);
+
+                                if ((names == null) || names.contains(name)) {
+                                    result = new Parameter(name, null);
+                                } else {
+                                    this.nameBuffer.clear();
+                                }
                             } else if (nextChar == -1) {
                                 // Do nothing return null preference
                             } else {
@@ -296,15 +617,22 @@ public class FormReader {
                                         .fine("Empty parameter name detected. Please check your form data");
                             }
                         } else {
-                            nameBuffer.append((char) nextChar);
+                            this.nameBuffer.append(nextChar);
                         }
-                    } else if (readingValue) {
-                        if ((nextChar == this.separator) || (nextChar == -1)) {
-                            result = FormUtils.create(nameBuffer, valueBuffer,
-                                    this.decode, this.characterSet);
+                    } else if ((nextChar == this.separator)
+                            || (nextChar == -1)) {
+                        if (skippingValue) {
+                            // Move on to the next parameter
+                            readingName = true;
+                            skippingValue = false;
+                            this.nameBuffer.clear();
                         } else {
-                            valueBuffer.append((char) nextChar);
+                            result = new Parameter(name,
+                                    this.valueBuffer
+                                            .toString(this.characterSet));
                         }
+                    } else if (!skippingValue) {
+                        this.valueBuffer.append(nextChar);
                     }
                 }
             } catch (UnsupportedEncodingException uee) {
@@ -331,7 +659,8 @@ public class FormReader {
         Object result = null;
 
         if (this.stream != null) {
-            Parameter param = readNextParameter();
+            Collection<String> names = Collections.singleton(name);
+            Parameter param = readNextParameter(names);
 
             while (param != null) {
                 if (param.getName().equals(name)) {
@@ -363,7 +692,7 @@ public class FormReader {
                     }
                 }
 
-                param = readNextParameter();
+                param = readNextParameter(names);
             }
 
             this.stream.close();
@@ -386,7 +715,7 @@ public class FormReader {
     public void readParameters(Map<String, Object> parameters)
             throws IOException {
         if (this.stream != null) {
-            Parameter param = readNextParameter();
+            Parameter param = readNextParameter(parameters.keySet());
             Object currentValue = null;
 
             while (param != null) {
@@ -421,7 +750,7 @@ public class FormReader {
                     }
                 }
 
-                param = readNextParameter();
+                param = readNextParameter(parameters.keySet());
             }
 
             this.stream.close();
@@ -315,6 +315,31 @@ public class FormUtils {
         }
     }
 
+    /**
+     * Parses a post one parameter at a time, passing each of them to the given
+     * handler. Contrary to {@link #parse(Form, Representation, boolean)}, the
+     * parameters aren't collected, allowing large forms to be processed with a
+     * constant memory footprint.
+     * 
+     * @param post
+     *            The posted form.
+     * @param decode
+     *            Indicates if the parameters should be decoded.
+     * @param handler
+     *            The handler of the parsed parameters.
+     * @throws IOException
+     *             If the parameters could not be read.
+     */
+    public static void parse(Representation post, boolean decode,
+            ParameterHandler handler) throws IOException {
+        if (!post.isAvailable()) {
+            throw new IllegalStateException(
+                    "The Web form cannot be parsed as no fresh content is available. If this entity has been already read once, caching of the entity is required");
+        }
+
+        new FormReader(post, decode).read(handler);
+    }
+
     /**
      * Private constructor to ensure that the class acts as a true utility class
      * i.e. it isn't instantiable and extensible.
@@ -0,0 +1,348 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduled executor service that only uses a single thread to trigger the
+ * delayed and periodic tasks, handing off their execution to a separate worker
+ * service. This is useful when the worker service can't pool its threads, for
+ * example when it starts a new virtual thread for each task. Like with the
+ * {@link ScheduledThreadPoolExecutor}, the executions of a periodic task never
+ * overlap.<br>
+ * <br>
+ * On shutdown, the delayed tasks already scheduled are still executed but the
+ * periodic tasks are cancelled. The worker service is shut down once the last
+ * task has been handed off.
+ * 
+ * @author Jerome Louvel
+ */
+public class HandOffScheduledExecutorService extends AbstractExecutorService
+        implements ScheduledExecutorService {
+
+    /**
+     * Task triggered by the scheduler and executed by the worker service.
+     * 
+     * @param <V>
+     *            The result type.
+     */
+    private class HandOffTask<V> extends FutureTask<V> implements
+            ScheduledFuture<V> {
+
+        /**
+         * The period in nanoseconds. A positive value means a fixed rate, a
+         * negative value means a fixed delay and zero means a single execution.
+         */
+        private final long period;
+
+        /** The time of the next execution, in nanoseconds. */
+        private volatile long time;
+
+        /** The future of the next trigger. */
+        private volatile ScheduledFuture<?> trigger;
+
+        /**
+         * Constructor for a single execution.
+         * 
+         * @param callable
+         *            The callable to execute.
+         * @param delay
+         *            The delay in nanoseconds.
+         */
+        public HandOffTask(Callable<V> callable, long delay) {
+            super(callable);
+            this.period = 0;
+            this.time = System.nanoTime() + delay;
+        }
+
+        /**
+         * Constructor for periodic executions.
+         * 
+         * @param runnable
+         *            The runnable to execute.
+         * @param delay
+         *            The initial delay in nanoseconds.
+         * @param period
+         *            The period in nanoseconds, positive for a fixed rate or
+         *            negative for a fixed delay.
+         */
+        public HandOffTask(Runnable runnable, long delay, long period) {
+            super(runnable, null);
+            this.period = period;
+            this.time = System.nanoTime() + delay;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean result = super.cancel(mayInterruptIfRunning);
+            ScheduledFuture<?> currentTrigger = this.trigger;
+
+            if (currentTrigger != null) {
+                currentTrigger.cancel(false);
+            }
+
+            return result;
+        }
+
+        public int compareTo(Delayed other) {
+            long diff = getDelay(TimeUnit.NANOSECONDS)
+                    - other.getDelay(TimeUnit.NANOSECONDS);
+            return (diff < 0) ? -1 : ((diff > 0) ? 1 : 0);
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(this.time - System.nanoTime(),
+                    TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Hands off the execution to the worker service. Called by the
+         * scheduler thread.
+         */
+        private void handOff() {
+            if ((this.period != 0) && isShutdown()) {
+                cancel(false);
+            } else {
+                try {
+                    getWorkerService().execute(this);
+                } catch (RejectedExecutionException e) {
+                    cancel(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            if (this.period == 0) {
+                super.run();
+            } else if (runAndReset()) {
+                this.time = (this.period > 0) ? this.time + this.period
+                        : System.nanoTime() - this.period;
+                scheduleTrigger();
+            }
+        }
+
+        /**
+         * Schedules the next trigger.
+         */
+        public void scheduleTrigger() {
+            try {
+                this.trigger = getScheduler().schedule(new Runnable() {
+                    public void run() {
+                        handOff();
+                    }
+                }, this.time - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                if (this.period == 0) {
+                    throw e;
+                }
+
+                cancel(false);
+            }
+        }
+    }
+
+    /** The single thread scheduler triggering the tasks. */
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /** The worker service executing the tasks. */
+    private final ExecutorService workerService;
+
+    /**
+     * Constructor.
+     * 
+     * @param threadFactory
+     *            The factory of the scheduler thread.
+     * @param workerService
+     *            The worker service executing the tasks.
+     */
+    public HandOffScheduledExecutorService(ThreadFactory threadFactory,
+            ExecutorService workerService) {
+        this.workerService = workerService;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, threadFactory) {
+            @Override
+            protected void terminated() {
+                super.terminated();
+                getWorkerService().shutdown();
+            }
+        };
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return getScheduler().awaitTermination(timeout, unit)
+                && getWorkerService().awaitTermination(
+                        deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Executes the given command on the worker service.
+     * 
+     * @param command
+     *            The command to execute.
+     */
+    public void execute(Runnable command) {
+        if (isShutdown()) {
+            throw new RejectedExecutionException(
+                    "The scheduled executor service is shut down");
+        }
+
+        getWorkerService().execute(command);
+    }
+
+    /**
+     * Returns the single thread scheduler triggering the tasks.
+     * 
+     * @return The single thread scheduler triggering the tasks.
+     */
+    public ScheduledThreadPoolExecutor getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Returns the worker service executing the tasks.
+     * 
+     * @return The worker service executing the tasks.
+     */
+    public ExecutorService getWorkerService() {
+        return workerService;
+    }
+
+    public boolean isShutdown() {
+        return getScheduler().isShutdown();
+    }
+
+    public boolean isTerminated() {
+        return getScheduler().isTerminated()
+                && getWorkerService().isTerminated();
+    }
+
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay,
+            TimeUnit unit) {
+        if (callable == null) {
+            throw new NullPointerException();
+        }
+
+        HandOffTask<V> result = new HandOffTask<V>(callable,
+                unit.toNanos(delay));
+        result.scheduleTrigger();
+        return result;
+    }
+
+    public ScheduledFuture<?> schedule(Runnable command, long delay,
+            TimeUnit unit) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+
+        return schedule(Executors.callable(command), delay, unit);
+    }
+
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+            long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        return schedulePeriodic(command, initialDelay, period, unit);
+    }
+
+    /**
+     * Schedules a periodic task.
+     * 
+     * @param command
+     *            The task to execute.
+     * @param initialDelay
+     *            The initial delay.
+     * @param period
+     *            The period, positive for a fixed rate or negative for a
+     *            fixed delay.
+     * @param unit
+     *            The time unit.
+     * @return The periodic task.
+     */
+    private ScheduledFuture<?> schedulePeriodic(Runnable command,
+            long initialDelay, long period, TimeUnit unit) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+
+        if (isShutdown()) {
+            throw new RejectedExecutionException(
+                    "The scheduled executor service is shut down");
+        }
+
+        HandOffTask<Object> result = new HandOffTask<Object>(command,
+                unit.toNanos(initialDelay), unit.toNanos(period));
+        result.scheduleTrigger();
+        return result;
+    }
+
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+            long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        return schedulePeriodic(command, initialDelay, -delay, unit);
+    }
+
+    public void shutdown() {
+        getScheduler().shutdown();
+    }
+
+    public List<Runnable> shutdownNow() {
+        List<Runnable> result = new ArrayList<Runnable>(getScheduler()
+                .shutdownNow());
+        result.addAll(getWorkerService().shutdownNow());
+        return result;
+    }
+
+}
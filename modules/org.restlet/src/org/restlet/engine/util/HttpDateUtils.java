@@ -0,0 +1,468 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.util;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Fast formatting and parsing of the HTTP date formats (RFC 1123, RFC 1036 and
+ * ANSI C asctime()) in the GMT time zone. Only the canonical forms are handled,
+ * for dates between the years 1600 and 9999, other values being left to the
+ * generic {@link java.text.SimpleDateFormat} based methods of
+ * {@link DateUtils}.
+ * 
+ * @author Jerome Louvel
+ */
+final class HttpDateUtils {
+
+    /**
+     * Formatted date cached for one second.
+     */
+    private static final class CachedDate {
+
+        /** The formatted date. */
+        private final String value;
+
+        /** The number of seconds since the epoch. */
+        private final long second;
+
+        /**
+         * Constructor.
+         * 
+         * @param second
+         *            The number of seconds since the epoch.
+         * @param value
+         *            The formatted date.
+         */
+        private CachedDate(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+
+    /** The short day names, starting with Sunday. */
+    private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu",
+            "Fri", "Sat" };
+
+    /** The full day names, starting with Sunday. */
+    private static final String[] DAYS_FULL = { "Sunday", "Monday",
+            "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday" };
+
+    /** The last RFC 1123 formatted date. */
+    private static volatile CachedDate lastRfc1123;
+
+    /** The earliest time handled, 1600-01-01T00:00:00Z. */
+    private static final long MIN_TIME = -11676096000000L;
+
+    /** The latest time handled (exclusive), 10000-01-01T00:00:00Z. */
+    private static final long MAX_TIME = 253402300800000L;
+
+    /** The short month names. */
+    private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr",
+            "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+    /**
+     * Appends a number with two digits.
+     * 
+     * @param sb
+     *            The target builder.
+     * @param value
+     *            The number between 0 and 99.
+     */
+    private static void append2(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Returns the number of days since the epoch of a date in the proleptic
+     * Gregorian calendar.
+     * 
+     * @param year
+     *            The year.
+     * @param month
+     *            The month, from 1 to 12.
+     * @param day
+     *            The day of the month, from 1 to 31.
+     * @return The number of days since the epoch.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = (month <= 2) ? year - 1 : year;
+        int era = ((y >= 0) ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * ((month > 2) ? month - 3 : month + 9) + 2) / 5 + day
+                - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468;
+    }
+
+    /**
+     * Returns the number of days in a month of the Gregorian calendar.
+     * 
+     * @param year
+     *            The year.
+     * @param month
+     *            The month, from 1 to 12.
+     * @return The number of days in the month.
+     */
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = ((year % 4) == 0)
+                    && (((year % 100) != 0) || ((year % 400) == 0));
+            return leap ? 29 : 28;
+        }
+
+        boolean shortMonth = (month == 4) || (month == 6) || (month == 9)
+                || (month == 11);
+        return shortMonth ? 30 : 31;
+    }
+
+    /**
+     * Formats a date in one of the HTTP formats.
+     * 
+     * @param date
+     *            The date to format.
+     * @param format
+     *            The date format to use.
+     * @return The formatted date or null if the format or the date isn't
+     *         handled.
+     */
+    public static String format(Date date, String format) {
+        long time = date.getTime();
+
+        if ((time < MIN_TIME) || (time >= MAX_TIME)) {
+            return null;
+        }
+
+        if (DateUtils.FORMAT_RFC_1123.get(0).equals(format)) {
+            long second = floorDiv(time, 1000L);
+            CachedDate cached = lastRfc1123;
+
+            if ((cached == null) || (cached.second != second)) {
+                cached = new CachedDate(second, format(second, false));
+                lastRfc1123 = cached;
+            }
+
+            return cached.value;
+        } else if (DateUtils.FORMAT_RFC_1036.get(0).equals(format)) {
+            return format(floorDiv(time, 1000L), true);
+        }
+
+        return null;
+    }
+
+    /**
+     * Formats a number of seconds since the epoch in the RFC 1123 or RFC 1036
+     * format.
+     * 
+     * @param second
+     *            The number of seconds since the epoch.
+     * @param rfc1036
+     *            True for the RFC 1036 format.
+     * @return The formatted date.
+     */
+    private static String format(long second, boolean rfc1036) {
+        long days = floorDiv(second, 86400L);
+        int secondOfDay = (int) (second - days * 86400L);
+
+        // Converts the days into a civil date
+        long z = days + 719468;
+        long era = ((z >= 0) ? z : z - 146096) / 146097;
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = (mp < 10) ? mp + 3 : mp - 9;
+        int year = (int) (yoe + era * 400) + ((month <= 2) ? 1 : 0);
+        int dayOfWeek = (int) (((days % 7) + 11) % 7);
+
+        StringBuilder sb = new StringBuilder(32);
+
+        if (rfc1036) {
+            sb.append(DAYS_FULL[dayOfWeek]).append(", ");
+            append2(sb, day);
+            sb.append('-').append(MONTHS[month - 1]).append('-');
+            append2(sb, year % 100);
+        } else {
+            sb.append(DAYS[dayOfWeek]).append(", ");
+            append2(sb, day);
+            sb.append(' ').append(MONTHS[month - 1]).append(' ');
+            append2(sb, year / 100);
+            append2(sb, year % 100);
+        }
+
+        sb.append(' ');
+        append2(sb, secondOfDay / 3600);
+        sb.append(':');
+        append2(sb, (secondOfDay / 60) % 60);
+        sb.append(':');
+        append2(sb, secondOfDay % 60);
+        sb.append(" GMT");
+        return sb.toString();
+    }
+
+    /**
+     * Returns the largest value less than or equal to the algebraic quotient.
+     * 
+     * @param x
+     *            The dividend.
+     * @param y
+     *            The positive divisor.
+     * @return The floor of the quotient.
+     */
+    private static long floorDiv(long x, long y) {
+        long result = x / y;
+        return ((x % y) < 0) ? result - 1 : result;
+    }
+
+    /**
+     * Returns the index of a name in an array.
+     * 
+     * @param names
+     *            The names.
+     * @param value
+     *            The value to parse.
+     * @param start
+     *            The start index in the value.
+     * @param length
+     *            The length of the name.
+     * @return The index of the name or -1.
+     */
+    private static int indexOf(String[] names, String value, int start,
+            int length) {
+        for (int i = 0; i < names.length; i++) {
+            if ((names[i].length() == length)
+                    && value.regionMatches(start, names[i], 0, length)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Parses a date in one of the HTTP formats.
+     * 
+     * @param date
+     *            The date to parse.
+     * @param format
+     *            The date format to use.
+     * @return The parsed date or null if the format or the date isn't handled.
+     */
+    public static Date parse(String date, String format) {
+        if (DateUtils.FORMAT_RFC_1123.get(0).equals(format)) {
+            return parseRfc1123(date);
+        } else if (DateUtils.FORMAT_RFC_1036.get(0).equals(format)) {
+            return parseRfc1036(date);
+        } else if (DateUtils.FORMAT_ASC_TIME.get(0).equals(format)) {
+            return parseAscTime(date);
+        }
+
+        return null;
+    }
+
+    /**
+     * Parses an ANSI C asctime() date such as "Sun Nov  6 08:49:37 1994".
+     * 
+     * @param date
+     *            The date to parse.
+     * @return The parsed date or null.
+     */
+    private static Date parseAscTime(String date) {
+        if ((date.length() != 24) || (date.charAt(3) != ' ')
+                || (date.charAt(7) != ' ') || (date.charAt(10) != ' ')
+                || (date.charAt(19) != ' ')
+                || (indexOf(DAYS, date, 0, 3) == -1)) {
+            return null;
+        }
+
+        int day = (date.charAt(8) == ' ') ? parseNumber(date, 9, 1)
+                : parseNumber(date, 8, 2);
+        return toDate(parseNumber(date, 20, 4), indexOf(MONTHS, date, 4, 3),
+                day, date, 11);
+    }
+
+    /**
+     * Parses a number of digits.
+     * 
+     * @param value
+     *            The value to parse.
+     * @param start
+     *            The start index.
+     * @param length
+     *            The number of digits.
+     * @return The parsed number or -1.
+     */
+    private static int parseNumber(String value, int start, int length) {
+        int result = 0;
+        char c;
+
+        for (int i = start; i < start + length; i++) {
+            c = value.charAt(i);
+
+            if ((c < '0') || (c > '9')) {
+                return -1;
+            }
+
+            result = result * 10 + (c - '0');
+        }
+
+        return result;
+    }
+
+    /**
+     * Parses a RFC 1036 date such as "Sunday, 06-Nov-94 08:49:37 GMT". Years
+     * with two digits are interpreted like {@link java.text.SimpleDateFormat}
+     * does, within 80 years before and 20 years after the current date.
+     * 
+     * @param date
+     *            The date to parse.
+     * @return The parsed date or null.
+     */
+    private static Date parseRfc1036(String date) {
+        int comma = date.indexOf(',');
+
+        if ((comma < 6) || (indexOf(DAYS_FULL, date, 0, comma) == -1)) {
+            return null;
+        }
+
+        int i = comma;
+        int yearLength = date.length() - i - 22;
+
+        if (((yearLength != 2) && (yearLength != 4))
+                || (date.charAt(i + 1) != ' ') || (date.charAt(i + 4) != '-')
+                || (date.charAt(i + 8) != '-')
+                || !date.endsWith(" GMT")) {
+            return null;
+        }
+
+        int year = parseNumber(date, i + 9, yearLength);
+
+        if ((year != -1) && (yearLength == 2)) {
+            int startYear = Calendar.getInstance(TimeZone.getTimeZone("GMT"))
+                    .get(Calendar.YEAR) - 80;
+            int ambiguousYear = startYear % 100;
+
+            if (year == ambiguousYear) {
+                // Depends on the current date within the year
+                return null;
+            }
+
+            year += (startYear / 100) * 100
+                    + ((year < ambiguousYear) ? 100 : 0);
+        }
+
+        i += 9 + yearLength;
+
+        if ((date.charAt(i) != ' ') || (date.charAt(i + 9) != ' ')) {
+            return null;
+        }
+
+        return toDate(year, indexOf(MONTHS, date, comma + 5, 3),
+                parseNumber(date, comma + 2, 2), date, i + 1);
+    }
+
+    /**
+     * Parses a RFC 1123 date such as "Sun, 06 Nov 1994 08:49:37 GMT".
+     * 
+     * @param date
+     *            The date to parse.
+     * @return The parsed date or null.
+     */
+    private static Date parseRfc1123(String date) {
+        if ((date.length() != 29) || (date.charAt(3) != ',')
+                || (date.charAt(4) != ' ') || (date.charAt(7) != ' ')
+                || (date.charAt(11) != ' ') || (date.charAt(16) != ' ')
+                || !date.endsWith(" GMT")
+                || (indexOf(DAYS, date, 0, 3) == -1)) {
+            return null;
+        }
+
+        return toDate(parseNumber(date, 12, 4), indexOf(MONTHS, date, 8, 3),
+                parseNumber(date, 5, 2), date, 17);
+    }
+
+    /**
+     * Builds a date from its parsed fields, after having validated them.
+     * 
+     * @param year
+     *            The year or -1.
+     * @param month
+     *            The month index, from 0 to 11, or -1.
+     * @param day
+     *            The day of the month or -1.
+     * @param value
+     *            The value parsed.
+     * @param timeStart
+     *            The start index of the "HH:mm:ss" time in the value.
+     * @return The date or null if a field is invalid.
+     */
+    private static Date toDate(int year, int month, int day, String value,
+            int timeStart) {
+        if ((year < 1600) || (year > 9999) || (month == -1) || (day < 1)
+                || (value.charAt(timeStart + 2) != ':')
+                || (value.charAt(timeStart + 5) != ':')) {
+            return null;
+        }
+
+        int hour = parseNumber(value, timeStart, 2);
+        int minute = parseNumber(value, timeStart + 3, 2);
+        int second = parseNumber(value, timeStart + 6, 2);
+
+        if ((hour == -1) || (hour > 23) || (minute == -1) || (minute > 59)
+                || (second == -1) || (second > 59)) {
+            return null;
+        }
+
+        // Days out of the month are leniently handled by the fallback
+        if (day > daysInMonth(year, month + 1)) {
+            return null;
+        }
+
+        long seconds = daysFromCivil(year, month + 1, day) * 86400L + hour
+                * 3600 + minute * 60 + second;
+        return new Date(seconds * 1000L);
+    }
+
+    /**
+     * Private constructor to ensure that the class acts as a true utility class
+     * i.e. it isn't instantiable and extensible.
+     */
+    private HttpDateUtils() {
+    }
+
+}
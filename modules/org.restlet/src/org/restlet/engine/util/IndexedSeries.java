@@ -0,0 +1,470 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import org.restlet.util.NamedValue;
+import org.restlet.util.Series;
+
+/**
+ * Series maintaining a lazily built index of its entries by case-folded name.
+ * The ordered list remains the reference, preserving the order and the
+ * duplicates, while repeated lookups by name, such as the ones done on HTTP
+ * headers, don't need to scan the whole list.<br>
+ * <br>
+ * The index is dropped on each modification done via this series, its
+ * iterators or its sub-lists. The names of the entries must not change once
+ * they are added, as lookups by a new name would miss the index. Replace the
+ * entry instead, for example via {@link #set(int, NamedValue)}. Lookups by an
+ * old name still detect the rename and rebuild the index.
+ * 
+ * @author Jerome Louvel
+ * @param <T>
+ *            The contained type
+ */
+public class IndexedSeries<T extends NamedValue<String>> extends Series<T> {
+
+    /**
+     * Iterator dropping the index on removal.
+     */
+    private class IndexedIterator implements ListIterator<T> {
+
+        /** The wrapped iterator. */
+        private final ListIterator<T> delegate;
+
+        /**
+         * Constructor.
+         * 
+         * @param delegate
+         *            The wrapped iterator.
+         */
+        public IndexedIterator(ListIterator<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        public void add(T element) {
+            this.delegate.add(element);
+            invalidate();
+        }
+
+        public boolean hasNext() {
+            return this.delegate.hasNext();
+        }
+
+        public boolean hasPrevious() {
+            return this.delegate.hasPrevious();
+        }
+
+        public T next() {
+            return this.delegate.next();
+        }
+
+        public int nextIndex() {
+            return this.delegate.nextIndex();
+        }
+
+        public T previous() {
+            return this.delegate.previous();
+        }
+
+        public int previousIndex() {
+            return this.delegate.previousIndex();
+        }
+
+        public void remove() {
+            this.delegate.remove();
+            invalidate();
+        }
+
+        public void set(T element) {
+            this.delegate.set(element);
+            invalidate();
+        }
+    }
+
+    /**
+     * Returns the case-folded key of a name. Two names have the same key if and
+     * only if they are equal ignoring the case, as defined by
+     * {@link String#equalsIgnoreCase(String)}.
+     * 
+     * @param name
+     *            The name to fold.
+     * @return The folded key.
+     */
+    private static String getKey(String name) {
+        if (name == null) {
+            return null;
+        }
+
+        int length = name.length();
+        int i = 0;
+
+        // Fast path for the common lower-case ASCII names
+        while ((i < length) && (name.charAt(i) < 128)
+                && !Character.isUpperCase(name.charAt(i))) {
+            i++;
+        }
+
+        if (i == length) {
+            return name;
+        }
+
+        char[] result = name.toCharArray();
+
+        for (; i < length; i++) {
+            result[i] = Character.toLowerCase(Character.toUpperCase(result[i]));
+        }
+
+        return new String(result);
+    }
+
+    /** The entry class. */
+    private final Class<T> entryClass;
+
+    /** The entries indexed by case-folded name. */
+    private volatile Map<String, List<T>> index;
+
+    /**
+     * Constructor.
+     * 
+     * @param entryClass
+     *            The entry class.
+     */
+    public IndexedSeries(Class<T> entryClass) {
+        super(entryClass);
+        this.entryClass = entryClass;
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param entryClass
+     *            The entry class.
+     * @param initialCapacity
+     *            The initial list capacity.
+     */
+    public IndexedSeries(Class<T> entryClass, int initialCapacity) {
+        super(entryClass, initialCapacity);
+        this.entryClass = entryClass;
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param entryClass
+     *            The entry class.
+     * @param delegate
+     *            The delegate list.
+     */
+    public IndexedSeries(Class<T> entryClass, List<T> delegate) {
+        super(entryClass, delegate);
+        this.entryClass = entryClass;
+    }
+
+    @Override
+    public boolean add(T element) {
+        boolean result = super.add(element);
+        invalidate();
+        return result;
+    }
+
+    @Override
+    public void add(int index, T element) {
+        super.add(index, element);
+        invalidate();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends T> elements) {
+        boolean result = super.addAll(elements);
+        invalidate();
+        return result;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends T> elements) {
+        boolean result = super.addAll(index, elements);
+        invalidate();
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        invalidate();
+    }
+
+    /**
+     * Returns the entries matching the given name, in the series order.
+     * 
+     * @param name
+     *            The name to match.
+     * @param ignoreCase
+     *            Indicates if the name comparison is case insensitive.
+     * @return The matching entries or null if none was found.
+     */
+    private List<T> find(String name, boolean ignoreCase) {
+        List<T> candidates = getIndex().get(getKey(name));
+
+        if (candidates != null) {
+            for (T candidate : candidates) {
+                if (!matches(candidate.getName(), name, true)) {
+                    // An entry was renamed since the index was built
+                    invalidate();
+                    candidates = getIndex().get(getKey(name));
+                    break;
+                }
+            }
+        }
+
+        if ((candidates == null) || ignoreCase) {
+            return candidates;
+        }
+
+        return select(candidates, name, false);
+    }
+
+    @Override
+    public T getFirst(String name, boolean ignoreCase) {
+        List<T> entries = find(name, ignoreCase);
+        return (entries == null) ? null : entries.get(0);
+    }
+
+    /**
+     * Returns the index of entries by case-folded name, building it if needed.
+     * 
+     * @return The index of entries by case-folded name.
+     */
+    private Map<String, List<T>> getIndex() {
+        Map<String, List<T>> result = this.index;
+
+        if (result == null) {
+            result = new HashMap<String, List<T>>();
+            List<T> entries;
+
+            for (T entry : getDelegate()) {
+                String key = getKey(entry.getName());
+                entries = result.get(key);
+
+                if (entries == null) {
+                    entries = new ArrayList<T>(1);
+                    result.put(key, entries);
+                }
+
+                entries.add(entry);
+            }
+
+            this.index = result;
+        }
+
+        return result;
+    }
+
+    @Override
+    public String getValues(String name, String separator, boolean ignoreCase) {
+        String result = null;
+        StringBuilder sb = null;
+        List<T> entries = find(name, ignoreCase);
+
+        if (entries != null) {
+            for (T entry : entries) {
+                if (sb == null) {
+                    if (result == null) {
+                        result = entry.getValue();
+                    } else {
+                        sb = new StringBuilder();
+                        sb.append(result).append(separator)
+                                .append(entry.getValue());
+                    }
+                } else {
+                    sb.append(separator).append(entry.getValue());
+                }
+            }
+        }
+
+        if (sb != null) {
+            result = sb.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Drops the index so that it is rebuilt on the next lookup.
+     */
+    protected void invalidate() {
+        this.index = null;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return listIterator();
+    }
+
+    @Override
+    public ListIterator<T> listIterator() {
+        return new IndexedIterator(super.listIterator());
+    }
+
+    @Override
+    public ListIterator<T> listIterator(int index) {
+        return new IndexedIterator(super.listIterator(index));
+    }
+
+    /**
+     * Tests the equality of two names, potentially null.
+     * 
+     * @param name1
+     *            The first name.
+     * @param name2
+     *            The second name.
+     * @param ignoreCase
+     *            Indicates if the test should be case insensitive.
+     * @return True if both names are equal.
+     */
+    private boolean matches(String name1, String name2, boolean ignoreCase) {
+        if (name1 == name2) {
+            return true;
+        } else if ((name1 == null) || (name2 == null)) {
+            return false;
+        }
+
+        return ignoreCase ? name1.equalsIgnoreCase(name2) : name1.equals(name2);
+    }
+
+    @Override
+    public T remove(int index) {
+        T result = super.remove(index);
+        invalidate();
+        return result;
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        boolean result = super.remove(element);
+        invalidate();
+        return result;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> elements) {
+        boolean result = super.removeAll(elements);
+        invalidate();
+        return result;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> elements) {
+        boolean result = super.retainAll(elements);
+        invalidate();
+        return result;
+    }
+
+    /**
+     * Selects the entries matching the given name, in the given order.
+     * 
+     * @param entries
+     *            The entries to select from.
+     * @param name
+     *            The name to match.
+     * @param ignoreCase
+     *            Indicates if the name comparison is case insensitive.
+     * @return The matching entries or null if none was found.
+     */
+    private List<T> select(List<T> entries, String name, boolean ignoreCase) {
+        List<T> result = null;
+
+        for (T entry : entries) {
+            if (matches(entry.getName(), name, ignoreCase)) {
+                if (result == null) {
+                    result = new ArrayList<T>(1);
+                }
+
+                result.add(entry);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public T set(int index, T element) {
+        T result = super.set(index, element);
+        invalidate();
+        return result;
+    }
+
+    /**
+     * Returns an indexed view of the portion of this series. Modifications done
+     * via the view also drop the index of this series.
+     * 
+     * @param fromIndex
+     *            The start position.
+     * @param toIndex
+     *            The end position (exclusive).
+     * @return The sub-list.
+     */
+    @Override
+    public Series<T> subList(int fromIndex, int toIndex) {
+        return new IndexedSeries<T>(this.entryClass, getDelegate().subList(
+                fromIndex, toIndex)) {
+            @Override
+            protected void invalidate() {
+                super.invalidate();
+                IndexedSeries.this.invalidate();
+            }
+        };
+    }
+
+    @Override
+    public Series<T> subList(String name, boolean ignoreCase) {
+        Series<T> result = new Series<T>(this.entryClass);
+        List<T> entries = find(name, ignoreCase);
+
+        if (entries != null) {
+            result.addAll(entries);
+        }
+
+        return result;
+    }
+
+}
@@ -98,6 +98,69 @@ public class ReferenceUtils {
         return result;
     }
 
+    /**
+     * Returns the end of the longest sequence of URI path segment characters
+     * starting at a given offset. Those are the unreserved characters, the sub
+     * delimiters, ':', '@' and the percent-encoded octets. This is the sequence
+     * matched by a {@link org.restlet.routing.Variable#TYPE_URI_SEGMENT}
+     * template variable.
+     * 
+     * @param value
+     *            The value to scan.
+     * @param offset
+     *            The start of the segment.
+     * @return The end of the segment.
+     */
+    public static int getSegmentEnd(String value, int offset) {
+        int result = offset;
+        int length = value.length();
+        boolean scanning = true;
+        char next;
+
+        while (scanning && (result < length)) {
+            next = value.charAt(result);
+
+            if (isSegmentCharacter(next)) {
+                result++;
+            } else if ((next == '%') && (result + 2 < length)
+                    && isHexDigit(value.charAt(result + 1))
+                    && isHexDigit(value.charAt(result + 2))) {
+                result += 3;
+            } else {
+                scanning = false;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if a character is a hexadecimal digit.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character is a hexadecimal digit.
+     */
+    private static boolean isHexDigit(int character) {
+        return ((character >= '0') && (character <= '9'))
+                || ((character >= 'a') && (character <= 'f'))
+                || ((character >= 'A') && (character <= 'F'));
+    }
+
+    /**
+     * Indicates if a character can appear in a URI path segment without being
+     * percent-encoded.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character is a URI path segment character.
+     */
+    public static boolean isSegmentCharacter(int character) {
+        return Reference.isUnreserved(character)
+                || Reference.isSubDelimiter(character) || (character == ':')
+                || (character == '@');
+    }
+
     /**
      * Constructor.
      */
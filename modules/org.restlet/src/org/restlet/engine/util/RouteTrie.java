@@ -0,0 +1,583 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Reference;
+import org.restlet.routing.Route;
+import org.restlet.routing.Router;
+import org.restlet.routing.Template;
+import org.restlet.routing.TemplateRoute;
+import org.restlet.routing.Variable;
+
+/**
+ * Compiled view of a list of routes, organized as a trie of URI path segments.
+ * Template routes whose URI pattern is only made of literal segments and of
+ * {@link Variable#TYPE_URI_SEGMENT} variables covering whole segments are
+ * indexed in the trie. The other routes, such as routes with custom variable
+ * types or custom scoring logic, are still scored one by one.<br>
+ * <br>
+ * The selected route is the same as the one that would be returned by the
+ * {@link org.restlet.util.RouteList#getFirst(Request, Response, float)} and
+ * {@link org.restlet.util.RouteList#getBest(Request, Response, float)}
+ * methods, but the URI patterns of indexed routes aren't evaluated as regular
+ * expressions. Note that the trie is a snapshot of the routes and of their
+ * templates at compilation time.
+ * 
+ * @author Jerome Louvel
+ */
+public class RouteTrie {
+
+    /**
+     * Indexed route whose last URI pattern segment is matched by a given node.
+     */
+    private static final class Entry {
+
+        /** The position of the route in the compiled list. */
+        private final int index;
+
+        /** The literal last segment or null for a variable segment. */
+        private final String literal;
+
+        /** Indicates if the whole remaining part must be matched. */
+        private final boolean matchingAll;
+
+        /** Indicates if a variable segment can't be empty. */
+        private final boolean required;
+
+        /** The indexed route. */
+        private final TemplateRoute route;
+
+        /**
+         * Constructor.
+         * 
+         * @param index
+         *            The position of the route in the compiled list.
+         * @param route
+         *            The indexed route.
+         * @param literal
+         *            The literal last segment or null for a variable segment.
+         * @param required
+         *            Indicates if a variable segment can't be empty.
+         */
+        private Entry(int index, TemplateRoute route, String literal,
+                boolean required) {
+            this.index = index;
+            this.route = route;
+            this.literal = literal;
+            this.required = required;
+            this.matchingAll = (route.getMatchingMode() == Template.MODE_EQUALS);
+        }
+
+        /**
+         * Matches the last segment of the URI pattern.
+         * 
+         * @param remainingPart
+         *            The remaining part to match.
+         * @param offset
+         *            The start of the last segment.
+         * @return The number of matched characters or -1 if the match failed.
+         */
+        private int match(String remainingPart, int offset) {
+            int result;
+
+            if (this.literal != null) {
+                result = remainingPart.startsWith(this.literal, offset) ? offset
+                        + this.literal.length()
+                        : -1;
+            } else {
+                result = ReferenceUtils.getSegmentEnd(remainingPart, offset);
+
+                if (this.required && (result == offset)) {
+                    result = -1;
+                }
+            }
+
+            if (this.matchingAll && (result != remainingPart.length())) {
+                result = -1;
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Node of the trie, matching one segment of the URI patterns.
+     */
+    private static final class Node {
+
+        /** The entries ending on the next segment. */
+        private List<Entry> entries;
+
+        /** The child nodes for literal segments. */
+        private Map<String, Node> literals;
+
+        /** The child node for optional variable segments. */
+        private Node optionalVariable;
+
+        /** The child node for required variable segments. */
+        private Node requiredVariable;
+    }
+
+    /**
+     * Selection of the route among the matching ones.
+     */
+    private static final class Selection {
+
+        /** Indicates if the route with the best score is selected. */
+        private final boolean best;
+
+        /** The position of the selected route. */
+        private int index;
+
+        /** The minimum score required to have a match. */
+        private final float requiredScore;
+
+        /** The selected route. */
+        private Route route;
+
+        /** The score of the selected route. */
+        private float score;
+
+        /**
+         * Constructor.
+         * 
+         * @param best
+         *            Indicates if the route with the best score is selected.
+         * @param requiredScore
+         *            The minimum score required to have a match.
+         */
+        private Selection(boolean best, float requiredScore) {
+            this.best = best;
+            this.requiredScore = requiredScore;
+            this.index = Integer.MAX_VALUE;
+            this.score = 0F;
+        }
+
+        /**
+         * Offers a scored route.
+         * 
+         * @param index
+         *            The position of the route.
+         * @param route
+         *            The route.
+         * @param score
+         *            The score of the route.
+         */
+        private void offer(int index, Route route, float score) {
+            if (score >= this.requiredScore) {
+                boolean selected;
+
+                if (this.best) {
+                    selected = (score > this.score)
+                            || ((score == this.score) && (this.route != null) && (index < this.index));
+                } else {
+                    selected = (index < this.index);
+                }
+
+                if (selected) {
+                    this.index = index;
+                    this.route = route;
+                    this.score = score;
+                }
+            }
+        }
+    }
+
+    /**
+     * Indicates if a character can be part of an indexed literal segment. Those
+     * characters are matched literally by the regular expression of a
+     * {@link Template}.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character can be part of a literal segment.
+     */
+    private static boolean isLiteral(int character) {
+        return (character != '+')
+                && ReferenceUtils.isSegmentCharacter(character);
+    }
+
+    /** The routes that couldn't be indexed, in the list order. */
+    private final List<Route> fallbackRoutes;
+
+    /** The positions of the routes that couldn't be indexed. */
+    private final int[] fallbackIndexes;
+
+    /** The root node for routes matching without the query string. */
+    private final Node pathRoot;
+
+    /** The root node for routes matching with the query string. */
+    private final Node queryRoot;
+
+    /**
+     * Constructor.
+     * 
+     * @param routes
+     *            The routes to compile.
+     */
+    public RouteTrie(List<Route> routes) {
+        this.pathRoot = new Node();
+        this.queryRoot = new Node();
+        this.fallbackRoutes = new ArrayList<Route>();
+        List<Integer> indexes = new ArrayList<Integer>();
+        int index = 0;
+
+        for (Route route : routes) {
+            if (!add(index, route)) {
+                this.fallbackRoutes.add(route);
+                indexes.add(index);
+            }
+
+            index++;
+        }
+
+        this.fallbackIndexes = new int[indexes.size()];
+
+        for (int i = 0; i < this.fallbackIndexes.length; i++) {
+            this.fallbackIndexes[i] = indexes.get(i);
+        }
+    }
+
+    /**
+     * Indexes a route if its URI pattern can be matched by the trie.
+     * 
+     * @param index
+     *            The position of the route.
+     * @param route
+     *            The route to index.
+     * @return True if the route was indexed.
+     */
+    private boolean add(int index, Route route) {
+        if ((route == null) || (route.getClass() != TemplateRoute.class)) {
+            return false;
+        }
+
+        TemplateRoute templateRoute = (TemplateRoute) route;
+        Template template = templateRoute.getTemplate();
+
+        if ((template == null) || (template.getClass() != Template.class)
+                || (template.getPattern() == null)) {
+            return false;
+        }
+
+        int matchingMode = template.getMatchingMode();
+
+        if ((matchingMode != Template.MODE_EQUALS)
+                && (matchingMode != Template.MODE_STARTS_WITH)) {
+            return false;
+        }
+
+        // Split the pattern into segments and check that each one is either a
+        // literal or a single variable covering the whole segment.
+        String pattern = template.getPattern();
+        List<String> segments = new ArrayList<String>();
+        List<Boolean> requirements = new ArrayList<Boolean>();
+        List<String> names = new ArrayList<String>();
+        int start = 0;
+        int end;
+
+        while (start >= 0) {
+            end = pattern.indexOf('/', start);
+            String segment = (end == -1) ? pattern.substring(start) : pattern
+                    .substring(start, end);
+            start = (end == -1) ? -1 : end + 1;
+
+            if ((segment.length() > 2) && (segment.charAt(0) == '{')
+                    && (segment.charAt(segment.length() - 1) == '}')) {
+                String name = segment.substring(1, segment.length() - 1);
+
+                for (int i = 0; i < name.length(); i++) {
+                    if (!Reference.isUnreserved(name.charAt(i))) {
+                        return false;
+                    }
+                }
+
+                if (names.contains(name)) {
+                    // Repeated variables require back references
+                    return false;
+                }
+
+                Variable variable = template.getVariables().get(name);
+
+                if (variable == null) {
+                    variable = template.getDefaultVariable();
+                }
+
+                if ((variable == null) || variable.isFixed()
+                        || (variable.getType() != Variable.TYPE_URI_SEGMENT)) {
+                    return false;
+                }
+
+                names.add(name);
+                segments.add(null);
+                requirements.add(variable.isRequired());
+            } else {
+                for (int i = 0; i < segment.length(); i++) {
+                    if (!isLiteral(segment.charAt(i))) {
+                        return false;
+                    }
+                }
+
+                segments.add(segment);
+                requirements.add(Boolean.TRUE);
+            }
+        }
+
+        // Walk down the trie, creating the missing nodes
+        Node node = templateRoute.isMatchingQuery() ? this.queryRoot
+                : this.pathRoot;
+        int last = segments.size() - 1;
+
+        for (int i = 0; i < last; i++) {
+            String segment = segments.get(i);
+
+            if (segment != null) {
+                if (node.literals == null) {
+                    node.literals = new HashMap<String, Node>();
+                }
+
+                Node child = node.literals.get(segment);
+
+                if (child == null) {
+                    child = new Node();
+                    node.literals.put(segment, child);
+                }
+
+                node = child;
+            } else if (requirements.get(i)) {
+                if (node.requiredVariable == null) {
+                    node.requiredVariable = new Node();
+                }
+
+                node = node.requiredVariable;
+            } else {
+                if (node.optionalVariable == null) {
+                    node.optionalVariable = new Node();
+                }
+
+                node = node.optionalVariable;
+            }
+        }
+
+        if (node.entries == null) {
+            node.entries = new ArrayList<Entry>();
+        }
+
+        node.entries.add(new Entry(index, templateRoute, segments.get(last),
+                requirements.get(last)));
+        return true;
+    }
+
+    /**
+     * Returns the route with the best score if the required score is reached.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The route with the best score or null.
+     * @see org.restlet.util.RouteList#getBest(Request, Response, float)
+     */
+    public Route getBest(Request request, Response response,
+            float requiredScore) {
+        Selection selection = new Selection(true, requiredScore);
+        select(request, selection);
+
+        for (int i = 0; i < this.fallbackIndexes.length; i++) {
+            Route route = this.fallbackRoutes.get(i);
+            selection.offer(this.fallbackIndexes[i], route,
+                    route.score(request, response));
+        }
+
+        return selection.route;
+    }
+
+    /**
+     * Returns the first route if the required score is reached.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The first route reaching the required score or null.
+     * @see org.restlet.util.RouteList#getFirst(Request, Response, float)
+     */
+    public Route getFirst(Request request, Response response,
+            float requiredScore) {
+        Selection selection = new Selection(false, requiredScore);
+        select(request, selection);
+
+        // Only score the routes that appear before the indexed match
+        for (int i = 0; (i < this.fallbackIndexes.length)
+                && (this.fallbackIndexes[i] < selection.index); i++) {
+            Route route = this.fallbackRoutes.get(i);
+
+            if (route.score(request, response) >= requiredScore) {
+                return route;
+            }
+        }
+
+        return selection.route;
+    }
+
+    /**
+     * Returns the score of an indexed route, as computed by
+     * {@link TemplateRoute#score(Request, Response)}.
+     * 
+     * @param route
+     *            The matching route.
+     * @param matchedLength
+     *            The number of matched characters.
+     * @param totalLength
+     *            The length of the remaining part.
+     * @return The score of the route.
+     */
+    private float score(TemplateRoute route, int matchedLength, int totalLength) {
+        float result = 0F;
+        Router router = route.getRouter();
+
+        if (router != null) {
+            if (totalLength > 0) {
+                result = router.getRequiredScore()
+                        + (1.0F - router.getRequiredScore())
+                        * (matchedLength / (float) totalLength);
+            } else {
+                result = 1.0F;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Offers all the indexed routes matching the request to the selection.
+     * 
+     * @param request
+     *            The request to match.
+     * @param selection
+     *            The selection to update.
+     */
+    private void select(Request request, Selection selection) {
+        Reference resourceRef = request.getResourceRef();
+
+        if (resourceRef != null) {
+            String remainingPart = resourceRef.getRemainingPart(false, false);
+
+            if (remainingPart != null) {
+                select(this.pathRoot, remainingPart, 0, selection);
+            }
+
+            if ((this.queryRoot.entries != null)
+                    || (this.queryRoot.literals != null)
+                    || (this.queryRoot.requiredVariable != null)
+                    || (this.queryRoot.optionalVariable != null)) {
+                remainingPart = resourceRef.getRemainingPart(false, true);
+
+                if (remainingPart != null) {
+                    select(this.queryRoot, remainingPart, 0, selection);
+                }
+            }
+        }
+    }
+
+    /**
+     * Offers the routes indexed below a given node and matching the remaining
+     * part to the selection.
+     * 
+     * @param node
+     *            The current node.
+     * @param remainingPart
+     *            The remaining part to match.
+     * @param offset
+     *            The start of the current segment.
+     * @param selection
+     *            The selection to update.
+     */
+    private void select(Node node, String remainingPart, int offset,
+            Selection selection) {
+        if (node.entries != null) {
+            for (Entry entry : node.entries) {
+                int matchedLength = entry.match(remainingPart, offset);
+
+                if (matchedLength != -1) {
+                    selection.offer(entry.index, entry.route, score(
+                            entry.route, matchedLength, remainingPart.length()));
+                }
+            }
+        }
+
+        if (node.literals != null) {
+            int end = remainingPart.indexOf('/', offset);
+
+            if (end != -1) {
+                Node child = node.literals.get(remainingPart.substring(offset,
+                        end));
+
+                if (child != null) {
+                    select(child, remainingPart, end + 1, selection);
+                }
+            }
+        }
+
+        if ((node.requiredVariable != null) || (node.optionalVariable != null)) {
+            int end = ReferenceUtils.getSegmentEnd(remainingPart, offset);
+
+            if ((end < remainingPart.length())
+                    && (remainingPart.charAt(end) == '/')) {
+                if ((node.requiredVariable != null) && (end > offset)) {
+                    select(node.requiredVariable, remainingPart, end + 1,
+                            selection);
+                }
+
+                if (node.optionalVariable != null) {
+                    select(node.optionalVariable, remainingPart, end + 1,
+                            selection);
+                }
+            }
+        }
+    }
+
+}
@@ -108,6 +108,34 @@ public class SystemUtils {
         return result;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Returns a factory of virtual threads if they are supported by the Java
+     * Runtime Environment (Java 21 or later), or null otherwise. Reflection is
+     * used so that the engine can still be compiled and run on older JREs.
+     * 
+     * @param namePrefix
+     *            The prefix of the thread names, followed by a counter.
+     * @return A factory of virtual threads or null.
+     */
+    public static java.util.concurrent.ThreadFactory getVirtualThreadFactory(
+            String namePrefix) {
+        java.util.concurrent.ThreadFactory result = null;
+
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, Long.TYPE)
+                    .invoke(builder, namePrefix, 0L);
+            result = (java.util.concurrent.ThreadFactory) builderClass
+                    .getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            // Virtual threads aren't supported
+        }
+
+        return result;
+    }
+
     /**
      * Computes the hash code of a set of objects. Follows the algorithm
      * specified in List.hasCode().
@@ -82,6 +82,98 @@ import org.restlet.util.Series;
 @SuppressWarnings("deprecation")
 public class ClientResource extends UniformResource {
 
+    // [ifndef gwt] member
+    /**
+     * Callback of a submitted call, created for each attempt sent to the next
+     * handler. The final response is processed only once, either by the
+     * connector thread invoking the callback or by the calling thread when the
+     * next handler completed the call synchronously.
+     */
+    private class SubmitCallback implements Uniform {
+
+        /** The future to complete. */
+        private final org.restlet.engine.resource.ResponseFuture future;
+
+        /** Indicates if the final response was processed. */
+        private final java.util.concurrent.atomic.AtomicBoolean handled;
+
+        /** The next handler handling the call. */
+        private final Uniform next;
+
+        /** The references that caused a redirection. */
+        private final List<Reference> references;
+
+        /** The request sent. */
+        private final Request request;
+
+        /** The response to update. */
+        private final Response response;
+
+        /**
+         * Constructor.
+         * 
+         * @param request
+         *            The request sent.
+         * @param response
+         *            The response to update.
+         * @param references
+         *            The references that caused a redirection to prevent
+         *            infinite loops.
+         * @param next
+         *            The next handler handling the call.
+         * @param future
+         *            The future to complete.
+         */
+        public SubmitCallback(Request request, Response response,
+                List<Reference> references, Uniform next,
+                org.restlet.engine.resource.ResponseFuture future) {
+            this.future = future;
+            this.handled = new java.util.concurrent.atomic.AtomicBoolean();
+            this.next = next;
+            this.references = references;
+            this.request = request;
+            this.response = response;
+        }
+
+        /**
+         * Processes the final response, then completes the future unless the
+         * call was redirected. Failed calls aren't retried as it would block
+         * the connector thread during the retry delay.
+         */
+        public void complete() {
+            if (this.handled.compareAndSet(false, true)
+                    && !this.future.isDone()) {
+                handleResponse(this.request, this.response, this.references,
+                        getRetryAttempts(), this.next);
+
+                if (this.request.getOnResponse() == this) {
+                    this.request.setOnResponse(this.future);
+                    setResponse(this.response);
+                    this.future.handle(this.request, this.response);
+                }
+            }
+        }
+
+        /**
+         * Returns the future to complete.
+         * 
+         * @return The future to complete.
+         */
+        public org.restlet.engine.resource.ResponseFuture getFuture() {
+            return future;
+        }
+
+        /**
+         * Ignores the provisional responses and completes the call with the
+         * final one.
+         */
+        public void handle(Request request, Response response) {
+            if (!response.getStatus().isInformational()) {
+                complete();
+            }
+        }
+    }
+
     // [ifndef gwt] method
     /**
      * Creates a client resource that proxy calls to the given Java interface
@@ -1122,56 +1214,20 @@ public class ClientResource extends UniformResource {
             // [enddef]
 
             // Actually handle the call
-            next.handle(request, response);
-
-            // Check for redirections
-            if (isFollowingRedirects() && response.getStatus().isRedirection()
-                    && (response.getLocationRef() != null)) {
-                boolean doRedirection = false;
-
-                if (request.getMethod().isSafe()) {
-                    doRedirection = true;
-                } else {
-                    if (Status.REDIRECTION_SEE_OTHER.equals(response
-                            .getStatus())) {
-                        // The user agent is redirected using the GET method
-                        request.setMethod(Method.GET);
-                        request.setEntity(null);
-                        doRedirection = true;
-                    } else if (Status.REDIRECTION_USE_PROXY.equals(response
-                            .getStatus())) {
-                        doRedirection = true;
-                    }
-                }
-
-                if (doRedirection) {
-                    redirect(request, response, references, retryAttempt, next);
-                } else {
-                    getLogger().fine(
-                            "Unable to redirect the client call after a response"
-                                    + response);
-                }
-            } else if (isRetryOnError()
-                    && response.getStatus().isRecoverableError()
-                    && request.getMethod().isIdempotent()
-                    && (retryAttempt < getRetryAttempts())
-                    && ((request.getEntity() == null) || request.getEntity()
-                            .isAvailable())) {
-                retry(request, response, references, retryAttempt, next);
-            }
-
             // [ifndef gwt]
-            // Check if response entity buffering must be done
-            entity = response.getEntity();
-
-            if (isResponseEntityBuffering()
-                    && (entity != null)
-                    && (entity.isTransient() || (entity.getSize() == Representation.UNKNOWN_SIZE))
-                    && entity.isAvailable()) {
-                response.setEntity(new org.restlet.engine.io.BufferingRepresentation(
-                        entity));
+            if (isSubmitted(request)) {
+                submit(request, response, references, next);
+            } else {
+                next.handle(request, response);
+                handleResponse(request, response, references, retryAttempt,
+                        next);
             }
             // [enddef]
+            // [ifdef gwt] uncomment
+            // next.handle(request, response);
+            // handleResponse(request, response, references, retryAttempt,
+            // next);
+            // [enddef]
         } else {
             getLogger().log(Level.WARNING,
                     "Request ignored as no next Restlet is available");
@@ -1226,6 +1282,75 @@ public class ClientResource extends UniformResource {
         return response;
     }
 
+    /**
+     * Handles the response received by the call, following redirections and
+     * retrying failed calls if needed.
+     * 
+     * @param request
+     *            The request sent.
+     * @param response
+     *            The response received.
+     * @param references
+     *            The references that caused a redirection to prevent infinite
+     *            loops.
+     * @param retryAttempt
+     *            The number of remaining attempts.
+     * @param next
+     *            The next handler handling the call.
+     */
+    protected void handleResponse(Request request, Response response,
+            List<Reference> references, int retryAttempt, Uniform next) {
+
+        // Check for redirections
+        if (isFollowingRedirects() && response.getStatus().isRedirection()
+                && (response.getLocationRef() != null)) {
+            boolean doRedirection = false;
+
+            if (request.getMethod().isSafe()) {
+                doRedirection = true;
+            } else {
+                if (Status.REDIRECTION_SEE_OTHER.equals(response
+                        .getStatus())) {
+                    // The user agent is redirected using the GET method
+                    request.setMethod(Method.GET);
+                    request.setEntity(null);
+                    doRedirection = true;
+                } else if (Status.REDIRECTION_USE_PROXY.equals(response
+                        .getStatus())) {
+                    doRedirection = true;
+                }
+            }
+
+            if (doRedirection) {
+                redirect(request, response, references, retryAttempt, next);
+            } else {
+                getLogger().fine(
+                        "Unable to redirect the client call after a response"
+                                + response);
+            }
+        } else if (isRetryOnError()
+                && response.getStatus().isRecoverableError()
+                && request.getMethod().isIdempotent()
+                && (retryAttempt < getRetryAttempts())
+                && ((request.getEntity() == null) || request.getEntity()
+                        .isAvailable())) {
+            retry(request, response, references, retryAttempt, next);
+        }
+
+        // [ifndef gwt]
+        // Check if response entity buffering must be done
+        Representation entity = response.getEntity();
+
+        if (isResponseEntityBuffering()
+                && (entity != null)
+                && (entity.isTransient() || (entity.getSize() == Representation.UNKNOWN_SIZE))
+                && entity.isAvailable()) {
+            response.setEntity(new org.restlet.engine.io.BufferingRepresentation(
+                    entity));
+        }
+        // [enddef]
+    }
+
     /**
      * Indicates if there is a next Restlet.
      * 
@@ -1289,6 +1414,20 @@ public class ClientResource extends UniformResource {
         return followingRedirects;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Indicates if the request was submitted with one of the asynchronous
+     * submit methods.
+     * 
+     * @param request
+     *            The request to test.
+     * @return True if the request was submitted.
+     */
+    private boolean isSubmitted(Request request) {
+        return (request.getOnResponse() instanceof org.restlet.engine.resource.ResponseFuture)
+                || (request.getOnResponse() instanceof SubmitCallback);
+    }
+
     // [ifndef gwt] method
     /**
      * Indicates if transient or unknown size response entities should be
@@ -1942,6 +2081,121 @@ public class ClientResource extends UniformResource {
         this.retryOnError = retryOnError;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Asynchronously handles the call by cloning the prototype request and
+     * setting the method. See {@link #submit(Request, Uniform)} for details.
+     *
+     * @param method
+     *            The request method to use.
+     * @param onResponse
+     *            The optional callback invoked on completion.
+     * @return The future handle of the call.
+     */
+    public java.util.concurrent.Future<Response> submit(Method method,
+            Uniform onResponse) {
+        return submit(method, null, onResponse);
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Asynchronously handles the call by cloning the prototype request and
+     * setting the method and entity. See {@link #submit(Request, Uniform)} for
+     * details.
+     *
+     * @param method
+     *            The request method to use.
+     * @param entity
+     *            The request entity to set.
+     * @param onResponse
+     *            The optional callback invoked on completion.
+     * @return The future handle of the call.
+     */
+    public java.util.concurrent.Future<Response> submit(Method method,
+            Representation entity, Uniform onResponse) {
+        Request request = createRequest();
+        request.setMethod(method);
+        request.setEntity(entity);
+        return submit(request, onResponse);
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Asynchronously handles the call by invoking the
+     * {@link #handle(Request, Response, List, int, Uniform)} method. With the
+     * internal HTTP client connectors, the method returns immediately and no
+     * thread is parked while the call is pending. Next handlers completing the
+     * call synchronously, like the RIAP, CLAP and FILE connectors, complete the
+     * future before the method returns.<br>
+     * <br>
+     * Once the final response is received, it is processed by the
+     * {@link #handleResponse(Request, Response, List, int, Uniform)} method
+     * like for synchronous calls, the response is set as the latest one with
+     * {@link #setResponse(Response)}, the future is completed and the given
+     * callback is invoked. Note that failed calls aren't retried as it would
+     * block the connector thread during the retry delay.
+     *
+     * @param request
+     *            The request to handle.
+     * @param onResponse
+     *            The optional callback invoked on completion.
+     * @return The future handle of the call.
+     */
+    public java.util.concurrent.Future<Response> submit(Request request,
+            Uniform onResponse) {
+        org.restlet.engine.resource.ResponseFuture result = new org.restlet.engine.resource.ResponseFuture(
+                onResponse);
+        Response response = createResponse(request);
+        Uniform next = getNext();
+
+        if (next != null) {
+            request.setOnResponse(result);
+            handle(request, response, null, 0, next);
+        } else {
+            getLogger()
+                    .warning(
+                            "Unable to process the call for a client resource. No next Restlet has been provided.");
+            response.setStatus(Status.CONNECTOR_ERROR_INTERNAL);
+            result.handle(request, response);
+        }
+
+        return result;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Sends a submitted request to the next handler. The final response is
+     * processed by the connector thread invoking the callback, or directly
+     * when the next handler completed the call synchronously, like the
+     * internal RIAP, CLAP and FILE connectors do.
+     * 
+     * @param request
+     *            The request to send.
+     * @param response
+     *            The response to update.
+     * @param references
+     *            The references that caused a redirection to prevent infinite
+     *            loops.
+     * @param next
+     *            The next handler handling the call.
+     */
+    private void submit(Request request, Response response,
+            List<Reference> references, Uniform next) {
+        Uniform onResponse = request.getOnResponse();
+        org.restlet.engine.resource.ResponseFuture future = (onResponse instanceof SubmitCallback) ? ((SubmitCallback) onResponse)
+                .getFuture() : (org.restlet.engine.resource.ResponseFuture) onResponse;
+        SubmitCallback callback = new SubmitCallback(request, response,
+                references, next, future);
+        request.setOnResponse(callback);
+        next.handle(request, response);
+
+        if (!response.getAttributes().containsKey(
+                org.restlet.engine.connector.ClientConnectionHelper.CONNECTOR_PENDING)) {
+            // No connector thread will invoke the callback
+            callback.complete();
+        }
+    }
+
     // [ifndef gwt] method
     /**
      * Wraps the client resource to proxy calls to the given Java interface into
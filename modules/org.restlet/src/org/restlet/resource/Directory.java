@@ -36,10 +36,13 @@ package org.restlet.resource;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.data.Reference;
 import org.restlet.data.ReferenceList;
@@ -79,6 +82,15 @@ import org.restlet.representation.Variant;
  * idea</a>, using a different and faster implementation contributed by Rob
  * Heittman.<br>
  * <br>
+ * Static files can also be served in a precompressed form. For each encoding
+ * registered with {@link #getPrecompressedExtensions()}, a sibling file with the
+ * given extension appended (ex: "style.css.gz" for "style.css") is returned
+ * instead of the original file when the client accepts this encoding and when
+ * the application's encoder service would have compressed the original file.
+ * This saves the CPU cost of compressing the same static content again and
+ * again, and allows encodings that aren't natively supported by the Restlet
+ * engine, such as Brotli.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -115,6 +127,12 @@ public class Directory extends Finder {
     /** Indicates if the best content is automatically negotiated. */
     private volatile boolean negotiatingContent;
 
+    /**
+     * The extensions of the precompressed sibling files, indexed by content
+     * encoding.
+     */
+    private final Map<Encoding, String> precompressedExtensions;
+
     /** The absolute root reference (file, clap URI). */
     private volatile Reference rootRef;
 
@@ -148,6 +166,7 @@ public class Directory extends Finder {
         this.listingAllowed = false;
         this.modifiable = false;
         this.negotiatingContent = true;
+        this.precompressedExtensions = new ConcurrentHashMap<Encoding, String>();
         setTargetClass(DirectoryServerResource.class);
     }
 
@@ -231,6 +250,18 @@ public class Directory extends Finder {
         return result;
     }
 
+    /**
+     * Returns the modifiable map of extensions of the precompressed sibling
+     * files, indexed by content encoding. For example, mapping
+     * {@link Encoding#GZIP} to "gz" serves "style.css.gz" instead of
+     * "style.css" to clients accepting the GZip encoding. Empty by default.
+     * 
+     * @return The extensions of the precompressed sibling files.
+     */
+    public Map<Encoding, String> getPrecompressedExtensions() {
+        return this.precompressedExtensions;
+    }
+
     /**
      * Returns the root URI from which the relative resource URIs will be looked
      * up.
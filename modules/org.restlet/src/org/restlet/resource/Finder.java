@@ -153,8 +153,18 @@ public class Finder extends Restlet {
 
         if (targetClass != null) {
             try {
-                // Invoke the default constructor
-                result = targetClass.newInstance();
+                // Invoke the cached default constructor
+                result = org.restlet.engine.resource.AnnotationUtils
+                        .getDefaultConstructor(targetClass).newInstance();
+            } catch (java.lang.reflect.InvocationTargetException e) {
+                if (e.getTargetException() instanceof Error) {
+                    throw (Error) e.getTargetException();
+                }
+
+                getLogger()
+                        .log(Level.WARNING,
+                                "Exception while instantiating the target server resource.",
+                                e.getTargetException());
             } catch (Exception e) {
                 getLogger()
                         .log(Level.WARNING,
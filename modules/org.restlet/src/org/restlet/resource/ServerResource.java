@@ -463,12 +463,14 @@ public abstract class ServerResource extends UniformResource {
         Object resultObject = null;
         try {
             if (parameterTypes.length > 0) {
-                List<Object> parameters = new ArrayList<Object>();
+                Object[] parameters = new Object[parameterTypes.length];
                 Object parameter = null;
 
-                for (Class<?> parameterType : parameterTypes) {
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    Class<?> parameterType = parameterTypes[i];
+
                     if (Variant.class.equals(parameterType)) {
-                        parameters.add(variant);
+                        parameters[i] = variant;
                     } else {
                         if (getRequestEntity() != null
                                 && getRequestEntity().isAvailable()
@@ -487,12 +489,12 @@ public abstract class ServerResource extends UniformResource {
                             parameter = null;
                         }
 
-                        parameters.add(parameter);
+                        parameters[i] = parameter;
                     }
                 }
 
                 resultObject = annotationInfo.getJavaMethod().invoke(this,
-                        parameters.toArray());
+                        parameters);
             } else {
                 resultObject = annotationInfo.getJavaMethod().invoke(this);
             }
@@ -55,6 +55,8 @@ import org.restlet.util.RouteList;
  * algorithms:
  * <ul>
  * <li>Best match</li>
+ * <li>Compiled best match</li>
+ * <li>Compiled first match</li>
  * <li>First match (default)</li>
  * <li>Last match</li>
  * <li>Random match</li>
@@ -86,6 +88,28 @@ public class Router extends Restlet {
      */
     public static final int MODE_BEST_MATCH = 1;
 
+    /**
+     * Each call will be routed to the route with the best score, if the
+     * required score is reached, like with the {@link #MODE_BEST_MATCH} mode.
+     * However, the URI templates of the routes are compiled into a trie of
+     * path segments so that most routes aren't scored one by one. This is
+     * especially useful for routers with many attached routes. See
+     * {@link RouteList#getCompiledBest(Request, Response, float)} method for
+     * implementation details.
+     */
+    public static final int MODE_COMPILED_BEST_MATCH = 7;
+
+    /**
+     * Each call is routed to the first route if the required score is reached,
+     * like with the {@link #MODE_FIRST_MATCH} mode. However, the URI templates
+     * of the routes are compiled into a trie of path segments so that most
+     * routes aren't scored one by one. This is especially useful for routers
+     * with many attached routes. See
+     * {@link RouteList#getCompiledFirst(Request, Response, float)} method for
+     * implementation details.
+     */
+    public static final int MODE_COMPILED_FIRST_MATCH = 8;
+
     /**
      * Each call will be routed according to a custom mode. Override the
      * {@link #getCustom(Request, Response)} method to provide your own logic.
@@ -568,6 +592,16 @@ public class Router extends Restlet {
                 case MODE_CUSTOM:
                     result = getCustom(request, response);
                     break;
+
+                case MODE_COMPILED_BEST_MATCH:
+                    result = getRoutes().getCompiledBest(request, response,
+                            getRequiredScore());
+                    break;
+
+                case MODE_COMPILED_FIRST_MATCH:
+                    result = getRoutes().getCompiledFirst(request, response,
+                            getRequiredScore());
+                    break;
                 }
             }
         }
@@ -769,6 +803,12 @@ public class Router extends Restlet {
                 route.start();
             }
 
+            if ((getRoutingMode() == MODE_COMPILED_BEST_MATCH)
+                    || (getRoutingMode() == MODE_COMPILED_FIRST_MATCH)) {
+                // Take into account the templates updated after attachment
+                getRoutes().compile();
+            }
+
             if (getDefaultRoute() != null) {
                 getDefaultRoute().start();
             }
@@ -46,6 +46,7 @@ import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Reference;
+import org.restlet.engine.util.ReferenceUtils;
 import org.restlet.util.Resolver;
 
 /**
@@ -58,6 +59,11 @@ import org.restlet.util.Resolver;
  * Note that the variable descriptors can be changed before the first parsing or
  * matching call. After that point, changes won't be taken into account.<br>
  * <br>
+ * Simple patterns only made of literals and of
+ * {@link Variable#TYPE_URI_SEGMENT} variables followed by a character that
+ * can't be part of a segment, such as "/{a}/{b}/items/{id}", are parsed and
+ * matched without relying on regular expressions.<br>
+ * <br>
  * Format and parsing methods are specially available to deal with requests and
  * response. See {@link #format(Request, Response)} and
  * {@link #parse(String, Request)}.
@@ -75,6 +81,116 @@ public class Template {
     /** Mode where characters at the beginning must match the template. */
     public static final int MODE_STARTS_WITH = 1;
 
+    /**
+     * Scanner of simple patterns, matching segment variables up to the next
+     * literal without relying on regular expressions.
+     */
+    private static final class SegmentScanner {
+
+        /** Indicates if the value of each variable must be decoded. */
+        private final boolean[] decoding;
+
+        /** The literals before, between and after the variables. */
+        private final String[] literals;
+
+        /** The names of the variables. */
+        private final String[] names;
+
+        /** Indicates if each variable is required. */
+        private final boolean[] required;
+
+        /**
+         * Constructor.
+         * 
+         * @param literals
+         *            The literals before, between and after the variables.
+         * @param names
+         *            The names of the variables.
+         * @param decoding
+         *            Indicates if the value of each variable must be decoded.
+         * @param required
+         *            Indicates if each variable is required.
+         */
+        private SegmentScanner(List<String> literals, List<String> names,
+                List<Boolean> decoding, List<Boolean> required) {
+            this.literals = literals.toArray(new String[literals.size()]);
+            this.names = names.toArray(new String[names.size()]);
+            this.decoding = new boolean[names.size()];
+            this.required = new boolean[names.size()];
+
+            for (int i = 0; i < this.names.length; i++) {
+                this.decoding[i] = decoding.get(i);
+                this.required[i] = required.get(i);
+            }
+        }
+
+        /**
+         * Scans a formatted string. The variables are only updated if the
+         * formatted string is known to match.
+         * 
+         * @param formattedString
+         *            The string to scan.
+         * @param matchingMode
+         *            The matching mode.
+         * @param variables
+         *            The map of variables to update or null.
+         * @param logger
+         *            The logger to use or null.
+         * @return The number of matched characters or -1 if the match failed.
+         */
+        private int scan(String formattedString, int matchingMode,
+                Map<String, Object> variables, Logger logger) {
+            if ((matchingMode != MODE_EQUALS)
+                    && (matchingMode != MODE_STARTS_WITH)) {
+                return -1;
+            }
+
+            if (!formattedString.startsWith(this.literals[0])) {
+                return -1;
+            }
+
+            int offset = this.literals[0].length();
+            int end;
+            String value;
+
+            for (int i = 0; i < this.names.length; i++) {
+                end = ReferenceUtils.getSegmentEnd(formattedString, offset);
+
+                if (this.required[i] && (end == offset)) {
+                    return -1;
+                }
+
+                if (variables != null) {
+                    value = formattedString.substring(offset, end);
+
+                    if (this.decoding[i]) {
+                        value = Reference.decode(value);
+                    }
+
+                    if (logger != null) {
+                        logger.fine("Template variable \"" + this.names[i]
+                                + "\" matched with value \"" + value + "\"");
+                    }
+
+                    variables.put(this.names[i], value);
+                }
+
+                if (!formattedString.startsWith(this.literals[i + 1], end)) {
+                    return -1;
+                }
+
+                offset = end + this.literals[i + 1].length();
+            }
+
+            if ((matchingMode == MODE_EQUALS)
+                    && (offset != formattedString.length())) {
+                return -1;
+            }
+
+            return offset;
+        }
+    }
+
     /**
      * Appends to a pattern a repeating group of a given content based on a
      * class of characters.
@@ -240,6 +356,28 @@ public class Template {
         return result;
     }
 
+    /**
+     * Indicates if a literal can follow the last segment variable found. The
+     * literal must start with a character that can't be part of a segment so
+     * that the variable always matches the longest sequence of segment
+     * characters, like the Regex pattern would.
+     * 
+     * @param names
+     *            The names of the variables found so far.
+     * @param literal
+     *            The literal following the last variable.
+     * @return True if the literal can follow the last variable.
+     */
+    private static boolean isSegmentSeparator(List<String> names,
+            CharSequence literal) {
+        if (names.isEmpty()) {
+            return true;
+        }
+
+        return (literal.length() > 0) && (literal.charAt(0) != '%')
+                && !ReferenceUtils.isSegmentCharacter(literal.charAt(0));
+    }
+
     /** The default variable to use when no matching variable descriptor exists. */
     private volatile Variable defaultVariable;
 
@@ -261,6 +399,12 @@ public class Template {
     /** The sequence of Regex variable names as found in the pattern string. */
     private volatile List<String> regexVariables;
 
+    /** The scanner of simple patterns or null if a Regex must be used. */
+    private volatile SegmentScanner segmentScanner;
+
+    /** Indicates if the segment scanner has been created if possible. */
+    private volatile boolean segmentScannerCreated;
+
     /** The map of variables associated to the route's template. */
     private final Map<String, Variable> variables;
 
@@ -344,6 +488,84 @@ public class Template {
         this.encodingVariables = encodingVariables;
     }
 
+    /**
+     * Creates a scanner if the pattern is simple enough to be matched without
+     * relying on a Regex pattern.
+     * 
+     * @return The scanner or null if a Regex pattern is needed.
+     */
+    private SegmentScanner createSegmentScanner() {
+        String pattern = getPattern();
+
+        if (pattern == null) {
+            return null;
+        }
+
+        List<String> literals = new ArrayList<String>();
+        List<String> names = new ArrayList<String>();
+        List<Boolean> decoding = new ArrayList<Boolean>();
+        List<Boolean> required = new ArrayList<Boolean>();
+        StringBuilder literal = new StringBuilder();
+        int index = 0;
+        char next;
+
+        while (index < pattern.length()) {
+            next = pattern.charAt(index);
+
+            if (next == '{') {
+                int end = pattern.indexOf('}', index);
+
+                if ((end == -1) || (end == index + 1)
+                        || !isSegmentSeparator(names, literal)) {
+                    return null;
+                }
+
+                String name = pattern.substring(index + 1, end);
+
+                for (int i = 0; i < name.length(); i++) {
+                    if (!Reference.isUnreserved(name.charAt(i))) {
+                        return null;
+                    }
+                }
+
+                if (names.contains(name)) {
+                    // Repeated variables require back references
+                    return null;
+                }
+
+                Variable descriptor = getVariables().get(name);
+                Variable variable = (descriptor == null) ? getDefaultVariable()
+                        : descriptor;
+
+                if ((variable == null) || variable.isFixed()
+                        || (variable.getType() != Variable.TYPE_URI_SEGMENT)) {
+                    return null;
+                }
+
+                literals.add(literal.toString());
+                names.add(name);
+                decoding.add((descriptor != null)
+                        && descriptor.isDecodingOnParse());
+                required.add(variable.isRequired());
+                literal = new StringBuilder();
+                index = end + 1;
+            } else if ((next == '}') || (next == '+')) {
+                // Not quoted in the Regex pattern
+                return null;
+            } else {
+                literal.append(next);
+                index++;
+            }
+        }
+
+        if ((literal.length() > 0) && !isSegmentSeparator(names, literal)) {
+            return null;
+        }
+
+        literals.add(literal.toString());
+        return new SegmentScanner(literals, names, decoding, required);
+    }
+
     /**
      * Creates a formatted string based on the given map of values.
      * 
@@ -597,6 +819,24 @@ public class Template {
         return rv;
     }
 
+    /**
+     * Returns the scanner of simple patterns. Creates it if possible.
+     * 
+     * @return The scanner or null if the Regex pattern must be used.
+     */
+    private SegmentScanner getSegmentScanner() {
+        if (!this.segmentScannerCreated) {
+            synchronized (this) {
+                if (!this.segmentScannerCreated) {
+                    this.segmentScanner = createSegmentScanner();
+                    this.segmentScannerCreated = true;
+                }
+            }
+        }
+
+        return this.segmentScanner;
+    }
+
     /**
      * Returns the list of variable names in the template.
      * 
@@ -683,7 +923,12 @@ public class Template {
         int result = -1;
 
         try {
-            if (formattedString != null) {
+            SegmentScanner scanner = getSegmentScanner();
+
+            if ((formattedString != null) && (scanner != null)) {
+                result = scanner.scan(formattedString, getMatchingMode(),
+                        null, null);
+            } else if (formattedString != null) {
                 final Matcher matcher = getRegexPattern().matcher(
                         formattedString);
 
@@ -741,7 +986,18 @@ public class Template {
             boolean loggable) {
         int result = -1;
 
-        if (formattedString != null) {
+        SegmentScanner scanner = getSegmentScanner();
+
+        if ((formattedString != null) && (scanner != null)) {
+            result = scanner.scan(formattedString, getMatchingMode(), null,
+                    null);
+
+            if (result != -1) {
+                // Update the attributes with the variables value
+                scanner.scan(formattedString, getMatchingMode(), variables,
+                        loggable ? getLogger() : null);
+            }
+        } else if (formattedString != null) {
             try {
                 Matcher matcher = getRegexPattern().matcher(formattedString);
                 boolean matched = ((getMatchingMode() == MODE_EQUALS) && matcher
@@ -901,6 +1157,7 @@ public class Template {
     public void setPattern(String pattern) {
         this.pattern = pattern;
         this.regexPattern = null;
+        this.segmentScannerCreated = false;
     }
 
     /**
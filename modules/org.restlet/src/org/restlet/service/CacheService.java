@@ -0,0 +1,331 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.service;
+
+import org.restlet.Context;
+import org.restlet.engine.application.CacheFilter;
+import org.restlet.routing.Filter;
+
+/**
+ * Application service caching response entities in memory. Only the
+ * successful responses to GET requests whose freshness can be computed from
+ * their "max-age" or "s-maxage" cache directives, or from their expiration
+ * date, or that can be revalidated based on their tag or modification date are
+ * stored. Responses with "no-store" or "no-cache" directives, "private"
+ * responses in shared caches and responses to authenticated requests are never
+ * stored.<br>
+ * <br>
+ * The cached entities are buffered in memory and keyed by resource URI and by
+ * the client preferences on which they vary, as declared by
+ * {@link org.restlet.Response#getDimensions()}. The least recently used entries
+ * are evicted when the total number of cached bytes exceeds a configurable
+ * budget, separately enforced by each cache filter.<br>
+ * <br>
+ * By default, only the inbound responses are cached, as a shared cache in front
+ * of the application resources. The outbound responses received by the client
+ * connectors, for example by {@link org.restlet.resource.ClientResource}
+ * instances, can also be cached as a private cache. A {@link CacheFilter} can
+ * also be chained directly in front of a {@link org.restlet.Client} that
+ * isn't used in the context of an application.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheService extends Service {
+
+    /** The default maximum number of cached bytes. */
+    public static final long DEFAULT_MAX_CACHED_BYTES = 16 * 1024 * 1024;
+
+    /** The default maximum size of a cached entity. */
+    public static final long DEFAULT_MAX_ENTITY_SIZE = 512 * 1024;
+
+    /** Indicates if the inbound responses should be cached. */
+    private volatile boolean inboundCaching;
+
+    /** The last inbound cache filter created. */
+    private volatile CacheFilter inboundFilter;
+
+    /** The maximum number of cached bytes. */
+    private volatile long maxCachedBytes;
+
+    /** The maximum size of a cached entity. */
+    private volatile long maxEntitySize;
+
+    /** Indicates if the outbound responses should be cached. */
+    private volatile boolean outboundCaching;
+
+    /** The last outbound cache filter created. */
+    private volatile CacheFilter outboundFilter;
+
+    /**
+     * Constructor.
+     */
+    public CacheService() {
+        this(true);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param enabled
+     *            True if the service has been enabled.
+     */
+    public CacheService(boolean enabled) {
+        super(enabled);
+        this.inboundCaching = true;
+        this.outboundCaching = false;
+        this.maxCachedBytes = DEFAULT_MAX_CACHED_BYTES;
+        this.maxEntitySize = DEFAULT_MAX_ENTITY_SIZE;
+    }
+
+    /**
+     * Removes all the cached entries.
+     */
+    public void clear() {
+        if (getInboundFilter() != null) {
+            getInboundFilter().clear();
+        }
+
+        if (getOutboundFilter() != null) {
+            getOutboundFilter().clear();
+        }
+    }
+
+    @Override
+    public Filter createInboundFilter(Context context) {
+        this.inboundFilter = isInboundCaching() ? new CacheFilter(context,
+                true, this) : null;
+        return this.inboundFilter;
+    }
+
+    @Override
+    public Filter createOutboundFilter(Context context) {
+        this.outboundFilter = isOutboundCaching() ? new CacheFilter(context,
+                false, this) : null;
+        return this.outboundFilter;
+    }
+
+    /**
+     * Returns the current number of cached bytes.
+     * 
+     * @return The current number of cached bytes.
+     */
+    public long getCachedBytes() {
+        long result = 0;
+
+        if (getInboundFilter() != null) {
+            result += getInboundFilter().getCachedBytes();
+        }
+
+        if (getOutboundFilter() != null) {
+            result += getOutboundFilter().getCachedBytes();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of entries evicted to respect the byte budget.
+     * 
+     * @return The number of entries evicted.
+     */
+    public long getEvictionCount() {
+        long result = 0;
+
+        if (getInboundFilter() != null) {
+            result += getInboundFilter().getEvictionCount();
+        }
+
+        if (getOutboundFilter() != null) {
+            result += getOutboundFilter().getEvictionCount();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of requests served from the cache, including the
+     * revalidated ones.
+     * 
+     * @return The number of requests served from the cache.
+     */
+    public long getHitCount() {
+        long result = 0;
+
+        if (getInboundFilter() != null) {
+            result += getInboundFilter().getHitCount();
+        }
+
+        if (getOutboundFilter() != null) {
+            result += getOutboundFilter().getHitCount();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the last inbound cache filter created.
+     * 
+     * @return The last inbound cache filter created or null.
+     */
+    public CacheFilter getInboundFilter() {
+        return inboundFilter;
+    }
+
+    /**
+     * Returns the maximum number of cached bytes. Defaults to 16 MB.
+     * 
+     * @return The maximum number of cached bytes.
+     */
+    public long getMaxCachedBytes() {
+        return maxCachedBytes;
+    }
+
+    /**
+     * Returns the maximum size of a cached entity. Defaults to 512 KB.
+     * 
+     * @return The maximum size of a cached entity.
+     */
+    public long getMaxEntitySize() {
+        return maxEntitySize;
+    }
+
+    /**
+     * Returns the number of cacheable requests that couldn't be served from the
+     * cache.
+     * 
+     * @return The number of cacheable requests not served from the cache.
+     */
+    public long getMissCount() {
+        long result = 0;
+
+        if (getInboundFilter() != null) {
+            result += getInboundFilter().getMissCount();
+        }
+
+        if (getOutboundFilter() != null) {
+            result += getOutboundFilter().getMissCount();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the last outbound cache filter created.
+     * 
+     * @return The last outbound cache filter created or null.
+     */
+    public CacheFilter getOutboundFilter() {
+        return outboundFilter;
+    }
+
+    /**
+     * Returns the number of stale entries successfully revalidated.
+     * 
+     * @return The number of stale entries successfully revalidated.
+     */
+    public long getRevalidationCount() {
+        long result = 0;
+
+        if (getInboundFilter() != null) {
+            result += getInboundFilter().getRevalidationCount();
+        }
+
+        if (getOutboundFilter() != null) {
+            result += getOutboundFilter().getRevalidationCount();
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if the inbound responses should be cached. Default value is
+     * true.
+     * 
+     * @return True if the inbound responses should be cached.
+     */
+    public boolean isInboundCaching() {
+        return inboundCaching;
+    }
+
+    /**
+     * Indicates if the outbound responses should be cached. Default value is
+     * false.
+     * 
+     * @return True if the outbound responses should be cached.
+     */
+    public boolean isOutboundCaching() {
+        return outboundCaching;
+    }
+
+    /**
+     * Indicates if the inbound responses should be cached.
+     * 
+     * @param inboundCaching
+     *            True if the inbound responses should be cached.
+     */
+    public void setInboundCaching(boolean inboundCaching) {
+        this.inboundCaching = inboundCaching;
+    }
+
+    /**
+     * Sets the maximum number of cached bytes.
+     * 
+     * @param maxCachedBytes
+     *            The maximum number of cached bytes.
+     */
+    public void setMaxCachedBytes(long maxCachedBytes) {
+        this.maxCachedBytes = maxCachedBytes;
+    }
+
+    /**
+     * Sets the maximum size of a cached entity.
+     * 
+     * @param maxEntitySize
+     *            The maximum size of a cached entity.
+     */
+    public void setMaxEntitySize(long maxEntitySize) {
+        this.maxEntitySize = maxEntitySize;
+    }
+
+    /**
+     * Indicates if the outbound responses should be cached.
+     * 
+     * @param outboundCaching
+     *            True if the outbound responses should be cached.
+     */
+    public void setOutboundCaching(boolean outboundCaching) {
+        this.outboundCaching = outboundCaching;
+    }
+
+}
@@ -34,22 +34,43 @@
 package org.restlet.service;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.restlet.Request;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Metadata;
+import org.restlet.data.Preference;
 import org.restlet.engine.application.Conneg;
 import org.restlet.engine.application.FlexibleConneg;
 import org.restlet.engine.application.StrictConneg;
+import org.restlet.engine.resource.AnnotationInfo;
+import org.restlet.engine.resource.VariantInfo;
 import org.restlet.representation.Variant;
 
 /**
  * Application service negotiating the preferred resource variants. This service
  * is leveraged by server-side and client-side content negotiation, annotated
- * method dispatching, and so on.
+ * method dispatching, and so on.<br>
+ * <br>
+ * As clients tend to send a small number of distinct preference combinations,
+ * the negotiation results are cached. The cache key includes everything the
+ * negotiation depends on: the client preferences, the default metadata of the
+ * metadata service, the variants' metadata and, for annotated variants, the
+ * query constraints and the request query. Therefore changes to the converters
+ * or to the metadata service never lead to stale results. The cache is cleared
+ * once it reaches its maximum size.
  * 
  * @author Jerome Louvel
  */
 public class ConnegService extends Service {
 
+    /** The cached indexes of the preferred variants, by negotiation key. */
+    private final ConcurrentMap<String, Integer> cachedResults;
+
+    /** The maximum number of cached negotiation results. */
+    private volatile int maxCachedResults;
+
     /**
      * Indicates if the conneg algorithm should strictly respect client
      * preferences or be more flexible.
@@ -72,6 +93,129 @@ public class ConnegService extends Service {
     public ConnegService(boolean enabled) {
         super(enabled);
         this.strict = false;
+        this.cachedResults = new ConcurrentHashMap<String, Integer>();
+        this.maxCachedResults = 1000;
+    }
+
+    /**
+     * Appends the metadata of a list of preferences to a negotiation key.
+     * 
+     * @param sb
+     *            The key builder.
+     * @param prefs
+     *            The list of preferences.
+     */
+    private <T extends Metadata> void appendKey(StringBuilder sb,
+            List<Preference<T>> prefs) {
+        for (Preference<T> pref : prefs) {
+            sb.append(pref.getMetadata()).append(';')
+                    .append(pref.getQuality()).append('|');
+        }
+
+        sb.append('\n');
+    }
+
+    /**
+     * Clears the cached negotiation results.
+     */
+    public void clearCache() {
+        this.cachedResults.clear();
+    }
+
+    /**
+     * Returns the number of cached negotiation results.
+     * 
+     * @return The number of cached negotiation results.
+     */
+    public int getCachedResultsCount() {
+        return this.cachedResults.size();
+    }
+
+    /**
+     * Returns the key identifying a negotiation, or null if it can't be
+     * cached.
+     * 
+     * @param variants
+     *            The list of variants to compare.
+     * @param request
+     *            The request including client preferences.
+     * @param metadataService
+     *            The metadata service used to get default metadata values.
+     * @return The negotiation key or null.
+     */
+    protected String getCacheKey(List<? extends Variant> variants,
+            Request request, MetadataService metadataService) {
+        ClientInfo clientInfo = request.getClientInfo();
+
+        if (clientInfo == null) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append(isStrict()).append('\n');
+
+        if (metadataService != null) {
+            sb.append(metadataService.getDefaultLanguage()).append('|')
+                    .append(metadataService.getDefaultMediaType()).append('|')
+                    .append(metadataService.getDefaultCharacterSet())
+                    .append('|').append(metadataService.getDefaultEncoding());
+        }
+
+        sb.append('\n');
+        appendKey(sb, clientInfo.getAcceptedLanguages());
+        appendKey(sb, clientInfo.getAcceptedMediaTypes());
+        appendKey(sb, clientInfo.getAcceptedCharacterSets());
+        appendKey(sb, clientInfo.getAcceptedEncodings());
+        boolean annotated = false;
+        boolean queryConstrained = false;
+
+        for (Variant variant : variants) {
+            sb.append(variant.getLanguages()).append(';')
+                    .append(variant.getMediaType()).append(';')
+                    .append(variant.getCharacterSet()).append(';')
+                    .append(variant.getEncodings());
+
+            if (variant instanceof VariantInfo) {
+                AnnotationInfo annotationInfo = ((VariantInfo) variant)
+                        .getAnnotationInfo();
+                sb.append(";i");
+
+                if (annotationInfo != null) {
+                    annotated = true;
+                    queryConstrained = queryConstrained
+                            || (annotationInfo.getQuery() != null);
+                    sb.append(";?").append(annotationInfo.getQuery());
+                }
+            }
+
+            sb.append('|');
+        }
+
+        if (annotated) {
+            String query = (request.getResourceRef() == null) ? null : request
+                    .getResourceRef().getQuery();
+            sb.append('\n');
+
+            // The query is only matched against the query constraints, the
+            // other annotations only depend on its presence
+            if (queryConstrained) {
+                sb.append(query);
+            } else {
+                sb.append(query != null);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the maximum number of cached negotiation results. Default value
+     * is 1000, zero disabling the cache.
+     * 
+     * @return The maximum number of cached negotiation results.
+     */
+    public int getMaxCachedResults() {
+        return maxCachedResults;
     }
 
     /**
@@ -93,9 +237,42 @@ public class ConnegService extends Service {
      */
     public Variant getPreferredVariant(List<? extends Variant> variants,
             Request request, MetadataService metadataService) {
+        String key = null;
+
+        if ((getMaxCachedResults() > 0) && (variants != null)
+                && !variants.isEmpty()) {
+            key = getCacheKey(variants, request, metadataService);
+
+            if (key != null) {
+                Integer index = this.cachedResults.get(key);
+
+                if (index != null) {
+                    return (index < 0) ? null : variants.get(index);
+                }
+            }
+        }
+
         Conneg conneg = isStrict() ? new StrictConneg(request, metadataService)
                 : new FlexibleConneg(request, metadataService);
-        return conneg.getPreferredVariant(variants);
+        Variant result = conneg.getPreferredVariant(variants);
+
+        if (key != null) {
+            int index = -1;
+
+            for (int i = 0; (index == -1) && (i < variants.size()); i++) {
+                if (variants.get(i) == result) {
+                    index = i;
+                }
+            }
+
+            if (this.cachedResults.size() >= getMaxCachedResults()) {
+                clearCache();
+            }
+
+            this.cachedResults.put(key, index);
+        }
+
+        return result;
     }
 
     /**
@@ -109,6 +286,18 @@ public class ConnegService extends Service {
         return strict;
     }
 
+    /**
+     * Sets the maximum number of cached negotiation results, zero disabling
+     * the cache.
+     * 
+     * @param maxCachedResults
+     *            The maximum number of cached negotiation results.
+     */
+    public void setMaxCachedResults(int maxCachedResults) {
+        this.maxCachedResults = maxCachedResults;
+        clearCache();
+    }
+
     /**
      * Indicates if the conneg algorithm should strictly respect client
      * preferences or be more flexible.
@@ -121,4 +310,10 @@ public class ConnegService extends Service {
         this.strict = strict;
     }
 
+    @Override
+    public synchronized void stop() throws Exception {
+        clearCache();
+        super.stop();
+    }
+
 }
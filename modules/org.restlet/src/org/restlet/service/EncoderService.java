@@ -55,6 +55,12 @@ public class EncoderService extends Service {
     /** Indicates if the encoding should always occur, regardless of the size. */
     public static final int ANY_SIZE = -1;
 
+    /**
+     * Indicates the default maximum size of the entities whose encoded content
+     * can be cached.
+     */
+    public static final int DEFAULT_MAX_CACHED_ENTITY_SIZE = 64 * 1024;
+
     /** Indicates if the default minimum size for encoding to occur. */
     public static final int DEFAULT_MINIMUM_SIZE = 1000;
 
@@ -98,6 +104,16 @@ public class EncoderService extends Service {
      */
     private volatile List<MediaType> ignoredMediaTypes;
 
+    /**
+     * The maximum number of encoded bytes kept in cache.
+     */
+    private volatile long maxCachedBytes;
+
+    /**
+     * The maximum size of the entities whose encoded content can be cached.
+     */
+    private volatile long maxCachedEntitySize;
+
     /**
      * The minimal size necessary for encoding.
      */
@@ -118,6 +134,8 @@ public class EncoderService extends Service {
      */
     public EncoderService(boolean enabled) {
         super(enabled);
+        this.maxCachedBytes = 0;
+        this.maxCachedEntitySize = DEFAULT_MAX_CACHED_ENTITY_SIZE;
         this.mininumSize = DEFAULT_MINIMUM_SIZE;
         this.acceptedMediaTypes = getDefaultAcceptedMediaTypes();
         this.ignoredMediaTypes = getDefaultIgnoredMediaTypes();
@@ -210,6 +228,29 @@ public class EncoderService extends Service {
         return this.ignoredMediaTypes;
     }
 
+    /**
+     * Returns the maximum number of encoded bytes kept in cache by the encoder
+     * filter. Only response entities with a strong tag and a known size can be
+     * cached, so that the same static content isn't compressed again for each
+     * call. Returns 0 by default, disabling the cache.
+     * 
+     * @return The maximum number of encoded bytes kept in cache.
+     */
+    public long getMaxCachedBytes() {
+        return this.maxCachedBytes;
+    }
+
+    /**
+     * Returns the maximum size of the entities whose encoded content can be
+     * cached. Returns {@link #DEFAULT_MAX_CACHED_ENTITY_SIZE} by default.
+     * 
+     * @return The maximum size of the entities whose encoded content can be
+     *         cached.
+     */
+    public long getMaxCachedEntitySize() {
+        return this.maxCachedEntitySize;
+    }
+
     /**
      * Returns the minimum size a representation must have before compression is
      * done.
@@ -221,6 +262,29 @@ public class EncoderService extends Service {
         return this.mininumSize;
     }
 
+    /**
+     * Sets the maximum number of encoded bytes kept in cache by the encoder
+     * filter. A value of 0 disables the cache.
+     * 
+     * @param maxCachedBytes
+     *            The maximum number of encoded bytes kept in cache.
+     */
+    public void setMaxCachedBytes(long maxCachedBytes) {
+        this.maxCachedBytes = maxCachedBytes;
+    }
+
+    /**
+     * Sets the maximum size of the entities whose encoded content can be
+     * cached.
+     * 
+     * @param maxCachedEntitySize
+     *            The maximum size of the entities whose encoded content can be
+     *            cached.
+     */
+    public void setMaxCachedEntitySize(long maxCachedEntitySize) {
+        this.maxCachedEntitySize = maxCachedEntitySize;
+    }
+
     /**
      * Sets the minimum size a representation must have before compression is
      * done.
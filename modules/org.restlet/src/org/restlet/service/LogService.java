@@ -33,7 +33,10 @@
 
 package org.restlet.service;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.LogManager;
+import java.util.logging.Logger;
 
 import org.restlet.Context;
 import org.restlet.Request;
@@ -41,11 +44,14 @@ import org.restlet.Response;
 import org.restlet.data.Method;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
+import org.restlet.engine.log.AsyncLogWriter;
 import org.restlet.engine.log.LogFilter;
+import org.restlet.engine.log.ResponseLogRecord;
 import org.restlet.representation.Representation;
 import org.restlet.resource.ClientResource;
 import org.restlet.routing.Filter;
 import org.restlet.routing.Template;
+import org.restlet.util.Resolver;
 
 /**
  * Service providing access logging service. The implementation is fully based
@@ -80,6 +86,17 @@ import org.restlet.routing.Template;
  * <br>
  * For custom access log format, see the syntax to use and the list of available
  * variable names in {@link org.restlet.routing.Template}. <br>
+ * <br>
+ * By default, the log entries are formatted and logged by the thread handling
+ * the call. In asynchronous mode, the values needed by the log entries are
+ * captured and put in a bounded queue, then formatted and written in batches by
+ * a background thread, either to the JDK's logger or directly to a log file.
+ * When the queue is full, new entries are dropped and counted, unless the
+ * queue is blocking. If the {@link #getResponseLogMessage(Response, int)} or
+ * {@link #getDefaultResponseLogMessage(Response, int)} methods are overridden,
+ * the log entries are still formatted by the thread handling the call, as
+ * these methods need the live response, and only their writing is
+ * asynchronous. <br>
  * 
  * @see <a href="http://wiki.restlet.org/docs_2.1/201-restlet.html">User Guide -
  *      Access logging</a>
@@ -89,6 +106,12 @@ import org.restlet.routing.Template;
  */
 public class LogService extends Service {
 
+    /** Indicates if the log entries are written asynchronously. */
+    private volatile boolean asynchronous;
+
+    /** The asynchronous log writer. */
+    private volatile AsyncLogWriter asyncWriter;
+
     /** Indicates if the debugging mode is enabled. */
     private volatile boolean debugging;
 
@@ -101,9 +124,21 @@ public class LogService extends Service {
     /** The access logger name. */
     private volatile String loggerName;
 
+    /** The path of the file directly written in asynchronous mode. */
+    private volatile String logFilePath;
+
     /** The URI reference of the log properties. */
     private volatile Reference logPropertiesRef;
 
+    /** Indicates if the formatting of the response log entries is customized. */
+    private volatile boolean messageOverridden;
+
+    /** Indicates if a full queue blocks the callers in asynchronous mode. */
+    private volatile boolean queueBlocking;
+
+    /** The capacity of the queue of log entries in asynchronous mode. */
+    private volatile int queueCapacity;
+
     /** The response log entry format. */
     private volatile String responseLogFormat;
 
@@ -130,6 +165,57 @@ public class LogService extends Service {
         this.responseLogFormat = null;
         this.logPropertiesRef = null;
         this.identityCheck = false;
+        this.asynchronous = false;
+        this.logFilePath = null;
+        this.queueBlocking = false;
+        this.queueCapacity = 8192;
+    }
+
+    /**
+     * Captures the values needed to log a response, so that the log entry can
+     * be formatted later, for example by an asynchronous writer. If a log
+     * template is set, its variables are resolved, otherwise the fields of the
+     * default format are collected. If the formatting methods taking the
+     * response are overridden, the log entry is formatted right away.
+     * 
+     * @param logger
+     *            The logger of the log entry.
+     * @param response
+     *            The response to log.
+     * @param duration
+     *            The call duration (in milliseconds).
+     * @return The captured record.
+     */
+    public ResponseLogRecord captureResponseLog(Logger logger,
+            Response response, int duration) {
+        ResponseLogRecord result = null;
+        Template template = this.responseLogTemplate;
+
+        if (this.messageOverridden) {
+            result = new ResponseLogRecord(logger, System.currentTimeMillis(),
+                    getResponseLogMessage(response, duration));
+        } else if (template != null) {
+            Map<String, String> variables = new HashMap<String, String>();
+            Resolver<?> resolver = Resolver.createResolver(
+                    response.getRequest(), response);
+            Object value;
+
+            for (String name : template.getVariableNames()) {
+                value = resolver.resolve(name);
+                variables.put(name, (value == null) ? null : value.toString());
+            }
+
+            result = new ResponseLogRecord(logger, System.currentTimeMillis(),
+                    null, variables);
+        } else if (isDebugging()) {
+            result = new ResponseLogRecord(logger, System.currentTimeMillis(),
+                    null, null);
+        } else {
+            result = new ResponseLogRecord(logger, System.currentTimeMillis(),
+                    getDefaultResponseLogFields(response, duration), null);
+        }
+
+        return result;
     }
 
     @Override
@@ -138,133 +224,202 @@ public class LogService extends Service {
     }
 
     /**
-     * Format a log entry using the default IIS log format.
+     * Formats a previously captured log entry.
+     * 
+     * @param record
+     *            The captured record.
+     * @return The formatted log entry.
+     * @see #captureResponseLog(Logger, Response, int)
+     */
+    public String formatResponseLog(ResponseLogRecord record) {
+        String result = null;
+
+        if (record.getMessage() != null) {
+            result = record.getMessage();
+        } else if (record.getVariables() != null) {
+            Template template = this.responseLogTemplate;
+
+            if (template != null) {
+                result = template.format(record.getVariables());
+            }
+        } else if (record.getFields() != null) {
+            result = getDefaultResponseLogMessage(record.getTime(),
+                    record.getFields());
+        } else {
+            result = "";
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the fields of a log entry using the default IIS log format,
+     * except the date and time.
      * 
      * @param response
      *            The response to log.
      * @param duration
      *            The call duration (in milliseconds).
-     * @return The formatted log entry.
+     * @return The fields of the log entry.
      */
-    protected String getDefaultResponseLogMessage(Response response,
+    protected String[] getDefaultResponseLogFields(Response response,
             int duration) {
-        StringBuilder sb = new StringBuilder();
+        String[] result = new String[14];
         Request request = response.getRequest();
 
-        if (isDebugging()) {
-
+        // The client IP address
+        String clientAddress = request.getClientInfo().getUpstreamAddress();
+        result[0] = (clientAddress == null) ? "-" : clientAddress;
+
+        // The user name (via IDENT protocol)
+        if (isIdentityCheck()) {
+            // [ifndef gae]
+            org.restlet.engine.log.IdentClient ic = new org.restlet.engine.log.IdentClient(
+                    request.getClientInfo().getUpstreamAddress(), request
+                            .getClientInfo().getPort(), response
+                            .getServerInfo().getPort());
+            result[1] = (ic.getUserIdentifier() == null) ? "-" : ic
+                    .getUserIdentifier();
+        } else if ((request.getChallengeResponse() != null)
+                && (request.getChallengeResponse().getIdentifier() != null)) {
+            result[1] = request.getChallengeResponse().getIdentifier();
         } else {
-            long currentTime = System.currentTimeMillis();
-
-            // Append the date of the request
-            sb.append(String.format("%tF", currentTime));
-            sb.append('\t');
-
-            // Append the time of the request
-            sb.append(String.format("%tT", currentTime));
-            sb.append('\t');
-
-            // Append the client IP address
-            String clientAddress = request.getClientInfo().getUpstreamAddress();
-            sb.append((clientAddress == null) ? "-" : clientAddress);
-            sb.append('\t');
+            // [enddef]
+            result[1] = "-";
+        }
 
-            // Append the user name (via IDENT protocol)
-            if (isIdentityCheck()) {
-                // [ifndef gae]
-                org.restlet.engine.log.IdentClient ic = new org.restlet.engine.log.IdentClient(
-                        request.getClientInfo().getUpstreamAddress(), request
-                                .getClientInfo().getPort(), response
-                                .getServerInfo().getPort());
-                sb.append((ic.getUserIdentifier() == null) ? "-" : ic
-                        .getUserIdentifier());
-            } else if ((request.getChallengeResponse() != null)
-                    && (request.getChallengeResponse().getIdentifier() != null)) {
-                sb.append(request.getChallengeResponse().getIdentifier());
-            } else {
-                // [enddef]
-                sb.append('-');
-            }
+        // The server IP address
+        String serverAddress = response.getServerInfo().getAddress();
+        result[2] = (serverAddress == null) ? "-" : serverAddress;
+
+        // The server port
+        Integer serverport = response.getServerInfo().getPort();
+        result[3] = (serverport == null) ? "-" : serverport.toString();
+
+        // The method name
+        String methodName = (request.getMethod() == null) ? "-" : request
+                .getMethod().getName();
+        result[4] = (methodName == null) ? "-" : methodName;
+
+        // The resource path
+        String resourcePath = (request.getResourceRef() == null) ? "-"
+                : request.getResourceRef().getPath();
+        result[5] = (resourcePath == null) ? "-" : resourcePath;
+
+        // The resource query
+        String resourceQuery = (request.getResourceRef() == null) ? "-"
+                : request.getResourceRef().getQuery();
+        result[6] = (resourceQuery == null) ? "-" : resourceQuery;
+
+        // The status code
+        result[7] = (response.getStatus() == null) ? "-" : Integer
+                .toString(response.getStatus().getCode());
+
+        // The returned size
+        if (!response.isEntityAvailable()
+                || Status.REDIRECTION_NOT_MODIFIED.equals(response.getStatus())
+                || Status.SUCCESS_NO_CONTENT.equals(response.getStatus())
+                || Method.HEAD.equals(request.getMethod())) {
+            result[8] = "0";
+        } else {
+            result[8] = (response.getEntity().getSize() == -1) ? "-" : Long
+                    .toString(response.getEntity().getSize());
+        }
 
-            sb.append('\t');
+        // The received size
+        if (request.getEntity() == null) {
+            result[9] = "0";
+        } else {
+            result[9] = (request.getEntity().getSize() == -1) ? "-" : Long
+                    .toString(request.getEntity().getSize());
+        }
 
-            // Append the server IP address
-            String serverAddress = response.getServerInfo().getAddress();
-            sb.append((serverAddress == null) ? "-" : serverAddress);
-            sb.append('\t');
+        // The duration
+        result[10] = Integer.toString(duration);
 
-            // Append the server port
-            Integer serverport = response.getServerInfo().getPort();
-            sb.append((serverport == null) ? "-" : serverport.toString());
-            sb.append('\t');
+        // The host reference
+        result[11] = (request.getHostRef() == null) ? "-" : request
+                .getHostRef().toString();
 
-            // Append the method name
-            String methodName = (request.getMethod() == null) ? "-" : request
-                    .getMethod().getName();
-            sb.append((methodName == null) ? "-" : methodName);
+        // The agent name
+        String agentName = request.getClientInfo().getAgent();
+        result[12] = (agentName == null) ? "-" : agentName;
 
-            // Append the resource path
-            sb.append('\t');
-            String resourcePath = (request.getResourceRef() == null) ? "-"
-                    : request.getResourceRef().getPath();
-            sb.append((resourcePath == null) ? "-" : resourcePath);
+        // The referrer
+        result[13] = (request.getReferrerRef() == null) ? "-" : request
+                .getReferrerRef().getIdentifier();
 
-            // Append the resource query
-            sb.append('\t');
-            String resourceQuery = (request.getResourceRef() == null) ? "-"
-                    : request.getResourceRef().getQuery();
-            sb.append((resourceQuery == null) ? "-" : resourceQuery);
+        return result;
+    }
 
-            // Append the status code
-            sb.append('\t');
-            sb.append((response.getStatus() == null) ? "-" : Integer
-                    .toString(response.getStatus().getCode()));
+    /**
+     * Format a log entry using the default IIS log format.
+     * 
+     * @param time
+     *            The time of the log entry.
+     * @param fields
+     *            The other fields of the log entry.
+     * @return The formatted log entry.
+     * @see #getDefaultResponseLogFields(Response, int)
+     */
+    protected String getDefaultResponseLogMessage(long time, String[] fields) {
+        StringBuilder sb = new StringBuilder();
 
-            // Append the returned size
-            sb.append('\t');
+        // Append the date of the request
+        sb.append(String.format("%tF", time));
+        sb.append('\t');
 
-            if (!response.isEntityAvailable()
-                    || Status.REDIRECTION_NOT_MODIFIED.equals(response
-                            .getStatus())
-                    || Status.SUCCESS_NO_CONTENT.equals(response.getStatus())
-                    || Method.HEAD.equals(request.getMethod())) {
-                sb.append('0');
-            } else {
-                sb.append((response.getEntity().getSize() == -1) ? "-" : Long
-                        .toString(response.getEntity().getSize()));
-            }
+        // Append the time of the request
+        sb.append(String.format("%tT", time));
 
-            // Append the received size
+        for (String field : fields) {
             sb.append('\t');
+            sb.append(field);
+        }
 
-            if (request.getEntity() == null) {
-                sb.append('0');
-            } else {
-                sb.append((request.getEntity().getSize() == -1) ? "-" : Long
-                        .toString(request.getEntity().getSize()));
-            }
+        return sb.toString();
+    }
 
-            // Append the duration
-            sb.append('\t');
-            sb.append(duration);
+    /**
+     * Format a log entry using the default IIS log format.
+     * 
+     * @param response
+     *            The response to log.
+     * @param duration
+     *            The call duration (in milliseconds).
+     * @return The formatted log entry.
+     */
+    protected String getDefaultResponseLogMessage(Response response,
+            int duration) {
+        String result = "";
 
-            // Append the host reference
-            sb.append('\t');
-            sb.append((request.getHostRef() == null) ? "-" : request
-                    .getHostRef().toString());
+        if (!isDebugging()) {
+            result = getDefaultResponseLogMessage(System.currentTimeMillis(),
+                    getDefaultResponseLogFields(response, duration));
+        }
 
-            // Append the agent name
-            sb.append('\t');
-            String agentName = request.getClientInfo().getAgent();
-            sb.append((agentName == null) ? "-" : agentName);
+        return result;
+    }
 
-            // Append the referrer
-            sb.append('\t');
-            sb.append((request.getReferrerRef() == null) ? "-" : request
-                    .getReferrerRef().getIdentifier());
-        }
+    /**
+     * Returns the asynchronous log writer, available after the start of the
+     * service when the asynchronous mode is enabled.
+     * 
+     * @return The asynchronous log writer or null.
+     */
+    public AsyncLogWriter getAsyncWriter() {
+        return asyncWriter;
+    }
 
-        return sb.toString();
+    /**
+     * Returns the number of log entries dropped because the queue of the
+     * asynchronous mode was full.
+     * 
+     * @return The number of dropped log entries.
+     */
+    public long getDroppedCount() {
+        AsyncLogWriter writer = getAsyncWriter();
+        return (writer == null) ? 0 : writer.getDroppedCount();
     }
 
     /**
@@ -304,6 +459,17 @@ public class LogService extends Service {
         return this.loggerName;
     }
 
+    /**
+     * Returns the path of the file directly written in asynchronous mode. Null
+     * by default, meaning that the log entries are passed to the JDK's logger
+     * by the background thread.
+     * 
+     * @return The path of the file directly written in asynchronous mode.
+     */
+    public String getLogFilePath() {
+        return logFilePath;
+    }
+
     /**
      * Returns the URI reference of the log properties.
      * 
@@ -313,6 +479,16 @@ public class LogService extends Service {
         return logPropertiesRef;
     }
 
+    /**
+     * Returns the capacity of the queue of log entries in asynchronous mode.
+     * Default value is 8192.
+     * 
+     * @return The capacity of the queue of log entries.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
     /**
      * Returns the format used when logging responses.
      * 
@@ -347,6 +523,16 @@ public class LogService extends Service {
         return result;
     }
 
+    /**
+     * Indicates if the log entries are written asynchronously. Default value
+     * is false.
+     * 
+     * @return True if the log entries are written asynchronously.
+     */
+    public boolean isAsynchronous() {
+        return asynchronous;
+    }
+
     /**
      * Indicates if the debugging mode is enabled. False by default.
      * 
@@ -380,6 +566,52 @@ public class LogService extends Service {
                 .match(request.getResourceRef().getTargetRef().toString()) > 0;
     }
 
+    /**
+     * Indicates if a method of this service is overridden by a subclass.
+     * 
+     * @param name
+     *            The method name.
+     * @param parameterTypes
+     *            The method parameter types.
+     * @return True if the method is overridden.
+     */
+    private boolean isOverridden(String name, Class<?>... parameterTypes) {
+        boolean result = false;
+
+        for (Class<?> c = getClass(); !result && (c != LogService.class); c = c
+                .getSuperclass()) {
+            try {
+                c.getDeclaredMethod(name, parameterTypes);
+                result = true;
+            } catch (NoSuchMethodException e) {
+                // Look in the superclass
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if a full queue blocks the callers in asynchronous mode instead
+     * of dropping the new log entries. Default value is false.
+     * 
+     * @return True if a full queue blocks the callers.
+     */
+    public boolean isQueueBlocking() {
+        return queueBlocking;
+    }
+
+    /**
+     * Indicates if the log entries are written asynchronously. Takes effect at
+     * the next start of the service.
+     * 
+     * @param asynchronous
+     *            True if the log entries are written asynchronously.
+     */
+    public void setAsynchronous(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
     /**
      * Indicates if the debugging mode is enabled.
      * 
@@ -449,6 +681,16 @@ public class LogService extends Service {
         this.loggerName = name;
     }
 
+    /**
+     * Sets the path of the file directly written in asynchronous mode.
+     * 
+     * @param logFilePath
+     *            The path of the file directly written in asynchronous mode.
+     */
+    public void setLogFilePath(String logFilePath) {
+        this.logFilePath = logFilePath;
+    }
+
     /**
      * Sets the URI reference of the log properties.
      * 
@@ -469,6 +711,27 @@ public class LogService extends Service {
         setLogPropertiesRef(new Reference(logPropertiesUri));
     }
 
+    /**
+     * Indicates if a full queue blocks the callers in asynchronous mode instead
+     * of dropping the new log entries.
+     * 
+     * @param queueBlocking
+     *            True if a full queue blocks the callers.
+     */
+    public void setQueueBlocking(boolean queueBlocking) {
+        this.queueBlocking = queueBlocking;
+    }
+
+    /**
+     * Sets the capacity of the queue of log entries in asynchronous mode.
+     * 
+     * @param queueCapacity
+     *            The capacity of the queue of log entries.
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
     /**
      * Sets the format to use when logging responses. The default format matches
      * the one of IIS 6.
@@ -491,6 +754,10 @@ public class LogService extends Service {
 
         this.responseLogTemplate = (getLogFormat() == null) ? null
                 : new Template(getLogFormat());
+        this.messageOverridden = isOverridden("getResponseLogMessage",
+                Response.class, Integer.TYPE)
+                || isOverridden("getDefaultResponseLogMessage",
+                        Response.class, Integer.TYPE);
 
         if (getLogPropertiesRef() != null) {
             Representation logProperties = new ClientResource(getContext(),
@@ -501,5 +768,27 @@ public class LogService extends Service {
                         logProperties.getStream());
             }
         }
+
+        if (isEnabled() && isAsynchronous() && (this.asyncWriter == null)) {
+            this.asyncWriter = new AsyncLogWriter(this, getQueueCapacity(),
+                    isQueueBlocking(), getLogFilePath());
+            this.asyncWriter.start();
+        }
+    }
+
+    /**
+     * Stops the log service, flushing the pending log entries in asynchronous
+     * mode.
+     */
+    @Override
+    public synchronized void stop() throws Exception {
+        AsyncLogWriter writer = this.asyncWriter;
+
+        if (writer != null) {
+            this.asyncWriter = null;
+            writer.stop();
+        }
+
+        super.stop();
     }
 }
@@ -53,6 +53,9 @@ import org.restlet.Application;
 import org.restlet.Context;
 import org.restlet.Response;
 import org.restlet.engine.Engine;
+import org.restlet.engine.connector.ThreadPerTaskWorkerService;
+import org.restlet.engine.util.HandOffScheduledExecutorService;
+import org.restlet.engine.util.SystemUtils;
 import org.restlet.routing.VirtualHost;
 
 /**
@@ -69,7 +72,14 @@ import org.restlet.routing.VirtualHost;
  * Resources that are part of your context. In general this context corresponds
  * to a parent Application's context. If you want to have your own service
  * instance, you can use the {@link TaskService#wrap(ScheduledExecutorService)}
- * method to ensure that thread local variables are correctly set.
+ * method to ensure that thread local variables are correctly set.<br>
+ * <br>
+ * When the "virtualThreads" property is set and the JVM supports them (Java 21
+ * or later), tasks are executed by virtual threads. A single platform thread
+ * triggers the scheduled tasks and a new virtual thread is started for each
+ * execution. The core pool size then limits the number of tasks executed
+ * concurrently rather than the number of platform threads, and can be set much
+ * higher for tasks blocking on I/O.
  * 
  * @author Jerome Louvel
  * @author Doug Lea (docs of ExecutorService in public domain)
@@ -228,6 +238,9 @@ public class TaskService extends Service implements ScheduledExecutorService {
     /** The core pool size defining the maximum number of threads. */
     private volatile int corePoolSize;
 
+    /** Indicates if the tasks should be executed by virtual threads. */
+    private volatile boolean virtualThreads;
+
     /**
      * Constructor. Set the core pool size to 4 by default.
      */
@@ -241,6 +254,7 @@ public class TaskService extends Service implements ScheduledExecutorService {
     public TaskService(int corePoolSize) {
         this.corePoolSize = corePoolSize;
         this.shutdownAllowed = false;
+        this.virtualThreads = false;
     }
 
     /**
@@ -264,15 +278,43 @@ public class TaskService extends Service implements ScheduledExecutorService {
     /**
      * Creates a new JDK executor service that will be wrapped. By default it
      * calls {@link Executors#newCachedThreadPool(ThreadFactory)}, passing the
-     * result of {@link #createThreadFactory()} as a parameter.
+     * result of {@link #createThreadFactory()} as a parameter.<br>
+     * <br>
+     * If virtual threads are enabled and supported by the JVM, a single thread
+     * created by {@link #createThreadFactory()} triggers the scheduled tasks
+     * and hands them off to new virtual threads, at most "corePoolSize" of
+     * them running concurrently.
      * 
      * @param corePoolSize
      *            The core pool size defining the maximum number of threads.
      * @return A new JDK executor service.
      */
     protected ScheduledExecutorService createExecutorService(int corePoolSize) {
-        return Executors.newScheduledThreadPool(corePoolSize,
-                createThreadFactory());
+        ScheduledExecutorService result = null;
+        ThreadFactory virtualFactory = null;
+
+        if (isVirtualThreads()) {
+            virtualFactory = SystemUtils
+                    .getVirtualThreadFactory("restlet-task-");
+
+            if (virtualFactory == null) {
+                Context.getCurrentLogger()
+                        .info("Virtual threads aren't supported by the current JVM. Using platform threads instead.");
+            }
+        }
+
+        if (virtualFactory != null) {
+            // Virtual threads shouldn't be pooled, so only the scheduling is
+            // done by a platform thread
+            result = new HandOffScheduledExecutorService(createThreadFactory(),
+                    new ThreadPerTaskWorkerService(corePoolSize,
+                            virtualFactory));
+        } else {
+            result = Executors.newScheduledThreadPool(corePoolSize,
+                    createThreadFactory());
+        }
+
+        return result;
     }
 
     /**
@@ -443,6 +485,16 @@ public class TaskService extends Service implements ScheduledExecutorService {
         return (getWrapped() == null) || getWrapped().isTerminated();
     }
 
+    /**
+     * Indicates if the tasks should be executed by virtual threads, when
+     * supported by the JVM. Returns false by default.
+     * 
+     * @return True if the tasks should be executed by virtual threads.
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
     /**
      * Creates and executes a ScheduledFuture that becomes enabled after the
      * given delay.
@@ -575,6 +627,17 @@ public class TaskService extends Service implements ScheduledExecutorService {
         this.shutdownAllowed = allowShutdown;
     }
 
+    /**
+     * Indicates if the tasks should be executed by virtual threads, when
+     * supported by the JVM. Must be set before the service is started.
+     * 
+     * @param virtualThreads
+     *            True if the tasks should be executed by virtual threads.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
     /**
      * Sets the wrapped JDK executor service.
      * 
@@ -33,6 +33,7 @@
 
 package org.restlet.util;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
@@ -41,6 +42,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
+import org.restlet.engine.util.RouteTrie;
 import org.restlet.routing.Route;
 
 /**
@@ -50,13 +52,18 @@ import org.restlet.routing.Route;
  * {@link List}, in particular all the helper methods in {@link Collections}.<br>
  * <br>
  * Note that structural changes to this list are thread-safe, using an
- * underlying {@link CopyOnWriteArrayList}.
+ * underlying {@link CopyOnWriteArrayList}. Those changes also discard the
+ * compiled trie used by the {@link #getCompiledBest(Request, Response, float)}
+ * and {@link #getCompiledFirst(Request, Response, float)} methods.
  * 
  * @author Jerome Louvel
  * @see java.util.Collections
  * @see java.util.List
  */
 public final class RouteList extends WrapperList<Route> {
+    /** The compiled trie of routes, lazily created. */
+    private volatile RouteTrie compiledRoutes;
+
     /** The index of the last route used in the round robin mode. */
     private volatile int lastIndex;
 
@@ -79,6 +86,52 @@ public final class RouteList extends WrapperList<Route> {
         this.lastIndex = -1;
     }
 
+    @Override
+    public synchronized boolean add(Route route) {
+        this.compiledRoutes = null;
+        return super.add(route);
+    }
+
+    @Override
+    public synchronized void add(int index, Route route) {
+        this.compiledRoutes = null;
+        super.add(index, route);
+    }
+
+    @Override
+    public synchronized boolean addAll(Collection<? extends Route> routes) {
+        this.compiledRoutes = null;
+        return super.addAll(routes);
+    }
+
+    @Override
+    public synchronized boolean addAll(int index,
+            Collection<? extends Route> routes) {
+        this.compiledRoutes = null;
+        return super.addAll(index, routes);
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.compiledRoutes = null;
+        super.clear();
+    }
+
+    /**
+     * Compiles the current routes into a trie of URI path segments. This is
+     * done automatically when the compiled trie is first needed after a
+     * structural change, but must be called explicitly when the templates or
+     * the matching modes of the routes are modified after they were added.
+     * 
+     * @return The compiled trie.
+     * @see RouteTrie
+     */
+    public synchronized RouteTrie compile() {
+        RouteTrie result = new RouteTrie(getDelegate());
+        this.compiledRoutes = result;
+        return result;
+    }
+
     /**
      * Returns the best route match for a given call.
      * 
@@ -107,6 +160,73 @@ public final class RouteList extends WrapperList<Route> {
         return result;
     }
 
+    /**
+     * Returns the best route match for a given call, relying on a compiled trie
+     * of the routes. The result is the same as the one of the
+     * {@link #getBest(Request, Response, float)} method.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The best route match or null.
+     */
+    public Route getCompiledBest(Request request, Response response,
+            float requiredScore) {
+        if (requiredScore <= 0F) {
+            // Non matching routes would be selected
+            return getBest(request, response, requiredScore);
+        }
+
+        return getCompiledRoutes().getBest(request, response, requiredScore);
+    }
+
+    /**
+     * Returns the first route match for a given call, relying on a compiled
+     * trie of the routes. The result is the same as the one of the
+     * {@link #getFirst(Request, Response, float)} method.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The first route match or null.
+     */
+    public Route getCompiledFirst(Request request, Response response,
+            float requiredScore) {
+        if (requiredScore <= 0F) {
+            // Non matching routes would be selected
+            return getFirst(request, response, requiredScore);
+        }
+
+        return getCompiledRoutes().getFirst(request, response, requiredScore);
+    }
+
+    /**
+     * Returns the compiled trie of routes. Compiles it if needed.
+     * 
+     * @return The compiled trie of routes.
+     */
+    private RouteTrie getCompiledRoutes() {
+        RouteTrie result = this.compiledRoutes;
+
+        if (result == null) {
+            synchronized (this) {
+                result = this.compiledRoutes;
+
+                if (result == null) {
+                    result = compile();
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the first route match for a given call.
      * 
@@ -229,6 +349,18 @@ public final class RouteList extends WrapperList<Route> {
         return null;
     }
 
+    @Override
+    public synchronized Route remove(int index) {
+        this.compiledRoutes = null;
+        return super.remove(index);
+    }
+
+    @Override
+    public synchronized boolean remove(Object route) {
+        this.compiledRoutes = null;
+        return super.remove(route);
+    }
+
     /**
      * Removes all routes routing to a given target.
      * 
@@ -243,6 +375,24 @@ public final class RouteList extends WrapperList<Route> {
         }
     }
 
+    @Override
+    public synchronized boolean removeAll(Collection<?> routes) {
+        this.compiledRoutes = null;
+        return super.removeAll(routes);
+    }
+
+    @Override
+    public synchronized boolean retainAll(Collection<?> routes) {
+        this.compiledRoutes = null;
+        return super.retainAll(routes);
+    }
+
+    @Override
+    public synchronized Route set(int index, Route route) {
+        this.compiledRoutes = null;
+        return super.set(index, route);
+    }
+
     /**
      * Returns a view of the portion of this list between the specified
      * fromIndex, inclusive, and toIndex, exclusive.